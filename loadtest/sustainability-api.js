@@ -0,0 +1,130 @@
+// k6 load test for the sustainability API. Run it once against each serving mode with the same
+// container limits (see docker-compose.loadtest.yml) and compare the summaries:
+//
+//   APP_PROFILES=docker          docker compose -f docker-compose.yml -f loadtest/docker-compose.loadtest.yml up -d
+//   APP_PROFILES=docker,reactive docker compose -f docker-compose.yml -f loadtest/docker-compose.loadtest.yml up -d
+//   docker compose -f docker-compose.yml -f loadtest/docker-compose.loadtest.yml run --rm k6
+//
+// Tunables: BASE_URL, WAREHOUSES, SEED_DAYS, INGEST_RATE (requests/s at peak), READ_VUS, DURATION.
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8100';
+const API = `${BASE_URL}/api/v1/sustainability`;
+const WAREHOUSES = parseInt(__ENV.WAREHOUSES || '50');
+const SEED_DAYS = parseInt(__ENV.SEED_DAYS || '90');
+const INGEST_RATE = parseInt(__ENV.INGEST_RATE || '2000');
+const READ_VUS = parseInt(__ENV.READ_VUS || '200');
+const DURATION = __ENV.DURATION || '5m';
+const SEED_START = new Date(Date.UTC(2025, 0, 1));
+
+const streamedRows = new Trend('streamed_rows');
+
+export const options = {
+  setupTimeout: '10m',
+  scenarios: {
+    // Ingestion burst: ramps well past what the servlet pool can hold open while waiting on Mongo
+    ingest: {
+      executor: 'ramping-arrival-rate',
+      exec: 'ingest',
+      startRate: Math.max(1, Math.floor(INGEST_RATE / 10)),
+      timeUnit: '1s',
+      preAllocatedVUs: 500,
+      maxVUs: 5000,
+      stages: [
+        { target: INGEST_RATE, duration: '1m' },
+        { target: INGEST_RATE, duration: DURATION },
+        { target: 0, duration: '30s' },
+      ],
+    },
+    // Large range reads, as JSON array and as NDJSON stream
+    reads: {
+      executor: 'constant-vus',
+      exec: 'read',
+      vus: READ_VUS,
+      duration: DURATION,
+      startTime: '1m',
+    },
+    // Dashboard report polling, mostly served from the report cache
+    reports: {
+      executor: 'constant-arrival-rate',
+      exec: 'report',
+      rate: 200,
+      timeUnit: '1s',
+      preAllocatedVUs: 100,
+      duration: DURATION,
+      startTime: '1m',
+    },
+  },
+  thresholds: {
+    'http_req_failed': ['rate<0.01'],
+    'http_req_duration{scenario:ingest}': ['p(95)<250', 'p(99)<1000'],
+    'http_req_duration{scenario:reports}': ['p(95)<100'],
+  },
+  summaryTrendStats: ['avg', 'med', 'p(90)', 'p(95)', 'p(99)', 'max'],
+};
+
+function warehouse(i) {
+  return `WH-LT-${String(i % WAREHOUSES).padStart(3, '0')}`;
+}
+
+function day(offset) {
+  const d = new Date(SEED_START.getTime() + offset * 86400000);
+  return d.toISOString().slice(0, 10);
+}
+
+function emission(warehouseId, recordDate) {
+  return {
+    warehouseId,
+    recordDate,
+    emissionType: 'SCOPE1_DIRECT',
+    emissionsBySource: { 'Forklift Fleet': 100 + Math.random() * 50, 'Delivery Vans': 200 + Math.random() * 100 },
+    notes: 'k6',
+  };
+}
+
+// Seeds every warehouse with one footprint per day through the bulk endpoint
+export function setup() {
+  for (let w = 0; w < WAREHOUSES; w++) {
+    const lines = [];
+    for (let d = 0; d < SEED_DAYS; d++) {
+      lines.push(JSON.stringify(emission(warehouse(w), day(d))));
+    }
+    const res = http.post(`${API}/emissions:bulk`, lines.join('\n') + '\n', {
+      headers: { 'Content-Type': 'application/x-ndjson' },
+      timeout: '120s',
+    });
+    check(res, { 'seeded': (r) => r.status === 200 });
+  }
+}
+
+export function ingest() {
+  const body = emission(warehouse(Math.floor(Math.random() * WAREHOUSES)), day(Math.floor(Math.random() * SEED_DAYS)));
+  const res = http.post(`${API}/emissions`, JSON.stringify(body), {
+    headers: { 'Content-Type': 'application/json', 'Idempotency-Key': `k6-${__VU}-${__ITER}` },
+  });
+  check(res, { 'created': (r) => r.status === 201 });
+}
+
+export function read() {
+  const w = warehouse(Math.floor(Math.random() * WAREHOUSES));
+  const range = `warehouseId=${w}&startDate=${day(0)}&endDate=${day(SEED_DAYS - 1)}`;
+  if (Math.random() < 0.5) {
+    const res = http.get(`${API}/emissions?${range}`);
+    check(res, { 'listed': (r) => r.status === 200 });
+  } else {
+    const res = http.get(`${API}/emissions:stream?${range}`);
+    check(res, { 'streamed': (r) => r.status === 200 });
+    if (res.body) {
+      streamedRows.add(res.body.split('\n').filter((l) => l.length > 0).length);
+    }
+  }
+}
+
+export function report() {
+  const w = warehouse(Math.floor(Math.random() * WAREHOUSES));
+  const month = day(Math.floor(Math.random() * SEED_DAYS)).slice(0, 7);
+  const res = http.get(`${API}/reports?warehouseId=${w}&yearMonth=${month}&period=MONTHLY`);
+  check(res, { 'reported': (r) => r.status === 200 });
+}
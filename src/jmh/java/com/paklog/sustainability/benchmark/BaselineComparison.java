@@ -0,0 +1,118 @@
+package com.paklog.sustainability.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file against a recorded baseline and exits with status 1 if any benchmark
+ * lost more than the threshold in throughput or allocates that much more per operation.
+ * <p>
+ * Usage: {@code BaselineComparison <baseline.json> <result.json> [threshold]}, threshold as a fraction
+ * (default 0.10). Throughput is only comparable between runs on the same machine; allocation per
+ * operation ({@code gc.alloc.rate.norm}) is largely machine-independent.
+ */
+public final class BaselineComparison {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    // Allocation differences below this many bytes per operation are noise (TLAB sampling, alignment)
+    private static final double ALLOCATION_SLACK_BYTES = 64;
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <result.json> [threshold]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        File resultFile = new File(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        if (!resultFile.isFile()) {
+            System.err.println("No benchmark results at " + resultFile + "; run the benchmarks first");
+            System.exit(2);
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = baselineFile.isFile() ? index(mapper.readTree(baselineFile)) : Map.of();
+        Map<String, JsonNode> current = index(mapper.readTree(resultFile));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %8s %12s %12s%n",
+                "Benchmark", "baseline", "current", "change", "B/op base", "B/op now");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            double score = now.path("primaryMetric").path("score").asDouble();
+            double allocated = allocation(now);
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.1f %8s %12s %12.0f%n", entry.getKey(), "-", score, "new", "-", allocated);
+                continue;
+            }
+            double baseScore = before.path("primaryMetric").path("score").asDouble();
+            double baseAllocated = allocation(before);
+            double change = baseScore > 0 ? (score - baseScore) / baseScore : 0;
+
+            boolean slower = lowerIsBetter(now) ? change > threshold : change < -threshold;
+            boolean allocatesMore = !Double.isNaN(allocated) && !Double.isNaN(baseAllocated)
+                    && allocated - baseAllocated > Math.max(ALLOCATION_SLACK_BYTES, baseAllocated * threshold);
+            String flag = slower || allocatesMore ? "  REGRESSION" + (slower ? " (score)" : "") + (allocatesMore ? " (alloc)" : "") : "";
+            if (!flag.isEmpty()) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.1f %14.1f %+7.1f%% %12.0f %12.0f%s%n",
+                    entry.getKey(), baseScore, score, change * 100, baseAllocated, allocated, flag);
+        }
+        for (String missing : baseline.keySet()) {
+            if (!current.containsKey(missing)) {
+                System.out.printf("%-90s not run%n", missing);
+            }
+        }
+
+        if (baseline.isEmpty()) {
+            System.out.println("No baseline at " + baselineFile + "; copy " + resultFile + " there to create one");
+        } else if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + Math.round(threshold * 100) + "%");
+            System.exit(1);
+        } else {
+            System.out.println("No regressions beyond " + Math.round(threshold * 100) + "%");
+        }
+    }
+
+    /**
+     * Results keyed by benchmark method and parameters, e.g. {@code ...FootprintBenchmark.addEmission sources=64}.
+     */
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> indexed = new TreeMap<>();
+        for (JsonNode result : results) {
+            Map<String, String> params = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replace("com.paklog.sustainability.benchmark.", ""));
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            indexed.put(key.toString(), result);
+        }
+        return indexed;
+    }
+
+    private static double allocation(JsonNode result) {
+        JsonNode metric = result.path("secondaryMetrics").path(ALLOCATION);
+        return metric.isMissingNode() ? Double.NaN : metric.path("score").asDouble();
+    }
+
+    private static boolean lowerIsBetter(JsonNode result) {
+        String mode = result.path("mode").asText();
+        return mode.equals("avgt") || mode.equals("sample") || mode.equals("ss");
+    }
+}
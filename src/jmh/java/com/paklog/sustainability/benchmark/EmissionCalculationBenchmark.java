@@ -0,0 +1,112 @@
+package com.paklog.sustainability.benchmark;
+
+import com.paklog.sustainability.domain.service.EmissionCalculationService;
+import com.paklog.sustainability.domain.service.EmissionFactorCatalog;
+import com.paklog.sustainability.domain.valueobject.FuelClass;
+import com.paklog.sustainability.domain.valueobject.VehicleClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emission calculations over a batch of activity rows, row by row through the string-keyed methods
+ * and column-wise through the array methods. The catalog holds only its defaults, as it does before
+ * the first emission source is stored.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmissionCalculationBenchmark {
+
+    private static final String[] ACTIVITIES = {
+            "FORKLIFT_FUEL", "ELECTRICITY", "SHIPPING", "PACKAGING", "WASTE", "UNKNOWN_ACTIVITY"};
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private EmissionCalculationService calculationService;
+    private double[] liters;
+    private double[] distanceKm;
+    private double[] loadTons;
+    private byte[] fuelCodes;
+    private byte[] vehicleCodes;
+    private String[] fuelNames;
+    private String[] vehicleNames;
+    private String[] activities;
+    private double[] out;
+
+    @Setup
+    public void setUp() {
+        // The catalog only reads its repository on reload, which the benchmark never triggers
+        EmissionFactorCatalog catalog = new EmissionFactorCatalog(null, new SimpleMeterRegistry(), 2.68, 2.31, 0.92);
+        calculationService = new EmissionCalculationService(catalog);
+
+        SyntheticData data = new SyntheticData(19);
+        liters = data.doubles(rows, 5, 400);
+        distanceKm = data.doubles(rows, 1, 1_200);
+        loadTons = data.doubles(rows, 0.1, 24);
+        fuelCodes = data.codes(rows, FuelClass.values().length);
+        vehicleCodes = data.codes(rows, VehicleClass.values().length);
+        fuelNames = new String[rows];
+        vehicleNames = new String[rows];
+        activities = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            fuelNames[i] = FuelClass.fromCode(fuelCodes[i]).name();
+            vehicleNames[i] = VehicleClass.fromCode(vehicleCodes[i]).name();
+            activities[i] = ACTIVITIES[i % ACTIVITIES.length];
+        }
+        out = new double[rows];
+    }
+
+    @Benchmark
+    public double fuelPerRow() {
+        double sum = 0;
+        for (int i = 0; i < rows; i++) {
+            sum += calculationService.calculateFuelEmissions(fuelNames[i], liters[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double[] fuelColumnar() {
+        calculationService.calculateFuelEmissions(liters, fuelCodes, out);
+        return out;
+    }
+
+    @Benchmark
+    public double transportationPerRow() {
+        double sum = 0;
+        for (int i = 0; i < rows; i++) {
+            sum += calculationService.calculateTransportationEmissions(distanceKm[i], vehicleNames[i], loadTons[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double[] transportationColumnar() {
+        calculationService.calculateTransportationEmissions(distanceKm, loadTons, vehicleCodes, out);
+        return out;
+    }
+
+    @Benchmark
+    public void determineScope(Blackhole blackhole) {
+        for (int i = 0; i < rows; i++) {
+            blackhole.consume(calculationService.determineScope(activities[i]));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.paklog.sustainability.benchmark;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a footprint's per-source breakdown, one source at a time and from a map.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FootprintBenchmark {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 14);
+
+    @Param({"8", "64"})
+    public int sources;
+
+    private String[] sourceNames;
+    private double[] co2eKg;
+    private Map<String, Double> bySource;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(19);
+        sourceNames = data.sources(sources);
+        co2eKg = data.doubles(sources, 0.5, 250.0);
+        bySource = new LinkedHashMap<>();
+        for (int i = 0; i < sources; i++) {
+            bySource.put(sourceNames[i], co2eKg[i]);
+        }
+    }
+
+    @Benchmark
+    public CarbonFootprint addEmission() {
+        CarbonFootprint footprint = CarbonFootprint.builder().warehouseId("WH-BENCH").recordDate(DAY).build();
+        for (int i = 0; i < sourceNames.length; i++) {
+            footprint.addEmission(sourceNames[i], co2eKg[i]);
+        }
+        return footprint;
+    }
+
+    @Benchmark
+    public CarbonFootprint addEmissions() {
+        CarbonFootprint footprint = CarbonFootprint.builder().warehouseId("WH-BENCH").recordDate(DAY).build();
+        footprint.addEmissions(bySource);
+        return footprint;
+    }
+}
@@ -0,0 +1,86 @@
+package com.paklog.sustainability.benchmark;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+import com.paklog.sustainability.domain.service.ESGReportingService;
+import com.paklog.sustainability.domain.valueobject.ReportTotals;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report generation from materialized footprints and metrics, as in the {@code RAW} aggregation mode,
+ * and composition of a quarterly report from stored monthly reports.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportGenerationBenchmark {
+
+    private static final String WAREHOUSE = "WH-BENCH";
+    private static final YearMonth FIRST_MONTH = YearMonth.of(2024, 1);
+
+    @Param({"1", "12"})
+    public int months;
+
+    @Param({"20"})
+    public int footprintsPerDay;
+
+    @Param({"60"})
+    public int metricsPerDay;
+
+    private ESGReportingService reportingService;
+    private List<CarbonFootprint> footprints;
+    private List<SustainabilityMetric> metrics;
+    private List<ESGReport> monthlyReports;
+
+    @Setup
+    public void setUp() {
+        reportingService = new ESGReportingService(new SimpleMeterRegistry());
+        SyntheticData data = new SyntheticData(19);
+        String[] sources = data.sources(120);
+        footprints = data.footprints(WAREHOUSE, FIRST_MONTH, months, footprintsPerDay, sources, 16);
+        metrics = data.metrics(WAREHOUSE, FIRST_MONTH, months, metricsPerDay);
+
+        monthlyReports = new ArrayList<>();
+        for (int m = 0; m < 3; m++) {
+            YearMonth month = FIRST_MONTH.plusMonths(m);
+            monthlyReports.add(reportingService.generateReport(WAREHOUSE, month, ReportingPeriod.MONTHLY,
+                    data.footprints(WAREHOUSE, month, 1, footprintsPerDay, sources, 16),
+                    data.metrics(WAREHOUSE, month, 1, metricsPerDay)));
+        }
+    }
+
+    @Benchmark
+    public ESGReport generateFromFootprints() {
+        return reportingService.generateReport(WAREHOUSE, FIRST_MONTH, ReportingPeriod.MONTHLY, footprints, metrics);
+    }
+
+    @Benchmark
+    public ESGReport composeQuarter() {
+        ReportTotals totals = new ReportTotals();
+        for (ESGReport report : monthlyReports) {
+            totals.merge(reportingService.totalsOf(report));
+        }
+        return reportingService.generateReport(WAREHOUSE, FIRST_MONTH, ReportingPeriod.QUARTERLY, totals);
+    }
+}
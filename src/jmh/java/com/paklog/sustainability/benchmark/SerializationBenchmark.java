@@ -0,0 +1,87 @@
+package com.paklog.sustainability.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.service.ESGReportingService;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import com.paklog.sustainability.infrastructure.config.JacksonConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON through the application's {@link JacksonConfig} mapper: single footprints as posted and
+ * returned by the API, a page of footprints as listed, and a report.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 3);
+
+    @Param({"8", "64"})
+    public int sources;
+
+    private ObjectWriter writer;
+    private ObjectReader footprintReader;
+    private CarbonFootprint footprint;
+    private byte[] footprintJson;
+    private List<CarbonFootprint> page;
+    private ESGReport report;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper mapper = new JacksonConfig().objectMapper();
+        writer = mapper.writer();
+        footprintReader = mapper.readerFor(CarbonFootprint.class);
+
+        SyntheticData data = new SyntheticData(19);
+        String[] warehouseSources = data.sources(Math.max(sources, 120));
+        page = data.footprints("WH-BENCH", MONTH, 1, 33, warehouseSources, sources).subList(0, 1000);
+        footprint = page.get(0);
+        footprintJson = writer.writeValueAsBytes(footprint);
+        report = new ESGReportingService(new SimpleMeterRegistry())
+                .generateReport("WH-BENCH", MONTH, ReportingPeriod.MONTHLY, page, data.metrics("WH-BENCH", MONTH, 1, 60));
+    }
+
+    @Benchmark
+    public byte[] writeFootprint() throws JsonProcessingException {
+        return writer.writeValueAsBytes(footprint);
+    }
+
+    @Benchmark
+    public CarbonFootprint readFootprint() throws Exception {
+        return footprintReader.readValue(footprintJson);
+    }
+
+    @Benchmark
+    public byte[] writeFootprintPage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] writeReport() throws JsonProcessingException {
+        return writer.writeValueAsBytes(report);
+    }
+}
@@ -0,0 +1,118 @@
+package com.paklog.sustainability.benchmark;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.MetricCategory;
+import com.paklog.sustainability.domain.valueobject.MetricUnit;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic warehouse data for benchmarks. The same seed always yields the same data,
+ * so results stay comparable across runs and against a recorded baseline.
+ */
+final class SyntheticData {
+
+    private static final String[] SOURCE_KINDS = {
+            "FORKLIFT_FUEL", "COMPANY_VEHICLE", "GENERATOR", "ELECTRICITY", "HEATING", "COOLING",
+            "TRANSPORTATION", "SHIPPING", "PACKAGING", "SUPPLIES", "WASTE"};
+    private static final EmissionType[] EMISSION_TYPES = EmissionType.values();
+    private static final MetricCategory[] CATEGORIES = MetricCategory.values();
+    private static final MetricUnit[] UNITS = MetricUnit.values();
+
+    private final SplittableRandom random;
+
+    SyntheticData(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Source names of one warehouse, e.g. {@code FORKLIFT_FUEL-007}; real sites run dozens of
+     * forklifts, meters and carriers, each tracked as its own source.
+     */
+    String[] sources(int count) {
+        String[] sources = new String[count];
+        for (int i = 0; i < count; i++) {
+            sources[i] = SOURCE_KINDS[i % SOURCE_KINDS.length] + "-" + String.format("%03d", i / SOURCE_KINDS.length);
+        }
+        return sources;
+    }
+
+    CarbonFootprint footprint(String warehouseId, LocalDate day, String[] sources) {
+        CarbonFootprint footprint = CarbonFootprint.builder()
+                .footprintId(warehouseId + "-" + day + "-" + random.nextInt(1_000_000))
+                .warehouseId(warehouseId)
+                .recordDate(day)
+                .emissionType(EMISSION_TYPES[random.nextInt(EMISSION_TYPES.length)])
+                .calculationMethod("GHG_PROTOCOL")
+                .build();
+        for (String source : sources) {
+            footprint.addEmission(source, random.nextDouble(0.5, 250.0));
+        }
+        return footprint;
+    }
+
+    /**
+     * {@code perDay} footprints for every day of {@code months} months starting at {@code first}, each
+     * with a random subset of {@code sourcesPerFootprint} of the warehouse's sources.
+     */
+    List<CarbonFootprint> footprints(String warehouseId, YearMonth first, int months, int perDay,
+                                     String[] warehouseSources, int sourcesPerFootprint) {
+        List<CarbonFootprint> footprints = new ArrayList<>();
+        String[] picked = new String[Math.min(sourcesPerFootprint, warehouseSources.length)];
+        for (LocalDate day = first.atDay(1); day.isBefore(first.plusMonths(months).atDay(1)); day = day.plusDays(1)) {
+            for (int i = 0; i < perDay; i++) {
+                int offset = random.nextInt(warehouseSources.length);
+                for (int s = 0; s < picked.length; s++) {
+                    picked[s] = warehouseSources[(offset + s) % warehouseSources.length];
+                }
+                footprints.add(footprint(warehouseId, day, picked));
+            }
+        }
+        return footprints;
+    }
+
+    /**
+     * A wide metric set: {@code perDay} readings per day, spread over report categories and
+     * categories reports ignore (roughly one in three), as metering exports contain both.
+     */
+    List<SustainabilityMetric> metrics(String warehouseId, YearMonth first, int months, int perDay) {
+        List<SustainabilityMetric> metrics = new ArrayList<>();
+        for (LocalDate day = first.atDay(1); day.isBefore(first.plusMonths(months).atDay(1)); day = day.plusDays(1)) {
+            for (int i = 0; i < perDay; i++) {
+                SustainabilityMetric metric = new SustainabilityMetric();
+                metric.setMetricId(warehouseId + "-" + day + "-m" + i);
+                metric.setWarehouseId(warehouseId);
+                metric.setRecordDate(day);
+                metric.setMetricName("meter-" + i);
+                metric.setUnit(UNITS[random.nextInt(UNITS.length)]);
+                metric.setValue(random.nextDouble(0.0, 5_000.0));
+                metric.setCategory(i % 3 == 2 ? "OTHER_" + i : CATEGORIES[i % CATEGORIES.length].name());
+                metric.setSource("meter-export");
+                metrics.add(metric);
+            }
+        }
+        return metrics;
+    }
+
+    double[] doubles(int count, double min, double max) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextDouble(min, max);
+        }
+        return values;
+    }
+
+    byte[] codes(int count, int classes) {
+        byte[] codes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            codes[i] = (byte) random.nextInt(classes);
+        }
+        return codes;
+    }
+}
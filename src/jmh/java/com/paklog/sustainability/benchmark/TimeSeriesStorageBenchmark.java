@@ -0,0 +1,181 @@
+package com.paklog.sustainability.benchmark;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.infrastructure.persistence.EmissionBreakdownConverters;
+import com.paklog.sustainability.infrastructure.persistence.StorageLayout;
+import com.paklog.sustainability.infrastructure.persistence.TimeSeriesMigration;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage size and warehouse-month range reads of {@code carbon_footprints} in the {@code STANDARD} and
+ * {@code TIME_SERIES} layouts. Needs a local mongod (MongoDB 6 or later), taken from the
+ * {@code BENCHMARK_MONGO_URI} environment variable, which reaches the forked JMH JVMs, and defaulting to
+ * {@code mongodb://localhost:27017}. It works in its own {@code sustainability_benchmark} database and drops
+ * it afterwards.
+ * <p>
+ * The data is written to a plain collection and, for {@code TIME_SERIES}, moved by
+ * {@link TimeSeriesMigration} exactly as on a production switch. Setup prints the migration time and the
+ * collection's storage and index sizes, which JMH cannot record itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeSeriesStorageBenchmark {
+
+    private static final String DATABASE = "sustainability_benchmark";
+    private static final String DEFAULT_URI = "mongodb://localhost:27017";
+    private static final YearMonth FIRST_MONTH = YearMonth.of(2024, 1);
+    private static final int MONTHS = 12;
+    private static final int INSERT_BATCH_SIZE = 5000;
+
+    @Param({"STANDARD", "TIME_SERIES"})
+    public StorageLayout layout;
+
+    @Param({"20"})
+    public int warehouses;
+
+    @Param({"4"})
+    public int footprintsPerDay;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private String[] warehouseIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongoUri()))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(5, TimeUnit.SECONDS))
+                .build());
+        mongoTemplate = template(client);
+        mongoTemplate.getDb().drop();
+
+        SyntheticData data = new SyntheticData(19);
+        String[] sources = data.sources(120);
+        warehouseIds = new String[warehouses];
+        List<CarbonFootprint> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        long count = 0;
+        for (int w = 0; w < warehouses; w++) {
+            warehouseIds[w] = String.format("WH-%03d", w);
+            for (CarbonFootprint footprint : data.footprints(warehouseIds[w], FIRST_MONTH, MONTHS, footprintsPerDay, sources, 16)) {
+                footprint.setFootprintId(Long.toString(count++));
+                batch.add(footprint);
+                if (batch.size() == INSERT_BATCH_SIZE) {
+                    mongoTemplate.insert(batch, CarbonFootprint.class);
+                    batch.clear();
+                }
+            }
+        }
+        mongoTemplate.insert(batch, CarbonFootprint.class);
+        ensureIndexes();
+
+        String collection = mongoTemplate.getCollectionName(CarbonFootprint.class);
+        if (layout == StorageLayout.TIME_SERIES) {
+            long started = System.nanoTime();
+            new TimeSeriesMigration(mongoTemplate).afterSingletonsInstantiated();
+            System.out.printf("%n# Migrated %d footprints to time series in %d ms%n",
+                    count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            mongoTemplate.dropCollection(collection + "_legacy");
+        }
+        Document stats = mongoTemplate.getDb().runCommand(new Document("collStats", collection));
+        System.out.printf("%n# %s %s: %d footprints, storage %d KiB, indexes %d KiB%n", collection, layout, count,
+                stats.get("storageSize", Number.class).longValue() / 1024,
+                stats.get("totalIndexSize", Number.class).longValue() / 1024);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    /**
+     * One warehouse's footprints for a month, as {@code CarbonFootprintRepository} reads them for a
+     * {@code RAW} report.
+     */
+    @Benchmark
+    public List<CarbonFootprint> readWarehouseMonth() {
+        return mongoTemplate.find(Query.query(nextWarehouseMonth()), CarbonFootprint.class);
+    }
+
+    /**
+     * The same range summed on the server, as the {@code PIPELINE} aggregation mode does.
+     */
+    @Benchmark
+    public Document sumWarehouseMonth() {
+        return mongoTemplate.aggregate(Aggregation.newAggregation(
+                        Aggregation.match(nextWarehouseMonth()),
+                        Aggregation.group().sum("totalCO2eKg").as("totalCO2eKg")),
+                CarbonFootprint.class, Document.class).getUniqueMappedResult();
+    }
+
+    /**
+     * Cycles through every warehouse and month, so reads are not served from one hot range.
+     */
+    private Criteria nextWarehouseMonth() {
+        int cursor = next++;
+        YearMonth month = FIRST_MONTH.plusMonths((cursor / warehouses) % MONTHS);
+        return Criteria.where("warehouseId").is(warehouseIds[cursor % warehouses])
+                .and("recordDate").gte(month.atDay(1)).lte(month.atEndOfMonth());
+    }
+
+    private void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(CarbonFootprint.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(CarbonFootprint.class)
+                .forEach(indexOps::ensureIndex);
+    }
+
+    private static String mongoUri() {
+        String uri = System.getenv("BENCHMARK_MONGO_URI");
+        return uri == null || uri.isBlank() ? DEFAULT_URI : uri;
+    }
+
+    private static MongoTemplate template(MongoClient client) {
+        SimpleMongoClientDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(client, DATABASE);
+        MongoCustomConversions conversions = new MongoCustomConversions(EmissionBreakdownConverters.all());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(new DefaultDbRefResolver(factory), mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return new MongoTemplate(factory, converter);
+    }
+}
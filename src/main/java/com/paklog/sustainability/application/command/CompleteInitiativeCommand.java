@@ -0,0 +1,10 @@
+package com.paklog.sustainability.application.command;
+
+import jakarta.validation.constraints.PositiveOrZero;
+import java.time.LocalDate;
+
+public record CompleteInitiativeCommand(
+    LocalDate actualCompletionDate,
+    @PositiveOrZero double actualReductionCO2eKg,
+    @PositiveOrZero double actualCost
+) {}
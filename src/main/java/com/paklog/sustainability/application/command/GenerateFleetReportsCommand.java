@@ -0,0 +1,10 @@
+package com.paklog.sustainability.application.command;
+
+import com.paklog.sustainability.application.service.FleetReportMode;
+import jakarta.validation.constraints.NotNull;
+import java.time.YearMonth;
+
+public record GenerateFleetReportsCommand(
+    @NotNull YearMonth reportMonth,
+    FleetReportMode mode
+) {}
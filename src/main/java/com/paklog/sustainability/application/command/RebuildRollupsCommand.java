@@ -0,0 +1,10 @@
+package com.paklog.sustainability.application.command;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+public record RebuildRollupsCommand(
+    String warehouseId,
+    @NotNull LocalDate startDate,
+    @NotNull LocalDate endDate
+) {}
@@ -0,0 +1,14 @@
+package com.paklog.sustainability.application.command;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.util.List;
+
+public record RecalculateFootprintsCommand(
+    String warehouseId,
+    @NotNull LocalDate startDate,
+    @NotNull LocalDate endDate,
+    List<@NotBlank String> factorKeys,
+    boolean dryRun
+) {}
@@ -1,13 +1,17 @@
 package com.paklog.sustainability.application.command;
 
 import com.paklog.sustainability.domain.valueobject.EmissionType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
 import java.time.LocalDate;
 import java.util.Map;
 
 public record RecordEmissionCommand(
-    String warehouseId,
-    LocalDate recordDate,
-    EmissionType emissionType,
-    Map<String, Double> emissionsBySource,
+    @NotBlank String warehouseId,
+    @NotNull LocalDate recordDate,
+    @NotNull EmissionType emissionType,
+    @NotEmpty Map<@NotBlank String, @NotNull @PositiveOrZero Double> emissionsBySource,
     String notes
 ) {}
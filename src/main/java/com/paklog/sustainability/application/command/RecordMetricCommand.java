@@ -0,0 +1,18 @@
+package com.paklog.sustainability.application.command;
+
+import com.paklog.sustainability.domain.valueobject.MetricUnit;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+
+public record RecordMetricCommand(
+    @NotBlank String warehouseId,
+    @NotBlank @Size(max = 200) String metricName,
+    @NotNull MetricUnit unit,
+    @NotNull Double value,
+    @NotNull LocalDate recordDate,
+    @NotBlank @Size(max = 100) String category,
+    @NotBlank @Size(max = 200) String source,
+    @Size(max = 1000) String notes
+) {}
@@ -0,0 +1,10 @@
+package com.paklog.sustainability.application.command;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record RecordMetricsCommand(
+    @NotEmpty @Size(max = 10000) List<@Valid RecordMetricCommand> readings
+) {}
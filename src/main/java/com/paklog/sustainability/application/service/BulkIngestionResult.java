@@ -0,0 +1,22 @@
+package com.paklog.sustainability.application.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk emission upload, reported per written chunk.
+ */
+public record BulkIngestionResult(
+    long totalAccepted,
+    long totalRejected,
+    List<ChunkResult> chunks
+) {
+
+    public record ChunkResult(
+        int chunk,
+        long firstLine,
+        long lastLine,
+        int accepted,
+        int rejected,
+        List<String> errors
+    ) {}
+}
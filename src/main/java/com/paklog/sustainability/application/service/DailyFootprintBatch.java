@@ -0,0 +1,124 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.valueobject.ActivityAmount;
+import com.paklog.sustainability.domain.valueobject.DailyEmissionIncrement;
+import com.paklog.sustainability.domain.valueobject.DailyOrderIncrement;
+import com.paklog.sustainability.domain.valueobject.EmissionActivity;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges individual emission contributions into one increment per warehouse, day and scope,
+ * so a whole batch of events can be applied with a handful of upserts. Orders carried by the
+ * events are summed per warehouse and day alongside. Contributions are attributed to the event
+ * named by {@link #beginEvent}, so a partly failed write can be traced back to its events.
+ */
+public class DailyFootprintBatch {
+
+    private record Key(String warehouseId, LocalDate recordDate, EmissionType emissionType) {}
+
+    private static final class Contributions {
+        private final Map<String, Double> emissions = new HashMap<>();
+        private final Map<String, Map<String, ActivityAmount>> activities = new HashMap<>();
+        private final Set<String> events = new HashSet<>();
+    }
+
+    private record OrderKey(String warehouseId, LocalDate day) {}
+
+    private record EventOrders(String eventKey, OrderKey day, long orders) {}
+
+    private final Map<Key, Contributions> contributionsByKey = new LinkedHashMap<>();
+    private final List<EventOrders> orders = new ArrayList<>();
+    private String currentEvent;
+    private int contributions;
+
+    /**
+     * Attributes the contributions and orders added from now on to {@code eventKey}.
+     */
+    public void beginEvent(String eventKey) {
+        this.currentEvent = eventKey;
+    }
+
+    /**
+     * @param activity the activity {@code co2eKg} was calculated from
+     */
+    public void add(String warehouseId, LocalDate recordDate, EmissionType emissionType, String source,
+                    double co2eKg, EmissionActivity activity) {
+        Contributions day = contributionsByKey.computeIfAbsent(
+                new Key(warehouseId, recordDate, emissionType), k -> new Contributions());
+        day.emissions.merge(source, co2eKg, Double::sum);
+        day.activities.computeIfAbsent(source, s -> new HashMap<>())
+                .merge(activity.key(), new ActivityAmount(activity.quantity(), co2eKg), ActivityAmount::plus);
+        if (currentEvent != null) {
+            day.events.add(currentEvent);
+        }
+        contributions++;
+    }
+
+    public void addOrders(String warehouseId, LocalDate day, long orders) {
+        if (orders > 0) {
+            this.orders.add(new EventOrders(currentEvent, new OrderKey(warehouseId, day), orders));
+        }
+    }
+
+    public boolean isEmpty() {
+        return contributionsByKey.isEmpty() && orders.isEmpty();
+    }
+
+    public int contributions() {
+        return contributions;
+    }
+
+    public List<DailyEmissionIncrement> increments() {
+        List<DailyEmissionIncrement> increments = new ArrayList<>(contributionsByKey.size());
+        contributionsByKey.forEach((key, day) -> {
+            Map<String, Map<String, ActivityAmount>> activities = new HashMap<>();
+            day.activities.forEach((source, byKey) -> activities.put(source, Map.copyOf(byKey)));
+            increments.add(new DailyEmissionIncrement(key.warehouseId(), key.recordDate(), key.emissionType(),
+                    Map.copyOf(day.emissions), Map.copyOf(activities)));
+        });
+        return increments;
+    }
+
+    /**
+     * Events that contributed to any of the given positions in {@link #increments()}.
+     */
+    public Set<String> eventsOf(Collection<Integer> incrementIndexes) {
+        Set<String> events = new HashSet<>();
+        int index = 0;
+        for (Contributions day : contributionsByKey.values()) {
+            if (incrementIndexes.contains(index++)) {
+                events.addAll(day.events);
+            }
+        }
+        return events;
+    }
+
+    public List<DailyOrderIncrement> orderIncrements() {
+        return orderIncrements(Set.of());
+    }
+
+    /**
+     * Orders summed per warehouse and day, leaving out those carried by {@code excludedEvents}.
+     */
+    public List<DailyOrderIncrement> orderIncrements(Set<String> excludedEvents) {
+        Map<OrderKey, Long> ordersByDay = new LinkedHashMap<>();
+        for (EventOrders entry : orders) {
+            if (entry.eventKey() == null || !excludedEvents.contains(entry.eventKey())) {
+                ordersByDay.merge(entry.day(), entry.orders(), Long::sum);
+            }
+        }
+        List<DailyOrderIncrement> increments = new ArrayList<>(ordersByDay.size());
+        ordersByDay.forEach((key, orders) -> increments.add(new DailyOrderIncrement(key.warehouseId(), key.day(), orders)));
+        return increments;
+    }
+}
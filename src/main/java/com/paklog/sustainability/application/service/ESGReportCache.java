@@ -0,0 +1,126 @@
+package com.paklog.sustainability.application.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Size- and TTL-bounded cache of ESG reports by warehouse, period type and first month of the period.
+ * Footprint writes evict the monthly, quarterly and annual entries of the month they touch; the
+ * entries are rebuilt on the next read. Invalidation is local to this instance, so other instances
+ * may serve a report for up to the TTL after a write they did not see.
+ */
+@Service
+public class ESGReportCache {
+
+    public record Key(String warehouseId, YearMonth firstMonth, ReportingPeriod period) {
+
+        public static Key of(String warehouseId, YearMonth month, ReportingPeriod period) {
+            return new Key(warehouseId, period.firstMonth(month), period);
+        }
+
+        public YearMonth lastMonth() {
+            return firstMonth.plusMonths(period.months() - 1);
+        }
+
+        boolean overlaps(FootprintsChangedEvent event) {
+            return (event.warehouseId() == null || event.warehouseId().equals(warehouseId))
+                    && !firstMonth.isAfter(event.to()) && !lastMonth().isBefore(event.from());
+        }
+    }
+
+    private final Cache<Key, ESGReport> cache;
+    private final Counter invalidations;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong rangeInvalidations = new AtomicLong();
+    public ESGReportCache(MeterRegistry meterRegistry,
+                          @Value("${sustainability.reporting.cache.maximum-size:10000}") long maximumSize,
+                          @Value("${sustainability.reporting.cache.ttl:PT15M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size, ... tagged cache=esg_reports
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "esg_reports");
+        this.invalidations = Counter.builder("sustainability.report.cache.invalidations").register(meterRegistry);
+    }
+
+
+    /**
+     * @param loader builds the report on a miss; concurrent readers of the same key wait for one load
+     */
+    public ESGReport get(Key key, Function<Key, ESGReport> loader) {
+        long loadedAt = rangeInvalidations.get();
+        boolean[] loaded = new boolean[1];
+        ESGReport report = cache.get(key, k -> {
+            loaded[0] = true;
+            return loader.apply(k);
+        });
+        // Invalidating single keys waits for a load in flight, but walking the keys does not see it
+        if (loaded[0] && rangeInvalidations.get() != loadedAt) {
+            cache.invalidate(key);
+        }
+        return report;
+    }
+
+    public void put(Key key, ESGReport report) {
+        cache.put(key, report);
+    }
+
+    public ESGReport getIfPresent(Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Incremented before every invalidation; pass it to {@link #putIfCurrent} for reports loaded
+     * outside {@link #get}.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Caches a report loaded outside {@link #get} unless footprints changed since {@code loadedAt}, in
+     * which case the report may predate the change and is dropped again.
+     */
+    public void putIfCurrent(Key key, ESGReport report, long loadedAt) {
+        cache.put(key, report);
+        if (version.get() != loadedAt) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Runs after commit when footprints are written in a transaction, so a reload cannot cache the
+     * state from before the write.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFootprintsChanged(FootprintsChangedEvent event) {
+        version.incrementAndGet();
+        if (event.warehouseId() != null && event.from().equals(event.to())) {
+            List<Key> affected = List.of(
+                    Key.of(event.warehouseId(), event.from(), ReportingPeriod.MONTHLY),
+                    Key.of(event.warehouseId(), event.from(), ReportingPeriod.QUARTERLY),
+                    Key.of(event.warehouseId(), event.from(), ReportingPeriod.ANNUAL));
+            cache.invalidateAll(affected);
+        } else {
+            rangeInvalidations.incrementAndGet();
+            cache.asMap().keySet().removeIf(key -> key.overlaps(event));
+        }
+        invalidations.increment();
+    }
+}
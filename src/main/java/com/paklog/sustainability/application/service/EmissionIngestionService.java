@@ -0,0 +1,213 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.paklog.sustainability.application.command.RecordEmissionCommand;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.repository.CarbonFootprintRepository;
+import com.paklog.sustainability.domain.repository.CarbonFootprintRepositoryCustom.BulkInsertResult;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams newline-delimited emission records into MongoDB in fixed-size unordered bulk writes.
+ * Only one chunk of footprints is held in memory at a time, regardless of upload size. With outbox
+ * transactions each chunk commits with its rollups and events, or not at all.
+ */
+@Service
+public class EmissionIngestionService {
+    private static final Logger log = LoggerFactory.getLogger(EmissionIngestionService.class);
+
+    private static final int MAX_ERRORS_PER_CHUNK = 10;
+
+    private final CarbonFootprintRepository footprintRepository;
+    private final EmissionRollupService rollupService;
+    private final EventOutbox eventOutbox;
+    private final ObjectReader commandReader;
+    private final Validator validator;
+    private final int chunkSize;
+    private final TransactionOperations transactions;
+    private final boolean atomic;
+    public EmissionIngestionService(CarbonFootprintRepository footprintRepository,
+                                    EmissionRollupService rollupService,
+                                    EventOutbox eventOutbox,
+                                    ObjectMapper objectMapper,
+                                    Validator validator,
+                                    @Value("${sustainability.ingestion.bulk.chunk-size:1000}") int chunkSize,
+                                    ObjectProvider<PlatformTransactionManager> transactionManager) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("sustainability.ingestion.bulk.chunk-size must be positive");
+        }
+        this.footprintRepository = footprintRepository;
+        this.rollupService = rollupService;
+        this.eventOutbox = eventOutbox;
+        this.commandReader = objectMapper.readerFor(RecordEmissionCommand.class);
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        this.transactions = manager != null ? new TransactionTemplate(manager) : TransactionOperations.withoutTransaction();
+        this.atomic = manager != null;
+    }
+
+
+    public BulkIngestionResult ingestNdjson(InputStream body) {
+        ChunkWriter writer = new ChunkWriter();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                writer.accept(lineNumber, line);
+            }
+            writer.flush(lineNumber);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read bulk emission upload", e);
+        }
+
+        log.info("Bulk emission upload finished: {} accepted, {} rejected in {} chunks",
+                writer.totalAccepted, writer.totalRejected, writer.results.size());
+        return new BulkIngestionResult(writer.totalAccepted, writer.totalRejected, writer.results);
+    }
+
+    private String validate(RecordEmissionCommand command) {
+        if (command == null) {
+            // A bare null literal parses without error
+            return "not a JSON object";
+        }
+        Set<ConstraintViolation<RecordEmissionCommand>> violations = validator.validate(command);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Collects parsed footprints until the chunk is full, then writes them in one round trip.
+     */
+    private final class ChunkWriter {
+        private final List<CarbonFootprint> pending = new ArrayList<>(chunkSize);
+        private final List<Long> pendingLines = new ArrayList<>(chunkSize);
+        private final List<String> errors = new ArrayList<>();
+        private final List<BulkIngestionResult.ChunkResult> results = new ArrayList<>();
+        private long totalAccepted;
+        private long totalRejected;
+        private long firstLine = 1;
+        private int rejected;
+
+        void accept(long lineNumber, String line) {
+            try {
+                RecordEmissionCommand command = commandReader.readValue(line);
+                String violation = validate(command);
+                if (violation != null) {
+                    reject(lineNumber, violation);
+                } else {
+                    pending.add(FootprintMapper.toFootprint(command));
+                    pendingLines.add(lineNumber);
+                }
+            } catch (JsonProcessingException e) {
+                reject(lineNumber, "malformed JSON: " + e.getOriginalMessage());
+            }
+
+            if (pending.size() + rejected >= chunkSize) {
+                flush(lineNumber);
+            }
+        }
+
+        void flush(long lastLine) {
+            if (pending.isEmpty() && rejected == 0) {
+                return;
+            }
+            BulkInsertResult written;
+            try {
+                written = transactions.execute(status -> write());
+            } catch (RuntimeException e) {
+                if (!atomic) {
+                    throw e;
+                }
+                // Rolled back: nothing of the chunk was stored
+                for (Long line : pendingLines) {
+                    reject(line, "chunk rolled back: " + e.getMessage());
+                }
+                written = new BulkInsertResult(0, List.of());
+            }
+            for (BulkInsertResult.Failure failure : written.failures()) {
+                reject(pendingLines.get(failure.index()), failure.message());
+            }
+
+            results.add(new BulkIngestionResult.ChunkResult(
+                    results.size() + 1, firstLine, lastLine, written.insertedCount(), rejected, List.copyOf(errors)));
+            totalAccepted += written.insertedCount();
+            totalRejected += rejected;
+
+            pending.clear();
+            pendingLines.clear();
+            errors.clear();
+            rejected = 0;
+            firstLine = lastLine + 1;
+        }
+
+        /**
+         * Footprints, rollups and outbox events of the chunk. In a transaction a failed insert aborts it,
+         * so the whole chunk is rolled back instead of committing the rest.
+         */
+        private BulkInsertResult write() {
+            BulkInsertResult written = footprintRepository.insertUnordered(pending);
+            if (!written.failures().isEmpty() && atomic) {
+                throw new IllegalStateException(written.failures().size() + " of " + pending.size()
+                        + " inserts failed, first: " + written.failures().get(0).message());
+            }
+            recordRollups(written);
+            return written;
+        }
+
+        private void recordRollups(BulkInsertResult written) {
+            List<CarbonFootprint> inserted = pending;
+            if (!written.failures().isEmpty()) {
+                Set<Integer> failed = written.failures().stream()
+                        .map(BulkInsertResult.Failure::index)
+                        .collect(Collectors.toSet());
+                inserted = new ArrayList<>(pending.size() - failed.size());
+                for (int i = 0; i < pending.size(); i++) {
+                    if (!failed.contains(i)) {
+                        inserted.add(pending.get(i));
+                    }
+                }
+            }
+            rollupService.recordFootprints(inserted);
+            eventOutbox.emissionsCalculated(inserted);
+        }
+
+        private void reject(long lineNumber, String reason) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS_PER_CHUNK) {
+                errors.add("line " + lineNumber + ": " + reason);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.application.command.RebuildRollupsCommand;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.EmissionRollup;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepository;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepositoryCustom.RebuildResult;
+import com.paklog.sustainability.domain.valueobject.DailyEmissionIncrement;
+import com.paklog.sustainability.domain.valueobject.ReportTotals;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import com.paklog.sustainability.domain.valueobject.RollupIncrement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the per-warehouse daily and monthly emission rollups in step with footprint writes and
+ * answers period totals from them instead of scanning raw footprints. Every write publishes a
+ * {@link FootprintsChangedEvent} per affected warehouse and month. Since every footprint write passes
+ * through here, this is also where emissions are counted per warehouse and scope, both as metrics and
+ * in the live {@link EmissionTelemetry}; inside a transaction they are counted after it commits.
+ */
+@Service
+public class EmissionRollupService {
+    private static final Logger log = LoggerFactory.getLogger(EmissionRollupService.class);
+
+
+    private final EmissionRollupRepository rollupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WarehouseTagPolicy warehouseTags;
+    private final EmissionTelemetry telemetry;
+    private final Meter.MeterProvider<Counter> recordedIncrements;
+    private final Meter.MeterProvider<Counter> recordedCO2eKg;
+    public EmissionRollupService(EmissionRollupRepository rollupRepository, ApplicationEventPublisher eventPublisher,
+                                 WarehouseTagPolicy warehouseTags, EmissionTelemetry telemetry, MeterRegistry meterRegistry) {
+        this.rollupRepository = rollupRepository;
+        this.eventPublisher = eventPublisher;
+        this.warehouseTags = warehouseTags;
+        this.telemetry = telemetry;
+        this.recordedIncrements = Counter.builder("sustainability.emissions.recorded")
+                .description("Footprints and event contributions applied")
+                .withRegistry(meterRegistry);
+        this.recordedCO2eKg = Counter.builder("sustainability.emissions.co2e")
+                .baseUnit("kilograms")
+                .withRegistry(meterRegistry);
+    }
+
+
+    public void recordFootprint(CarbonFootprint footprint) {
+        recordFootprints(List.of(footprint));
+    }
+
+    public void recordFootprints(Collection<CarbonFootprint> footprints) {
+        List<RollupIncrement> increments = new ArrayList<>(footprints.size());
+        for (CarbonFootprint footprint : footprints) {
+            increments.add(new RollupIncrement(footprint.getWarehouseId(), footprint.getRecordDate(),
+                    footprint.getEmissionType(), footprint.getTotalCO2eKg(), 1));
+        }
+        applyIncrements(increments);
+    }
+
+    /**
+     * @param created indexes of the increments that created a new daily footprint document
+     */
+    public void recordDailyIncrements(List<DailyEmissionIncrement> dailyIncrements, Set<Integer> created) {
+        List<RollupIncrement> increments = new ArrayList<>(dailyIncrements.size());
+        for (int i = 0; i < dailyIncrements.size(); i++) {
+            DailyEmissionIncrement increment = dailyIncrements.get(i);
+            increments.add(new RollupIncrement(increment.warehouseId(), increment.recordDate(),
+                    increment.emissionType(), increment.totalCO2eKg(), created.contains(i) ? 1 : 0));
+        }
+        applyIncrements(increments);
+    }
+
+    /**
+     * Applies changes to emissions that were already recorded, such as the deltas of a recalculation. They
+     * move the rollups but are not counted as recorded emissions.
+     */
+    public void recordCorrections(List<RollupIncrement> corrections) {
+        writeIncrements(corrections);
+    }
+
+    private void applyIncrements(List<RollupIncrement> increments) {
+        writeIncrements(increments);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Inside the outbox transaction: count only once the footprints are committed, so a rollback
+            // or retried batch does not count the same emissions twice
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    countEmissions(increments);
+                    telemetry.record(increments);
+                }
+            });
+        } else {
+            countEmissions(increments);
+            telemetry.record(increments);
+        }
+    }
+
+    private void writeIncrements(List<RollupIncrement> increments) {
+        rollupRepository.applyIncrements(increments);
+        Set<FootprintsChangedEvent> changes = new LinkedHashSet<>();
+        for (RollupIncrement increment : increments) {
+            changes.add(FootprintsChangedEvent.of(increment.warehouseId(), YearMonth.from(increment.day())));
+        }
+        changes.forEach(eventPublisher::publishEvent);
+    }
+
+    private void countEmissions(List<RollupIncrement> increments) {
+        // One counter update per tag combination rather than per increment; bulk chunks are mostly one warehouse
+        Map<Tags, double[]> sums = new HashMap<>();
+        for (RollupIncrement increment : increments) {
+            Tags tags = Tags.of(WarehouseTagPolicy.TAG, warehouseTags.tag(increment.warehouseId()),
+                    "scope", String.valueOf(increment.emissionType()));
+            double[] sum = sums.computeIfAbsent(tags, t -> new double[2]);
+            sum[0]++;
+            sum[1] += increment.co2eKg();
+        }
+        sums.forEach((tags, sum) -> {
+            recordedIncrements.withTags(tags).increment(sum[0]);
+            recordedCO2eKg.withTags(tags).increment(sum[1]);
+        });
+    }
+
+    /**
+     * Emission totals per scope for the months {@code from} to {@code to}, both inclusive.
+     */
+    public ReportTotals totals(String warehouseId, YearMonth from, YearMonth to) {
+        return totals(monthlyRollups(warehouseId, from, to));
+    }
+
+    public ReportTotals totals(List<EmissionRollup> rollups) {
+        ReportTotals totals = new ReportTotals();
+        for (EmissionRollup rollup : rollups) {
+            totals.addEmissions(rollup.getEmissionType(), rollup.getTotalCO2eKg());
+        }
+        return totals;
+    }
+
+    public List<EmissionRollup> monthlyRollups(String warehouseId, YearMonth from, YearMonth to) {
+        return rollupRepository.findByWarehouseIdAndGranularityAndPeriodStartBetween(
+                warehouseId, RollupGranularity.MONTH, from.atDay(1), to.atDay(1));
+    }
+
+    public RebuildResult rebuild(RebuildRollupsCommand command) {
+        if (command.endDate().isBefore(command.startDate())) {
+            throw new IllegalArgumentException("endDate must be after or equal to startDate");
+        }
+        RebuildResult result = rollupRepository.rebuild(command.warehouseId(), command.startDate(), command.endDate());
+        log.info("Rebuilt emission rollups for {} from {} to {}: {} daily, {} monthly, {} removed",
+                command.warehouseId() != null ? command.warehouseId() : "all warehouses",
+                result.startDate(), result.endDate(), result.dailyRollups(), result.monthlyRollups(),
+                result.removedRollups());
+        eventPublisher.publishEvent(new FootprintsChangedEvent(command.warehouseId(),
+                YearMonth.from(command.startDate()), YearMonth.from(command.endDate())));
+        return result;
+    }
+}
@@ -0,0 +1,288 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.RollupIncrement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live per-warehouse emission totals for the last hour and the last day, kept in memory by the minute in
+ * which emissions were recorded (not the day they are recorded for). Each warehouse has a ring of one
+ * day of minute slots with a milligram counter per {@link EmissionType}, so its memory is fixed at about
+ * 58 KB; at most {@code max-warehouses} are tracked at once and rings idle for a day are dropped.
+ * <p>
+ * Recording and reading are lock-free. A writer claims a slot for its minute with a compare-and-set on
+ * the slot's minute stamp and adds to the counters atomically; readers only count slots whose stamp is
+ * the minute they expect, before and after reading the counters. Counts are in-process only: they start
+ * empty after a restart and each instance sees only the writes it handled.
+ */
+@Service
+public class EmissionTelemetry {
+    private static final Logger log = LoggerFactory.getLogger(EmissionTelemetry.class);
+
+    static final int HOUR_MINUTES = 60;
+    static final int DAY_MINUTES = 1440;
+    private static final EmissionType[] TYPES = EmissionType.values();
+    private static final double MILLIGRAMS_PER_KG = 1_000_000d;
+    // Stamp of a slot whose counters are being cleared for a new minute
+    private static final long CLEARING = Long.MIN_VALUE;
+
+    private final Map<String, MinuteRing> rings = new ConcurrentHashMap<>();
+    private final AtomicInteger ringCount = new AtomicInteger();
+    private final int maxWarehouses;
+    private final Duration pushInterval;
+    private final Clock clock;
+    private final long startMinute;
+    private final Counter untracked;
+    @Autowired
+    public EmissionTelemetry(MeterRegistry meterRegistry,
+                             @Value("${sustainability.telemetry.max-warehouses:1000}") int maxWarehouses,
+                             @Value("${sustainability.telemetry.push-interval:PT5S}") Duration pushInterval) {
+        this(meterRegistry, maxWarehouses, pushInterval, Clock.systemUTC());
+    }
+
+    EmissionTelemetry(MeterRegistry meterRegistry, int maxWarehouses, Duration pushInterval, Clock clock) {
+        this.maxWarehouses = Math.max(0, maxWarehouses);
+        this.pushInterval = pushInterval;
+        this.clock = clock;
+        this.startMinute = currentMinute();
+
+        this.untracked = Counter.builder("sustainability.telemetry.untracked")
+                .description("Emission increments not counted because max-warehouses rings were in use")
+                .register(meterRegistry);
+        Gauge.builder("sustainability.telemetry.warehouses", ringCount, AtomicInteger::get).register(meterRegistry);
+    }
+
+
+    /**
+     * Counts emissions just written, in the current minute.
+     */
+    public void record(List<RollupIncrement> increments) {
+        long minute = currentMinute();
+        // One atomic add per warehouse and scope rather than per increment; bulk chunks are mostly one warehouse
+        Map<String, long[]> sums = new HashMap<>();
+        for (RollupIncrement increment : increments) {
+            if (increment.warehouseId() != null && increment.emissionType() != null) {
+                sums.computeIfAbsent(increment.warehouseId(), w -> new long[TYPES.length])
+                        [increment.emissionType().ordinal()] += Math.round(increment.co2eKg() * MILLIGRAMS_PER_KG);
+            }
+        }
+        sums.forEach((warehouseId, milligrams) -> {
+            MinuteRing ring = ring(warehouseId, minute);
+            if (ring == null) {
+                untracked.increment();
+            } else {
+                ring.add(minute, milligrams);
+            }
+        });
+    }
+
+    private MinuteRing ring(String warehouseId, long minute) {
+        MinuteRing ring = rings.get(warehouseId);
+        if (ring != null) {
+            return ring;
+        }
+        int count = ringCount.get();
+        while (count < maxWarehouses) {
+            if (ringCount.compareAndSet(count, count + 1)) {
+                MinuteRing created = new MinuteRing(minute);
+                MinuteRing existing = rings.putIfAbsent(warehouseId, created);
+                if (existing != null) {
+                    // Created concurrently by another writer; give the slot back
+                    ringCount.decrementAndGet();
+                    return existing;
+                }
+                if (count + 1 == maxWarehouses) {
+                    log.info("Emission telemetry limit of {} warehouses reached, further warehouses are not tracked", maxWarehouses);
+                }
+                return created;
+            }
+            count = ringCount.get();
+        }
+        return rings.get(warehouseId);
+    }
+
+    /**
+     * Drops the rings of warehouses that recorded nothing for a day, freeing their place for others.
+     */
+    @Scheduled(fixedDelayString = "${sustainability.telemetry.eviction-interval-ms:3600000}")
+    public void evictIdle() {
+        long oldest = currentMinute() - DAY_MINUTES;
+        rings.forEach((warehouseId, ring) -> {
+            if (ring.lastMinute.get() < oldest && rings.remove(warehouseId, ring)) {
+                ringCount.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Updates for {@code warehouseId} every {@code push-interval}: a snapshot first, then a delta whenever
+     * emissions were recorded or a minute passed since the previous update.
+     */
+    public Flux<EmissionTelemetryUpdate> stream(String warehouseId) {
+        return Flux.defer(() -> {
+            Cursor cursor = new Cursor();
+            return Flux.interval(Duration.ZERO, pushInterval)
+                    // A slow subscriber skips ticks instead of queueing them; the next delta catches it up
+                    .onBackpressureDrop()
+                    .concatMap(tick -> Mono.justOrEmpty(next(warehouseId, cursor)));
+        });
+    }
+
+    private EmissionTelemetryUpdate next(String warehouseId, Cursor cursor) {
+        long now = currentMinute();
+        MinuteRing ring = rings.get(warehouseId);
+        long version = ring == null ? 0 : ring.version.get();
+        boolean first = cursor.minute == Long.MIN_VALUE;
+        if (!first && version == cursor.version && now == cursor.minute) {
+            return null;
+        }
+        long from = first ? now - HOUR_MINUTES + 1 : Math.max(cursor.minute, now - HOUR_MINUTES + 1);
+        cursor.minute = now;
+        cursor.version = version;
+
+        long[][] byMinute = new long[DAY_MINUTES][];
+        if (ring != null) {
+            for (int age = 0; age < DAY_MINUTES; age++) {
+                byMinute[age] = ring.read(now - age);
+            }
+        }
+        List<EmissionTelemetryUpdate.Minute> minutes = new ArrayList<>((int) (now - from + 1));
+        for (long minute = from; minute <= now; minute++) {
+            long[] milligrams = byMinute[(int) (now - minute)];
+            minutes.add(new EmissionTelemetryUpdate.Minute(Instant.ofEpochSecond(minute * 60),
+                    kilograms(total(milligrams)), byType(milligrams)));
+        }
+        return new EmissionTelemetryUpdate(first ? EmissionTelemetryUpdate.Kind.SNAPSHOT : EmissionTelemetryUpdate.Kind.DELTA,
+                warehouseId, clock.instant(), window(byMinute, now, HOUR_MINUTES), window(byMinute, now, DAY_MINUTES), minutes);
+    }
+
+    private EmissionTelemetryUpdate.Window window(long[][] byMinute, long now, int length) {
+        long[] sum = new long[TYPES.length];
+        for (int age = 0; age < length; age++) {
+            long[] milligrams = byMinute[age];
+            if (milligrams != null) {
+                for (int type = 0; type < TYPES.length; type++) {
+                    sum[type] += milligrams[type];
+                }
+            }
+        }
+        int covered = (int) Math.min(length, now - startMinute + 1);
+        double total = kilograms(total(sum));
+        return new EmissionTelemetryUpdate.Window(length, covered, total, byType(sum), total * 60 / covered);
+    }
+
+    private static long total(long[] milligrams) {
+        long total = 0;
+        if (milligrams != null) {
+            for (long value : milligrams) {
+                total += value;
+            }
+        }
+        return total;
+    }
+
+    private static Map<EmissionType, Double> byType(long[] milligrams) {
+        Map<EmissionType, Double> byType = new EnumMap<>(EmissionType.class);
+        for (EmissionType type : TYPES) {
+            byType.put(type, milligrams == null ? 0d : kilograms(milligrams[type.ordinal()]));
+        }
+        return byType;
+    }
+
+    private static double kilograms(long milligrams) {
+        return milligrams / MILLIGRAMS_PER_KG;
+    }
+
+    private long currentMinute() {
+        return Math.floorDiv(clock.millis(), 60_000L);
+    }
+
+    /**
+     * Where a subscriber's stream left off.
+     */
+    private static final class Cursor {
+        private long minute = Long.MIN_VALUE;
+        private long version;
+    }
+
+    /**
+     * One day of minute slots for one warehouse. Slot {@code minute % DAY_MINUTES} holds the counters of
+     * the minute in its stamp; a writer for a later minute clears it first.
+     */
+    private static final class MinuteRing {
+        private final AtomicLongArray stamps = new AtomicLongArray(DAY_MINUTES);
+        private final AtomicLongArray milligrams = new AtomicLongArray(DAY_MINUTES * TYPES.length);
+        // Bumped by every add, so streams can skip ticks with nothing new
+        private final AtomicLong version = new AtomicLong();
+        private final AtomicLong lastMinute;
+
+        MinuteRing(long createdMinute) {
+            this.lastMinute = new AtomicLong(createdMinute);
+        }
+
+        void add(long minute, long[] increments) {
+            int slot = (int) Math.floorMod(minute, (long) DAY_MINUTES);
+            long stamp;
+            while ((stamp = stamps.get(slot)) != minute) {
+                if (stamp > minute) {
+                    // The slot already moved on, a writer stalled for a day; nobody reads this minute any more
+                    return;
+                }
+                if (stamp != CLEARING && stamps.compareAndSet(slot, stamp, CLEARING)) {
+                    for (int type = 0; type < TYPES.length; type++) {
+                        milligrams.set(slot * TYPES.length + type, 0);
+                    }
+                    stamps.set(slot, minute);
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+            for (int type = 0; type < TYPES.length; type++) {
+                if (increments[type] != 0) {
+                    milligrams.addAndGet(slot * TYPES.length + type, increments[type]);
+                }
+            }
+            lastMinute.accumulateAndGet(minute, Math::max);
+            version.incrementAndGet();
+        }
+
+        /**
+         * @return the counters of {@code minute}, or {@code null} if its slot holds another minute
+         */
+        long[] read(long minute) {
+            int slot = (int) Math.floorMod(minute, (long) DAY_MINUTES);
+            if (stamps.get(slot) != minute) {
+                return null;
+            }
+            long[] values = new long[TYPES.length];
+            for (int type = 0; type < TYPES.length; type++) {
+                values[type] = milligrams.get(slot * TYPES.length + type);
+            }
+            // Cleared for a later minute while reading
+            return stamps.get(slot) == minute ? values : null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live emission totals of one warehouse, as pushed to telemetry subscribers. The first update of a
+ * stream is a {@link Kind#SNAPSHOT} carrying every minute of the last hour; later ones are
+ * {@link Kind#DELTA}s carrying only the minutes that changed since the previous update. Both carry the
+ * current last-hour and last-day windows.
+ */
+public record EmissionTelemetryUpdate(Kind kind, String warehouseId, Instant asOf,
+                                      Window lastHour, Window lastDay, List<Minute> minutes) {
+
+    public enum Kind { SNAPSHOT, DELTA }
+
+    /**
+     * Emissions recorded in the last {@code minutes} minutes. {@code coveredMinutes} is shorter while the
+     * service has been up for less than the window, and {@code co2eKgPerHour} is averaged over it.
+     */
+    public record Window(int minutes, int coveredMinutes, double totalCO2eKg,
+                         Map<EmissionType, Double> co2eKgByType, double co2eKgPerHour) {}
+
+    /**
+     * Emissions recorded during the minute starting at {@code start}.
+     */
+    public record Minute(Instant start, double totalCO2eKg, Map<EmissionType, Double> co2eKgByType) {}
+}
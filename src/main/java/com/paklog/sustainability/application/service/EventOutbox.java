@@ -0,0 +1,146 @@
+package com.paklog.sustainability.application.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.aggregate.GreenInitiative;
+import com.paklog.sustainability.domain.aggregate.OutboxEvent;
+import com.paklog.sustainability.domain.repository.OutboxEventRepository;
+import com.paklog.sustainability.domain.service.ESGReportingService;
+import com.paklog.sustainability.domain.valueobject.SustainabilityEventType;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records domain events in {@code event_outbox} as part of the operation that caused them; the relay
+ * publishes them to Kafka later. Payloads follow the schemas in asyncapi.yaml.
+ */
+@Service
+public class EventOutbox {
+
+    private final OutboxEventRepository outboxRepository;
+    private final ESGReportingService reportingService;
+    private final ObjectMapper objectMapper;
+    public EventOutbox(OutboxEventRepository outboxRepository, ESGReportingService reportingService, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.reportingService = reportingService;
+        this.objectMapper = objectMapper;
+    }
+
+
+    public void emissionsCalculated(CarbonFootprint footprint) {
+        outboxRepository.insert(emissionsEvent(footprint, Instant.now()));
+    }
+
+    public void emissionsCalculated(Collection<CarbonFootprint> footprints) {
+        if (footprints.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<OutboxEvent> events = new ArrayList<>(footprints.size());
+        for (CarbonFootprint footprint : footprints) {
+            events.add(emissionsEvent(footprint, now));
+        }
+        outboxRepository.insert(events);
+    }
+
+    public void reportGenerated(ESGReport report) {
+        Instant now = Instant.now();
+        Map<String, Object> environmental = new LinkedHashMap<>();
+        environmental.put("totalCO2eScope1Kg", report.getTotalCO2eScope1Kg());
+        environmental.put("totalCO2eScope2Kg", report.getTotalCO2eScope2Kg());
+        environmental.put("totalCO2eScope3Kg", report.getTotalCO2eScope3Kg());
+        environmental.put("totalCO2eTons", report.getTotalCO2eTons());
+        environmental.put("totalEnergyKwh", report.getTotalEnergyKwh());
+        environmental.put("renewableEnergyPercentage", report.getRenewableEnergyPercentage());
+        environmental.put("waterUsageCubicMeters", report.getWaterUsageCubicMeters());
+        environmental.put("wasteGeneratedTons", report.getWasteGeneratedTons());
+        environmental.put("wasteRecycledPercentage", report.getWasteRecycledPercentage());
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("reportId", report.getReportId());
+        data.put("warehouseId", report.getWarehouseId());
+        data.put("period", report.getPeriod());
+        data.put("reportMonth", report.getReportMonth());
+        data.put("year", report.getYear());
+        data.put("generatedAt", now);
+        data.put("environmental", environmental);
+        data.put("governance", Map.of(
+                "complianceCertified", report.isComplianceCertified(),
+                "auditsPassed", report.getAuditsPassed()));
+        data.put("performance", Map.of(
+                "rating", reportingService.assessPerformance(report),
+                "carbonIntensityPerOrder", report.getCarbonIntensityPerOrder(),
+                "ordersProcessed", report.getOrdersProcessed()));
+        outboxRepository.insert(event(SustainabilityEventType.REPORT_GENERATED,
+                report.getWarehouseId(), report.getWarehouseId(), data, now));
+    }
+
+    public void initiativeCompleted(GreenInitiative initiative) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("initiativeId", initiative.getInitiativeId());
+        data.put("name", initiative.getName());
+        data.put("description", initiative.getDescription());
+        data.put("startDate", initiative.getStartDate());
+        data.put("targetCompletionDate", initiative.getTargetCompletionDate());
+        data.put("actualCompletionDate", initiative.getActualCompletionDate());
+        data.put("targetReductionCO2eKg", initiative.getTargetReductionCO2eKg());
+        data.put("actualReductionCO2eKg", initiative.getActualReductionCO2eKg());
+        data.put("reductionAchievementPercentage", initiative.getAchievementPercentage());
+        data.put("estimatedCostUSD", initiative.getEstimatedCost());
+        data.put("actualCostUSD", initiative.getActualCost());
+        data.put("roi", initiative.getROI());
+        data.put("owner", initiative.getOwner());
+        // Initiatives are not tied to one warehouse; asyncapi.yaml keys this channel by initiative
+        outboxRepository.insert(event(SustainabilityEventType.INITIATIVE_COMPLETED,
+                initiative.getInitiativeId(), initiative.getInitiativeId(), data, Instant.now()));
+    }
+
+    private OutboxEvent emissionsEvent(CarbonFootprint footprint, Instant now) {
+        List<Map<String, Object>> sources = new ArrayList<>(footprint.getEmissionsBySource().size());
+        footprint.getEmissionsBySource().forEach((source, co2eKg) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("sourceName", source);
+            entry.put("co2eKg", co2eKg);
+            sources.add(entry);
+        });
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("footprintId", footprint.getFootprintId());
+        data.put("warehouseId", footprint.getWarehouseId());
+        data.put("recordDate", footprint.getRecordDate());
+        data.put("emissionType", footprint.getEmissionType());
+        data.put("emissionSources", sources);
+        data.put("totalCO2eKg", footprint.getTotalCO2eKg());
+        data.put("totalCO2eTons", footprint.getTotalCO2eTons());
+        data.put("emissionScope", footprint.getEmissionType());
+        data.put("calculationMethod", footprint.getCalculationMethod());
+        data.put("calculatedAt", now);
+        return event(SustainabilityEventType.EMISSIONS_CALCULATED,
+                footprint.getWarehouseId(), footprint.getWarehouseId(), data, now);
+    }
+
+    private OutboxEvent event(SustainabilityEventType type, String partitionKey, String subject,
+                              Map<String, Object> data, Instant now) {
+        try {
+            return OutboxEvent.builder()
+                    .eventId(UUID.randomUUID().toString())
+                    .type(type)
+                    .partitionKey(partitionKey)
+                    .subject(subject)
+                    .payload(objectMapper.writeValueAsString(data))
+                    .status(OutboxEvent.PENDING)
+                    .createdAt(now)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + type + " event", e);
+        }
+    }
+}
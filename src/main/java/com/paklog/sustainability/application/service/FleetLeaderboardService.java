@@ -0,0 +1,222 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paklog.sustainability.application.service.FleetRanking.Entry;
+import com.paklog.sustainability.application.service.FleetRanking.Order;
+import com.paklog.sustainability.domain.aggregate.EmissionRollup;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepository;
+import com.paklog.sustainability.domain.repository.OrderVolumeRepository;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Fleet-wide top-K and bottom-K warehouses by emissions for a reporting period. Rankings are answered
+ * from leaderboard snapshots, one per period, that hold the highest and lowest {@code max-k} warehouses
+ * of every {@link FleetRankingMetric}. A snapshot is built from the monthly rollups of the period with
+ * one indexed query per month, plus one aggregation of the period's order volumes for carbon intensity,
+ * and the ends of each ranking are picked with bounded heaps, so building costs {@code O(n log max-k)}
+ * for {@code n} warehouses and a ranking request touches no documents.
+ * <p>
+ * Snapshots of the current month, quarter and year and of the previous month are rebuilt every
+ * {@code refresh-interval}, as are all others read since their last refresh; other periods are built
+ * on first read, and snapshots nobody reads are left to expire. Rankings may therefore lag footprint
+ * writes by up to one refresh interval.
+ */
+@Service
+public class FleetLeaderboardService {
+    private static final Logger log = LoggerFactory.getLogger(FleetLeaderboardService.class);
+
+    private static final FleetRankingMetric[] METRICS = FleetRankingMetric.values();
+
+    private final EmissionRollupRepository rollupRepository;
+    private final OrderVolumeRepository orderVolumeRepository;
+    private final int maxK;
+    private final Cache<Key, Leaderboard> snapshots;
+    // Rebuilding a snapshot writes it, which would keep it from ever expiring, so reads are tracked apart
+    private final Map<Key, Instant> lastReads = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final Timer buildTimer;
+    private final Counter refreshFailures;
+    public FleetLeaderboardService(EmissionRollupRepository rollupRepository, OrderVolumeRepository orderVolumeRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${sustainability.reporting.leaderboard.max-k:100}") int maxK,
+                                   @Value("${sustainability.reporting.leaderboard.maximum-size:256}") long maximumSize,
+                                   @Value("${sustainability.reporting.leaderboard.expire-after-access:PT1H}") Duration expireAfterAccess) {
+        this.rollupRepository = rollupRepository;
+        this.orderVolumeRepository = orderVolumeRepository;
+        this.maxK = Math.max(1, maxK);
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        this.clock = Clock.systemUTC();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "fleet_leaderboards");
+        this.buildTimer = Timer.builder("sustainability.leaderboard.build")
+                .description("Building one fleet leaderboard snapshot from monthly rollups")
+                .register(meterRegistry);
+        this.refreshFailures = Counter.builder("sustainability.leaderboard.refresh.failures").register(meterRegistry);
+    }
+
+
+    /**
+     * @param month any month of the period
+     * @param k     number of warehouses, at most {@code max-k}
+     * @throws IllegalArgumentException if {@code k} is out of range
+     */
+    public FleetRanking rank(YearMonth month, ReportingPeriod period, FleetRankingMetric metric, Order order, int k) {
+        if (k < 1 || k > maxK) {
+            throw new IllegalArgumentException("k must be between 1 and " + maxK);
+        }
+        Key key = Key.of(month, period);
+        lastReads.put(key, clock.instant());
+        Leaderboard leaderboard = snapshots.get(key, this::build);
+        List<Entry> ends = (order == Order.BOTTOM ? leaderboard.bottom : leaderboard.top).get(metric);
+        return new FleetRanking(period, leaderboard.key.firstMonth(), metric, order, leaderboard.warehouses.get(metric),
+                leaderboard.computedAt, List.copyOf(ends.subList(0, Math.min(k, ends.size()))));
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${sustainability.reporting.leaderboard.refresh-interval-ms:300000}")
+    public void refresh() {
+        YearMonth current = YearMonth.now(clock);
+        Set<Key> keys = new LinkedHashSet<>(List.of(
+                Key.of(current, ReportingPeriod.MONTHLY),
+                Key.of(current.minusMonths(1), ReportingPeriod.MONTHLY),
+                Key.of(current, ReportingPeriod.QUARTERLY),
+                Key.of(current, ReportingPeriod.ANNUAL)));
+        Map<Key, Leaderboard> cached = snapshots.asMap();
+        lastReads.keySet().retainAll(cached.keySet());
+        cached.forEach((key, leaderboard) -> {
+            Instant lastRead = lastReads.get(key);
+            if (lastRead != null && lastRead.isAfter(leaderboard.computedAt())) {
+                keys.add(key);
+            }
+        });
+        for (Key key : keys) {
+            try {
+                snapshots.put(key, build(key));
+            } catch (RuntimeException e) {
+                refreshFailures.increment();
+                log.warn("Could not refresh fleet leaderboards, keeping {} snapshots: {}",
+                        snapshots.estimatedSize(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private Leaderboard build(Key key) {
+        return buildTimer.record(() -> {
+            Map<String, double[]> totals = new HashMap<>();
+            for (int i = 0; i < key.period().months(); i++) {
+                YearMonth month = key.firstMonth().plusMonths(i);
+                try (Stream<EmissionRollup> rollups = rollupRepository.streamByGranularityAndPeriodStart(
+                        RollupGranularity.MONTH, month.atDay(1))) {
+                    rollups.forEach(rollup -> add(totals.computeIfAbsent(rollup.getWarehouseId(),
+                            w -> new double[METRICS.length]), rollup));
+                }
+            }
+            YearMonth last = key.firstMonth().plusMonths(key.period().months() - 1);
+            Map<String, Long> orders = orderVolumeRepository.sumOrdersByWarehouse(key.firstMonth().atDay(1), last.atEndOfMonth());
+            Map<String, double[]> withOrders = new HashMap<>();
+            totals.forEach((warehouseId, values) -> {
+                long processed = orders.getOrDefault(warehouseId, 0L);
+                if (processed > 0) {
+                    values[FleetRankingMetric.CARBON_INTENSITY_PER_ORDER.ordinal()] =
+                            values[FleetRankingMetric.TOTAL_CO2E.ordinal()] / processed;
+                    withOrders.put(warehouseId, values);
+                }
+            });
+
+            Map<FleetRankingMetric, Integer> warehouses = new EnumMap<>(FleetRankingMetric.class);
+            Map<FleetRankingMetric, List<Entry>> top = new EnumMap<>(FleetRankingMetric.class);
+            Map<FleetRankingMetric, List<Entry>> bottom = new EnumMap<>(FleetRankingMetric.class);
+            for (FleetRankingMetric metric : METRICS) {
+                Map<String, double[]> ranked = metric == FleetRankingMetric.CARBON_INTENSITY_PER_ORDER ? withOrders : totals;
+                warehouses.put(metric, ranked.size());
+                top.put(metric, select(ranked, metric, Order.TOP));
+                bottom.put(metric, select(ranked, metric, Order.BOTTOM));
+            }
+            return new Leaderboard(key, warehouses, Instant.now(clock), top, bottom);
+        });
+    }
+
+    private static void add(double[] totals, EmissionRollup rollup) {
+        if (rollup.getEmissionType() == null) {
+            return;
+        }
+        double co2eKg = rollup.getTotalCO2eKg();
+        totals[FleetRankingMetric.TOTAL_CO2E.ordinal()] += co2eKg;
+        switch (rollup.getEmissionType()) {
+            case SCOPE1_DIRECT -> totals[FleetRankingMetric.SCOPE1.ordinal()] += co2eKg;
+            case SCOPE2_ENERGY -> totals[FleetRankingMetric.SCOPE2.ordinal()] += co2eKg;
+            case SCOPE3_TRANSPORTATION, SCOPE3_SUPPLY_CHAIN -> totals[FleetRankingMetric.SCOPE3.ordinal()] += co2eKg;
+        }
+    }
+
+    /**
+     * Picks the {@code max-k} highest or lowest warehouses with a heap of at most {@code max-k + 1}
+     * entries, whose head is the one to drop next.
+     */
+    private List<Entry> select(Map<String, double[]> totals, FleetRankingMetric metric, Order order) {
+        int index = metric.ordinal();
+        // Ranking order: highest value first, ties by warehouse ID so snapshots are stable
+        Comparator<Map.Entry<String, double[]>> ranking = Comparator
+                .comparingDouble((Map.Entry<String, double[]> e) -> e.getValue()[index]).reversed()
+                .thenComparing(Map.Entry::getKey);
+        Comparator<Map.Entry<String, double[]>> keepOrder = order == Order.TOP ? ranking : ranking.reversed();
+        PriorityQueue<Map.Entry<String, double[]>> heap = new PriorityQueue<>(maxK + 1, keepOrder.reversed());
+        for (Map.Entry<String, double[]> warehouse : totals.entrySet()) {
+            heap.add(warehouse);
+            if (heap.size() > maxK) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<String, double[]>> kept = new ArrayList<>(heap);
+        kept.sort(keepOrder);
+        List<Entry> entries = new ArrayList<>(kept.size());
+        for (int i = 0; i < kept.size(); i++) {
+            Map.Entry<String, double[]> warehouse = kept.get(i);
+            int rank = order == Order.TOP ? i + 1 : totals.size() - i;
+            entries.add(new Entry(rank, warehouse.getKey(), warehouse.getValue()[index]));
+        }
+        return entries;
+    }
+
+    private record Key(YearMonth firstMonth, ReportingPeriod period) {
+
+        static Key of(YearMonth month, ReportingPeriod period) {
+            return new Key(period.firstMonth(month), period);
+        }
+    }
+
+    private record Leaderboard(Key key, Map<FleetRankingMetric, Integer> warehouses, Instant computedAt,
+                               Map<FleetRankingMetric, List<Entry>> top,
+                               Map<FleetRankingMetric, List<Entry>> bottom) {}
+}
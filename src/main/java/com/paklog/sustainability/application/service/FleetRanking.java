@@ -0,0 +1,27 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Highest or lowest warehouses of the fleet by one metric for a reporting period, as of the leaderboard
+ * snapshot computed at {@code computedAt}. {@code rank} is the position in descending order among all
+ * {@code warehouses} that recorded emissions in the period (and processed orders, for carbon intensity), so
+ * the lowest warehouse has the highest rank.
+ */
+public record FleetRanking(
+        ReportingPeriod period,
+        YearMonth firstMonth,
+        FleetRankingMetric metric,
+        Order order,
+        int warehouses,
+        Instant computedAt,
+        List<Entry> entries) {
+
+    public enum Order { TOP, BOTTOM }
+
+    public record Entry(int rank, String warehouseId, double value) {}
+}
@@ -0,0 +1,14 @@
+package com.paklog.sustainability.application.service;
+
+/**
+ * What fleet rankings order warehouses by. Scope 3 is the sum of its transportation and supply chain
+ * categories, as in ESG reports. Carbon intensity is total kg CO2e per order processed and ranks only
+ * warehouses with orders in the period.
+ */
+public enum FleetRankingMetric {
+    TOTAL_CO2E,
+    SCOPE1,
+    SCOPE2,
+    SCOPE3,
+    CARBON_INTENSITY_PER_ORDER
+}
@@ -0,0 +1,283 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.application.service.FleetReportRun.Status;
+import com.paklog.sustainability.domain.repository.ESGReportRepository;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepository;
+import com.paklog.sustainability.domain.repository.JobLeaseRepository;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the monthly reports of every warehouse that recorded footprints in a month. Each warehouse
+ * runs on its own virtual thread; a semaphore caps how many run at once, which bounds the MongoDB
+ * connections the job can hold since a report is generated with sequential queries.
+ *
+ * <p>The month-close schedule fires on every replica, so a scheduled run first takes a Mongo lease on
+ * its month and the replicas that lose the race skip it. The lease is renewed while the run lasts and
+ * kept after it completes, so a replica whose clock fires late does not run the month again.
+ */
+@Service
+public class FleetReportJobService {
+    private static final Logger log = LoggerFactory.getLogger(FleetReportJobService.class);
+
+    private static final int RETAINED_RUNS = 20;
+    private static final int REPORTED_FAILURES = 100;
+
+    private final SustainabilityApplicationService applicationService;
+    private final ESGReportRepository reportRepository;
+    private final EmissionRollupRepository rollupRepository;
+    private final int mongoConnectionBudget;
+    private final JobLeaseRepository leaseRepository;
+    private final Duration leaseDuration;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Run> runs = new ConcurrentHashMap<>();
+    public FleetReportJobService(SustainabilityApplicationService applicationService, ESGReportRepository reportRepository,
+                                 EmissionRollupRepository rollupRepository,
+                                 @Value("${sustainability.reporting.fleet.mongo-connection-budget:16}") int mongoConnectionBudget,
+                                 JobLeaseRepository leaseRepository,
+                                 @Value("${sustainability.reporting.fleet.lease:PT10M}") Duration leaseDuration) {
+        this.applicationService = applicationService;
+        this.reportRepository = reportRepository;
+        this.rollupRepository = rollupRepository;
+        this.mongoConnectionBudget = Math.max(1, mongoConnectionBudget);
+        this.leaseRepository = leaseRepository;
+        this.leaseDuration = leaseDuration;
+    }
+
+
+    /**
+     * Starts a run in the background. While a run for the same month is active, that run is returned
+     * instead of starting another one.
+     */
+    public FleetReportRun start(YearMonth reportMonth, FleetReportMode mode) {
+        return start(reportMonth, mode, null).orElseThrow();
+    }
+
+    public Optional<FleetReportRun> find(String runId) {
+        return Optional.ofNullable(runs.get(runId)).map(Run::snapshot);
+    }
+
+    public List<FleetReportRun> list() {
+        List<FleetReportRun> snapshots = new ArrayList<>();
+        for (Run run : runs.values()) {
+            snapshots.add(run.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(FleetReportRun::startedAt).reversed());
+        return snapshots;
+    }
+
+    /**
+     * Month close: reports for the previous month, keeping any that were already generated.
+     */
+    @Scheduled(cron = "${sustainability.reporting.fleet.cron:0 30 2 1 * *}")
+    public void generatePreviousMonth() {
+        YearMonth reportMonth = YearMonth.now().minusMonths(1);
+        try {
+            start(reportMonth, FleetReportMode.SKIP, "fleet-report:" + reportMonth).ifPresentOrElse(
+                    run -> log.info("Started scheduled fleet report run {} for {}", run.runId(), run.reportMonth()),
+                    () -> log.info("Scheduled fleet report for {} is held by another instance", reportMonth));
+        } catch (RuntimeException e) {
+            log.warn("Scheduled fleet report for {} failed to start: {}", reportMonth, e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a run unless one for the month is already active here. With a lease name the run starts only
+     * if this instance takes the lease, and the result is empty when another instance holds it.
+     */
+    private synchronized Optional<FleetReportRun> start(YearMonth reportMonth, FleetReportMode mode, String lease) {
+        for (Run run : runs.values()) {
+            if (run.reportMonth.equals(reportMonth) && !run.isFinished()) {
+                return Optional.of(run.snapshot());
+            }
+        }
+        if (lease != null && !leaseRepository.tryAcquire(lease, instanceId, Instant.now().plus(leaseDuration))) {
+            return Optional.empty();
+        }
+        evictFinishedRuns();
+        Run run = new Run(UUID.randomUUID().toString(), reportMonth, mode == null ? FleetReportMode.SKIP : mode, lease);
+        runs.put(run.runId, run);
+        executor.execute(() -> execute(run));
+        return Optional.of(run.snapshot());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void execute(Run run) {
+        try {
+            List<String> warehouseIds = rollupRepository.findWarehouseIds(
+                    RollupGranularity.MONTH, run.reportMonth.atDay(1));
+            run.warehouses = warehouseIds.size();
+            run.status = Status.RUNNING;
+            log.info("Fleet report run {} for {}: {} warehouses, mode {}, Mongo budget {}",
+                    run.runId, run.reportMonth, warehouseIds.size(), run.mode, mongoConnectionBudget);
+
+            Semaphore budget = new Semaphore(mongoConnectionBudget);
+            for (String warehouseId : warehouseIds) {
+                renewLease(run);
+                budget.acquire();
+                executor.execute(() -> {
+                    try {
+                        generate(run, warehouseId);
+                    } finally {
+                        budget.release();
+                    }
+                });
+            }
+            // All permits back means every warehouse task has finished
+            while (!budget.tryAcquire(mongoConnectionBudget, leaseDuration.toMillis() / 2, TimeUnit.MILLISECONDS)) {
+                renewLease(run);
+            }
+            run.finish(Status.COMPLETED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.finish(Status.FAILED);
+        } catch (RuntimeException e) {
+            log.error("Fleet report run {} for {} failed", run.runId, run.reportMonth, e);
+            run.finish(Status.FAILED);
+        }
+        if (run.lease != null && run.status == Status.FAILED) {
+            releaseLease(run);
+        }
+        FleetReportRun result = run.snapshot();
+        log.info("Fleet report run {} for {} {}: {} generated, {} skipped, {} failed in {} ms ({} reports/s)",
+                result.runId(), result.reportMonth(), result.status(), result.generated(), result.skipped(),
+                result.failed(), Duration.between(result.startedAt(), result.finishedAt()).toMillis(),
+                String.format("%.1f", result.reportsPerSecond()));
+    }
+
+    private void generate(Run run, String warehouseId) {
+        try {
+            if (run.mode == FleetReportMode.SKIP && reportExists(warehouseId, run.reportMonth)) {
+                run.skipped.incrementAndGet();
+                return;
+            }
+            applicationService.generateMonthlyReport(warehouseId, run.reportMonth);
+            run.generated.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("Fleet report run {}: report for warehouse {} failed: {}", run.runId, warehouseId, e.getMessage());
+            run.fail(warehouseId);
+        }
+    }
+
+    private void renewLease(Run run) {
+        if (run.lease == null || Instant.now().isBefore(run.leaseRenewedAt.plus(leaseDuration.dividedBy(2)))) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (!leaseRepository.tryAcquire(run.lease, instanceId, now.plus(leaseDuration))) {
+            throw new IllegalStateException("Lease " + run.lease + " was taken over by another instance");
+        }
+        run.leaseRenewedAt = now;
+    }
+
+    private void releaseLease(Run run) {
+        try {
+            leaseRepository.release(run.lease, instanceId);
+        } catch (RuntimeException e) {
+            log.warn("Fleet report run {}: releasing lease {} failed: {}", run.runId, run.lease, e.getMessage());
+        }
+    }
+
+    private boolean reportExists(String warehouseId, YearMonth month) {
+        try {
+            return reportRepository.findByWarehouseIdAndReportMonthAndPeriod(warehouseId, month, ReportingPeriod.MONTHLY)
+                    .isPresent();
+        } catch (IncorrectResultSizeDataAccessException e) {
+            // Duplicates from before reports were keyed by month
+            return true;
+        }
+    }
+
+    private void evictFinishedRuns() {
+        List<Run> finished = new ArrayList<>();
+        for (Run run : runs.values()) {
+            if (run.isFinished()) {
+                finished.add(run);
+            }
+        }
+        finished.sort(Comparator.comparing((Run run) -> run.startedAt));
+        for (int i = 0; i < finished.size() - RETAINED_RUNS + 1; i++) {
+            runs.remove(finished.get(i).runId);
+        }
+    }
+
+    private static final class Run {
+        private final String runId;
+        private final YearMonth reportMonth;
+        private final FleetReportMode mode;
+        // Null for runs started through the API, which an operator triggers on one instance
+        private final String lease;
+        private final Instant startedAt = Instant.now();
+        private volatile Instant leaseRenewedAt = startedAt;
+        private final AtomicInteger generated = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final List<String> failedWarehouseIds = Collections.synchronizedList(new ArrayList<>());
+        private volatile Status status = Status.DISCOVERING;
+        private volatile int warehouses;
+        private volatile Instant finishedAt;
+
+        private Run(String runId, YearMonth reportMonth, FleetReportMode mode, String lease) {
+            this.runId = runId;
+            this.reportMonth = reportMonth;
+            this.mode = mode;
+            this.lease = lease;
+        }
+
+        void fail(String warehouseId) {
+            if (failed.incrementAndGet() <= REPORTED_FAILURES) {
+                failedWarehouseIds.add(warehouseId);
+            }
+        }
+
+        void finish(Status finalStatus) {
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        boolean isFinished() {
+            return status == Status.COMPLETED || status == Status.FAILED;
+        }
+
+        FleetReportRun snapshot() {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            int generatedCount = generated.get();
+            long elapsedMillis = Math.max(1, Duration.between(startedAt, end).toMillis());
+            List<String> failures;
+            synchronized (failedWarehouseIds) {
+                failures = List.copyOf(failedWarehouseIds);
+            }
+            return new FleetReportRun(runId, reportMonth, mode, status, warehouses, generatedCount, skipped.get(),
+                    failed.get(), failures, startedAt, finishedAt, generatedCount * 1000.0 / elapsedMillis);
+        }
+    }
+}
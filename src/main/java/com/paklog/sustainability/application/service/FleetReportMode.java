@@ -0,0 +1,11 @@
+package com.paklog.sustainability.application.service;
+
+/**
+ * What a fleet report run does for a warehouse that already has a report for the month.
+ */
+public enum FleetReportMode {
+    /** Keep the existing report, so an interrupted run can simply be started again. */
+    SKIP,
+    /** Regenerate the report in place under its existing id. */
+    REPLACE
+}
@@ -0,0 +1,29 @@
+package com.paklog.sustainability.application.service;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Progress of a fleet-wide monthly report run at the time it was read.
+ */
+public record FleetReportRun(
+        String runId,
+        YearMonth reportMonth,
+        FleetReportMode mode,
+        Status status,
+        int warehouses,
+        int generated,
+        int skipped,
+        int failed,
+        List<String> failedWarehouseIds,
+        Instant startedAt,
+        Instant finishedAt,
+        double reportsPerSecond) {
+
+    public enum Status { DISCOVERING, RUNNING, COMPLETED, FAILED }
+
+    public int processed() {
+        return generated + skipped + failed;
+    }
+}
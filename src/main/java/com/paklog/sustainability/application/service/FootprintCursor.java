@@ -0,0 +1,39 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last footprint of a page, passed to clients as an opaque URL-safe token.
+ */
+record FootprintCursor(LocalDate recordDate, String footprintId) {
+
+    static FootprintCursor after(CarbonFootprint footprint) {
+        return new FootprintCursor(footprint.getRecordDate(), footprint.getFootprintId());
+    }
+
+    String encode() {
+        String raw = recordDate + "|" + footprintId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    static FootprintCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = raw.indexOf('|');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        try {
+            return new FootprintCursor(LocalDate.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.application.command.RecordEmissionCommand;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+
+import java.util.UUID;
+
+final class FootprintMapper {
+
+    private FootprintMapper() {
+    }
+
+    static CarbonFootprint toFootprint(RecordEmissionCommand command) {
+        CarbonFootprint footprint = CarbonFootprint.builder()
+                .footprintId(UUID.randomUUID().toString())
+                .warehouseId(command.warehouseId())
+                .recordDate(command.recordDate())
+                .emissionType(command.emissionType())
+                .notes(command.notes())
+                .build();
+
+        footprint.addEmissions(command.emissionsBySource());
+        return footprint;
+    }
+}
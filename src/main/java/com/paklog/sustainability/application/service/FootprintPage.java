@@ -0,0 +1,11 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+
+import java.util.List;
+
+/**
+ * One page of footprints in {@code (recordDate, footprintId)} order. {@code nextCursor} is {@code null}
+ * on the last page.
+ */
+public record FootprintPage(List<CarbonFootprint> items, String nextCursor) {}
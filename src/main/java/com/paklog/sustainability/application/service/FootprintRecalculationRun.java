@@ -0,0 +1,41 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Progress and diff summary of a footprint recalculation run at the time it was read. CO2e figures cover
+ * the activity that was recalculated and only count chunks that were written, or computed in a dry run.
+ */
+public record FootprintRecalculationRun(
+        String runId,
+        String warehouseId,
+        LocalDate startDate,
+        LocalDate endDate,
+        List<String> factorKeys,
+        boolean dryRun,
+        Status status,
+        int partitions,
+        int processedPartitions,
+        int failedPartitions,
+        List<String> failedPartitionIds,
+        long footprintsScanned,
+        long footprintsCorrected,
+        double co2eBeforeKg,
+        double co2eAfterKg,
+        Map<String, Double> deltaCO2eKgByFactorKey,
+        Map<EmissionType, Double> deltaCO2eKgByScope,
+        Instant startedAt,
+        Instant finishedAt,
+        double footprintsPerSecond) {
+
+    public enum Status { DISCOVERING, RUNNING, COMPLETED, FAILED }
+
+    public double deltaCO2eKg() {
+        return co2eAfterKg - co2eBeforeKg;
+    }
+}
@@ -0,0 +1,474 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.application.command.RebuildRollupsCommand;
+import com.paklog.sustainability.application.command.RecalculateFootprintsCommand;
+import com.paklog.sustainability.application.service.FootprintRecalculationRun.Status;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.repository.CarbonFootprintRepository;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepository;
+import com.paklog.sustainability.domain.repository.JobLeaseRepository;
+import com.paklog.sustainability.domain.service.EmissionCalculationService;
+import com.paklog.sustainability.domain.service.EmissionFactorCatalog;
+import com.paklog.sustainability.domain.valueobject.ActivityAmount;
+import com.paklog.sustainability.domain.valueobject.EmissionActivity;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.FootprintCorrection;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import com.paklog.sustainability.domain.valueobject.RollupIncrement;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Restates event-derived footprints with the emission factors now in force for their dates, e.g. after a grid
+ * or fuel factor was revised. The range is split into one partition per warehouse and month; partitions run on
+ * virtual threads, at most {@code parallelism} at once, and each streams its footprints in date order, restates
+ * the activity of every day and scope, and writes the corrections back in bulk before applying the rollup
+ * deltas of the whole partition.
+ * <p>
+ * Corrections are {@code $inc} deltas between the restated and the currently attributed CO2e of each activity,
+ * so they commute with event increments landing meanwhile and a second run over the same range changes nothing.
+ * Only activity stored with the footprint is restated; emissions recorded in kg keep their values. A partition
+ * that fails after writing gets its rollups rebuilt from the footprints; running the same range again finishes
+ * it. Only one run is active at a time, since two runs over the same footprints would apply each delta twice:
+ * a run holds a Mongo lease, renewed while it lasts and released when it finishes, so replicas refuse to
+ * start another.
+ */
+@Service
+public class FootprintRecalculationService {
+    private static final Logger log = LoggerFactory.getLogger(FootprintRecalculationService.class);
+
+    private static final String LEASE = "footprint-recalculation";
+    private static final int RETAINED_RUNS = 20;
+    private static final int REPORTED_FAILURES = 100;
+    // Below this the restated value differs from the stored sum by rounding only
+    private static final double RELATIVE_TOLERANCE = 1e-9;
+
+    private final CarbonFootprintRepository footprintRepository;
+    private final EmissionRollupRepository rollupRepository;
+    private final EmissionRollupService rollupService;
+    private final EmissionCalculationService calculationService;
+    private final EmissionFactorCatalog factorCatalog;
+    private final int parallelism;
+    private final int writeBatchSize;
+    private final JobLeaseRepository leaseRepository;
+    private final Duration leaseDuration;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Run> runs = new ConcurrentHashMap<>();
+    public FootprintRecalculationService(CarbonFootprintRepository footprintRepository, EmissionRollupRepository rollupRepository,
+                                         EmissionRollupService rollupService, EmissionCalculationService calculationService,
+                                         EmissionFactorCatalog factorCatalog,
+                                         @Value("${sustainability.recalculation.parallelism:16}") int parallelism,
+                                         @Value("${sustainability.recalculation.write-batch-size:500}") int writeBatchSize,
+                                         JobLeaseRepository leaseRepository,
+                                         @Value("${sustainability.recalculation.lease:PT10M}") Duration leaseDuration) {
+        this.footprintRepository = footprintRepository;
+        this.rollupRepository = rollupRepository;
+        this.rollupService = rollupService;
+        this.calculationService = calculationService;
+        this.factorCatalog = factorCatalog;
+        this.parallelism = Math.max(1, parallelism);
+        this.writeBatchSize = Math.max(1, writeBatchSize);
+        this.leaseRepository = leaseRepository;
+        this.leaseDuration = leaseDuration;
+    }
+
+
+    /**
+     * Starts a run in the background. While another run is active, that run is returned instead.
+     *
+     * @throws IllegalArgumentException if the range ends before it starts
+     * @throws IllegalStateException if a run is active on another instance
+     */
+    public synchronized FootprintRecalculationRun start(RecalculateFootprintsCommand command) {
+        if (command.endDate().isBefore(command.startDate())) {
+            throw new IllegalArgumentException("endDate must be after or equal to startDate");
+        }
+        for (Run run : runs.values()) {
+            if (!run.isFinished()) {
+                return run.snapshot();
+            }
+        }
+        if (!leaseRepository.tryAcquire(LEASE, instanceId, Instant.now().plus(leaseDuration))) {
+            throw new IllegalStateException("A footprint recalculation is running on another instance");
+        }
+        evictFinishedRuns();
+        Set<String> factorKeys = new TreeSet<>();
+        if (command.factorKeys() != null) {
+            command.factorKeys().forEach(key -> factorKeys.add(EmissionActivity.normalize(key)));
+        }
+        Run run = new Run(UUID.randomUUID().toString(), command.warehouseId(), command.startDate(), command.endDate(),
+                factorKeys, command.dryRun());
+        runs.put(run.runId, run);
+        executor.execute(() -> execute(run));
+        return run.snapshot();
+    }
+
+    public Optional<FootprintRecalculationRun> find(String runId) {
+        return Optional.ofNullable(runs.get(runId)).map(Run::snapshot);
+    }
+
+    public List<FootprintRecalculationRun> list() {
+        List<FootprintRecalculationRun> snapshots = new ArrayList<>();
+        for (Run run : runs.values()) {
+            snapshots.add(run.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(FootprintRecalculationRun::startedAt).reversed());
+        return snapshots;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void execute(Run run) {
+        Status outcome;
+        try {
+            // Restate with the factors as stored now, not as of the last catalog poll
+            factorCatalog.reload();
+            List<Partition> partitions = partitions(run);
+            run.partitions = partitions.size();
+            run.status = Status.RUNNING;
+            log.info("Footprint recalculation {} for {} to {}: {} partitions, factors {}, parallelism {}{}",
+                    run.runId, run.startDate, run.endDate, partitions.size(),
+                    run.factorKeys.isEmpty() ? "all" : run.factorKeys, parallelism, run.dryRun ? ", dry run" : "");
+
+            Semaphore permits = new Semaphore(parallelism);
+            for (Partition partition : partitions) {
+                renewLease(run);
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        recalculate(run, partition);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            // All permits back means every partition has finished
+            while (!permits.tryAcquire(parallelism, leaseDuration.toMillis() / 2, TimeUnit.MILLISECONDS)) {
+                renewLease(run);
+            }
+            outcome = Status.COMPLETED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = Status.FAILED;
+        } catch (RuntimeException e) {
+            log.error("Footprint recalculation {} failed", run.runId, e);
+            outcome = Status.FAILED;
+        }
+        // Before finishing, so a run reported finished no longer blocks the next one
+        releaseLease(run);
+        run.finish(outcome);
+        FootprintRecalculationRun result = run.snapshot();
+        log.info("Footprint recalculation {} {}: {} of {} partitions, {} failed, {} footprints scanned, {} corrected, "
+                        + "{} kg CO2e -> {} kg CO2e in {} ms ({} footprints/s)",
+                result.runId(), result.status(), result.processedPartitions(), result.partitions(),
+                result.failedPartitions(), result.footprintsScanned(), result.footprintsCorrected(),
+                String.format("%.3f", result.co2eBeforeKg()), String.format("%.3f", result.co2eAfterKg()),
+                Duration.between(result.startedAt(), result.finishedAt()).toMillis(),
+                String.format("%.1f", result.footprintsPerSecond()));
+    }
+
+    private void renewLease(Run run) {
+        if (Instant.now().isBefore(run.leaseRenewedAt.plus(leaseDuration.dividedBy(2)))) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (!leaseRepository.tryAcquire(LEASE, instanceId, now.plus(leaseDuration))) {
+            throw new IllegalStateException("Lease " + LEASE + " was taken over by another instance");
+        }
+        run.leaseRenewedAt = now;
+    }
+
+    private void releaseLease(Run run) {
+        try {
+            leaseRepository.release(LEASE, instanceId);
+        } catch (RuntimeException e) {
+            log.warn("Footprint recalculation {}: releasing lease {} failed: {}", run.runId, LEASE, e.getMessage());
+        }
+    }
+
+    private List<Partition> partitions(Run run) {
+        List<Partition> partitions = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(run.startDate); !month.isAfter(YearMonth.from(run.endDate));
+             month = month.plusMonths(1)) {
+            LocalDate start = month.atDay(1).isBefore(run.startDate) ? run.startDate : month.atDay(1);
+            LocalDate end = month.atEndOfMonth().isAfter(run.endDate) ? run.endDate : month.atEndOfMonth();
+            List<String> warehouseIds = run.warehouseId != null
+                    ? List.of(run.warehouseId)
+                    : rollupRepository.findWarehouseIds(RollupGranularity.MONTH, month.atDay(1));
+            for (String warehouseId : warehouseIds) {
+                partitions.add(new Partition(warehouseId, month, start, end));
+            }
+        }
+        return partitions;
+    }
+
+    private void recalculate(Run run, Partition partition) {
+        Chunk chunk = new Chunk();
+        List<RollupIncrement> rollupDeltas = new ArrayList<>();
+        try (Stream<CarbonFootprint> footprints = footprintRepository.streamRecalculable(
+                partition.warehouseId, partition.start, partition.end, run.factorKeys)) {
+            LocalDate day = null;
+            Map<EmissionType, DayActivity> activityByScope = new EnumMap<>(EmissionType.class);
+            for (Iterator<CarbonFootprint> it = footprints.iterator(); it.hasNext(); ) {
+                CarbonFootprint footprint = it.next();
+                if (!footprint.getRecordDate().equals(day)) {
+                    restate(run, partition, day, activityByScope, chunk);
+                    day = footprint.getRecordDate();
+                    activityByScope.clear();
+                }
+                activityByScope.computeIfAbsent(footprint.getEmissionType(), scope -> new DayActivity()).add(footprint);
+                chunk.footprints++;
+                if (chunk.corrections.size() >= writeBatchSize) {
+                    write(run, chunk, rollupDeltas);
+                }
+            }
+            restate(run, partition, day, activityByScope, chunk);
+            write(run, chunk, rollupDeltas);
+            if (!rollupDeltas.isEmpty()) {
+                rollupService.recordCorrections(rollupDeltas);
+            }
+            run.processed.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("Footprint recalculation {}: partition {} failed: {}", run.runId, partition.id(), e.getMessage());
+            if (chunk.dirty) {
+                repairRollups(run, partition);
+            }
+            run.fail(partition.id());
+        }
+    }
+
+    /**
+     * Restates the activity of one day and adds a correction per scope whose CO2e changed to the chunk.
+     */
+    private void restate(Run run, Partition partition, LocalDate day, Map<EmissionType, DayActivity> activityByScope,
+                         Chunk chunk) {
+        for (Map.Entry<EmissionType, DayActivity> scope : activityByScope.entrySet()) {
+            DayActivity activity = scope.getValue();
+            Map<String, Map<String, Double>> deltas = new HashMap<>();
+            for (Map.Entry<String, Map<String, ActivityAmount>> source : activity.amounts.entrySet()) {
+                for (Map.Entry<String, ActivityAmount> entry : source.getValue().entrySet()) {
+                    ActivityAmount amount = entry.getValue();
+                    EmissionActivity restated = EmissionActivity.fromKey(entry.getKey(), amount.quantity());
+                    if (!run.factorKeys.isEmpty() && !run.factorKeys.contains(restated.factorKey())) {
+                        continue;
+                    }
+                    double co2eKg = calculationService.calculate(restated, day);
+                    chunk.co2eBeforeKg += amount.co2eKg();
+                    chunk.co2eAfterKg += co2eKg;
+                    if (Math.abs(co2eKg - amount.co2eKg()) > RELATIVE_TOLERANCE * Math.max(Math.abs(co2eKg), Math.abs(amount.co2eKg()))) {
+                        deltas.computeIfAbsent(source.getKey(), s -> new HashMap<>()).put(entry.getKey(), co2eKg - amount.co2eKg());
+                    }
+                }
+            }
+            if (!deltas.isEmpty()) {
+                chunk.corrections.add(new FootprintCorrection(activity.footprintId, partition.warehouseId, day,
+                        scope.getKey(), deltas));
+            }
+        }
+    }
+
+    /**
+     * Writes the chunk's corrections unless this is a dry run and adds the chunk to the run's summary.
+     */
+    private void write(Run run, Chunk chunk, List<RollupIncrement> rollupDeltas) {
+        if (!run.dryRun && !chunk.corrections.isEmpty()) {
+            // The unordered bulk write can apply part of the chunk before it throws
+            chunk.dirty = true;
+            Set<Integer> created = footprintRepository.applyCorrections(chunk.corrections);
+            for (int i = 0; i < chunk.corrections.size(); i++) {
+                FootprintCorrection correction = chunk.corrections.get(i);
+                rollupDeltas.add(new RollupIncrement(correction.warehouseId(), correction.recordDate(),
+                        correction.emissionType(), correction.totalDeltaCO2eKg(), created.contains(i) ? 1 : 0));
+            }
+        }
+        run.add(chunk);
+        chunk.clear();
+    }
+
+    private void repairRollups(Run run, Partition partition) {
+        try {
+            rollupService.rebuild(new RebuildRollupsCommand(partition.warehouseId, partition.start, partition.end));
+        } catch (RuntimeException e) {
+            log.error("Footprint recalculation {}: rollups of {} could not be rebuilt and need a rollup rebuild",
+                    run.runId, partition.id(), e);
+        }
+    }
+
+    private void evictFinishedRuns() {
+        List<Run> finished = new ArrayList<>();
+        for (Run run : runs.values()) {
+            if (run.isFinished()) {
+                finished.add(run);
+            }
+        }
+        finished.sort(Comparator.comparing((Run run) -> run.startedAt));
+        for (int i = 0; i < finished.size() - RETAINED_RUNS + 1; i++) {
+            runs.remove(finished.get(i).runId);
+        }
+    }
+
+    private record Partition(String warehouseId, YearMonth month, LocalDate start, LocalDate end) {
+
+        String id() {
+            return warehouseId + "/" + month;
+        }
+    }
+
+    /**
+     * Activity of one warehouse, day and scope summed over its footprints; in the time-series layout these
+     * include the correction footprints of earlier runs.
+     */
+    private static final class DayActivity {
+        private final Map<String, Map<String, ActivityAmount>> amounts = new HashMap<>();
+        private String footprintId;
+
+        void add(CarbonFootprint footprint) {
+            if (footprintId == null || footprintId.startsWith("rcl:")) {
+                footprintId = footprint.getFootprintId();
+            }
+            if (footprint.getActivities() == null) {
+                return;
+            }
+            footprint.getActivities().forEach((source, byKey) -> {
+                Map<String, ActivityAmount> sums = amounts.computeIfAbsent(source, s -> new HashMap<>());
+                byKey.forEach((key, amount) -> sums.merge(key, amount, ActivityAmount::plus));
+            });
+        }
+    }
+
+    /**
+     * Corrections and summary figures gathered since the last write.
+     */
+    private static final class Chunk {
+        private final List<FootprintCorrection> corrections = new ArrayList<>();
+        private long footprints;
+        private double co2eBeforeKg;
+        private double co2eAfterKg;
+        // Set once a write was attempted and kept across chunks: the partition's rollups may be off from then on
+        private boolean dirty;
+
+        void clear() {
+            corrections.clear();
+            footprints = 0;
+            co2eBeforeKg = 0.0;
+            co2eAfterKg = 0.0;
+        }
+    }
+
+    private static final class Run {
+        private final String runId;
+        private final String warehouseId;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final Set<String> factorKeys;
+        private final boolean dryRun;
+        private final Instant startedAt = Instant.now();
+        private volatile Instant leaseRenewedAt = startedAt;
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final List<String> failedPartitionIds = Collections.synchronizedList(new ArrayList<>());
+        private final LongAdder footprintsScanned = new LongAdder();
+        private final LongAdder footprintsCorrected = new LongAdder();
+        private final DoubleAdder co2eBeforeKg = new DoubleAdder();
+        private final DoubleAdder co2eAfterKg = new DoubleAdder();
+        private final Map<String, DoubleAdder> deltaByFactorKey = new ConcurrentHashMap<>();
+        private final Map<EmissionType, DoubleAdder> deltaByScope = new ConcurrentHashMap<>();
+        private volatile Status status = Status.DISCOVERING;
+        private volatile int partitions;
+        private volatile Instant finishedAt;
+
+        private Run(String runId, String warehouseId, LocalDate startDate, LocalDate endDate, Set<String> factorKeys,
+                    boolean dryRun) {
+            this.runId = runId;
+            this.warehouseId = warehouseId;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.factorKeys = factorKeys;
+            this.dryRun = dryRun;
+        }
+
+        void add(Chunk chunk) {
+            footprintsScanned.add(chunk.footprints);
+            footprintsCorrected.add(chunk.corrections.size());
+            co2eBeforeKg.add(chunk.co2eBeforeKg);
+            co2eAfterKg.add(chunk.co2eAfterKg);
+            for (FootprintCorrection correction : chunk.corrections) {
+                deltaByScope.computeIfAbsent(correction.emissionType(), scope -> new DoubleAdder())
+                        .add(correction.totalDeltaCO2eKg());
+                correction.co2eKgDeltas().values().forEach(deltas -> deltas.forEach((key, delta) ->
+                        deltaByFactorKey.computeIfAbsent(EmissionActivity.fromKey(key, 0).factorKey(), k -> new DoubleAdder())
+                                .add(delta)));
+            }
+        }
+
+        void fail(String partitionId) {
+            if (failed.incrementAndGet() <= REPORTED_FAILURES) {
+                failedPartitionIds.add(partitionId);
+            }
+        }
+
+        void finish(Status finalStatus) {
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        boolean isFinished() {
+            return status == Status.COMPLETED || status == Status.FAILED;
+        }
+
+        FootprintRecalculationRun snapshot() {
+            // Status first: once it reads finished, every count below is final
+            Status current = status;
+            Instant finished = finishedAt;
+            Instant end = finished != null ? finished : Instant.now();
+            long scanned = footprintsScanned.sum();
+            long elapsedMillis = Math.max(1, Duration.between(startedAt, end).toMillis());
+            List<String> failures;
+            synchronized (failedPartitionIds) {
+                failures = List.copyOf(failedPartitionIds);
+            }
+            Map<String, Double> byFactorKey = new TreeMap<>();
+            deltaByFactorKey.forEach((key, delta) -> byFactorKey.put(key, delta.sum()));
+            Map<EmissionType, Double> byScope = new EnumMap<>(EmissionType.class);
+            deltaByScope.forEach((scope, delta) -> byScope.put(scope, delta.sum()));
+            return new FootprintRecalculationRun(runId, warehouseId, startDate, endDate, List.copyOf(factorKeys), dryRun,
+                    current, partitions, processed.get() + failed.get(), failed.get(), failures, scanned,
+                    footprintsCorrected.sum(), co2eBeforeKg.sum(), co2eAfterKg.sum(), byFactorKey, byScope,
+                    startedAt, finished, scanned * 1000.0 / elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.paklog.sustainability.application.service;
+
+import java.time.YearMonth;
+
+/**
+ * Published after footprints, metrics or order volumes of a warehouse were written for the months
+ * {@code from} to {@code to}, both inclusive. {@code warehouseId} is {@code null} when the change spans all
+ * warehouses.
+ */
+public record FootprintsChangedEvent(String warehouseId, YearMonth from, YearMonth to) {
+
+    public static FootprintsChangedEvent of(String warehouseId, YearMonth month) {
+        return new FootprintsChangedEvent(warehouseId, month, month);
+    }
+}
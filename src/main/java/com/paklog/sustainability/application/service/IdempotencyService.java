@@ -0,0 +1,122 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.domain.aggregate.IdempotencyRecord;
+import com.paklog.sustainability.domain.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Claims idempotency keys for HTTP requests and consumed events. A claim is a single insert into
+ * {@code idempotency_keys}, whose unique {@code _id} rejects a key that was claimed before; outside a
+ * transaction the earlier record is only read back for an actual duplicate.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    static final String HTTP_PREFIX = "http:";
+    static final String EVENT_PREFIX = "event:";
+
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final Counter httpDuplicates;
+    private final Counter eventDuplicates;
+    public IdempotencyService(IdempotencyRecordRepository recordRepository, MeterRegistry meterRegistry) {
+        this.recordRepository = recordRepository;
+        this.httpDuplicates = Counter.builder("sustainability.idempotency.duplicates").tag("source", "http").register(meterRegistry);
+        this.eventDuplicates = Counter.builder("sustainability.idempotency.duplicates").tag("source", "event").register(meterRegistry);
+    }
+
+
+    /**
+     * Claims a client-supplied idempotency key for the resource about to be created.
+     *
+     * @return the record of the earlier request if the key was already claimed, empty if this call claimed it
+     */
+    public Optional<IdempotencyRecord> claimRequest(String idempotencyKey, String resourceId) {
+        String key = HTTP_PREFIX + idempotencyKey;
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // A failed insert aborts the transaction, so look for the earlier claim first; a concurrent
+            // claim still fails the insert and rolls this request back
+            Optional<IdempotencyRecord> existing = recordRepository.findById(key);
+            if (existing.isPresent()) {
+                httpDuplicates.increment();
+                return existing;
+            }
+            recordRepository.insert(new IdempotencyRecord(key, resourceId, Instant.now()));
+            return Optional.empty();
+        }
+        try {
+            recordRepository.insert(new IdempotencyRecord(key, resourceId, Instant.now()));
+            return Optional.empty();
+        } catch (DuplicateKeyException e) {
+            httpDuplicates.increment();
+            return recordRepository.findById(key);
+        }
+    }
+
+    /**
+     * Claims the ids of a batch of consumed events in one bulk insert. Ids repeated within the batch are
+     * claimed once.
+     *
+     * @return the ids that were not seen before, in encounter order
+     */
+    public Set<String> claimEvents(Collection<String> eventIds) {
+        Instant createdAt = Instant.now();
+        Set<String> unique = new LinkedHashSet<>(eventIds);
+        List<IdempotencyRecord> records = new ArrayList<>(unique.size());
+        for (String eventId : unique) {
+            records.add(new IdempotencyRecord(EVENT_PREFIX + eventId, null, createdAt));
+        }
+
+        Set<String> existing = recordRepository.insertIfAbsent(records);
+        Set<String> fresh = new LinkedHashSet<>(unique.size());
+        for (String eventId : unique) {
+            String key = EVENT_PREFIX + eventId;
+            if (existing.contains(key)) {
+                eventDuplicates.increment();
+            } else {
+                fresh.add(eventId);
+            }
+        }
+        int repeated = eventIds.size() - fresh.size();
+        if (repeated > 0) {
+            log.debug("Dropping {} redelivered events of {}", repeated, eventIds.size());
+        }
+        return fresh;
+    }
+
+    /**
+     * Gives up a claimed request key after the write it guarded failed, so that the client can retry.
+     */
+    public void releaseRequest(String idempotencyKey) {
+        recordRepository.deleteById(HTTP_PREFIX + idempotencyKey);
+    }
+
+    /**
+     * Gives up claimed event ids after the batch they guarded failed, so that redelivery is processed.
+     */
+    public void releaseEvents(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(eventIds.size());
+        for (String eventId : eventIds) {
+            keys.add(EVENT_PREFIX + eventId);
+        }
+        recordRepository.deleteAllById(keys);
+    }
+}
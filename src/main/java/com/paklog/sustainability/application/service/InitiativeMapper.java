@@ -0,0 +1,29 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.application.command.CreateGreenInitiativeCommand;
+import com.paklog.sustainability.domain.aggregate.GreenInitiative;
+import com.paklog.sustainability.domain.valueobject.InitiativeStatus;
+
+import java.util.UUID;
+
+final class InitiativeMapper {
+
+    private InitiativeMapper() {
+    }
+
+    static GreenInitiative toInitiative(CreateGreenInitiativeCommand command) {
+        return GreenInitiative.builder()
+                .initiativeId(UUID.randomUUID().toString())
+                .name(command.name())
+                .description(command.description())
+                .status(InitiativeStatus.PLANNED)
+                .startDate(command.startDate())
+                .targetCompletionDate(command.targetCompletionDate())
+                .targetReductionCO2eKg(command.targetReductionCO2eKg())
+                .estimatedCost(command.estimatedCost())
+                .owner(command.owner())
+                .actualReductionCO2eKg(0.0)
+                .actualCost(0.0)
+                .build();
+    }
+}
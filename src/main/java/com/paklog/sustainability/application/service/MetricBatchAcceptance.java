@@ -0,0 +1,12 @@
+package com.paklog.sustainability.application.service;
+
+/**
+ * Outcome of offering a batch of readings: the first {@code accepted} of {@code total} were buffered,
+ * and the rest were refused because the buffer stayed full.
+ */
+public record MetricBatchAcceptance(int accepted, int total) {
+
+    public boolean complete() {
+        return accepted == total;
+    }
+}
@@ -0,0 +1,360 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.application.command.RecordMetricCommand;
+import com.paklog.sustainability.domain.repository.SustainabilityMetricRepository;
+import com.paklog.sustainability.domain.repository.SustainabilityMetricRepositoryCustom.DailyMetricUpsertResult;
+import com.paklog.sustainability.domain.valueobject.DailyMetricIncrement;
+import com.paklog.sustainability.domain.valueobject.MetricUnit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Write-behind buffer for meter readings. Readings are summed per warehouse, day, category and unit in
+ * memory and flushed as one bulk {@code $inc} upsert per key, either every {@code flush-interval} or as
+ * soon as {@code flush-size} keys are pending, whichever comes first.
+ * <p>
+ * The number of pending keys is bounded. A reading for a key that is already pending is always
+ * accepted; a reading for a new key waits up to {@code offer-timeout} for a flush to free room and is
+ * refused otherwise, which callers should turn into a retryable response. A failed flush puts its
+ * sums back, so readings are not lost while MongoDB is unavailable; the buffer fills up instead and
+ * pushes back on producers. On shutdown, new readings are refused and everything pending is flushed,
+ * retrying until {@code shutdown-timeout}.
+ * <p>
+ * Readings are acknowledged before they are written: up to one flush interval of readings is lost if
+ * the process dies.
+ */
+@Service
+public class MetricWriteBehindBuffer implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(MetricWriteBehindBuffer.class);
+
+    // Stop after the web server and listeners, so requests still in flight can offer their readings
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final long SHUTDOWN_RETRY_DELAY_MS = 200;
+
+    private final SustainabilityMetricRepository metricRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int flushSize;
+    private final Duration flushInterval;
+    private final long offerTimeoutNanos;
+    private final Duration shutdownTimeout;
+    private final Semaphore capacity;
+    // Offers hold the read lock while merging; a flush takes the write lock only to swap the map
+    private final StampedLock swapLock = new StampedLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Counter acceptedReadings;
+    private final Counter refusedReadings;
+    private final Counter flushedDocuments;
+    private final Counter flushFailures;
+    private final Timer flushTimer;
+
+    private volatile ConcurrentHashMap<Key, Sum> pending = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService flusher;
+    private volatile boolean running;
+    public MetricWriteBehindBuffer(SustainabilityMetricRepository metricRepository, ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${sustainability.metric-ingestion.max-pending-keys:50000}") int maxPendingKeys,
+                                   @Value("${sustainability.metric-ingestion.flush-size:5000}") int flushSize,
+                                   @Value("${sustainability.metric-ingestion.flush-interval:PT2S}") Duration flushInterval,
+                                   @Value("${sustainability.metric-ingestion.offer-timeout:PT0.5S}") Duration offerTimeout,
+                                   @Value("${sustainability.metric-ingestion.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        if (maxPendingKeys <= 0 || flushSize <= 0) {
+            throw new IllegalArgumentException("sustainability.metric-ingestion max-pending-keys and flush-size must be positive");
+        }
+        this.metricRepository = metricRepository;
+        this.eventPublisher = eventPublisher;
+        this.flushSize = Math.min(flushSize, maxPendingKeys);
+        this.flushInterval = flushInterval;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+        this.capacity = new Semaphore(maxPendingKeys);
+
+        this.acceptedReadings = Counter.builder("sustainability.metric.readings").tag("outcome", "accepted").register(meterRegistry);
+        this.refusedReadings = Counter.builder("sustainability.metric.readings").tag("outcome", "refused").register(meterRegistry);
+        this.flushedDocuments = Counter.builder("sustainability.metric.buffer.flushed").register(meterRegistry);
+        this.flushFailures = Counter.builder("sustainability.metric.buffer.flush.failures").register(meterRegistry);
+        this.flushTimer = Timer.builder("sustainability.metric.buffer.flush").register(meterRegistry);
+        Gauge.builder("sustainability.metric.buffer.pending", this, b -> b.pending.size()).register(meterRegistry);
+    }
+
+
+    /**
+     * @return {@code false} if the reading was refused because the buffer stayed full or is shut down
+     */
+    public boolean offer(RecordMetricCommand reading) {
+        if (!running) {
+            refusedReadings.increment();
+            return false;
+        }
+        Key key = Key.of(reading);
+        if (mergeIfPending(key, reading.value())) {
+            acceptedReadings.increment();
+            return true;
+        }
+        // Never wait for room while holding the read lock, or the flush that would free it could not swap
+        if (!acquireCapacity()) {
+            refusedReadings.increment();
+            requestFlush();
+            return false;
+        }
+        int size = mergeWithPermit(key, reading.value());
+        acceptedReadings.increment();
+        if (size >= flushSize) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    /**
+     * Offers readings in order and stops at the first one refused.
+     */
+    public MetricBatchAcceptance offerAll(List<RecordMetricCommand> readings) {
+        int accepted = 0;
+        for (RecordMetricCommand reading : readings) {
+            if (!offer(reading)) {
+                break;
+            }
+            accepted++;
+        }
+        return new MetricBatchAcceptance(accepted, readings.size());
+    }
+
+    private boolean acquireCapacity() {
+        try {
+            return capacity.tryAcquire(offerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean mergeIfPending(Key key, double value) {
+        long stamp = swapLock.readLock();
+        try {
+            return pending.computeIfPresent(key, (k, sum) -> sum.add(value, 1)) != null;
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Merges into a new or existing key while holding one capacity permit; the permit is kept only
+     * if the key was created.
+     *
+     * @return the number of pending keys afterwards
+     */
+    private int mergeWithPermit(Key key, double value) {
+        long stamp = swapLock.readLock();
+        try {
+            ConcurrentHashMap<Key, Sum> current = pending;
+            boolean[] created = new boolean[1];
+            current.compute(key, (k, sum) -> {
+                if (sum == null) {
+                    created[0] = true;
+                    sum = new Sum();
+                }
+                return sum.add(value, 1);
+            });
+            if (!created[0]) {
+                capacity.release();
+            }
+            return current.size();
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    private void requestFlush() {
+        ScheduledExecutorService executor = flusher;
+        if (executor != null && flushRequested.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Writes everything pending. Only ever runs on the flusher thread, so flushes do not overlap.
+     */
+    void flush() {
+        Map<Key, Sum> batch;
+        long stamp = swapLock.writeLock();
+        try {
+            batch = pending;
+            if (batch.isEmpty()) {
+                return;
+            }
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.unlockWrite(stamp);
+        }
+
+        List<Key> keys = new ArrayList<>(batch.keySet());
+        List<DailyMetricIncrement> increments = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            Sum sum = batch.get(key);
+            increments.add(new DailyMetricIncrement(key.warehouseId(), key.recordDate(), key.category(), key.unit(),
+                    sum.value, sum.readings));
+        }
+
+        long start = System.nanoTime();
+        Set<Integer> failed;
+        try {
+            DailyMetricUpsertResult result = metricRepository.upsertDailyIncrements(increments);
+            failed = result.failedIndexes();
+        } catch (RuntimeException e) {
+            log.warn("Could not flush {} metric aggregates, keeping them for the next flush: {}", keys.size(), e.getMessage());
+            failed = null;
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        Set<FootprintsChangedEvent> changes = new LinkedHashSet<>();
+        int written = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get(i);
+            if (failed == null || failed.contains(i)) {
+                requeue(key, batch.get(key));
+            } else {
+                capacity.release();
+                written++;
+                changes.add(FootprintsChangedEvent.of(key.warehouseId(), YearMonth.from(key.recordDate())));
+            }
+        }
+        if (failed != null && !failed.isEmpty()) {
+            log.warn("{} of {} metric aggregates failed to write, keeping them for the next flush", failed.size(), keys.size());
+        }
+        if (written < keys.size()) {
+            flushFailures.increment();
+        }
+        flushedDocuments.increment(written);
+        changes.forEach(eventPublisher::publishEvent);
+    }
+
+    /**
+     * Puts the sum of a failed key back. Its permit is still held: it moves to the new entry, or is
+     * released if readings for the key arrived meanwhile and already hold one.
+     */
+    private void requeue(Key key, Sum sum) {
+        long stamp = swapLock.readLock();
+        try {
+            boolean[] merged = new boolean[1];
+            pending.merge(key, sum, (existing, failed) -> {
+                merged[0] = true;
+                return existing.add(failed.value, failed.readings);
+            });
+            if (merged[0]) {
+                capacity.release();
+            }
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metric-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = flushInterval.toMillis();
+        executor.scheduleWithFixedDelay(this::flushQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        flusher = executor;
+        running = true;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the schedule
+            log.error("Metric buffer flush failed", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ScheduledExecutorService executor = flusher;
+        if (executor == null) {
+            return;
+        }
+        flusher = null;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+            // The flusher is gone, so these are the only flushes; a failed one is retried until the deadline
+            flush();
+            while (!pending.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(SHUTDOWN_RETRY_DELAY_MS);
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Final metric buffer flush failed", e);
+        }
+        int lost = pending.size();
+        if (lost > 0) {
+            log.warn("Shut down with {} metric aggregates not written", lost);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private record Key(String warehouseId, LocalDate recordDate, String category, MetricUnit unit) {
+
+        static Key of(RecordMetricCommand reading) {
+            return new Key(reading.warehouseId(), reading.recordDate(), reading.category().trim(), reading.unit());
+        }
+    }
+
+    /**
+     * Mutated only inside map compute functions, which run atomically per key.
+     */
+    private static final class Sum {
+        private double value;
+        private long readings;
+
+        Sum add(double value, long readings) {
+            this.value += value;
+            this.readings += readings;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.application.command.RebuildRollupsCommand;
+import com.paklog.sustainability.domain.repository.CarbonFootprintRepository;
+import com.paklog.sustainability.domain.repository.CarbonFootprintRepositoryCustom.DailyUpsertResult;
+import com.paklog.sustainability.domain.valueobject.DailyEmissionIncrement;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies emissions derived from consumed operational events to the daily footprints, and counts the
+ * orders they carry once the footprints are written.
+ * <p>
+ * With a transaction manager the footprint upserts and their rollup increments commit together, so a
+ * failure leaves nothing behind and the whole batch can be redelivered. Without one, footprint upserts
+ * that failed are reported as the events they came from, and rollups that could not be incremented
+ * after their footprints were written are rebuilt from the footprints.
+ */
+@Service
+public class OperationalEmissionService {
+    private static final Logger log = LoggerFactory.getLogger(OperationalEmissionService.class);
+
+
+    private final CarbonFootprintRepository footprintRepository;
+    private final EmissionRollupService rollupService;
+    private final OrderVolumeCounter orderVolumeCounter;
+    private final TransactionOperations transactions;
+    private final boolean atomic;
+    public OperationalEmissionService(CarbonFootprintRepository footprintRepository, EmissionRollupService rollupService,
+                                      OrderVolumeCounter orderVolumeCounter,
+                                      ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.footprintRepository = footprintRepository;
+        this.rollupService = rollupService;
+        this.orderVolumeCounter = orderVolumeCounter;
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        this.transactions = manager != null ? new TransactionTemplate(manager) : TransactionOperations.withoutTransaction();
+        this.atomic = manager != null;
+    }
+
+
+    /**
+     * Writes the batch. An exception means none of it was written.
+     *
+     * @return keys of the events whose emissions were not written and need to be redelivered
+     */
+    public Set<String> apply(DailyFootprintBatch batch) {
+        if (batch.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> unapplied = Set.of();
+        List<DailyEmissionIncrement> increments = batch.increments();
+        if (!increments.isEmpty()) {
+            unapplied = transactions.execute(status -> write(batch, increments));
+        }
+        // Counted last and only for written events: the others are redelivered, and their orders with them
+        orderVolumeCounter.countAll(batch.orderIncrements(unapplied));
+        return unapplied;
+    }
+
+    private Set<String> write(DailyFootprintBatch batch, List<DailyEmissionIncrement> increments) {
+        DailyUpsertResult written = footprintRepository.upsertDailyIncrements(increments);
+        Set<Integer> failed = written.failedIndexes();
+        if (!failed.isEmpty() && atomic) {
+            // A write error aborts the transaction, so roll back the rest as well and redeliver the whole batch
+            throw new IllegalStateException(failed.size() + " of " + increments.size() + " daily footprint upserts failed");
+        }
+
+        List<DailyEmissionIncrement> applied = new ArrayList<>(increments.size() - failed.size());
+        Set<Integer> created = new HashSet<>();
+        Set<Integer> appliedIndexes = new HashSet<>();
+        for (int i = 0; i < increments.size(); i++) {
+            if (failed.contains(i)) {
+                continue;
+            }
+            if (written.createdIndexes().contains(i)) {
+                created.add(applied.size());
+            }
+            applied.add(increments.get(i));
+            appliedIndexes.add(i);
+        }
+        try {
+            rollupService.recordDailyIncrements(applied, created);
+        } catch (RuntimeException e) {
+            if (atomic) {
+                throw e;
+            }
+            // The footprints are written and must not be applied again; bring the rollups back in line with them
+            repairRollups(applied, e);
+        }
+        log.debug("Applied {} event contributions as {} daily footprint upserts ({} created, {} failed)",
+                batch.contributions(), increments.size(), created.size(), failed.size());
+        if (failed.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<String> unapplied = batch.eventsOf(failed);
+        Set<String> partial = batch.eventsOf(appliedIndexes);
+        partial.retainAll(unapplied);
+        unapplied.removeAll(partial);
+        if (!partial.isEmpty()) {
+            log.error("{} events were only partly written to the daily footprints and are not redelivered: {}",
+                    partial.size(), partial);
+        }
+        return unapplied;
+    }
+
+    private void repairRollups(List<DailyEmissionIncrement> increments, RuntimeException cause) {
+        Map<String, LocalDate[]> ranges = new HashMap<>();
+        for (DailyEmissionIncrement increment : increments) {
+            LocalDate day = increment.recordDate();
+            ranges.merge(increment.warehouseId(), new LocalDate[]{day, day}, (range, next) -> new LocalDate[]{
+                    range[0].isBefore(day) ? range[0] : day, range[1].isAfter(day) ? range[1] : day});
+        }
+        log.warn("Rollup increments failed after their daily footprints were written, rebuilding {} warehouses: {}",
+                ranges.size(), cause.getMessage());
+        ranges.forEach((warehouseId, range) -> {
+            try {
+                rollupService.rebuild(new RebuildRollupsCommand(warehouseId, range[0], range[1]));
+            } catch (RuntimeException e) {
+                log.error("Rollups of {} from {} to {} could not be rebuilt and need a rollup rebuild",
+                        warehouseId, range[0], range[1], e);
+            }
+        });
+    }
+}
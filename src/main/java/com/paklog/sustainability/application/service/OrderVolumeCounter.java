@@ -0,0 +1,252 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.domain.repository.OrderVolumeRepository;
+import com.paklog.sustainability.domain.valueobject.DailyOrderIncrement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory order counts per warehouse and day, flushed to the order volumes every {@code flush-interval}
+ * as one bulk {@code $inc} upsert per warehouse and day that received orders. Counting an order never
+ * touches MongoDB: it adds to a {@link LongAdder}, whose striped cells keep concurrent consumers from
+ * contending on one counter.
+ * <p>
+ * A failed flush adds its counts back, so orders are not lost while MongoDB is unavailable. Counters that
+ * stay at zero for two flushes are dropped, so the map only holds the days still receiving orders. On
+ * shutdown everything counted is flushed, retrying until {@code shutdown-timeout}.
+ * <p>
+ * Orders are counted after the events carrying them were applied and acknowledged: up to one flush
+ * interval of counts is lost if the process dies, and reports read only flushed counts. Every flush
+ * publishes a {@link FootprintsChangedEvent} per warehouse and month it wrote, so cached reports pick up
+ * the new counts.
+ */
+@Service
+public class OrderVolumeCounter implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(OrderVolumeCounter.class);
+
+    // Stop after the Kafka listeners, so the last applied batches are counted before the final flush
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final long SHUTDOWN_RETRY_DELAY_MS = 200;
+    private static final int IDLE_FLUSHES_BEFORE_EVICTION = 2;
+
+    private final OrderVolumeRepository volumeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration flushInterval;
+    private final Duration shutdownTimeout;
+    private final Map<Key, DayCounter> counters = new ConcurrentHashMap<>();
+    private final Counter countedOrders;
+    private final Counter flushedDocuments;
+    private final Counter flushFailures;
+    private final Timer flushTimer;
+
+    private volatile ScheduledExecutorService flusher;
+    private volatile boolean running;
+    public OrderVolumeCounter(OrderVolumeRepository volumeRepository, ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry,
+                              @Value("${sustainability.order-volume.flush-interval:PT10S}") Duration flushInterval,
+                              @Value("${sustainability.order-volume.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        this.volumeRepository = volumeRepository;
+        this.eventPublisher = eventPublisher;
+        this.flushInterval = flushInterval;
+        this.shutdownTimeout = shutdownTimeout;
+
+        this.countedOrders = Counter.builder("sustainability.orders.counted").register(meterRegistry);
+        this.flushedDocuments = Counter.builder("sustainability.orders.flushed").register(meterRegistry);
+        this.flushFailures = Counter.builder("sustainability.orders.flush.failures").register(meterRegistry);
+        this.flushTimer = Timer.builder("sustainability.orders.flush").register(meterRegistry);
+        Gauge.builder("sustainability.orders.pending", counters, Map::size)
+                .description("Warehouse days with an order counter in memory")
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Counts {@code orders} for a warehouse and day; non-positive counts are ignored.
+     */
+    public void count(String warehouseId, LocalDate day, long orders) {
+        if (orders <= 0) {
+            return;
+        }
+        add(new Key(warehouseId, day), orders);
+        countedOrders.increment(orders);
+    }
+
+    public void countAll(List<DailyOrderIncrement> increments) {
+        for (DailyOrderIncrement increment : increments) {
+            count(increment.warehouseId(), increment.day(), increment.orders());
+        }
+    }
+
+    private void add(Key key, long orders) {
+        while (orders != 0) {
+            DayCounter counter = counters.computeIfAbsent(key, k -> new DayCounter());
+            counter.orders.add(orders);
+            if (!counter.retired) {
+                return;
+            }
+            // Evicted meanwhile: take back whatever the eviction did not collect and add it to a fresh counter
+            orders = counter.orders.sumThenReset();
+        }
+    }
+
+    /**
+     * Writes everything counted since the last flush. Only ever runs on the flusher thread, or after it
+     * stopped, so flushes do not overlap.
+     */
+    void flush() {
+        List<DailyOrderIncrement> increments = new ArrayList<>();
+        for (Map.Entry<Key, DayCounter> entry : counters.entrySet()) {
+            Key key = entry.getKey();
+            DayCounter counter = entry.getValue();
+            long orders = counter.orders.sumThenReset();
+            if (orders != 0) {
+                counter.idleFlushes = 0;
+                increments.add(new DailyOrderIncrement(key.warehouseId(), key.day(), orders));
+            } else if (++counter.idleFlushes >= IDLE_FLUSHES_BEFORE_EVICTION) {
+                // Retire before removing, so a concurrent count either lands before the collection below
+                // or sees the flag and moves to a fresh counter
+                counter.retired = true;
+                counters.remove(key, counter);
+                long late = counter.orders.sumThenReset();
+                if (late != 0) {
+                    increments.add(new DailyOrderIncrement(key.warehouseId(), key.day(), late));
+                }
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Set<Integer> failed;
+        try {
+            failed = volumeRepository.upsertDailyIncrements(increments);
+        } catch (RuntimeException e) {
+            log.warn("Could not flush {} order volumes, keeping them for the next flush: {}", increments.size(), e.getMessage());
+            failed = null;
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        Set<FootprintsChangedEvent> changes = new LinkedHashSet<>();
+        int written = 0;
+        for (int i = 0; i < increments.size(); i++) {
+            DailyOrderIncrement increment = increments.get(i);
+            if (failed == null || failed.contains(i)) {
+                add(new Key(increment.warehouseId(), increment.day()), increment.orders());
+            } else {
+                written++;
+                changes.add(FootprintsChangedEvent.of(increment.warehouseId(), YearMonth.from(increment.day())));
+            }
+        }
+        if (failed != null && !failed.isEmpty()) {
+            log.warn("{} of {} order volumes failed to write, keeping them for the next flush", failed.size(), increments.size());
+        }
+        if (written < increments.size()) {
+            flushFailures.increment();
+        }
+        flushedDocuments.increment(written);
+        changes.forEach(eventPublisher::publishEvent);
+    }
+
+    private boolean hasPendingOrders() {
+        for (DayCounter counter : counters.values()) {
+            if (counter.orders.sum() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-volume-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = flushInterval.toMillis();
+        executor.scheduleWithFixedDelay(this::flushQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        flusher = executor;
+        running = true;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the schedule
+            log.error("Order volume flush failed", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ScheduledExecutorService executor = flusher;
+        if (executor == null) {
+            return;
+        }
+        flusher = null;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+            // The flusher is gone, so these are the only flushes; a failed one is retried until the deadline
+            flush();
+            while (hasPendingOrders() && System.nanoTime() < deadline) {
+                Thread.sleep(SHUTDOWN_RETRY_DELAY_MS);
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Final order volume flush failed", e);
+        }
+        if (hasPendingOrders()) {
+            log.warn("Shut down with order counts of {} warehouse days not written", counters.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private record Key(String warehouseId, LocalDate day) {}
+
+    private static final class DayCounter {
+        private final LongAdder orders = new LongAdder();
+        // Touched only by the flushing thread
+        private int idleFlushes;
+        private volatile boolean retired;
+    }
+}
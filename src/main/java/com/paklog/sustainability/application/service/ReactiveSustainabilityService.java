@@ -0,0 +1,143 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.application.command.CreateGreenInitiativeCommand;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.aggregate.GreenInitiative;
+import com.paklog.sustainability.domain.repository.ReactiveCarbonFootprintRepository;
+import com.paklog.sustainability.domain.repository.ReactiveESGReportRepository;
+import com.paklog.sustainability.domain.repository.ReactiveEmissionRollupRepository;
+import com.paklog.sustainability.domain.repository.ReactiveGreenInitiativeRepository;
+import com.paklog.sustainability.domain.repository.ReactiveOrderVolumeRepository;
+import com.paklog.sustainability.domain.valueobject.InitiativeStatus;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking counterpart of {@link SustainabilityApplicationService} for the {@code reactive}
+ * profile. Footprint, initiative and report reads go through the reactive repositories. Steps that
+ * only exist as blocking code (report generation) run on the bounded elastic scheduler so they never
+ * hold an event loop thread. Single emissions are recorded on the warehouse lanes, see {@link WarehouseLanes}.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveSustainabilityService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveCarbonFootprintRepository footprintRepository;
+    private final ReactiveGreenInitiativeRepository initiativeRepository;
+    private final ReactiveESGReportRepository reportRepository;
+    private final ReactiveEmissionRollupRepository rollupRepository;
+    private final ReactiveOrderVolumeRepository orderVolumeRepository;
+    private final SustainabilityApplicationService applicationService;
+    private final ESGReportCache reportCache;
+    public ReactiveSustainabilityService(ReactiveCarbonFootprintRepository footprintRepository,
+                                         ReactiveGreenInitiativeRepository initiativeRepository,
+                                         ReactiveESGReportRepository reportRepository,
+                                         ReactiveEmissionRollupRepository rollupRepository,
+                                         ReactiveOrderVolumeRepository orderVolumeRepository,
+                                         SustainabilityApplicationService applicationService,
+                                         ESGReportCache reportCache) {
+        this.footprintRepository = footprintRepository;
+        this.initiativeRepository = initiativeRepository;
+        this.reportRepository = reportRepository;
+        this.rollupRepository = rollupRepository;
+        this.orderVolumeRepository = orderVolumeRepository;
+        this.applicationService = applicationService;
+        this.reportCache = reportCache;
+    }
+
+
+    /**
+     * Footprints in {@code (recordDate, footprintId)} order, requested from MongoDB as the subscriber
+     * demands them.
+     */
+    public Flux<CarbonFootprint> getFootprints(String warehouseId, LocalDate startDate, LocalDate endDate) {
+        return footprintRepository.findByWarehouseIdAndRecordDateBetween(warehouseId, startDate, endDate);
+    }
+
+    /**
+     * @see SustainabilityApplicationService#getFootprintPage
+     */
+    public Mono<FootprintPage> getFootprintPage(String warehouseId, LocalDate startDate, LocalDate endDate, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Flux<CarbonFootprint> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = footprintRepository.findFirstPage(warehouseId, startDate, endDate, Limit.of(pageSize + 1));
+        } else {
+            FootprintCursor after;
+            try {
+                after = FootprintCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return Mono.error(e);
+            }
+            rows = footprintRepository.findPageAfter(warehouseId, startDate, endDate,
+                    after.recordDate(), after.footprintId(), Limit.of(pageSize + 1));
+        }
+        return rows.collectList().map(page -> {
+            if (page.size() <= pageSize) {
+                return new FootprintPage(page, null);
+            }
+            List<CarbonFootprint> items = page.subList(0, pageSize);
+            return new FootprintPage(items, FootprintCursor.after(items.get(pageSize - 1)).encode());
+        });
+    }
+
+    public Mono<GreenInitiative> createInitiative(CreateGreenInitiativeCommand command) {
+        return initiativeRepository.insert(InitiativeMapper.toInitiative(command));
+    }
+
+    public Flux<GreenInitiative> getActiveInitiatives() {
+        return initiativeRepository.findByStatus(InitiativeStatus.IN_PROGRESS);
+    }
+
+    /**
+     * Same contract as {@link SustainabilityApplicationService#getReport}. A cache miss reads the
+     * stored report, the monthly rollups and the order volumes without blocking; only a missing or stale
+     * report is regenerated on the blocking path.
+     */
+    public Mono<ESGReport> getReport(String warehouseId, YearMonth month, ReportingPeriod period) {
+        ESGReportCache.Key key = ESGReportCache.Key.of(warehouseId, month, period);
+        ESGReport cached = reportCache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        long version = reportCache.version();
+        Mono<ESGReport> stored = reportRepository
+                .findByWarehouseIdAndReportMonthAndPeriod(warehouseId, key.firstMonth(), period)
+                .reduce(SustainabilityApplicationService::latest);
+        return stored
+                .zipWhen(report -> Mono.zip(
+                        rollupRepository.findByWarehouseIdAndGranularityAndPeriodStartBetween(
+                                warehouseId, RollupGranularity.MONTH, key.firstMonth().atDay(1), key.lastMonth().atDay(1))
+                                .collectList(),
+                        orderVolumeRepository.sumOrders(warehouseId, key.firstMonth().atDay(1), key.lastMonth().atEndOfMonth())
+                                .defaultIfEmpty(0L)))
+                .filter(loaded -> !SustainabilityApplicationService.isStale(loaded.getT1(), key.lastMonth(),
+                        loaded.getT2().getT1(), loaded.getT2().getT2()))
+                .map(loaded -> {
+                    reportCache.putIfCurrent(key, loaded.getT1(), version);
+                    return loaded.getT1();
+                })
+                .switchIfEmpty(Mono.defer(() -> blocking(() -> applicationService.getReport(warehouseId, month, period))));
+    }
+
+    /**
+     * Runs a blocking call on the bounded elastic scheduler.
+     */
+    public static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,9 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+
+/**
+ * Outcome of recording an emission under an idempotency key. {@code replayed} is {@code true} when the
+ * key was used before and {@code footprint} is the one recorded by that earlier request.
+ */
+public record RecordedEmission(CarbonFootprint footprint, boolean replayed) {}
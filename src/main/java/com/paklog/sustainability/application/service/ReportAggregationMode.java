@@ -0,0 +1,13 @@
+package com.paklog.sustainability.application.service;
+
+/**
+ * Where report generation reads its totals from.
+ */
+public enum ReportAggregationMode {
+    /** Emission totals from the monthly rollups, metric totals aggregated in MongoDB. */
+    ROLLUP,
+    /** Emission and metric totals both aggregated in MongoDB from raw documents. */
+    PIPELINE,
+    /** Every raw footprint and metric of the period, loaded and summed in the JVM. */
+    RAW
+}
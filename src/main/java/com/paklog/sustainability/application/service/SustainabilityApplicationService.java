@@ -2,89 +2,365 @@ package com.paklog.sustainability.application.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.paklog.sustainability.application.command.CompleteInitiativeCommand;
 import com.paklog.sustainability.application.command.CreateGreenInitiativeCommand;
 import com.paklog.sustainability.application.command.RecordEmissionCommand;
 import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
 import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.aggregate.EmissionRollup;
 import com.paklog.sustainability.domain.aggregate.GreenInitiative;
+import com.paklog.sustainability.domain.aggregate.IdempotencyRecord;
 import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
 import com.paklog.sustainability.domain.repository.CarbonFootprintRepository;
 import com.paklog.sustainability.domain.repository.ESGReportRepository;
 import com.paklog.sustainability.domain.repository.GreenInitiativeRepository;
+import com.paklog.sustainability.domain.repository.OrderVolumeRepository;
+import com.paklog.sustainability.domain.repository.ReportAggregationRepository;
+import com.paklog.sustainability.domain.repository.SustainabilityMetricRepository;
 import com.paklog.sustainability.domain.service.ESGReportingService;
 import com.paklog.sustainability.domain.valueobject.InitiativeStatus;
+import com.paklog.sustainability.domain.valueobject.ReportTotals;
 import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class SustainabilityApplicationService {
     private static final Logger log = LoggerFactory.getLogger(SustainabilityApplicationService.class);
 
+    private static final double STALE_RELATIVE_TOLERANCE = 1e-9;
+    private static final int MAX_PAGE_SIZE = 1000;
+
 
     private final CarbonFootprintRepository footprintRepository;
     private final ESGReportRepository reportRepository;
     private final GreenInitiativeRepository initiativeRepository;
     private final ESGReportingService reportingService;
-    public SustainabilityApplicationService(CarbonFootprintRepository footprintRepository, ESGReportRepository reportRepository, GreenInitiativeRepository initiativeRepository, ESGReportingService reportingService) {
+    private final EmissionRollupService rollupService;
+    private final SustainabilityMetricRepository metricRepository;
+    private final ReportAggregationRepository aggregationRepository;
+    private final ReportAggregationMode aggregationMode;
+    private final OrderVolumeRepository orderVolumeRepository;
+    private final EventOutbox eventOutbox;
+    private final IdempotencyService idempotencyService;
+    private final ESGReportCache reportCache;
+    private final Timer recordTimer;
+    private final Meter.MeterProvider<Timer> reportTimers;
+    private final Meter.MeterProvider<DistributionSummary> scannedDocuments;
+    public SustainabilityApplicationService(CarbonFootprintRepository footprintRepository, ESGReportRepository reportRepository, GreenInitiativeRepository initiativeRepository, ESGReportingService reportingService, EmissionRollupService rollupService,
+                                            SustainabilityMetricRepository metricRepository, ReportAggregationRepository aggregationRepository,
+                                            @Value("${sustainability.reporting.aggregation-mode:ROLLUP}") ReportAggregationMode aggregationMode,
+                                            OrderVolumeRepository orderVolumeRepository, EventOutbox eventOutbox, IdempotencyService idempotencyService,
+                                            ESGReportCache reportCache, MeterRegistry meterRegistry) {
         this.footprintRepository = footprintRepository;
         this.reportRepository = reportRepository;
         this.initiativeRepository = initiativeRepository;
         this.reportingService = reportingService;
+        this.rollupService = rollupService;
+        this.metricRepository = metricRepository;
+        this.aggregationRepository = aggregationRepository;
+        this.aggregationMode = aggregationMode;
+        this.orderVolumeRepository = orderVolumeRepository;
+        this.eventOutbox = eventOutbox;
+        this.idempotencyService = idempotencyService;
+        this.reportCache = reportCache;
+
+        this.recordTimer = Timer.builder("sustainability.emission.record")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+        this.reportTimers = Timer.builder("sustainability.report.generation")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .withRegistry(meterRegistry);
+        this.scannedDocuments = DistributionSummary.builder("sustainability.report.documents.scanned")
+                .description("Documents read from MongoDB to compute one monthly report")
+                .publishPercentileHistogram()
+                .withRegistry(meterRegistry);
     }
 
 
     @Transactional
     public CarbonFootprint recordEmission(RecordEmissionCommand command) {
-        CarbonFootprint footprint = CarbonFootprint.builder()
-                .footprintId(UUID.randomUUID().toString())
-                .warehouseId(command.warehouseId())
-                .recordDate(command.recordDate())
-                .emissionType(command.emissionType())
-                .notes(command.notes())
-                .build();
+        return recordTimer.record(() -> {
+            CarbonFootprint footprint = footprintRepository.insert(FootprintMapper.toFootprint(command));
+            rollupService.recordFootprint(footprint);
+            eventOutbox.emissionsCalculated(footprint);
+            return footprint;
+        });
+    }
 
-        command.emissionsBySource().forEach(footprint::addEmission);
+    /**
+     * Records an emission at most once per idempotency key. A retry of a completed request returns the
+     * original footprint instead of recording it again.
+     *
+     * @return the footprint, or empty if the key is claimed by a request that has not finished yet
+     */
+    @Transactional
+    public Optional<RecordedEmission> recordEmission(RecordEmissionCommand command, String idempotencyKey) {
+        return recordTimer.record(() -> recordOnce(command, idempotencyKey));
+    }
 
-        return footprintRepository.save(footprint);
+    private Optional<RecordedEmission> recordOnce(RecordEmissionCommand command, String idempotencyKey) {
+        CarbonFootprint footprint = FootprintMapper.toFootprint(command);
+        Optional<IdempotencyRecord> earlier = idempotencyService.claimRequest(idempotencyKey, footprint.getFootprintId());
+        if (earlier.isPresent()) {
+            log.debug("Replaying emission for idempotency key {}", idempotencyKey);
+            return footprintRepository.findById(earlier.get().getResourceId())
+                    .map(original -> new RecordedEmission(original, true));
+        }
+        boolean inserted = false;
+        try {
+            footprint = footprintRepository.insert(footprint);
+            inserted = true;
+            rollupService.recordFootprint(footprint);
+            eventOutbox.emissionsCalculated(footprint);
+        } catch (RuntimeException e) {
+            // A transaction rolls the claim back with the write. Without one, free the key only if nothing
+            // was written; once the footprint exists, a retry must replay it rather than record it again
+            if (!inserted && !TransactionSynchronizationManager.isActualTransactionActive()) {
+                idempotencyService.releaseRequest(idempotencyKey);
+            }
+            throw e;
+        }
+        return Optional.of(new RecordedEmission(footprint, false));
     }
 
     @Transactional
     public GreenInitiative createInitiative(CreateGreenInitiativeCommand command) {
-        GreenInitiative initiative = GreenInitiative.builder()
-                .initiativeId(UUID.randomUUID().toString())
-                .name(command.name())
-                .description(command.description())
-                .status(InitiativeStatus.PLANNED)
-                .startDate(command.startDate())
-                .targetCompletionDate(command.targetCompletionDate())
-                .targetReductionCO2eKg(command.targetReductionCO2eKg())
-                .estimatedCost(command.estimatedCost())
-                .owner(command.owner())
-                .actualReductionCO2eKg(0.0)
-                .actualCost(0.0)
-                .build();
-
+        GreenInitiative initiative = InitiativeMapper.toInitiative(command);
         return initiativeRepository.save(initiative);
     }
 
+    /**
+     * @return the completed initiative, or empty if there is no initiative with that id
+     * @throws IllegalStateException if the initiative was already completed or cancelled
+     */
+    @Transactional
+    public Optional<GreenInitiative> completeInitiative(String initiativeId, CompleteInitiativeCommand command) {
+        return initiativeRepository.findById(initiativeId).map(initiative -> {
+            if (initiative.getStatus() == InitiativeStatus.COMPLETED || initiative.getStatus() == InitiativeStatus.CANCELLED) {
+                throw new IllegalStateException("Initiative " + initiativeId + " is already " + initiative.getStatus());
+            }
+            initiative.setStatus(InitiativeStatus.COMPLETED);
+            initiative.setActualCompletionDate(command.actualCompletionDate() != null ? command.actualCompletionDate() : LocalDate.now());
+            initiative.setActualReductionCO2eKg(command.actualReductionCO2eKg());
+            initiative.setActualCost(command.actualCost());
+            GreenInitiative completed = initiativeRepository.save(initiative);
+            eventOutbox.initiativeCompleted(completed);
+            return completed;
+        });
+    }
+
+    /**
+     * Report for the period of the given type that contains {@code month}, served from the report cache.
+     * On a miss the stored report is reused unless the rollups have moved since it was generated.
+     */
+    @Transactional
+    public ESGReport getReport(String warehouseId, YearMonth month, ReportingPeriod period) {
+        return reportCache.get(ESGReportCache.Key.of(warehouseId, month, period), this::loadReport);
+    }
+
+    private ESGReport loadReport(ESGReportCache.Key key) {
+        ESGReport stored = storedReports(key.warehouseId(), key.firstMonth().getYear(), key.period()).get(key.firstMonth());
+        if (stored != null && !isStale(stored, key.lastMonth(),
+                rollupService.monthlyRollups(key.warehouseId(), key.firstMonth(), key.lastMonth()),
+                orderVolumeRepository.sumOrders(key.warehouseId(), key.firstMonth().atDay(1), key.lastMonth().atEndOfMonth()))) {
+            return stored;
+        }
+        return buildReport(key.warehouseId(), key.firstMonth(), key.period());
+    }
+
+    @Transactional
+    public ESGReport generateReport(String warehouseId, YearMonth month, ReportingPeriod period) {
+        ESGReport report = buildReport(warehouseId, month, period);
+        reportCache.put(ESGReportCache.Key.of(warehouseId, month, period), report);
+        return report;
+    }
+
     @Transactional
     public ESGReport generateMonthlyReport(String warehouseId, YearMonth month) {
+        return generateReport(warehouseId, month, ReportingPeriod.MONTHLY);
+    }
+
+    private ESGReport buildReport(String warehouseId, YearMonth month, ReportingPeriod period) {
+        return reportTimers.withTag("period", period.name()).record(() -> switch (period) {
+            case MONTHLY -> {
+                List<EmissionRollup> rollups = rollupService.monthlyRollups(warehouseId, month, month);
+                if (isOpen(month)) {
+                    yield composeMonthlyReport(warehouseId, month, rollups);
+                }
+                ESGReport existing = storedReports(warehouseId, month.getYear(), ReportingPeriod.MONTHLY).get(month);
+                yield saveMonthlyReport(warehouseId, month, existing, rollups);
+            }
+            case QUARTERLY, ANNUAL -> generateCompositeReport(warehouseId, period.firstMonth(month), period.months(), period);
+        });
+    }
+
+    /**
+     * Builds a quarterly or annual report from the stored monthly reports of the period. Only closed months
+     * without a report, or whose report no longer matches the monthly rollups, are regenerated; the rest are
+     * reused as they are. The current month is summed in memory and months after it are left out; a report
+     * covering them is returned without being stored, so neither it nor its open months are published.
+     */
+    private ESGReport generateCompositeReport(String warehouseId, YearMonth first, int months, ReportingPeriod period) {
+        YearMonth last = first.plusMonths(months - 1);
+        YearMonth current = YearMonth.now();
+        Map<YearMonth, ESGReport> monthlyReports = storedReports(warehouseId, first.getYear(), ReportingPeriod.MONTHLY);
+        Map<YearMonth, List<EmissionRollup>> rollupsByMonth = new HashMap<>();
+        for (EmissionRollup rollup : rollupService.monthlyRollups(warehouseId, first, last)) {
+            rollupsByMonth.computeIfAbsent(YearMonth.from(rollup.getPeriodStart()), m -> new ArrayList<>()).add(rollup);
+        }
+        Map<YearMonth, Long> ordersByMonth = orderVolumeRepository.sumOrdersByMonth(warehouseId, first, last);
+
+        ReportTotals totals = new ReportTotals();
+        long footprintCount = 0;
+        int regenerated = 0;
+        for (YearMonth month = first; !month.isAfter(last) && !month.isAfter(current); month = month.plusMonths(1)) {
+            List<EmissionRollup> rollups = rollupsByMonth.getOrDefault(month, List.of());
+            ESGReport report;
+            if (month.equals(current)) {
+                report = composeMonthlyReport(warehouseId, month, rollups);
+            } else {
+                report = monthlyReports.get(month);
+                if (report == null || isStale(report, month, rollups, ordersByMonth.getOrDefault(month, 0L))) {
+                    report = saveMonthlyReport(warehouseId, month, report, rollups);
+                    regenerated++;
+                }
+            }
+            totals.merge(reportingService.totalsOf(report));
+            footprintCount += report.getSourceFootprintCount();
+        }
+
+        ESGReport composite = reportingService.generateReport(warehouseId, first, period, totals);
+        composite.setSourceFootprintCount(footprintCount);
+        if (isOpen(last)) {
+            log.info("Composed {} report for warehouse {} from {} to {} in memory, the period is still open",
+                    period, warehouseId, first, last);
+            return composite;
+        }
+        ESGReport existing = storedReports(warehouseId, first.getYear(), period).get(first);
+        if (existing != null) {
+            composite.setReportId(existing.getReportId());
+        }
+        log.info("Composed {} report for warehouse {} from {} to {}: {} of {} monthly reports regenerated",
+                period, warehouseId, first, last, regenerated, months);
+        return saveReport(composite);
+    }
+
+    /**
+     * Monthly report summed from the current data, not stored.
+     */
+    private ESGReport composeMonthlyReport(String warehouseId, YearMonth month, List<EmissionRollup> rollups) {
+        ESGReport report = reportingService.generateReport(
+                warehouseId, month, ReportingPeriod.MONTHLY, reportTotals(warehouseId, month, rollups));
+        report.setSourceFootprintCount(footprintCount(rollups));
+        return report;
+    }
+
+    private ESGReport saveMonthlyReport(String warehouseId, YearMonth month, ESGReport existing, List<EmissionRollup> rollups) {
+        ESGReport report = composeMonthlyReport(warehouseId, month, rollups);
+        if (existing != null) {
+            // Keep one report per warehouse, month and period
+            report.setReportId(existing.getReportId());
+        }
+        return saveReport(report);
+    }
+
+    /**
+     * Months from the current one on still receive emissions; their reports are never stored.
+     */
+    private static boolean isOpen(YearMonth month) {
+        return !month.isBefore(YearMonth.now());
+    }
+
+    private ESGReport saveReport(ESGReport report) {
+        ESGReport saved = reportRepository.save(report);
+        eventOutbox.reportGenerated(saved);
+        return saved;
+    }
+
+    /**
+     * A report is stale when its last month is still open, or when the monthly rollups or the order
+     * volumes of its period have moved since it was generated. Metric-only corrections for a closed
+     * month are not detected; regenerate that month explicitly.
+     */
+    static boolean isStale(ESGReport report, YearMonth month, List<EmissionRollup> rollups, long orders) {
+        if (isOpen(month)) {
+            return true;
+        }
+        double co2eKg = 0.0;
+        for (EmissionRollup rollup : rollups) {
+            co2eKg += rollup.getTotalCO2eKg();
+        }
+        return report.getSourceFootprintCount() != footprintCount(rollups)
+                || report.getOrdersProcessed() != orders
+                || Math.abs(report.getTotalCO2eKg() - co2eKg) > STALE_RELATIVE_TOLERANCE * Math.max(1.0, Math.abs(co2eKg));
+    }
+
+    private static long footprintCount(List<EmissionRollup> rollups) {
+        long count = 0;
+        for (EmissionRollup rollup : rollups) {
+            count += rollup.getFootprintCount();
+        }
+        return count;
+    }
+
+    /**
+     * Stored reports of one period type for a year, by report month. Older duplicates from before
+     * reports were keyed by month lose to the most recently generated one.
+     */
+    private Map<YearMonth, ESGReport> storedReports(String warehouseId, int year, ReportingPeriod period) {
+        Map<YearMonth, ESGReport> reports = new HashMap<>();
+        for (ESGReport report : reportRepository.findByWarehouseIdAndYearAndPeriod(warehouseId, year, period)) {
+            reports.merge(report.getReportMonth(), report, SustainabilityApplicationService::latest);
+        }
+        return reports;
+    }
+
+    static ESGReport latest(ESGReport a, ESGReport b) {
+        return b.getGeneratedAt() != null && (a.getGeneratedAt() == null || b.getGeneratedAt().isAfter(a.getGeneratedAt())) ? b : a;
+    }
+
+    private ReportTotals reportTotals(String warehouseId, YearMonth month, List<EmissionRollup> rollups) {
         LocalDate startDate = month.atDay(1);
         LocalDate endDate = month.atEndOfMonth();
-        
-        List<CarbonFootprint> footprints = footprintRepository
-                .findByWarehouseIdAndRecordDateBetween(warehouseId, startDate, endDate);
-        
-        ESGReport report = reportingService.generateReport(
-                warehouseId, month, ReportingPeriod.MONTHLY, footprints, List.of());
-        
-        return reportRepository.save(report);
+        ReportTotals totals = switch (aggregationMode) {
+            case ROLLUP -> {
+                scannedDocuments.withTags("mode", "ROLLUP", "collection", "emission_rollups").record(rollups.size());
+                yield rollupService.totals(rollups)
+                        .merge(aggregationRepository.aggregateMetrics(warehouseId, startDate, endDate));
+            }
+            // Summed server-side; only the per-group results leave the database
+            case PIPELINE -> aggregationRepository.aggregateTotals(warehouseId, startDate, endDate);
+            case RAW -> {
+                List<CarbonFootprint> footprints = footprintRepository.findByWarehouseIdAndRecordDateBetween(warehouseId, startDate, endDate);
+                List<SustainabilityMetric> metrics = metricRepository.findByWarehouseIdAndRecordDateBetween(warehouseId, startDate, endDate);
+                scannedDocuments.withTags("mode", "RAW", "collection", "carbon_footprints").record(footprints.size());
+                scannedDocuments.withTags("mode", "RAW", "collection", "sustainability_metrics").record(metrics.size());
+                yield reportingService.summarize(footprints, metrics);
+            }
+        };
+        // Order volumes are a handful of daily documents, summed server-side in every mode
+        return totals.addOrders(orderVolumeRepository.sumOrders(warehouseId, startDate, endDate));
     }
 
     @Transactional(readOnly = true)
@@ -92,6 +368,42 @@ public class SustainabilityApplicationService {
         return footprintRepository.findByWarehouseIdAndRecordDateBetween(warehouseId, startDate, endDate);
     }
 
+    /**
+     * Keyset page of footprints; pass the previous page's {@code nextCursor} to continue.
+     *
+     * @throws IllegalArgumentException if {@code cursor} is malformed
+     */
+    @Transactional(readOnly = true)
+    public FootprintPage getFootprintPage(String warehouseId, LocalDate startDate, LocalDate endDate, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        FootprintCursor after = cursor == null || cursor.isBlank() ? null : FootprintCursor.decode(cursor);
+        List<CarbonFootprint> rows = footprintRepository.findPage(warehouseId, startDate, endDate,
+                after == null ? null : after.recordDate(), after == null ? null : after.footprintId(), pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new FootprintPage(rows, null);
+        }
+        List<CarbonFootprint> items = rows.subList(0, pageSize);
+        return new FootprintPage(items, FootprintCursor.after(items.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Footprints read lazily from a MongoDB cursor; the caller must close the stream.
+     */
+    public Stream<CarbonFootprint> streamFootprints(String warehouseId, LocalDate startDate, LocalDate endDate) {
+        return footprintRepository.streamByWarehouseIdAndRecordDateBetween(warehouseId, startDate, endDate);
+    }
+
+    /**
+     * Daily metric aggregates, optionally of one category.
+     */
+    @Transactional(readOnly = true)
+    public List<SustainabilityMetric> getMetrics(String warehouseId, LocalDate startDate, LocalDate endDate, String category) {
+        if (category == null || category.isBlank()) {
+            return metricRepository.findByWarehouseIdAndRecordDateBetween(warehouseId, startDate, endDate);
+        }
+        return metricRepository.findByWarehouseIdAndCategoryAndRecordDateBetween(warehouseId, category.trim(), startDate, endDate);
+    }
+
     @Transactional(readOnly = true)
     public List<GreenInitiative> getActiveInitiatives() {
         return initiativeRepository.findByStatus(InitiativeStatus.IN_PROGRESS);
@@ -0,0 +1,252 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer lanes for single-record REST writes. A warehouse ID hashes to one of a fixed number of
+ * lanes, each a bounded queue drained by its own thread, so the work submitted for one warehouse runs
+ * one at a time in submission order without locks or optimistic retries, while warehouses on different
+ * lanes are written in parallel.
+ * <p>
+ * Only {@code POST /emissions} is submitted here. Bulk NDJSON uploads, operational events, footprint
+ * recalculations and rollup rebuilds write the same warehouses' footprints and rollups outside the
+ * lanes, so the lanes order recorded emissions among themselves, not against those writers. Their
+ * rollup updates are {@code $inc}s, which commute with the lanes' writes; a rebuild recomputes rollups
+ * from the footprints.
+ * <p>
+ * A submission to a full lane waits up to {@code offer-timeout} for room and is refused with a
+ * {@link RejectedExecutionException} otherwise, which callers should turn into a retryable response.
+ * Work submitted from a lane thread to its own lane runs inline, as waiting for it would never end.
+ * On shutdown, new work is refused and the lanes drain what is queued until {@code shutdown-timeout}.
+ */
+@Service
+public class WarehouseLanes implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(WarehouseLanes.class);
+
+    // Stop after the web server, so requests still in flight can finish their writes
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final Lane[] lanes;
+    private final long offerTimeoutNanos;
+    private final Duration shutdownTimeout;
+    private final Timer waitTimer;
+    private final Counter rejections;
+
+    private volatile boolean running;
+    public WarehouseLanes(MeterRegistry meterRegistry,
+                          @Value("${sustainability.lanes.count:16}") int laneCount,
+                          @Value("${sustainability.lanes.capacity:256}") int capacity,
+                          @Value("${sustainability.lanes.offer-timeout:PT0.5S}") Duration offerTimeout,
+                          @Value("${sustainability.lanes.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        if (laneCount <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("sustainability.lanes count and capacity must be positive");
+        }
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, capacity);
+        }
+
+        this.waitTimer = Timer.builder("sustainability.lanes.wait")
+                .description("Time work spends queued in a warehouse lane before it runs")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejections = Counter.builder("sustainability.lanes.rejections").register(meterRegistry);
+        for (Lane lane : lanes) {
+            String tag = Integer.toString(lane.index);
+            Gauge.builder("sustainability.lanes.depth", lane, l -> l.queue.size())
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("sustainability.lanes.lag", lane, Lane::headAgeSeconds)
+                    .description("Age of the oldest queued work in a warehouse lane")
+                    .baseUnit("seconds")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+
+    /**
+     * Queues {@code work} on the lane of {@code warehouseId}.
+     *
+     * @return a future completed with the result of {@code work} once its lane has run it
+     * @throws RejectedExecutionException if the lane stayed full for {@code offer-timeout} or the lanes are shut down
+     */
+    public <T> CompletableFuture<T> submit(String warehouseId, Supplier<T> work) {
+        Lane lane = laneOf(warehouseId);
+        if (Thread.currentThread() == lane.thread) {
+            try {
+                return CompletableFuture.completedFuture(work.get());
+            } catch (RuntimeException | Error e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (!running) {
+            rejections.increment();
+            throw new RejectedExecutionException("Warehouse lanes are shut down");
+        }
+        Task<T> task = new Task<>(work, System.nanoTime());
+        boolean queued;
+        try {
+            queued = lane.queue.offer(task, offerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            rejections.increment();
+            throw new RejectedExecutionException("Lane " + lane.index + " is saturated");
+        }
+        return task.result;
+    }
+
+    /**
+     * Runs {@code work} on the lane of {@code warehouseId} and waits for it, rethrowing what it throws.
+     *
+     * @throws RejectedExecutionException if the lane stayed full for {@code offer-timeout} or the lanes are shut down
+     */
+    public <T> T call(String warehouseId, Supplier<T> work) {
+        CompletableFuture<T> result = submit(warehouseId, work);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // The work stays queued and still runs; only this caller stops waiting for it
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private Lane laneOf(String warehouseId) {
+        int hash = Objects.hashCode(warehouseId);
+        // Fold the high bits in, so the lane depends on the whole hash and not just its low bits
+        return lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+    }
+
+    private void drain(Lane lane) {
+        while (running || !lane.queue.isEmpty()) {
+            Task<?> task;
+            try {
+                task = lane.queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (task != null) {
+                waitTimer.record(System.nanoTime() - task.queuedAt, TimeUnit.NANOSECONDS);
+                task.run();
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (Lane lane : lanes) {
+            lane.thread = new Thread(() -> drain(lane), "warehouse-lane-" + lane.index);
+            lane.thread.setDaemon(true);
+            lane.thread.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        try {
+            for (Lane lane : lanes) {
+                Thread thread = lane.thread;
+                if (thread != null) {
+                    thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int abandoned = 0;
+        for (Lane lane : lanes) {
+            if (lane.thread != null) {
+                lane.thread.interrupt();
+            }
+            Task<?> task;
+            while ((task = lane.queue.poll()) != null) {
+                task.result.completeExceptionally(new RejectedExecutionException("Warehouse lanes are shut down"));
+                abandoned++;
+            }
+        }
+        if (abandoned > 0) {
+            log.warn("Shut down with {} warehouse lane tasks not run", abandoned);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private static final class Lane {
+        private final int index;
+        private final ArrayBlockingQueue<Task<?>> queue;
+        private volatile Thread thread;
+
+        Lane(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        double headAgeSeconds() {
+            Task<?> head = queue.peek();
+            return head == null ? 0 : (System.nanoTime() - head.queuedAt) / 1e9;
+        }
+    }
+
+    private static final class Task<T> {
+        private final Supplier<T> work;
+        private final long queuedAt;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Task(Supplier<T> work, long queuedAt) {
+            this.work = work;
+            this.queuedAt = queuedAt;
+        }
+
+        void run() {
+            try {
+                result.complete(work.get());
+            } catch (RuntimeException | Error e) {
+                // Keep the lane alive, the submitter sees the failure
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.paklog.sustainability.application.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the {@code warehouse} tag on metrics. Configured warehouses are always tagged by id; beyond
+ * those, the first {@code limit} warehouses seen since startup get their own tag and every later one
+ * is reported as {@value #OTHER}, so a fleet of thousands of sites cannot grow the series count
+ * without bound. Fleet-wide views should sum over the tag rather than rely on a site being present.
+ */
+@Component
+public class WarehouseTagPolicy {
+    private static final Logger log = LoggerFactory.getLogger(WarehouseTagPolicy.class);
+
+    public static final String TAG = "warehouse";
+    public static final String OTHER = "other";
+    static final String UNKNOWN = "unknown";
+
+    private final Set<String> tracked;
+    private final int limit;
+    private final Set<String> admitted = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger admittedCount = new AtomicInteger();
+    public WarehouseTagPolicy(MeterRegistry meterRegistry,
+                              @Value("${sustainability.metrics.warehouse-tags.tracked:}") Set<String> tracked,
+                              @Value("${sustainability.metrics.warehouse-tags.limit:100}") int limit) {
+        this.tracked = Set.copyOf(tracked);
+        this.limit = Math.max(0, limit);
+        Gauge.builder("sustainability.metrics.warehouse_tags", admittedCount, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * @return the value to use for the {@link #TAG} tag of {@code warehouseId}
+     */
+    public String tag(String warehouseId) {
+        if (warehouseId == null || warehouseId.isBlank()) {
+            return UNKNOWN;
+        }
+        if (tracked.contains(warehouseId) || admitted.contains(warehouseId)) {
+            return warehouseId;
+        }
+        int count = admittedCount.get();
+        while (count < limit) {
+            if (admittedCount.compareAndSet(count, count + 1)) {
+                if (!admitted.add(warehouseId)) {
+                    // Admitted concurrently by another thread; give the slot back
+                    admittedCount.decrementAndGet();
+                } else if (count + 1 == limit) {
+                    log.info("Warehouse metric tag limit of {} reached, further warehouses are tagged '{}'", limit, OTHER);
+                }
+                return warehouseId;
+            }
+            count = admittedCount.get();
+        }
+        return OTHER;
+    }
+}
@@ -1,15 +1,20 @@
 package com.paklog.sustainability.domain.aggregate;
 
+import com.paklog.sustainability.domain.valueobject.ActivityAmount;
+import com.paklog.sustainability.domain.valueobject.EmissionBreakdown;
 import com.paklog.sustainability.domain.valueobject.EmissionType;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Document(collection = "carbon_footprints")
+@CompoundIndex(name = "warehouse_date_id", def = "{'warehouseId': 1, 'recordDate': 1, '_id': 1}")
 @Getter
 @Setter
 @Builder
@@ -23,21 +28,25 @@ public class CarbonFootprint {
  private EmissionType emissionType;
 
  @Builder.Default
- private Map<String, Double> emissionsBySource = new HashMap<>();
+ private EmissionBreakdown emissionsBySource = new EmissionBreakdown();
 
  private double totalCO2eKg;
  private String calculationMethod;
  private String notes;
 
+ // Activity behind factor-derived sources, by source and activity key; absent for footprints recorded in kg
+ private Map<String, Map<String, ActivityAmount>> activities;
+ private List<String> factorKeys;
+ private Instant recalculatedAt;
+
  public void addEmission(String source, double co2eKg) {
  emissionsBySource.put(source, co2eKg);
- recalculateTotal();
+ this.totalCO2eKg = emissionsBySource.total();
  }
 
- private void recalculateTotal() {
- this.totalCO2eKg = emissionsBySource.values().stream()
- .mapToDouble(Double::doubleValue)
- .sum();
+ public void addEmissions(Map<String, Double> co2eKgBySource) {
+ emissionsBySource.putAll(co2eKgBySource);
+ this.totalCO2eKg = emissionsBySource.total();
  }
 
  public double getTotalCO2eTons() {
@@ -3,6 +3,7 @@ package com.paklog.sustainability.domain.aggregate;
 import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -11,6 +12,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Document(collection = "esg_reports")
+@CompoundIndex(name = "warehouse_year_period", def = "{'warehouseId': 1, 'year': 1, 'period': 1}")
 @Getter
 @Setter
 @Builder
@@ -44,6 +46,14 @@ public class ESGReport {
  private boolean complianceCertified;
  private int auditsPassed;
 
+ // Operations
+ private long ordersProcessed;
+ // Total kg CO2e per order processed, 0 without orders
+ private double carbonIntensityPerOrder;
+
+ // Footprints behind the emission totals, used to tell whether a stored report is stale
+ private long sourceFootprintCount;
+
  @Builder.Default
  private Map<String, Object> additionalMetrics = new HashMap<>();
 
@@ -0,0 +1,45 @@
+package com.paklog.sustainability.domain.aggregate;
+
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Running emission total for one warehouse, period and scope, maintained incrementally on every footprint write.
+ */
+@Document(collection = "emission_rollups")
+@CompoundIndexes({
+        @CompoundIndex(name = "warehouse_granularity_period", def = "{'warehouseId': 1, 'granularity': 1, 'periodStart': 1}"),
+        @CompoundIndex(name = "granularity_period_warehouse", def = "{'granularity': 1, 'periodStart': 1, 'warehouseId': 1}")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmissionRollup {
+    @Id
+    private String rollupId;
+    private String warehouseId;
+    private RollupGranularity granularity;
+    private LocalDate periodStart;
+    private EmissionType emissionType;
+    private double totalCO2eKg;
+    private long footprintCount;
+    private Instant rebuiltAt;
+
+    public static LocalDate periodStart(RollupGranularity granularity, LocalDate day) {
+        return granularity == RollupGranularity.MONTH ? day.withDayOfMonth(1) : day;
+    }
+
+    public static String rollupId(String warehouseId, RollupGranularity granularity, LocalDate day, EmissionType type) {
+        return warehouseId + ":" + granularity + ":" + periodStart(granularity, day) + ":" + type;
+    }
+}
@@ -1,21 +1,29 @@
 package com.paklog.sustainability.domain.aggregate;
 
+import com.paklog.sustainability.domain.valueobject.ActivityType;
 import com.paklog.sustainability.domain.valueobject.EmissionType;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
+import java.time.LocalDate;
 
 @Document(collection = "emission_sources")
 public class EmissionSource {
     @Id
     private String sourceId;
     private String name;
+    private String factorKey;
+    // Activity the factor applies to; factor keys are only unique within a category
+    private ActivityType category;
     private EmissionType type;
     private String description;
     private double emissionFactorCO2ePerUnit;
     private String unit;
     private boolean active;
+    // Activity dates the factor applies to: validFrom inclusive, validTo exclusive, null for open-ended
+    private LocalDate validFrom;
+    private LocalDate validTo;
     private Instant createdAt;
     private Instant updatedAt;
 
@@ -23,26 +31,42 @@ public class EmissionSource {
         return quantity * emissionFactorCO2ePerUnit;
     }
 
+    /**
+     * Key this source's factor is looked up by in calculations, e.g. {@code DIESEL} or {@code TRUCK_LARGE};
+     * falls back to the display name.
+     */
+    public String resolveFactorKey() {
+        return factorKey != null && !factorKey.isBlank() ? factorKey : name;
+    }
+
 
     // Getters
     public String getSourceId() { return sourceId; }
     public String getName() { return name; }
+    public String getFactorKey() { return factorKey; }
+    public ActivityType getCategory() { return category; }
     public EmissionType getType() { return type; }
     public String getDescription() { return description; }
     public double getEmissionFactorCO2ePerUnit() { return emissionFactorCO2ePerUnit; }
     public String getUnit() { return unit; }
     public boolean isActive() { return active; }
+    public LocalDate getValidFrom() { return validFrom; }
+    public LocalDate getValidTo() { return validTo; }
     public Instant getCreatedAt() { return createdAt; }
     public Instant getUpdatedAt() { return updatedAt; }
 
     // Setters
     public void setSourceId(String sourceId) { this.sourceId = sourceId; }
     public void setName(String name) { this.name = name; }
+    public void setFactorKey(String factorKey) { this.factorKey = factorKey; }
+    public void setCategory(ActivityType category) { this.category = category; }
     public void setType(EmissionType type) { this.type = type; }
     public void setDescription(String description) { this.description = description; }
     public void setEmissionFactorCO2ePerUnit(double emissionFactorCO2ePerUnit) { this.emissionFactorCO2ePerUnit = emissionFactorCO2ePerUnit; }
     public void setUnit(String unit) { this.unit = unit; }
     public void setActive(boolean active) { this.active = active; }
+    public void setValidFrom(LocalDate validFrom) { this.validFrom = validFrom; }
+    public void setValidTo(LocalDate validTo) { this.validTo = validTo; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
     public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
 }
@@ -0,0 +1,27 @@
+package com.paklog.sustainability.domain.aggregate;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Marks a client idempotency key or consumed event id as processed. The unique {@code _id} is the
+ * authoritative duplicate check; records expire after the retry horizon.
+ */
+@Document(collection = "idempotency_keys")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    private String key;
+    // Resource created under this key, e.g. the footprint id, for replaying the original response
+    private String resourceId;
+    @Indexed(expireAfter = "7d")
+    private Instant createdAt;
+}
@@ -0,0 +1,24 @@
+package com.paklog.sustainability.domain.aggregate;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Gives one instance the exclusive right to run a named job until the lease expires. The unique
+ * {@code _id} is the job name, so two instances can never both hold it.
+ */
+@Document(collection = "job_leases")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLease {
+    @Id
+    private String name;
+    private String holder;
+    private Instant leasedUntil;
+}
@@ -0,0 +1,33 @@
+package com.paklog.sustainability.domain.aggregate;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Orders a warehouse shipped on one day, the denominator of carbon intensity per order. Counted in memory
+ * from operational events and added to with {@code $inc} on every flush.
+ */
+@Document(collection = "order_volumes")
+@CompoundIndexes({
+        @CompoundIndex(name = "warehouse_day", def = "{'warehouseId': 1, 'day': 1}"),
+        @CompoundIndex(name = "day_warehouse", def = "{'day': 1, 'warehouseId': 1}")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderVolume {
+    @Id
+    private String volumeId;
+    private String warehouseId;
+    private LocalDate day;
+    private long orders;
+    private Instant updatedAt;
+}
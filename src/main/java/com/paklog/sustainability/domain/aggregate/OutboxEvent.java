@@ -0,0 +1,45 @@
+package com.paklog.sustainability.domain.aggregate;
+
+import com.paklog.sustainability.domain.valueobject.SustainabilityEventType;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * An event waiting to be published, written together with the aggregate change it describes and
+ * relayed to Kafka asynchronously. Published events expire after a week; events that kept failing
+ * are parked and stay until an operator deals with them.
+ */
+@Document(collection = "event_outbox")
+@CompoundIndex(name = "status_created", def = "{'status': 1, 'createdAt': 1}")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    public static final String PENDING = "PENDING";
+    public static final String PUBLISHED = "PUBLISHED";
+    public static final String PARKED = "PARKED";
+
+    @Id
+    private String eventId;
+    private SustainabilityEventType type;
+    private String partitionKey;
+    private String subject;
+    // JSON event data, kept as a string so it reaches Kafka exactly as written
+    private String payload;
+    private String status;
+    private int attempts;
+    private String lastError;
+    @Indexed(sparse = true)
+    private String claimToken;
+    private Instant claimedUntil;
+    private Instant createdAt;
+    @Indexed(expireAfter = "7d")
+    private Instant publishedAt;
+}
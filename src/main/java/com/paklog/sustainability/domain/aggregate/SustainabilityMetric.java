@@ -2,11 +2,13 @@ package com.paklog.sustainability.domain.aggregate;
 
 import com.paklog.sustainability.domain.valueobject.MetricUnit;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
 
 @Document(collection = "sustainability_metrics")
+@CompoundIndex(name = "warehouse_date_category", def = "{'warehouseId': 1, 'recordDate': 1, 'category': 1}")
 public class SustainabilityMetric {
     @Id
     private String metricId;
@@ -18,6 +20,8 @@ public class SustainabilityMetric {
     private String category;
     private String source;
     private String notes;
+    // Readings summed into this document when it is a daily aggregate written by metric ingestion
+    private long readingCount;
 
     public double normalizeToKgCO2e(double conversionFactor) {
         return value * conversionFactor;
@@ -34,6 +38,7 @@ public class SustainabilityMetric {
     public String getCategory() { return category; }
     public String getSource() { return source; }
     public String getNotes() { return notes; }
+    public long getReadingCount() { return readingCount; }
 
     // Setters
     public void setMetricId(String metricId) { this.metricId = metricId; }
@@ -45,4 +50,5 @@ public class SustainabilityMetric {
     public void setCategory(String category) { this.category = category; }
     public void setSource(String source) { this.source = source; }
     public void setNotes(String notes) { this.notes = notes; }
+    public void setReadingCount(long readingCount) { this.readingCount = readingCount; }
 }
@@ -3,13 +3,15 @@ package com.paklog.sustainability.domain.repository;
 import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
 import com.paklog.sustainability.domain.valueobject.EmissionType;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 
 @Repository
-public interface CarbonFootprintRepository extends MongoRepository<CarbonFootprint, String> {
+public interface CarbonFootprintRepository extends MongoRepository<CarbonFootprint, String>, CarbonFootprintRepositoryCustom {
+    @Query("{ 'warehouseId': ?0, 'recordDate': { $gte: ?1, $lte: ?2 } }")
     List<CarbonFootprint> findByWarehouseIdAndRecordDateBetween(
             String warehouseId, LocalDate startDate, LocalDate endDate);
     
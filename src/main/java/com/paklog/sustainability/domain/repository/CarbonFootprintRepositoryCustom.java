@@ -0,0 +1,71 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.valueobject.DailyEmissionIncrement;
+import com.paklog.sustainability.domain.valueobject.FootprintCorrection;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Bulk write operations for carbon footprints that go beyond derived queries.
+ */
+public interface CarbonFootprintRepositoryCustom {
+
+    /**
+     * Inserts all footprints in a single unordered bulk write. A failing document does not stop the
+     * remaining ones from being written.
+     */
+    BulkInsertResult insertUnordered(List<CarbonFootprint> footprints);
+
+    /**
+     * Adds each increment to its per-warehouse, per-day footprint with {@code $inc}, creating the
+     * footprint on first use. All increments go to MongoDB in one unordered bulk write, so a failed
+     * increment does not keep the others from being written.
+     *
+     * @return which increments created a new footprint and which could not be written
+     */
+    DailyUpsertResult upsertDailyIncrements(List<DailyEmissionIncrement> increments);
+
+    /**
+     * Keyset page of a warehouse's footprints in {@code [startDate, endDate]}, ordered by
+     * {@code (recordDate, footprintId)} and starting after the given position.
+     *
+     * @param afterDate   record date of the last footprint of the previous page, or {@code null} for the first page
+     * @param afterId     footprint id of the last footprint of the previous page
+     */
+    List<CarbonFootprint> findPage(String warehouseId, LocalDate startDate, LocalDate endDate,
+                                   LocalDate afterDate, String afterId, int limit);
+
+    /**
+     * Footprints in {@code [startDate, endDate]} in {@code (recordDate, footprintId)} order, read lazily from a
+     * MongoDB cursor. The stream must be closed.
+     */
+    Stream<CarbonFootprint> streamByWarehouseIdAndRecordDateBetween(String warehouseId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Footprints in {@code [startDate, endDate]} that carry activity calculated with any of {@code factorKeys},
+     * or with any factor if {@code factorKeys} is empty, in {@code (recordDate, footprintId)} order. Only the
+     * fields a recalculation needs are read. The stream must be closed.
+     */
+    Stream<CarbonFootprint> streamRecalculable(String warehouseId, LocalDate startDate, LocalDate endDate,
+                                               Collection<String> factorKeys);
+
+    /**
+     * Applies the corrections in one unordered bulk write: {@code $inc} on the footprint each names, or, in
+     * the time-series layout, one correction footprint inserted next to the originals.
+     *
+     * @return indexes of the corrections that were stored as new footprints
+     */
+    Set<Integer> applyCorrections(List<FootprintCorrection> corrections);
+
+    record BulkInsertResult(int insertedCount, List<Failure> failures) {
+
+        public record Failure(int index, String message) {}
+    }
+
+    record DailyUpsertResult(int modifiedCount, Set<Integer> createdIndexes, Set<Integer> failedIndexes) {}
+}
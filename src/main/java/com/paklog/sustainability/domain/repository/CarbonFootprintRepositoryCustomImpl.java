@@ -0,0 +1,265 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.valueobject.ActivityAmount;
+import com.paklog.sustainability.domain.valueobject.DailyEmissionIncrement;
+import com.paklog.sustainability.domain.valueobject.FootprintCorrection;
+import com.paklog.sustainability.infrastructure.persistence.StorageLayout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CarbonFootprintRepositoryCustomImpl implements CarbonFootprintRepositoryCustom {
+
+    static final String EVENT_CALCULATION_METHOD = "GHG Protocol - event-derived daily aggregate";
+    static final String CORRECTION_CALCULATION_METHOD = "GHG Protocol - recalculation correction";
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final Sort KEYSET_ORDER = Sort.by(Sort.Order.asc("recordDate"), Sort.Order.asc("_id"));
+
+    private final MongoTemplate mongoTemplate;
+    private final StorageLayout storageLayout;
+    public CarbonFootprintRepositoryCustomImpl(MongoTemplate mongoTemplate,
+                                               @Value("${sustainability.storage.layout:STANDARD}") StorageLayout storageLayout) {
+        this.mongoTemplate = mongoTemplate;
+        this.storageLayout = storageLayout;
+    }
+
+
+    @Override
+    public BulkInsertResult insertUnordered(List<CarbonFootprint> footprints) {
+        if (footprints.isEmpty()) {
+            return new BulkInsertResult(0, List.of());
+        }
+        try {
+            int inserted = mongoTemplate.bulkOps(BulkMode.UNORDERED, CarbonFootprint.class)
+                    .insert(footprints)
+                    .execute()
+                    .getInsertedCount();
+            return new BulkInsertResult(inserted, List.of());
+        } catch (BulkOperationException e) {
+            List<BulkInsertResult.Failure> failures = e.getErrors().stream()
+                    .map(CarbonFootprintRepositoryCustomImpl::toFailure)
+                    .toList();
+            return new BulkInsertResult(e.getResult().getInsertedCount(), failures);
+        }
+    }
+
+    @Override
+    public List<CarbonFootprint> findPage(String warehouseId, LocalDate startDate, LocalDate endDate,
+                                          LocalDate afterDate, String afterId, int limit) {
+        Criteria criteria = inRange(warehouseId, startDate, endDate);
+        if (afterDate != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("recordDate").gt(afterDate),
+                    Criteria.where("recordDate").is(afterDate).and("_id").gt(afterId));
+        }
+        Query query = Query.query(criteria).with(KEYSET_ORDER).limit(limit);
+        return mongoTemplate.find(query, CarbonFootprint.class);
+    }
+
+    @Override
+    public Stream<CarbonFootprint> streamByWarehouseIdAndRecordDateBetween(String warehouseId, LocalDate startDate, LocalDate endDate) {
+        Query query = Query.query(inRange(warehouseId, startDate, endDate))
+                .with(KEYSET_ORDER)
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, CarbonFootprint.class);
+    }
+
+    private static Criteria inRange(String warehouseId, LocalDate startDate, LocalDate endDate) {
+        return Criteria.where("warehouseId").is(warehouseId).and("recordDate").gte(startDate).lte(endDate);
+    }
+
+    @Override
+    public DailyUpsertResult upsertDailyIncrements(List<DailyEmissionIncrement> increments) {
+        if (increments.isEmpty()) {
+            return new DailyUpsertResult(0, Set.of(), Set.of());
+        }
+        if (storageLayout == StorageLayout.TIME_SERIES) {
+            return insertIncrements(increments);
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, CarbonFootprint.class);
+        for (DailyEmissionIncrement increment : increments) {
+            Query query = Query.query(Criteria.where("_id").is(increment.footprintId()));
+            Update update = new Update()
+                    .setOnInsert("warehouseId", increment.warehouseId())
+                    .setOnInsert("recordDate", increment.recordDate())
+                    .setOnInsert("emissionType", increment.emissionType())
+                    .setOnInsert("calculationMethod", EVENT_CALCULATION_METHOD)
+                    .inc("totalCO2eKg", increment.totalCO2eKg());
+            increment.emissionsBySource().forEach(
+                    (source, co2eKg) -> update.inc("emissionsBySource." + fieldName(source), co2eKg));
+            increment.activitiesBySource().forEach((source, activities) -> activities.forEach((key, amount) -> {
+                String path = "activities." + fieldName(source) + "." + key;
+                update.inc(path + ".quantity", amount.quantity()).inc(path + ".co2eKg", amount.co2eKg());
+            }));
+            Set<String> factorKeys = increment.factorKeys();
+            if (!factorKeys.isEmpty()) {
+                update.addToSet("factorKeys").each(factorKeys.toArray());
+            }
+            ops.upsert(query, update);
+        }
+        BulkWriteResult result;
+        Set<Integer> failed;
+        try {
+            result = ops.execute();
+            failed = Set.of();
+        } catch (BulkOperationException e) {
+            result = e.getResult();
+            failed = failedIndexes(e);
+        }
+        Set<Integer> created = result.getUpserts().stream()
+                .map(BulkWriteUpsert::getIndex)
+                .collect(Collectors.toSet());
+        return new DailyUpsertResult(result.getModifiedCount(), created, failed);
+    }
+
+    /**
+     * Time-series collections cannot be upserted, so each increment becomes a footprint of its own. Daily
+     * totals are the same either way since every read sums footprints.
+     */
+    private DailyUpsertResult insertIncrements(List<DailyEmissionIncrement> increments) {
+        List<CarbonFootprint> footprints = new ArrayList<>(increments.size());
+        for (DailyEmissionIncrement increment : increments) {
+            CarbonFootprint footprint = CarbonFootprint.builder()
+                    .footprintId(increment.footprintId() + ":" + UUID.randomUUID())
+                    .warehouseId(increment.warehouseId())
+                    .recordDate(increment.recordDate())
+                    .emissionType(increment.emissionType())
+                    .calculationMethod(EVENT_CALCULATION_METHOD)
+                    .build();
+            Map<String, Double> emissions = new LinkedHashMap<>();
+            increment.emissionsBySource().forEach((source, co2eKg) -> emissions.put(fieldName(source), co2eKg));
+            footprint.addEmissions(emissions);
+            Map<String, Map<String, ActivityAmount>> activities = new HashMap<>();
+            increment.activitiesBySource().forEach((source, amounts) -> activities.put(fieldName(source), amounts));
+            footprint.setActivities(activities);
+            footprint.setFactorKeys(List.copyOf(increment.factorKeys()));
+            footprints.add(footprint);
+        }
+        Set<Integer> failed;
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, CarbonFootprint.class).insert(footprints).execute();
+            failed = Set.of();
+        } catch (BulkOperationException e) {
+            failed = failedIndexes(e);
+        }
+        Set<Integer> created = new HashSet<>();
+        for (int i = 0; i < increments.size(); i++) {
+            if (!failed.contains(i)) {
+                created.add(i);
+            }
+        }
+        return new DailyUpsertResult(0, created, failed);
+    }
+
+    private static Set<Integer> failedIndexes(BulkOperationException e) {
+        return e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+    }
+
+    @Override
+    public Stream<CarbonFootprint> streamRecalculable(String warehouseId, LocalDate startDate, LocalDate endDate,
+                                                      Collection<String> factorKeys) {
+        Criteria criteria = inRange(warehouseId, startDate, endDate);
+        criteria = factorKeys.isEmpty()
+                ? criteria.and("factorKeys").exists(true)
+                : criteria.and("factorKeys").in(factorKeys);
+        Query query = Query.query(criteria)
+                .with(KEYSET_ORDER)
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        query.fields().include("warehouseId", "recordDate", "emissionType", "activities");
+        return mongoTemplate.stream(query, CarbonFootprint.class);
+    }
+
+    @Override
+    public Set<Integer> applyCorrections(List<FootprintCorrection> corrections) {
+        if (corrections.isEmpty()) {
+            return Set.of();
+        }
+        Instant now = Instant.now();
+        if (storageLayout == StorageLayout.TIME_SERIES) {
+            return insertCorrections(corrections, now);
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, CarbonFootprint.class);
+        for (FootprintCorrection correction : corrections) {
+            Update update = new Update()
+                    .inc("totalCO2eKg", correction.totalDeltaCO2eKg())
+                    .set("recalculatedAt", now);
+            correction.co2eKgDeltas().forEach((source, deltas) -> {
+                update.inc("emissionsBySource." + fieldName(source), correction.deltaCO2eKg(source));
+                deltas.forEach((key, delta) -> update.inc("activities." + fieldName(source) + "." + key + ".co2eKg", delta));
+            });
+            ops.updateOne(Query.query(Criteria.where("_id").is(correction.footprintId())), update);
+        }
+        ops.execute();
+        return Set.of();
+    }
+
+    /**
+     * Time-series footprints are not updated in place; a correction is a footprint of its own whose activity
+     * carries no quantity, only the CO2e moved, so that summing a day's footprints gives the restated values.
+     */
+    private Set<Integer> insertCorrections(List<FootprintCorrection> corrections, Instant now) {
+        List<CarbonFootprint> footprints = new ArrayList<>(corrections.size());
+        Set<Integer> created = new HashSet<>();
+        for (FootprintCorrection correction : corrections) {
+            CarbonFootprint footprint = CarbonFootprint.builder()
+                    .footprintId("rcl:" + correction.warehouseId() + ":" + correction.recordDate() + ":"
+                            + correction.emissionType() + ":" + UUID.randomUUID())
+                    .warehouseId(correction.warehouseId())
+                    .recordDate(correction.recordDate())
+                    .emissionType(correction.emissionType())
+                    .calculationMethod(CORRECTION_CALCULATION_METHOD)
+                    .activities(new HashMap<>())
+                    .factorKeys(List.copyOf(correction.factorKeys()))
+                    .recalculatedAt(now)
+                    .build();
+            Map<String, Double> emissions = new LinkedHashMap<>();
+            correction.co2eKgDeltas().forEach((source, deltas) -> {
+                emissions.put(fieldName(source), correction.deltaCO2eKg(source));
+                Map<String, ActivityAmount> amounts = new HashMap<>();
+                deltas.forEach((key, delta) -> amounts.put(key, new ActivityAmount(0.0, delta)));
+                footprint.getActivities().put(fieldName(source), amounts);
+            });
+            footprint.addEmissions(emissions);
+            footprints.add(footprint);
+            created.add(created.size());
+        }
+        mongoTemplate.insertAll(footprints);
+        return created;
+    }
+
+    /**
+     * Source names become document keys, so they must not contain path separators or start with an operator.
+     */
+    static String fieldName(String source) {
+        String key = source.replace('.', '_');
+        return key.startsWith("$") ? "_" + key.substring(1) : key;
+    }
+
+    private static BulkInsertResult.Failure toFailure(BulkWriteError error) {
+        return new BulkInsertResult.Failure(error.getIndex(), error.getMessage());
+    }
+}
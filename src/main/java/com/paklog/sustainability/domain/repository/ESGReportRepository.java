@@ -15,4 +15,6 @@ public interface ESGReportRepository extends MongoRepository<ESGReport, String>
             String warehouseId, YearMonth reportMonth, ReportingPeriod period);
     
     List<ESGReport> findByWarehouseIdAndYear(String warehouseId, int year);
+
+    List<ESGReport> findByWarehouseIdAndYearAndPeriod(String warehouseId, int year, ReportingPeriod period);
 }
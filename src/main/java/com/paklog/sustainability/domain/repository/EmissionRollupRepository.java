@@ -0,0 +1,26 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.EmissionRollup;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface EmissionRollupRepository extends MongoRepository<EmissionRollup, String>, EmissionRollupRepositoryCustom {
+    @Query("{ 'warehouseId': ?0, 'granularity': ?1, 'periodStart': { $gte: ?2, $lte: ?3 } }")
+    List<EmissionRollup> findByWarehouseIdAndGranularityAndPeriodStartBetween(
+            String warehouseId, RollupGranularity granularity, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Rollups of every warehouse for the period starting on {@code periodStart}, read through the
+     * {@code granularity_period_warehouse} index. The stream holds a cursor and must be closed.
+     */
+    @Query(value = "{ 'granularity': ?0, 'periodStart': ?1 }",
+            fields = "{ 'warehouseId': 1, 'emissionType': 1, 'totalCO2eKg': 1 }")
+    Stream<EmissionRollup> streamByGranularityAndPeriodStart(RollupGranularity granularity, LocalDate periodStart);
+}
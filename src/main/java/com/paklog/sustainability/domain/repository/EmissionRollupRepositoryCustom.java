@@ -0,0 +1,31 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import com.paklog.sustainability.domain.valueobject.RollupIncrement;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmissionRollupRepositoryCustom {
+
+    /**
+     * Applies each increment to its daily and monthly rollup with {@code $inc} in one bulk write.
+     */
+    void applyIncrements(Collection<RollupIncrement> increments);
+
+    /**
+     * Recomputes the rollups of whole months between {@code startDate} and {@code endDate} from raw footprints.
+     *
+     * @param warehouseId warehouse to rebuild, or {@code null} for all warehouses
+     */
+    RebuildResult rebuild(String warehouseId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Warehouses that have a rollup for the period starting on {@code periodStart}, i.e. that recorded
+     * footprints in it. Answered from the index alone.
+     */
+    List<String> findWarehouseIds(RollupGranularity granularity, LocalDate periodStart);
+
+    record RebuildResult(LocalDate startDate, LocalDate endDate, int dailyRollups, int monthlyRollups, long removedRollups) {}
+}
@@ -0,0 +1,149 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.EmissionRollup;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import com.paklog.sustainability.domain.valueobject.RollupIncrement;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class EmissionRollupRepositoryCustomImpl implements EmissionRollupRepositoryCustom {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    public EmissionRollupRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+
+    @Override
+    public void applyIncrements(Collection<RollupIncrement> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, EmissionRollup.class);
+        for (RollupIncrement increment : increments) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                ops.upsert(byId(increment.warehouseId(), granularity, increment.day(), increment.emissionType()),
+                        new Update()
+                                .setOnInsert("warehouseId", increment.warehouseId())
+                                .setOnInsert("granularity", granularity)
+                                .setOnInsert("periodStart", EmissionRollup.periodStart(granularity, increment.day()))
+                                .setOnInsert("emissionType", increment.emissionType())
+                                .inc("totalCO2eKg", increment.co2eKg())
+                                .inc("footprintCount", increment.footprintCount()));
+            }
+        }
+        ops.execute();
+    }
+
+    /**
+     * Rebuilt rollups are overwritten in place and stamped; rollups in the range that were not
+     * touched by the rebuild are removed afterwards, so readers never see an empty range.
+     * Increments that race with a rebuild of the same range may be lost or counted twice.
+     */
+    @Override
+    public RebuildResult rebuild(String warehouseId, LocalDate startDate, LocalDate endDate) {
+        LocalDate from = startDate.withDayOfMonth(1);
+        LocalDate to = endDate.withDayOfMonth(endDate.lengthOfMonth());
+        Instant rebuiltAt = Instant.now();
+
+        Criteria range = Criteria.where("recordDate").gte(from).lte(to);
+        if (warehouseId != null) {
+            range = range.and("warehouseId").is(warehouseId);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(range),
+                Aggregation.group("warehouseId", "recordDate", "emissionType")
+                        .sum("totalCO2eKg").as("totalCO2eKg")
+                        .count().as("footprintCount"),
+                Aggregation.project("warehouseId", "recordDate", "emissionType", "totalCO2eKg", "footprintCount"));
+
+        Map<String, RollupIncrement> monthly = new HashMap<>();
+        int dailyRollups = 0;
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, EmissionRollup.class);
+        int pending = 0;
+        try (Stream<DailyTotal> stream = mongoTemplate.aggregateStream(
+                aggregation, CarbonFootprint.class, DailyTotal.class)) {
+            Iterator<DailyTotal> totals = stream.iterator();
+            while (totals.hasNext()) {
+                DailyTotal total = totals.next();
+                ops.upsert(byId(total.warehouseId(), RollupGranularity.DAY, total.recordDate(), total.emissionType()),
+                        replacement(total.warehouseId(), RollupGranularity.DAY, total.recordDate(),
+                                total.emissionType(), total.totalCO2eKg(), total.footprintCount(), rebuiltAt));
+                dailyRollups++;
+                monthly.merge(
+                        EmissionRollup.rollupId(total.warehouseId(), RollupGranularity.MONTH, total.recordDate(), total.emissionType()),
+                        new RollupIncrement(total.warehouseId(), total.recordDate(), total.emissionType(),
+                                total.totalCO2eKg(), total.footprintCount()),
+                        (a, b) -> new RollupIncrement(a.warehouseId(), a.day(), a.emissionType(),
+                                a.co2eKg() + b.co2eKg(), a.footprintCount() + b.footprintCount()));
+                if (++pending == REBUILD_BATCH_SIZE) {
+                    ops.execute();
+                    ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, EmissionRollup.class);
+                    pending = 0;
+                }
+            }
+        }
+        for (RollupIncrement month : monthly.values()) {
+            ops.upsert(byId(month.warehouseId(), RollupGranularity.MONTH, month.day(), month.emissionType()),
+                    replacement(month.warehouseId(), RollupGranularity.MONTH, month.day(),
+                            month.emissionType(), month.co2eKg(), month.footprintCount(), rebuiltAt));
+            pending++;
+        }
+        if (pending > 0) {
+            ops.execute();
+        }
+
+        Criteria stale = Criteria.where("periodStart").gte(from).lte(to)
+                .orOperator(Criteria.where("rebuiltAt").exists(false), Criteria.where("rebuiltAt").ne(rebuiltAt));
+        if (warehouseId != null) {
+            stale = stale.and("warehouseId").is(warehouseId);
+        }
+        long removed = mongoTemplate.remove(Query.query(stale), EmissionRollup.class).getDeletedCount();
+
+        return new RebuildResult(from, to, dailyRollups, monthly.size(), removed);
+    }
+
+    @Override
+    public List<String> findWarehouseIds(RollupGranularity granularity, LocalDate periodStart) {
+        Query query = Query.query(Criteria.where("granularity").is(granularity)
+                .and("periodStart").is(EmissionRollup.periodStart(granularity, periodStart)));
+        return mongoTemplate.findDistinct(query, "warehouseId", EmissionRollup.class, String.class);
+    }
+
+    private static Query byId(String warehouseId, RollupGranularity granularity, LocalDate day, EmissionType type) {
+        return Query.query(Criteria.where("_id").is(EmissionRollup.rollupId(warehouseId, granularity, day, type)));
+    }
+
+    private static Update replacement(String warehouseId, RollupGranularity granularity, LocalDate day,
+                                      EmissionType type, double totalCO2eKg, long footprintCount, Instant rebuiltAt) {
+        return new Update()
+                .set("warehouseId", warehouseId)
+                .set("granularity", granularity)
+                .set("periodStart", EmissionRollup.periodStart(granularity, day))
+                .set("emissionType", type)
+                .set("totalCO2eKg", totalCO2eKg)
+                .set("footprintCount", footprintCount)
+                .set("rebuiltAt", rebuiltAt);
+    }
+
+    record DailyTotal(String warehouseId, LocalDate recordDate, EmissionType emissionType,
+                      double totalCO2eKg, long footprintCount) {}
+}
@@ -0,0 +1,15 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.EmissionSource;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EmissionSourceRepository extends MongoRepository<EmissionSource, String> {
+    List<EmissionSource> findByActive(boolean active);
+
+    List<EmissionSource> findByType(EmissionType type);
+}
@@ -0,0 +1,9 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String>, IdempotencyRecordRepositoryCustom {
+}
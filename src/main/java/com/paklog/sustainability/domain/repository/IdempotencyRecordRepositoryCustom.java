@@ -0,0 +1,16 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.IdempotencyRecord;
+
+import java.util.List;
+import java.util.Set;
+
+public interface IdempotencyRecordRepositoryCustom {
+
+    /**
+     * Inserts all records in one unordered bulk write.
+     *
+     * @return keys of the records that already existed
+     */
+    Set<String> insertIfAbsent(List<IdempotencyRecord> records);
+}
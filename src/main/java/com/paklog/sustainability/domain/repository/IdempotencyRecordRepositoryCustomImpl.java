@@ -0,0 +1,41 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.paklog.sustainability.domain.aggregate.IdempotencyRecord;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class IdempotencyRecordRepositoryCustomImpl implements IdempotencyRecordRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+    public IdempotencyRecordRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+
+    @Override
+    public Set<String> insertIfAbsent(List<IdempotencyRecord> records) {
+        if (records.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, IdempotencyRecord.class).insert(records).execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            Set<String> existing = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+                existing.add(records.get(error.getIndex()).getKey());
+            }
+            return existing;
+        }
+    }
+}
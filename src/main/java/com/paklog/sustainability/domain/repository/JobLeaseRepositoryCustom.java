@@ -0,0 +1,19 @@
+package com.paklog.sustainability.domain.repository;
+
+import java.time.Instant;
+
+public interface JobLeaseRepositoryCustom {
+
+    /**
+     * Takes or extends the lease on a job. Succeeds when the lease is free, expired or already held by
+     * {@code holder}.
+     *
+     * @return whether {@code holder} now holds the lease until {@code leasedUntil}
+     */
+    boolean tryAcquire(String name, String holder, Instant leasedUntil);
+
+    /**
+     * Gives up the lease if {@code holder} still holds it.
+     */
+    void release(String name, String holder);
+}
@@ -0,0 +1,38 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.JobLease;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+public class JobLeaseRepositoryCustomImpl implements JobLeaseRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+    public JobLeaseRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+
+    @Override
+    public boolean tryAcquire(String name, String holder, Instant leasedUntil) {
+        Query acquirable = Query.query(Criteria.where("_id").is(name).orOperator(
+                Criteria.where("holder").is(holder), Criteria.where("leasedUntil").lt(Instant.now())));
+        try {
+            // A live lease held elsewhere fails the match, and the upsert then collides on _id
+            mongoTemplate.upsert(acquirable, new Update().set("holder", holder).set("leasedUntil", leasedUntil),
+                    JobLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String name, String holder) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(name).and("holder").is(holder)), JobLease.class);
+    }
+}
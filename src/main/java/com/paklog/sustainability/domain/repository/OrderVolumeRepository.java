@@ -0,0 +1,9 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.OrderVolume;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderVolumeRepository extends MongoRepository<OrderVolume, String>, OrderVolumeRepositoryCustom {
+}
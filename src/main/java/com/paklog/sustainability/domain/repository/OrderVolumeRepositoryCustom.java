@@ -0,0 +1,40 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.valueobject.DailyOrderIncrement;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk writes and sums of daily order volumes.
+ */
+public interface OrderVolumeRepositoryCustom {
+
+    /**
+     * Adds each increment to its daily order volume with {@code $inc}, creating the document on first use.
+     * All increments go to MongoDB in one unordered bulk write, so a failing increment does not stop the
+     * others.
+     *
+     * @return indexes of the increments that could not be written
+     */
+    Set<Integer> upsertDailyIncrements(List<DailyOrderIncrement> increments);
+
+    /**
+     * Orders of one warehouse from {@code startDate} to {@code endDate}, both inclusive.
+     */
+    long sumOrders(String warehouseId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Orders per warehouse from {@code startDate} to {@code endDate}, both inclusive, summed server-side.
+     */
+    Map<String, Long> sumOrdersByWarehouse(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Orders of one warehouse per month from {@code firstMonth} to {@code lastMonth}, both inclusive;
+     * months without orders are absent.
+     */
+    Map<YearMonth, Long> sumOrdersByMonth(String warehouseId, YearMonth firstMonth, YearMonth lastMonth);
+}
@@ -0,0 +1,95 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.paklog.sustainability.domain.aggregate.OrderVolume;
+import com.paklog.sustainability.domain.valueobject.DailyOrderIncrement;
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class OrderVolumeRepositoryCustomImpl implements OrderVolumeRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+    public OrderVolumeRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+
+    @Override
+    public Set<Integer> upsertDailyIncrements(List<DailyOrderIncrement> increments) {
+        if (increments.isEmpty()) {
+            return Set.of();
+        }
+        Instant now = Instant.now();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, OrderVolume.class);
+        for (DailyOrderIncrement increment : increments) {
+            ops.upsert(Query.query(Criteria.where("_id").is(increment.volumeId())), new Update()
+                    .setOnInsert("warehouseId", increment.warehouseId())
+                    .setOnInsert("day", increment.day())
+                    .inc("orders", increment.orders())
+                    .set("updatedAt", now));
+        }
+        try {
+            ops.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            return e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+        }
+    }
+
+    @Override
+    public long sumOrders(String warehouseId, LocalDate startDate, LocalDate endDate) {
+        Document total = mongoTemplate.aggregate(Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where("warehouseId").is(warehouseId)
+                                .and("day").gte(startDate).lte(endDate)),
+                        Aggregation.group().sum("orders").as("total")),
+                OrderVolume.class, Document.class).getUniqueMappedResult();
+        return total != null ? total(total) : 0;
+    }
+
+    @Override
+    public Map<String, Long> sumOrdersByWarehouse(LocalDate startDate, LocalDate endDate) {
+        Map<String, Long> totals = new HashMap<>();
+        for (Document group : mongoTemplate.aggregate(Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where("day").gte(startDate).lte(endDate)),
+                        Aggregation.group("warehouseId").sum("orders").as("total")),
+                OrderVolume.class, Document.class)) {
+            totals.put(group.getString("_id"), total(group));
+        }
+        return totals;
+    }
+
+    @Override
+    public Map<YearMonth, Long> sumOrdersByMonth(String warehouseId, YearMonth firstMonth, YearMonth lastMonth) {
+        // At most one document per day, so the month is taken from the mapped day rather than grouped
+        // server-side, where the stored date's zone would have to be known
+        Query days = Query.query(Criteria.where("warehouseId").is(warehouseId)
+                .and("day").gte(firstMonth.atDay(1)).lte(lastMonth.atEndOfMonth()));
+        days.fields().include("day", "orders");
+        Map<YearMonth, Long> totals = new HashMap<>();
+        for (OrderVolume volume : mongoTemplate.find(days, OrderVolume.class)) {
+            totals.merge(YearMonth.from(volume.getDay()), volume.getOrders(), Long::sum);
+        }
+        return totals;
+    }
+
+    private static long total(Document group) {
+        Number total = group.get("total", Number.class);
+        return total != null ? total.longValue() : 0;
+    }
+}
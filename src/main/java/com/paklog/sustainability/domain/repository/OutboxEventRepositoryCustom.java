@@ -0,0 +1,29 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.OutboxEvent;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepositoryCustom {
+
+    /**
+     * Claims up to {@code limit} of the oldest pending events that no other relay holds a lease on.
+     *
+     * @return the claimed events, oldest first
+     */
+    List<OutboxEvent> claimBatch(String claimToken, Instant leaseUntil, int limit);
+
+    void markPublished(Collection<String> eventIds, Instant publishedAt);
+
+    /**
+     * Gives claimed events back so a poll from {@code retryAt} on retries them.
+     */
+    void release(Collection<String> eventIds, String error, Instant retryAt);
+
+    /**
+     * Takes events out of the relay for good, keeping them with their last error.
+     */
+    void park(Collection<String> eventIds, String error);
+}
@@ -0,0 +1,83 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.OutboxEvent;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class OutboxEventRepositoryCustomImpl implements OutboxEventRepositoryCustom {
+
+    private static final Sort OLDEST_FIRST = Sort.by("createdAt");
+
+    private final MongoTemplate mongoTemplate;
+    public OutboxEventRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+
+    @Override
+    public List<OutboxEvent> claimBatch(String claimToken, Instant leaseUntil, int limit) {
+        Instant now = Instant.now();
+        Query candidates = Query.query(claimable(now)).with(OLDEST_FIRST).limit(limit);
+        candidates.fields().include("_id");
+        List<String> ids = new ArrayList<>(limit);
+        for (OutboxEvent event : mongoTemplate.find(candidates, OutboxEvent.class)) {
+            ids.add(event.getEventId());
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // Re-check claimability so a concurrent relay that got there first keeps its events
+        mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(Criteria.where("_id").in(ids), claimable(now))),
+                new Update().set("claimToken", claimToken).set("claimedUntil", leaseUntil).inc("attempts", 1),
+                OutboxEvent.class);
+        return mongoTemplate.find(Query.query(Criteria.where("claimToken").is(claimToken)).with(OLDEST_FIRST),
+                OutboxEvent.class);
+    }
+
+    @Override
+    public void markPublished(Collection<String> eventIds, Instant publishedAt) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(eventIds)),
+                new Update().set("status", OutboxEvent.PUBLISHED).set("publishedAt", publishedAt)
+                        .unset("claimToken").unset("claimedUntil").unset("lastError"),
+                OutboxEvent.class);
+    }
+
+    @Override
+    public void release(Collection<String> eventIds, String error, Instant retryAt) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        // An expired lease is claimable, so the lease is simply cut short to the retry time
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(eventIds)),
+                new Update().set("lastError", error).set("claimedUntil", retryAt).unset("claimToken"),
+                OutboxEvent.class);
+    }
+
+    @Override
+    public void park(Collection<String> eventIds, String error) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(eventIds)),
+                new Update().set("status", OutboxEvent.PARKED).set("lastError", error)
+                        .unset("claimToken").unset("claimedUntil"),
+                OutboxEvent.class);
+    }
+
+    private static Criteria claimable(Instant now) {
+        return Criteria.where("status").is(OutboxEvent.PENDING)
+                .orOperator(Criteria.where("claimedUntil").exists(false), Criteria.where("claimedUntil").lt(now));
+    }
+}
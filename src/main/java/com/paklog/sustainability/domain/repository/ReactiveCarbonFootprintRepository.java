@@ -0,0 +1,32 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+/**
+ * Non-blocking counterpart of {@link CarbonFootprintRepository} for the reactive serving mode. Range
+ * reads are in {@code (recordDate, footprintId)} order, like the blocking keyset reads.
+ */
+@Repository
+public interface ReactiveCarbonFootprintRepository extends ReactiveMongoRepository<CarbonFootprint, String> {
+    @Query(value = "{ 'warehouseId': ?0, 'recordDate': { $gte: ?1, $lte: ?2 } }",
+            sort = "{ 'recordDate': 1, '_id': 1 }")
+    Flux<CarbonFootprint> findByWarehouseIdAndRecordDateBetween(
+            String warehouseId, LocalDate startDate, LocalDate endDate);
+
+    @Query(value = "{ 'warehouseId': ?0, 'recordDate': { $gte: ?1, $lte: ?2 } }",
+            sort = "{ 'recordDate': 1, '_id': 1 }")
+    Flux<CarbonFootprint> findFirstPage(String warehouseId, LocalDate startDate, LocalDate endDate, Limit limit);
+
+    @Query(value = "{ 'warehouseId': ?0, 'recordDate': { $gte: ?1, $lte: ?2 },"
+            + " $or: [ { 'recordDate': { $gt: ?3 } }, { 'recordDate': ?3, '_id': { $gt: ?4 } } ] }",
+            sort = "{ 'recordDate': 1, '_id': 1 }")
+    Flux<CarbonFootprint> findPageAfter(String warehouseId, LocalDate startDate, LocalDate endDate,
+                                        LocalDate afterDate, String afterId, Limit limit);
+}
@@ -0,0 +1,21 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.YearMonth;
+
+/**
+ * Non-blocking counterpart of {@link ESGReportRepository} for the reactive serving mode.
+ */
+@Repository
+public interface ReactiveESGReportRepository extends ReactiveMongoRepository<ESGReport, String> {
+    // A Flux rather than a Mono: older duplicates may still exist for a warehouse, month and period
+    Flux<ESGReport> findByWarehouseIdAndReportMonthAndPeriod(
+            String warehouseId, YearMonth reportMonth, ReportingPeriod period);
+
+    Flux<ESGReport> findByWarehouseIdAndYear(String warehouseId, int year);
+}
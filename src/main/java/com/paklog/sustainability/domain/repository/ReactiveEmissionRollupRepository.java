@@ -0,0 +1,21 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.EmissionRollup;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only use of the rollups from the reactive serving mode; all rollup writes go through
+ * {@link EmissionRollupRepository}.
+ */
+@Repository
+public interface ReactiveEmissionRollupRepository extends ReactiveMongoRepository<EmissionRollup, String> {
+    @Query("{ 'warehouseId': ?0, 'granularity': ?1, 'periodStart': { $gte: ?2, $lte: ?3 } }")
+    Flux<EmissionRollup> findByWarehouseIdAndGranularityAndPeriodStartBetween(
+            String warehouseId, RollupGranularity granularity, LocalDate startDate, LocalDate endDate);
+}
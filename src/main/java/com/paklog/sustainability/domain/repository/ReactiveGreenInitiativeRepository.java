@@ -0,0 +1,15 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.GreenInitiative;
+import com.paklog.sustainability.domain.valueobject.InitiativeStatus;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterpart of {@link GreenInitiativeRepository} for the reactive serving mode.
+ */
+@Repository
+public interface ReactiveGreenInitiativeRepository extends ReactiveMongoRepository<GreenInitiative, String> {
+    Flux<GreenInitiative> findByStatus(InitiativeStatus status);
+}
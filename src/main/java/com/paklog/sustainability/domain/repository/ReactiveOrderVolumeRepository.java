@@ -0,0 +1,25 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.OrderVolume;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only use of the order volumes from the reactive serving mode; all writes go through
+ * {@link OrderVolumeRepository}.
+ */
+@Repository
+public interface ReactiveOrderVolumeRepository extends ReactiveMongoRepository<OrderVolume, String> {
+
+    /**
+     * Orders of one warehouse from {@code startDate} to {@code endDate}, both inclusive; empty without orders.
+     */
+    @Aggregation(pipeline = {
+            "{ $match: { 'warehouseId': ?0, 'day': { $gte: ?1, $lte: ?2 } } }",
+            "{ $group: { _id: null, total: { $sum: '$orders' } } }"})
+    Mono<Long> sumOrders(String warehouseId, LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,23 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.valueobject.ReportTotals;
+
+import java.time.LocalDate;
+
+/**
+ * Report totals computed inside the database, so only a handful of numbers leave it.
+ */
+public interface ReportAggregationRepository {
+
+    /**
+     * Footprint totals per emission type and metric totals per category, both inclusive of the given days.
+     */
+    default ReportTotals aggregateTotals(String warehouseId, LocalDate startDate, LocalDate endDate) {
+        return aggregateEmissions(warehouseId, startDate, endDate)
+                .merge(aggregateMetrics(warehouseId, startDate, endDate));
+    }
+
+    ReportTotals aggregateEmissions(String warehouseId, LocalDate startDate, LocalDate endDate);
+
+    ReportTotals aggregateMetrics(String warehouseId, LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,20 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SustainabilityMetricRepository extends MongoRepository<SustainabilityMetric, String>, SustainabilityMetricRepositoryCustom {
+    @Query("{ 'warehouseId': ?0, 'recordDate': { $gte: ?1, $lte: ?2 } }")
+    List<SustainabilityMetric> findByWarehouseIdAndRecordDateBetween(
+            String warehouseId, LocalDate startDate, LocalDate endDate);
+
+    @Query("{ 'warehouseId': ?0, 'category': ?1, 'recordDate': { $gte: ?2, $lte: ?3 } }")
+    List<SustainabilityMetric> findByWarehouseIdAndCategoryAndRecordDateBetween(
+            String warehouseId, String category, LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,23 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.paklog.sustainability.domain.valueobject.DailyMetricIncrement;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk writes of daily metric aggregates.
+ */
+public interface SustainabilityMetricRepositoryCustom {
+
+    /**
+     * Adds each increment to its daily metric document with {@code $inc}, creating the document on first
+     * use. All increments go to MongoDB in one unordered bulk write, so a failing increment does not stop
+     * the others.
+     *
+     * @return which increments could not be written
+     */
+    DailyMetricUpsertResult upsertDailyIncrements(List<DailyMetricIncrement> increments);
+
+    record DailyMetricUpsertResult(int writtenCount, Set<Integer> failedIndexes) {}
+}
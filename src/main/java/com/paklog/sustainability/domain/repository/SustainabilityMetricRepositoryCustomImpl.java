@@ -0,0 +1,81 @@
+package com.paklog.sustainability.domain.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+import com.paklog.sustainability.domain.valueobject.DailyMetricIncrement;
+import com.paklog.sustainability.infrastructure.persistence.StorageLayout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+public class SustainabilityMetricRepositoryCustomImpl implements SustainabilityMetricRepositoryCustom {
+
+    private static final String AGGREGATE_SOURCE = "METER_READINGS";
+
+    private final MongoTemplate mongoTemplate;
+    private final StorageLayout storageLayout;
+    public SustainabilityMetricRepositoryCustomImpl(MongoTemplate mongoTemplate,
+                                                    @Value("${sustainability.storage.layout:STANDARD}") StorageLayout storageLayout) {
+        this.mongoTemplate = mongoTemplate;
+        this.storageLayout = storageLayout;
+    }
+
+
+    @Override
+    public DailyMetricUpsertResult upsertDailyIncrements(List<DailyMetricIncrement> increments) {
+        if (increments.isEmpty()) {
+            return new DailyMetricUpsertResult(0, Set.of());
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, SustainabilityMetric.class);
+        if (storageLayout == StorageLayout.TIME_SERIES) {
+            // Time-series collections cannot be upserted; each flush adds a document per key instead, and
+            // every read sums them
+            for (DailyMetricIncrement increment : increments) {
+                ops.insert(toMetric(increment));
+            }
+        } else {
+            for (DailyMetricIncrement increment : increments) {
+                ops.upsert(Query.query(Criteria.where("_id").is(increment.metricId())), new Update()
+                        .setOnInsert("warehouseId", increment.warehouseId())
+                        .setOnInsert("recordDate", increment.recordDate())
+                        .setOnInsert("category", increment.category())
+                        .setOnInsert("metricName", increment.category())
+                        .setOnInsert("unit", increment.unit())
+                        .setOnInsert("source", AGGREGATE_SOURCE)
+                        .inc("value", increment.value())
+                        .inc("readingCount", increment.readings()));
+            }
+        }
+        try {
+            ops.execute();
+            return new DailyMetricUpsertResult(increments.size(), Set.of());
+        } catch (BulkOperationException e) {
+            Set<Integer> failed = e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+            return new DailyMetricUpsertResult(increments.size() - failed.size(), failed);
+        }
+    }
+
+    private static SustainabilityMetric toMetric(DailyMetricIncrement increment) {
+        SustainabilityMetric metric = new SustainabilityMetric();
+        metric.setMetricId(increment.metricId() + ":" + UUID.randomUUID());
+        metric.setWarehouseId(increment.warehouseId());
+        metric.setRecordDate(increment.recordDate());
+        metric.setCategory(increment.category());
+        metric.setMetricName(increment.category());
+        metric.setUnit(increment.unit());
+        metric.setSource(AGGREGATE_SOURCE);
+        metric.setValue(increment.value());
+        metric.setReadingCount(increment.readings());
+        return metric;
+    }
+}
@@ -0,0 +1,78 @@
+package com.paklog.sustainability.domain.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable open-addressing map from case-insensitive names to dense indexes. The hash is computed
+ * over the characters of the probe string, so lookups neither allocate nor change case.
+ */
+final class CaseInsensitiveIndex {
+
+    private final String[] slots;
+    private final int[] positions;
+    private final int mask;
+    private final List<String> names;
+
+    /**
+     * Indexes {@code names} by position; when two names only differ in case the last one wins.
+     */
+    CaseInsensitiveIndex(List<String> names) {
+        Map<String, Integer> unique = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            unique.put(names.get(i).toUpperCase(Locale.ROOT), i);
+        }
+        int capacity = Integer.highestOneBit(Math.max(4, unique.size() * 2) - 1) << 1;
+        this.slots = new String[capacity];
+        this.positions = new int[capacity];
+        this.mask = capacity - 1;
+        this.names = new ArrayList<>(names);
+        for (int position : unique.values()) {
+            String name = names.get(position);
+            int slot = hash(name) & mask;
+            while (slots[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = name;
+            positions[slot] = position;
+        }
+    }
+
+    /**
+     * @return position of {@code name} in the list this index was built from, or {@code -1}
+     */
+    int indexOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        int slot = hash(name) & mask;
+        String candidate;
+        while ((candidate = slots[slot]) != null) {
+            if (candidate.equalsIgnoreCase(name)) {
+                return positions[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    String name(int position) {
+        return names.get(position);
+    }
+
+    private static int hash(String name) {
+        int h = 0;
+        for (int i = 0, n = name.length(); i < n; i++) {
+            // Same folding as String.equalsIgnoreCase, so equal-ignoring-case keys hash alike
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+        return h ^ (h >>> 16);
+    }
+}
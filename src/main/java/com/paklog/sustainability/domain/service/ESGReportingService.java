@@ -6,7 +6,11 @@ import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
 import com.paklog.sustainability.domain.aggregate.ESGReport;
 import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
 import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.MetricCategory;
+import com.paklog.sustainability.domain.valueobject.ReportTotals;
 import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -18,6 +22,15 @@ import java.util.UUID;
 public class ESGReportingService {
     private static final Logger log = LoggerFactory.getLogger(ESGReportingService.class);
 
+    private final Timer assemblyTimer;
+
+    public ESGReportingService(MeterRegistry meterRegistry) {
+        this.assemblyTimer = Timer.builder("sustainability.report.assembly")
+                .description("Turning summed totals into an ESG report, excluding the queries that produced them")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
 
     public ESGReport generateReport(String warehouseId, 
                                     YearMonth reportMonth, 
@@ -25,55 +38,49 @@ public class ESGReportingService {
                                     List<CarbonFootprint> footprints,
                                     List<SustainabilityMetric> metrics) {
         
+        return generateReport(warehouseId, reportMonth, period, summarize(footprints, metrics));
+    }
+
+    /**
+     * Sums materialized footprints and metrics in the JVM. This is the fallback for the
+     * repository-side aggregation and must produce the same totals.
+     */
+    public ReportTotals summarize(List<CarbonFootprint> footprints, List<SustainabilityMetric> metrics) {
+        return ReportTotals.of(footprints, metrics);
+    }
+
+    /**
+     * Builds a report from totals that were already summed per scope and metric category,
+     * e.g. by rollups or a database aggregation.
+     */
+    public ESGReport generateReport(String warehouseId,
+                                    YearMonth reportMonth,
+                                    ReportingPeriod period,
+                                    ReportTotals totals) {
+        return assemblyTimer.record(() -> assembleReport(warehouseId, reportMonth, period, totals));
+    }
+
+    private ESGReport assembleReport(String warehouseId, YearMonth reportMonth, ReportingPeriod period, ReportTotals totals) {
         log.info("Generating ESG report for warehouse {} for {}", warehouseId, reportMonth);
-        
+
         // Calculate scope emissions
-        double scope1 = footprints.stream()
-                .filter(f -> f.getEmissionType() == EmissionType.SCOPE1_DIRECT)
-                .mapToDouble(CarbonFootprint::getTotalCO2eKg)
-                .sum();
-        
-        double scope2 = footprints.stream()
-                .filter(f -> f.getEmissionType() == EmissionType.SCOPE2_ENERGY)
-                .mapToDouble(CarbonFootprint::getTotalCO2eKg)
-                .sum();
-        
-        double scope3 = footprints.stream()
-                .filter(f -> f.getEmissionType() == EmissionType.SCOPE3_TRANSPORTATION || 
-                             f.getEmissionType() == EmissionType.SCOPE3_SUPPLY_CHAIN)
-                .mapToDouble(CarbonFootprint::getTotalCO2eKg)
-                .sum();
+        double scope1 = totals.emissions(EmissionType.SCOPE1_DIRECT);
+        double scope2 = totals.emissions(EmissionType.SCOPE2_ENERGY);
+        double scope3 = totals.emissions(EmissionType.SCOPE3_TRANSPORTATION)
+                + totals.emissions(EmissionType.SCOPE3_SUPPLY_CHAIN);
         
         // Calculate energy metrics
-        double totalEnergy = metrics.stream()
-                .filter(m -> m.getCategory().equals("ENERGY"))
-                .mapToDouble(SustainabilityMetric::getValue)
-                .sum();
-        
-        double renewableEnergy = metrics.stream()
-                .filter(m -> m.getCategory().equals("RENEWABLE_ENERGY"))
-                .mapToDouble(SustainabilityMetric::getValue)
-                .sum();
-        
+        double totalEnergy = totals.metric(MetricCategory.ENERGY);
+        double renewableEnergy = totals.metric(MetricCategory.RENEWABLE_ENERGY);
         double renewablePercentage = totalEnergy > 0 ? (renewableEnergy / totalEnergy) * 100 : 0;
         
         // Water and waste
-        double waterUsage = metrics.stream()
-                .filter(m -> m.getCategory().equals("WATER"))
-                .mapToDouble(SustainabilityMetric::getValue)
-                .sum();
-        
-        double wasteGenerated = metrics.stream()
-                .filter(m -> m.getCategory().equals("WASTE_TOTAL"))
-                .mapToDouble(SustainabilityMetric::getValue)
-                .sum();
-        
-        double wasteRecycled = metrics.stream()
-                .filter(m -> m.getCategory().equals("WASTE_RECYCLED"))
-                .mapToDouble(SustainabilityMetric::getValue)
-                .sum();
-        
+        double waterUsage = totals.metric(MetricCategory.WATER);
+        double wasteGenerated = totals.metric(MetricCategory.WASTE_TOTAL);
+        double wasteRecycled = totals.metric(MetricCategory.WASTE_RECYCLED);
         double recyclingRate = wasteGenerated > 0 ? (wasteRecycled / wasteGenerated) * 100 : 0;
+
+        long orders = totals.orders();
         
         return ESGReport.builder()
                 .reportId(UUID.randomUUID().toString())
@@ -91,12 +98,40 @@ public class ESGReportingService {
                 .wasteGeneratedTons(wasteGenerated)
                 .wasteRecycledPercentage(recyclingRate)
                 .complianceCertified(true)
+                .ordersProcessed(orders)
+                .carbonIntensityPerOrder(carbonIntensity(scope1 + scope2 + scope3, orders))
                 .build();
     }
 
-    public double calculateCarbonIntensity(ESGReport report, int ordersProcessed) {
+    /**
+     * Recovers the totals a stored report was built from, so reports can be composed into longer
+     * periods. Percentages are turned back into absolute amounts and are re-weighted by the merged
+     * totals rather than averaged, as is carbon intensity per order. Scope 3 is not split by category
+     * in a report, so it comes back as {@link EmissionType#SCOPE3_SUPPLY_CHAIN}; reports only use the
+     * scope 3 sum.
+     */
+    public ReportTotals totalsOf(ESGReport report) {
+        return new ReportTotals()
+                .addEmissions(EmissionType.SCOPE1_DIRECT, report.getTotalCO2eScope1Kg())
+                .addEmissions(EmissionType.SCOPE2_ENERGY, report.getTotalCO2eScope2Kg())
+                .addEmissions(EmissionType.SCOPE3_SUPPLY_CHAIN, report.getTotalCO2eScope3Kg())
+                .addMetric(MetricCategory.ENERGY, report.getTotalEnergyKwh())
+                .addMetric(MetricCategory.RENEWABLE_ENERGY,
+                        report.getTotalEnergyKwh() * report.getRenewableEnergyPercentage() / 100)
+                .addMetric(MetricCategory.WATER, report.getWaterUsageCubicMeters())
+                .addMetric(MetricCategory.WASTE_TOTAL, report.getWasteGeneratedTons())
+                .addMetric(MetricCategory.WASTE_RECYCLED,
+                        report.getWasteGeneratedTons() * report.getWasteRecycledPercentage() / 100)
+                .addOrders(report.getOrdersProcessed());
+    }
+
+    public double calculateCarbonIntensity(ESGReport report, long ordersProcessed) {
+        return carbonIntensity(report.getTotalCO2eKg(), ordersProcessed);
+    }
+
+    private static double carbonIntensity(double co2eKg, long ordersProcessed) {
         if (ordersProcessed <= 0) return 0.0;
-        return report.getTotalCO2eKg() / ordersProcessed;
+        return co2eKg / ordersProcessed;
     }
 
     public String assessPerformance(ESGReport report) {
@@ -2,11 +2,17 @@ package com.paklog.sustainability.domain.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.paklog.sustainability.domain.aggregate.EmissionSource;
+import com.paklog.sustainability.domain.valueobject.ActivityType;
+import com.paklog.sustainability.domain.valueobject.EmissionActivity;
 import com.paklog.sustainability.domain.valueobject.EmissionType;
-import org.springframework.beans.factory.annotation.Value;
+import com.paklog.sustainability.domain.valueobject.FuelClass;
+import com.paklog.sustainability.domain.valueobject.MaterialClass;
+import com.paklog.sustainability.domain.valueobject.VehicleClass;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.util.List;
+
 /**
  * Service for calculating CO2 emissions based on activity data
  */
@@ -14,70 +20,143 @@ import org.springframework.stereotype.Service;
 public class EmissionCalculationService {
     private static final Logger log = LoggerFactory.getLogger(EmissionCalculationService.class);
 
+    private static final double DEFAULT_FUEL_FACTOR = 2.5;
+    private static final double DEFAULT_ELECTRICITY_FACTOR = 0.92;
+    private static final double DEFAULT_TRANSPORT_FACTOR = 0.062;
+    private static final double DEFAULT_PACKAGING_FACTOR = 1.5;
+    private static final double DEFAULT_WASTE_FACTOR = 0.467;
+
+    private static final CaseInsensitiveIndex ACTIVITIES = new CaseInsensitiveIndex(List.of(
+            "FORKLIFT_FUEL", "COMPANY_VEHICLE", "GENERATOR",
+            "ELECTRICITY", "HEATING", "COOLING",
+            "TRANSPORTATION", "SHIPPING", "LOGISTICS",
+            "PACKAGING", "SUPPLIES", "WASTE"));
+    private static final EmissionType[] ACTIVITY_SCOPES = {
+            EmissionType.SCOPE1_DIRECT, EmissionType.SCOPE1_DIRECT, EmissionType.SCOPE1_DIRECT,
+            EmissionType.SCOPE2_ENERGY, EmissionType.SCOPE2_ENERGY, EmissionType.SCOPE2_ENERGY,
+            EmissionType.SCOPE3_TRANSPORTATION, EmissionType.SCOPE3_TRANSPORTATION, EmissionType.SCOPE3_TRANSPORTATION,
+            EmissionType.SCOPE3_SUPPLY_CHAIN, EmissionType.SCOPE3_SUPPLY_CHAIN, EmissionType.SCOPE3_SUPPLY_CHAIN
+    };
 
-    private double dieselFactor;
+    private final EmissionFactorCatalog factorCatalog;
 
-    private double gasolineFactor;
+    public EmissionCalculationService(EmissionFactorCatalog factorCatalog) {
+        this.factorCatalog = factorCatalog;
+    }
 
-    private double electricityFactor;
 
-    public double calculateFuelEmissions(String fuelType, double liters) {
-        double factor = switch (fuelType.toUpperCase()) {
-            case "DIESEL" -> dieselFactor;
-            case "GASOLINE", "PETROL" -> gasolineFactor;
-            case "LPG" -> 1.51;
-            default -> 2.5; // Default average
+    /**
+     * Emissions of {@code activity} with the factor in force on {@code activityDate}, so activity recorded
+     * before a factor revision keeps the factor of its own date.
+     */
+    public double calculate(EmissionActivity activity, LocalDate activityDate) {
+        return activity.quantity() * factor(activity.type(), activity.factorKey(), activityDate);
+    }
+
+    public double factor(ActivityType type, String factorKey, LocalDate activityDate) {
+        return factorCatalog.factor(type, factorKey, activityDate, defaultFactor(type));
+    }
+
+    private static double defaultFactor(ActivityType type) {
+        return switch (type) {
+            case FUEL -> DEFAULT_FUEL_FACTOR;
+            case ELECTRICITY -> DEFAULT_ELECTRICITY_FACTOR;
+            case TRANSPORT -> DEFAULT_TRANSPORT_FACTOR;
+            case PACKAGING -> DEFAULT_PACKAGING_FACTOR;
+            case WASTE -> DEFAULT_WASTE_FACTOR;
         };
-        
-        double emissions = liters * factor;
-        log.debug("Fuel emissions: {} liters of {} = {} kg CO2e", liters, fuelType, emissions);
+    }
+
+    public double calculateFuelEmissions(String fuelType, double liters) {
+        double emissions = liters * factorCatalog.factor(ActivityType.FUEL, fuelType, DEFAULT_FUEL_FACTOR);
+        if (log.isDebugEnabled()) {
+            log.debug("Fuel emissions: {} liters of {} = {} kg CO2e", liters, fuelType, emissions);
+        }
         return emissions;
     }
 
     public double calculateElectricityEmissions(double kwh) {
-        double emissions = kwh * electricityFactor;
-        log.debug("Electricity emissions: {} kWh = {} kg CO2e", kwh, emissions);
+        double emissions = kwh * factorCatalog.factor(ActivityType.ELECTRICITY, "ELECTRICITY", DEFAULT_ELECTRICITY_FACTOR);
+        if (log.isDebugEnabled()) {
+            log.debug("Electricity emissions: {} kWh = {} kg CO2e", kwh, emissions);
+        }
         return emissions;
     }
 
     public double calculateTransportationEmissions(double distanceKm, String vehicleType, double loadTons) {
         // Emission factors per ton-km
-        double factor = switch (vehicleType.toUpperCase()) {
-            case "TRUCK_SMALL" -> 0.096;  // kg CO2e per ton-km
-            case "TRUCK_MEDIUM" -> 0.062;
-            case "TRUCK_LARGE" -> 0.049;
-            case "RAIL" -> 0.022;
-            case "AIR" -> 0.602;
-            case "SEA" -> 0.011;
-            default -> 0.062;
-        };
-        
-        double emissions = distanceKm * loadTons * factor;
-        log.debug("Transportation emissions: {} km, {} tons via {} = {} kg CO2e", 
-                 distanceKm, loadTons, vehicleType, emissions);
+        double emissions = distanceKm * loadTons * factorCatalog.factor(ActivityType.TRANSPORT, vehicleType, DEFAULT_TRANSPORT_FACTOR);
+        if (log.isDebugEnabled()) {
+            log.debug("Transportation emissions: {} km, {} tons via {} = {} kg CO2e",
+                     distanceKm, loadTons, vehicleType, emissions);
+        }
         return emissions;
     }
 
     public double calculatePackagingEmissions(String materialType, double weightKg) {
         // Emission factors per kg of material
-        double factor = switch (materialType.toUpperCase()) {
-            case "CARDBOARD" -> 0.85;
-            case "PLASTIC" -> 3.5;
-            case "WOOD" -> 0.42;
-            case "METAL" -> 2.1;
-            default -> 1.5;
-        };
-        
-        return weightKg * factor;
+        return weightKg * factorCatalog.factor(ActivityType.PACKAGING, materialType, DEFAULT_PACKAGING_FACTOR);
+    }
+
+    public double calculateWasteEmissions(String wasteCategory, double weightKg) {
+        // Emission factors per kg of waste by disposal route
+        return weightKg * factorCatalog.factor(ActivityType.WASTE, wasteCategory, DEFAULT_WASTE_FACTOR);
+    }
+
+    /**
+     * Columnar form of {@link #calculateFuelEmissions(String, double)}: fills {@code out} with the emissions
+     * of each row, where {@code fuelClasses} holds {@link FuelClass#code()} values.
+     */
+    public void calculateFuelEmissions(double[] liters, byte[] fuelClasses, double[] out) {
+        int length = checkColumns(liters.length, fuelClasses.length, out.length);
+        gatherFactors(factorCatalog.factorTable(ActivityType.FUEL, FuelClass.values(), DEFAULT_FUEL_FACTOR), fuelClasses, out, length);
+        EmissionKernels.multiply(liters, out, length);
+    }
+
+    /**
+     * Columnar form of {@link #calculateTransportationEmissions(double, String, double)}: fills {@code out} with
+     * the emissions of each leg, where {@code vehicleClasses} holds {@link VehicleClass#code()} values.
+     */
+    public void calculateTransportationEmissions(double[] distanceKm, double[] loadTons, byte[] vehicleClasses,
+                                                 double[] out) {
+        int length = checkColumns(distanceKm.length, vehicleClasses.length, out.length);
+        if (loadTons.length != length) {
+            throw new IllegalArgumentException("Column lengths differ: " + loadTons.length + " loads for " + length + " rows");
+        }
+        gatherFactors(factorCatalog.factorTable(ActivityType.TRANSPORT, VehicleClass.values(), DEFAULT_TRANSPORT_FACTOR), vehicleClasses, out, length);
+        EmissionKernels.multiply(distanceKm, loadTons, out, length);
+    }
+
+    /**
+     * Columnar form of {@link #calculatePackagingEmissions(String, double)}: fills {@code out} with the emissions
+     * of each row, where {@code materialClasses} holds {@link MaterialClass#code()} values.
+     */
+    public void calculatePackagingEmissions(double[] weightKg, byte[] materialClasses, double[] out) {
+        int length = checkColumns(weightKg.length, materialClasses.length, out.length);
+        gatherFactors(factorCatalog.factorTable(ActivityType.PACKAGING, MaterialClass.values(), DEFAULT_PACKAGING_FACTOR), materialClasses, out, length);
+        EmissionKernels.multiply(weightKg, out, length);
+    }
+
+    private static int checkColumns(int values, int codes, int out) {
+        if (values != codes || values != out) {
+            throw new IllegalArgumentException(
+                    "Column lengths differ: " + values + " values, " + codes + " class codes, " + out + " outputs");
+        }
+        return values;
+    }
+
+    private static void gatherFactors(double[] table, byte[] codes, double[] out, int length) {
+        for (int i = 0; i < length; i++) {
+            int code = codes[i];
+            if (code < 0 || code >= table.length) {
+                throw new IllegalArgumentException("Unknown class code " + code + " at row " + i);
+            }
+            out[i] = table[code];
+        }
     }
 
     public EmissionType determineScope(String activityType) {
-        return switch (activityType.toUpperCase()) {
-            case "FORKLIFT_FUEL", "COMPANY_VEHICLE", "GENERATOR" -> EmissionType.SCOPE1_DIRECT;
-            case "ELECTRICITY", "HEATING", "COOLING" -> EmissionType.SCOPE2_ENERGY;
-            case "TRANSPORTATION", "SHIPPING", "LOGISTICS" -> EmissionType.SCOPE3_TRANSPORTATION;
-            case "PACKAGING", "SUPPLIES", "WASTE" -> EmissionType.SCOPE3_SUPPLY_CHAIN;
-            default -> EmissionType.SCOPE3_SUPPLY_CHAIN;
-        };
+        int position = ACTIVITIES.indexOf(activityType);
+        return position < 0 ? EmissionType.SCOPE3_SUPPLY_CHAIN : ACTIVITY_SCOPES[position];
     }
 }
@@ -0,0 +1,360 @@
+package com.paklog.sustainability.domain.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.domain.aggregate.EmissionSource;
+import com.paklog.sustainability.domain.repository.EmissionSourceRepository;
+import com.paklog.sustainability.domain.valueobject.ActivityType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Emission factors by activity category, case-insensitive key and activity date, built from the defaults
+ * below overlaid with the active {@link EmissionSource} documents. Keys are only unique within a category:
+ * {@code DIESEL} is a fuel factor per liter, and a transport leg with vehicle type {@code DIESEL} does not
+ * pick it up. A source applies from its {@code validFrom} up to its {@code validTo}; where sources for one
+ * key overlap, the one that starts later wins, so a revised factor is published as a new source starting on
+ * the revision date. Readers work on an immutable snapshot without locking; a reload builds a new snapshot
+ * and publishes it with a single volatile write.
+ */
+@Service
+public class EmissionFactorCatalog {
+    private static final Logger log = LoggerFactory.getLogger(EmissionFactorCatalog.class);
+
+    private static final ActivityType[] CATEGORIES = ActivityType.values();
+
+
+    private final EmissionSourceRepository sourceRepository;
+    private final Map<ActivityType, Map<String, Double>> defaults;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter reloads;
+    private final Counter reloadFailures;
+
+    private volatile Snapshot snapshot;
+
+    public EmissionFactorCatalog(EmissionSourceRepository sourceRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${sustainability.carbon.diesel-factor-kg-co2e-per-liter:2.68}") double dieselFactor,
+                                 @Value("${sustainability.carbon.gasoline-factor-kg-co2e-per-liter:2.31}") double gasolineFactor,
+                                 @Value("${sustainability.carbon.electricity-factor-kg-co2e-per-kwh:0.92}") double electricityFactor) {
+        this.sourceRepository = sourceRepository;
+        this.defaults = defaultFactors(dieselFactor, gasolineFactor, electricityFactor);
+        this.snapshot = Snapshot.of(defaults, List.of(), Set.of());
+
+        this.hits = Counter.builder("sustainability.emission.factor.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("sustainability.emission.factor.lookups").tag("result", "miss").register(meterRegistry);
+        this.reloads = Counter.builder("sustainability.emission.factor.reloads").tag("outcome", "success").register(meterRegistry);
+        this.reloadFailures = Counter.builder("sustainability.emission.factor.reloads").tag("outcome", "failure").register(meterRegistry);
+        Gauge.builder("sustainability.emission.factor.catalog.size", this, c -> c.snapshot.size())
+                .register(meterRegistry);
+        Gauge.builder("sustainability.emission.factor.catalog.overrides", this, c -> c.snapshot.overrides)
+                .register(meterRegistry);
+    }
+
+    private static Map<ActivityType, Map<String, Double>> defaultFactors(double diesel, double gasoline, double electricity) {
+        Map<ActivityType, Map<String, Double>> factors = new EnumMap<>(ActivityType.class);
+        // Fuels, kg CO2e per liter
+        Map<String, Double> fuel = category(factors, ActivityType.FUEL);
+        fuel.put("DIESEL", diesel);
+        fuel.put("GASOLINE", gasoline);
+        fuel.put("PETROL", gasoline);
+        fuel.put("LPG", 1.51);
+        // Grid electricity, kg CO2e per kWh
+        category(factors, ActivityType.ELECTRICITY).put("ELECTRICITY", electricity);
+        // Vehicles, kg CO2e per ton-km
+        Map<String, Double> transport = category(factors, ActivityType.TRANSPORT);
+        transport.put("TRUCK_SMALL", 0.096);
+        transport.put("TRUCK_MEDIUM", 0.062);
+        transport.put("TRUCK_LARGE", 0.049);
+        transport.put("RAIL", 0.022);
+        transport.put("AIR", 0.602);
+        transport.put("SEA", 0.011);
+        // Packaging materials, kg CO2e per kg
+        Map<String, Double> packaging = category(factors, ActivityType.PACKAGING);
+        packaging.put("CARDBOARD", 0.85);
+        packaging.put("PLASTIC", 3.5);
+        packaging.put("WOOD", 0.42);
+        packaging.put("METAL", 2.1);
+        // Waste by disposal route, kg CO2e per kg
+        Map<String, Double> waste = category(factors, ActivityType.WASTE);
+        waste.put("RECYCLABLE", 0.021);
+        waste.put("COMPOSTABLE", 0.010);
+        waste.put("HAZARDOUS", 0.140);
+        waste.put("LANDFILL", 0.467);
+        return factors;
+    }
+
+    private static Map<String, Double> category(Map<ActivityType, Map<String, Double>> factors, ActivityType category) {
+        return factors.computeIfAbsent(category, c -> new LinkedHashMap<>());
+    }
+
+    /**
+     * @return the {@code category} factor registered under {@code key} for activity today, or {@code fallback}
+     * if there is none
+     */
+    public double factor(ActivityType category, String key, double fallback) {
+        return factor(snapshot, category, key, today(), fallback);
+    }
+
+    /**
+     * @return the {@code category} factor registered under {@code key} for activity on {@code date}, or
+     * {@code fallback} if there is none
+     */
+    public double factor(ActivityType category, String key, LocalDate date, double fallback) {
+        return factor(snapshot, category, key, date.toEpochDay(), fallback);
+    }
+
+    /**
+     * Resolves one {@code category} factor per enum constant for activity today against a single snapshot,
+     * indexed by ordinal, for batch calculations that look factors up by class code.
+     */
+    public double[] factorTable(ActivityType category, Enum<?>[] classes, double fallback) {
+        Snapshot current = snapshot;
+        long epochDay = today();
+        double[] table = new double[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            table[i] = factor(current, category, classes[i].name(), epochDay, fallback);
+        }
+        return table;
+    }
+
+    private double factor(Snapshot current, ActivityType category, String key, long epochDay, double fallback) {
+        Table table = current.tables[category.ordinal()];
+        int position = table.index.indexOf(key);
+        double factor = position < 0 ? Double.NaN : table.timelines[position].factorOn(epochDay);
+        if (Double.isNaN(factor)) {
+            misses.increment();
+            return fallback;
+        }
+        hits.increment();
+        return factor;
+    }
+
+    private static long today() {
+        return Math.floorDiv(System.currentTimeMillis(), 86_400_000L);
+    }
+
+    /**
+     * Polls {@code emission_sources} and rebuilds the snapshot only if a source was added, changed or removed.
+     * Changes are detected by comparing every field the snapshot is built from, since sources are edited
+     * outside this service and carry no reliable modification time.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${sustainability.carbon.catalog.refresh-interval-ms:60000}")
+    public void refreshIfChanged() {
+        try {
+            List<EmissionSource> sources = sourceRepository.findAll();
+            if (!versions(sources).equals(snapshot.versions)) {
+                load(sources);
+            }
+        } catch (RuntimeException e) {
+            reloadFailures.increment();
+            log.warn("Could not refresh emission factor catalog, keeping {} factors: {}",
+                    snapshot.size(), e.getMessage());
+        }
+    }
+
+    public void reload() {
+        load(sourceRepository.findAll());
+    }
+
+    private void load(List<EmissionSource> sources) {
+        Snapshot next = Snapshot.of(defaults, sources, versions(sources));
+        snapshot = next;
+        reloads.increment();
+        log.info("Loaded emission factor catalog: {} factors, {} overridden by emission sources",
+                next.size(), next.overrides);
+    }
+
+    private static Set<SourceVersion> versions(List<EmissionSource> sources) {
+        return sources.stream().map(SourceVersion::of).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Category a source's factor belongs to. Sources stored without one are placed by their key when exactly
+     * one category has a default under it, e.g. {@code TRUCK_LARGE}; otherwise the category is ambiguous.
+     *
+     * @return the category, or {@code null} if it cannot be told
+     */
+    static ActivityType categoryOf(EmissionSource source, Map<ActivityType, Map<String, Double>> defaults) {
+        if (source.getCategory() != null) {
+            return source.getCategory();
+        }
+        String key = source.resolveFactorKey();
+        if (key == null) {
+            return null;
+        }
+        ActivityType match = null;
+        for (Map.Entry<ActivityType, Map<String, Double>> category : defaults.entrySet()) {
+            if (category.getValue().containsKey(key.toUpperCase(Locale.ROOT))) {
+                if (match != null) {
+                    return null;
+                }
+                match = category.getKey();
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Fields of a source that the snapshot depends on.
+     */
+    private record SourceVersion(String sourceId, ActivityType category, String factorKey, double factor,
+                                 boolean active, LocalDate validFrom, LocalDate validTo, Instant updatedAt) {
+
+        static SourceVersion of(EmissionSource source) {
+            return new SourceVersion(source.getSourceId(), source.getCategory(), source.resolveFactorKey(),
+                    source.getEmissionFactorCO2ePerUnit(), source.isActive(), source.getValidFrom(), source.getValidTo(),
+                    source.getUpdatedAt());
+        }
+    }
+
+    /**
+     * Factors of one category: keys indexed case-insensitively, with the timeline of each key at its position.
+     */
+    private record Table(CaseInsensitiveIndex index, Timeline[] timelines) {}
+
+    private static final class Snapshot {
+        private final Table[] tables;
+        private final int overrides;
+        private final Set<SourceVersion> versions;
+
+        private Snapshot(Table[] tables, int overrides, Set<SourceVersion> versions) {
+            this.tables = tables;
+            this.overrides = overrides;
+            this.versions = versions;
+        }
+
+        static Snapshot of(Map<ActivityType, Map<String, Double>> defaults, List<EmissionSource> sources,
+                           Set<SourceVersion> versions) {
+            List<Map<String, List<Validity>>> byCategory = new ArrayList<>(CATEGORIES.length);
+            for (ActivityType category : CATEGORIES) {
+                Map<String, List<Validity>> byKey = new LinkedHashMap<>();
+                defaults.getOrDefault(category, Map.of()).forEach(
+                        (key, factor) -> validities(byKey, key).add(new Validity(Long.MIN_VALUE, Long.MAX_VALUE, factor)));
+                byCategory.add(byKey);
+            }
+            // Sources with the same start override each other in update order
+            List<EmissionSource> ordered = new ArrayList<>(sources);
+            ordered.sort(Comparator.comparing(EmissionSource::getUpdatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(EmissionSource::getSourceId, Comparator.nullsFirst(Comparator.naturalOrder())));
+            int overrides = 0;
+            for (EmissionSource source : ordered) {
+                String key = source.resolveFactorKey();
+                if (!source.isActive() || key == null) {
+                    continue;
+                }
+                ActivityType category = categoryOf(source, defaults);
+                if (category == null) {
+                    log.warn("Ignoring emission source {}: no category is set and none can be told from factor key {}",
+                            source.getSourceId(), key);
+                    continue;
+                }
+                long from = source.getValidFrom() != null ? source.getValidFrom().toEpochDay() : Long.MIN_VALUE;
+                long to = source.getValidTo() != null ? source.getValidTo().toEpochDay() : Long.MAX_VALUE;
+                validities(byCategory.get(category.ordinal()), key).add(new Validity(from, to, source.getEmissionFactorCO2ePerUnit()));
+                overrides++;
+            }
+            Table[] tables = new Table[CATEGORIES.length];
+            for (int c = 0; c < CATEGORIES.length; c++) {
+                Map<String, List<Validity>> byKey = byCategory.get(c);
+                Timeline[] timelines = new Timeline[byKey.size()];
+                int position = 0;
+                for (List<Validity> validities : byKey.values()) {
+                    timelines[position++] = Timeline.of(validities);
+                }
+                tables[c] = new Table(new CaseInsensitiveIndex(new ArrayList<>(byKey.keySet())), timelines);
+            }
+            return new Snapshot(tables, overrides, versions);
+        }
+
+        int size() {
+            int size = 0;
+            for (Table table : tables) {
+                size += table.timelines.length;
+            }
+            return size;
+        }
+
+        private static List<Validity> validities(Map<String, List<Validity>> byKey, String key) {
+            return byKey.computeIfAbsent(key.toUpperCase(Locale.ROOT), k -> new ArrayList<>());
+        }
+    }
+
+    /**
+     * A factor applying to activity on epoch days {@code [from, to)}.
+     */
+    private record Validity(long from, long to, double factor) {}
+
+    /**
+     * Validities of one key flattened into a step function: {@code factors[i]} applies from epoch day
+     * {@code starts[i]} until the next start, and {@code NaN} marks days no validity covers.
+     */
+    private record Timeline(long[] starts, double[] factors) {
+
+        static Timeline of(List<Validity> validities) {
+            TreeSet<Long> bounds = new TreeSet<>();
+            for (Validity validity : validities) {
+                bounds.add(validity.from());
+                bounds.add(validity.to());
+            }
+            bounds.remove(Long.MAX_VALUE);
+            long[] starts = new long[bounds.size()];
+            double[] factors = new double[bounds.size()];
+            int segments = 0;
+            for (long start : bounds) {
+                double factor = covering(validities, start);
+                if (segments == 0 || Double.compare(factor, factors[segments - 1]) != 0) {
+                    starts[segments] = start;
+                    factors[segments] = factor;
+                    segments++;
+                }
+            }
+            return new Timeline(Arrays.copyOf(starts, segments), Arrays.copyOf(factors, segments));
+        }
+
+        /**
+         * Factor of the validity covering {@code day} that starts latest; the last one added on a tie.
+         */
+        private static double covering(List<Validity> validities, long day) {
+            double factor = Double.NaN;
+            long latestStart = Long.MIN_VALUE;
+            boolean found = false;
+            for (Validity validity : validities) {
+                if (validity.from() <= day && day < validity.to() && (!found || validity.from() >= latestStart)) {
+                    factor = validity.factor();
+                    latestStart = validity.from();
+                    found = true;
+                }
+            }
+            return factor;
+        }
+
+        double factorOn(long epochDay) {
+            if (starts.length == 1) {
+                return epochDay >= starts[0] ? factors[0] : Double.NaN;
+            }
+            int position = Arrays.binarySearch(starts, epochDay);
+            position = position >= 0 ? position : -position - 2;
+            return position >= 0 ? factors[position] : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.paklog.sustainability.domain.service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Element-wise products over emission columns. Uses {@link VectorEmissionKernels} when the JVM was started
+ * with {@code --add-modules jdk.incubator.vector}, and a plain loop otherwise; both multiply in the same
+ * order as the scalar calculations, so results are bit-identical.
+ */
+final class EmissionKernels {
+    private static final Logger log = LoggerFactory.getLogger(EmissionKernels.class);
+
+    static final boolean VECTORIZED = vectorApiAvailable();
+
+
+    private EmissionKernels() {
+    }
+
+    private static boolean vectorApiAvailable() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.info("jdk.incubator.vector is not enabled, batch emission calculations use scalar loops");
+            return false;
+        }
+        try {
+            log.info("Batch emission calculations use {}-lane vectors", VectorEmissionKernels.lanes());
+            return true;
+        } catch (LinkageError e) {
+            log.warn("Vector API unavailable, batch emission calculations use scalar loops: {}", e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * {@code values[i] = a[i] * b[i] * values[i]} for the first {@code length} elements
+     */
+    static void multiply(double[] a, double[] b, double[] values, int length) {
+        if (VECTORIZED) {
+            VectorEmissionKernels.multiply(a, b, values, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            values[i] = a[i] * b[i] * values[i];
+        }
+    }
+
+    /**
+     * {@code values[i] = a[i] * values[i]} for the first {@code length} elements
+     */
+    static void multiply(double[] a, double[] values, int length) {
+        if (VECTORIZED) {
+            VectorEmissionKernels.multiply(a, values, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            values[i] = a[i] * values[i];
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.paklog.sustainability.domain.service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementations behind {@link EmissionKernels}. Only loaded once the incubator module is
+ * known to be present.
+ */
+final class VectorEmissionKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorEmissionKernels() {
+    }
+
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    static void multiply(double[] a, double[] b, double[] values, int length) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            va.mul(vb).mul(DoubleVector.fromArray(SPECIES, values, i)).intoArray(values, i);
+        }
+        for (; i < length; i++) {
+            values[i] = a[i] * b[i] * values[i];
+        }
+    }
+
+    static void multiply(double[] a, double[] values, int length) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            va.mul(DoubleVector.fromArray(SPECIES, values, i)).intoArray(values, i);
+        }
+        for (; i < length; i++) {
+            values[i] = a[i] * values[i];
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.paklog.sustainability.domain.valueobject;
+
+/**
+ * Activity quantity recorded against one emission factor within a footprint source, and the CO2e
+ * currently attributed to it. A recalculation replaces {@code co2eKg} with {@code quantity} times the
+ * factor now in force; whatever else the source holds is left alone.
+ */
+public record ActivityAmount(double quantity, double co2eKg) {
+
+    public ActivityAmount plus(ActivityAmount other) {
+        return new ActivityAmount(quantity + other.quantity, co2eKg + other.co2eKg);
+    }
+}
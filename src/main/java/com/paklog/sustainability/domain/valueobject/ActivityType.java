@@ -0,0 +1,13 @@
+package com.paklog.sustainability.domain.valueobject;
+
+/**
+ * Kind of activity an emission factor is applied to; decides the unit of the activity quantity and
+ * the factor used when none is registered for the key.
+ */
+public enum ActivityType {
+    FUEL,          // Liters burned
+    ELECTRICITY,   // kWh consumed
+    TRANSPORT,     // Ton-km moved
+    PACKAGING,     // Kg of material used
+    WASTE          // Kg of waste disposed
+}
@@ -0,0 +1,44 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Emissions to add to the event-derived footprint of one warehouse, day and scope, with the activity
+ * behind them by source and {@linkplain EmissionActivity#key() activity key}.
+ */
+public record DailyEmissionIncrement(
+    String warehouseId,
+    LocalDate recordDate,
+    EmissionType emissionType,
+    Map<String, Double> emissionsBySource,
+    Map<String, Map<String, ActivityAmount>> activitiesBySource
+) {
+
+    /**
+     * Deterministic identifier so that every increment for the same day lands on one document.
+     */
+    public String footprintId() {
+        return "evt:" + warehouseId + ":" + recordDate + ":" + emissionType;
+    }
+
+    public double totalCO2eKg() {
+        double total = 0.0;
+        for (double value : emissionsBySource.values()) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * Emission factor keys the activities were calculated with.
+     */
+    public Set<String> factorKeys() {
+        Set<String> keys = new TreeSet<>();
+        activitiesBySource.values().forEach(activities -> activities.keySet().forEach(
+                key -> keys.add(EmissionActivity.fromKey(key, 0).factorKey())));
+        return keys;
+    }
+}
@@ -0,0 +1,23 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import java.time.LocalDate;
+
+/**
+ * Coalesced meter readings to add to the daily metric document of one warehouse, day, category and unit.
+ */
+public record DailyMetricIncrement(
+    String warehouseId,
+    LocalDate recordDate,
+    String category,
+    MetricUnit unit,
+    double value,
+    long readings
+) {
+
+    /**
+     * Deterministic identifier so that every flush for the same day lands on one document.
+     */
+    public String metricId() {
+        return "agg:" + warehouseId + ":" + recordDate + ":" + category + ":" + unit;
+    }
+}
@@ -0,0 +1,20 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import java.time.LocalDate;
+
+/**
+ * Orders counted since the last flush, to add to the order volume of one warehouse and day.
+ */
+public record DailyOrderIncrement(
+    String warehouseId,
+    LocalDate day,
+    long orders
+) {
+
+    /**
+     * Deterministic identifier so that every flush for the same day lands on one document.
+     */
+    public String volumeId() {
+        return warehouseId + ":" + day;
+    }
+}
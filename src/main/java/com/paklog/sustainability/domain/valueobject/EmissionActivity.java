@@ -0,0 +1,43 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import java.util.Locale;
+
+/**
+ * A quantity of activity whose emissions come from the factor registered under {@code factorKey}.
+ */
+public record EmissionActivity(ActivityType type, String factorKey, double quantity) {
+
+    private static final char SEPARATOR = ':';
+
+    public EmissionActivity {
+        factorKey = normalize(factorKey);
+    }
+
+    /**
+     * Key the activity is stored under within a footprint source, e.g. {@code TRANSPORT:TRUCK_LARGE}.
+     */
+    public String key() {
+        return type.name() + SEPARATOR + factorKey;
+    }
+
+    /**
+     * Reads back an activity stored under {@link #key()}.
+     *
+     * @throws IllegalArgumentException if {@code key} was not produced by {@link #key()}
+     */
+    public static EmissionActivity fromKey(String key, double quantity) {
+        int separator = key.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Not an activity key: " + key);
+        }
+        return new EmissionActivity(ActivityType.valueOf(key.substring(0, separator)), key.substring(separator + 1), quantity);
+    }
+
+    /**
+     * Factor keys are matched case-insensitively, but stored ones become document keys.
+     */
+    public static String normalize(String factorKey) {
+        String key = factorKey.toUpperCase(Locale.ROOT).replace('.', '_');
+        return key.startsWith("$") ? "_" + key.substring(1) : key;
+    }
+}
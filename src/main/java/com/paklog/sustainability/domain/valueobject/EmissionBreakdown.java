@@ -0,0 +1,236 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * CO2e per emission source for one footprint, kept as dictionary-encoded source codes and a parallel
+ * {@code double[]} instead of a map of boxed values, so adding a source is O(1) however many sources the
+ * footprint already has. Small breakdowns are searched linearly; wider ones get a hash index over the
+ * source codes. Once the shared {@link SourceDictionary} is full, new names get negative codes local to
+ * the breakdown. The total is kept as a running compensated sum, so reading it is O(1) as well.
+ * <p>
+ * Serialized as a plain {@code {source: co2eKg}} object, in insertion order. Not thread-safe.
+ */
+public final class EmissionBreakdown {
+
+    private static final int LINEAR_SCAN_LIMIT = 8;
+    // Never a code: local codes count down from -1
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private int[] codes;
+    private double[] values;
+    private int size;
+    // Names the shared dictionary had no room for; local code -(i + 1) is localNames[i]
+    private String[] localNames;
+    private int localSize;
+    // Open-addressing index of code -> position + 1; null while the breakdown is small
+    private int[] index;
+    // Neumaier sum of the values: replacing a value subtracts the old one, and the compensation keeps
+    // what rounding dropped, so the total does not drift from a fresh sum
+    private double sum;
+    private double compensation;
+
+    public EmissionBreakdown() {
+        this(4);
+    }
+
+    public EmissionBreakdown(int expectedSources) {
+        this.codes = new int[Math.max(1, expectedSources)];
+        this.values = new double[codes.length];
+    }
+
+    public static EmissionBreakdown of(Map<String, Double> emissionsBySource) {
+        EmissionBreakdown breakdown = new EmissionBreakdown(emissionsBySource.size());
+        breakdown.putAll(emissionsBySource);
+        return breakdown;
+    }
+
+    /**
+     * Sets the emissions of a source, replacing any previous value.
+     */
+    public void put(String source, double co2eKg) {
+        int code = codeOf(source, true);
+        int position = positionOf(code);
+        if (position >= 0) {
+            accumulate(-values[position]);
+            values[position] = co2eKg;
+        } else {
+            append(code, co2eKg);
+        }
+        accumulate(co2eKg);
+    }
+
+    /**
+     * Adds to the emissions of a source, starting from zero if it is new.
+     */
+    public void add(String source, double co2eKg) {
+        int code = codeOf(source, true);
+        int position = positionOf(code);
+        if (position >= 0) {
+            values[position] += co2eKg;
+        } else {
+            append(code, co2eKg);
+        }
+        accumulate(co2eKg);
+    }
+
+    /**
+     * {@link #put} for every entry, growing the arrays once up front. {@code null} values are skipped.
+     */
+    public void putAll(Map<String, Double> emissionsBySource) {
+        ensureCapacity(size + emissionsBySource.size());
+        for (Map.Entry<String, Double> entry : emissionsBySource.entrySet()) {
+            if (entry.getValue() != null) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public double get(String source) {
+        int position = positionOf(codeOf(source, false));
+        return position >= 0 ? values[position] : 0.0;
+    }
+
+    public boolean contains(String source) {
+        return positionOf(codeOf(source, false)) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double total() {
+        return sum + compensation;
+    }
+
+    public String source(int position) {
+        return nameOf(codes[position]);
+    }
+
+    public double value(int position) {
+        return values[position];
+    }
+
+    public void forEach(ObjDoubleConsumer<String> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(nameOf(codes[i]), values[i]);
+        }
+    }
+
+    public Map<String, Double> toMap() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        forEach(map::put);
+        return map;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > codes.length) {
+            int grown = Math.max(capacity, codes.length + (codes.length >> 1));
+            codes = Arrays.copyOf(codes, grown);
+            values = Arrays.copyOf(values, grown);
+        }
+    }
+
+    private void accumulate(double value) {
+        double next = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - next) + value;
+        } else {
+            compensation += (value - next) + sum;
+        }
+        sum = next;
+    }
+
+    private int codeOf(String source, boolean register) {
+        int code = SourceDictionary.find(source);
+        if (code != SourceDictionary.ABSENT) {
+            return code;
+        }
+        for (int i = 0; i < localSize; i++) {
+            if (localNames[i].equals(source)) {
+                return -(i + 1);
+            }
+        }
+        if (!register) {
+            return UNKNOWN;
+        }
+        code = SourceDictionary.code(source);
+        if (code != SourceDictionary.ABSENT) {
+            return code;
+        }
+        if (localNames == null) {
+            localNames = new String[4];
+        } else if (localSize == localNames.length) {
+            localNames = Arrays.copyOf(localNames, localSize * 2);
+        }
+        localNames[localSize++] = source;
+        return -localSize;
+    }
+
+    private String nameOf(int code) {
+        return code >= 0 ? SourceDictionary.name(code) : localNames[-code - 1];
+    }
+
+    private int positionOf(int code) {
+        if (index == null) {
+            for (int i = 0; i < size; i++) {
+                if (codes[i] == code) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int slot = mix(code) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int position = index[slot] - 1;
+            if (codes[position] == code) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private void append(int code, double co2eKg) {
+        ensureCapacity(size + 1);
+        codes[size] = code;
+        values[size] = co2eKg;
+        size++;
+        if (index != null && size * 2 <= index.length) {
+            insertIntoIndex(size - 1);
+        } else if (size > LINEAR_SCAN_LIMIT) {
+            rebuildIndex();
+        }
+    }
+
+    private void rebuildIndex() {
+        index = new int[Integer.highestOneBit(size * 4 - 1) << 1];
+        for (int i = 0; i < size; i++) {
+            insertIntoIndex(i);
+        }
+    }
+
+    private void insertIntoIndex(int position) {
+        int mask = index.length - 1;
+        int slot = mix(codes[position]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+    private static int mix(int code) {
+        return code * 0x9E3779B9;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * CO2e to add to the event-derived emissions of one warehouse, day and scope after a recalculation, by
+ * source and {@linkplain EmissionActivity#key() activity key}. Quantities do not change.
+ *
+ * @param footprintId footprint the correction is applied to where footprints can be updated in place
+ */
+public record FootprintCorrection(
+    String footprintId,
+    String warehouseId,
+    LocalDate recordDate,
+    EmissionType emissionType,
+    Map<String, Map<String, Double>> co2eKgDeltas
+) {
+
+    public double deltaCO2eKg(String source) {
+        double delta = 0.0;
+        for (double value : co2eKgDeltas.get(source).values()) {
+            delta += value;
+        }
+        return delta;
+    }
+
+    public double totalDeltaCO2eKg() {
+        double delta = 0.0;
+        for (String source : co2eKgDeltas.keySet()) {
+            delta += deltaCO2eKg(source);
+        }
+        return delta;
+    }
+
+    public Set<String> factorKeys() {
+        Set<String> keys = new TreeSet<>();
+        co2eKgDeltas.values().forEach(deltas -> deltas.keySet().forEach(
+                key -> keys.add(EmissionActivity.fromKey(key, 0).factorKey())));
+        return keys;
+    }
+}
@@ -0,0 +1,20 @@
+package com.paklog.sustainability.domain.valueobject;
+
+/**
+ * Fuel classes for columnar fuel calculations; {@link #code()} is the value used in code arrays.
+ */
+public enum FuelClass {
+    DIESEL,
+    GASOLINE,
+    LPG;
+
+    private static final FuelClass[] VALUES = values();
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static FuelClass fromCode(int code) {
+        return VALUES[code];
+    }
+}
@@ -0,0 +1,21 @@
+package com.paklog.sustainability.domain.valueobject;
+
+/**
+ * Packaging materials for columnar packaging calculations; {@link #code()} is the value used in code arrays.
+ */
+public enum MaterialClass {
+    CARDBOARD,
+    PLASTIC,
+    WOOD,
+    METAL;
+
+    private static final MaterialClass[] VALUES = values();
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static MaterialClass fromCode(int code) {
+        return VALUES[code];
+    }
+}
@@ -0,0 +1,32 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sustainability metric categories that feed ESG reports.
+ */
+public enum MetricCategory {
+    ENERGY,
+    RENEWABLE_ENERGY,
+    WATER,
+    WASTE_TOTAL,
+    WASTE_RECYCLED;
+
+    private static final Map<String, MetricCategory> BY_NAME = new HashMap<>();
+
+    static {
+        for (MetricCategory category : values()) {
+            BY_NAME.put(category.name(), category);
+        }
+    }
+
+    /**
+     * Resolves a stored category string without allocating.
+     *
+     * @return the category, or {@code null} if it does not contribute to reports
+     */
+    public static MetricCategory resolve(String category) {
+        return category != null ? BY_NAME.get(category) : null;
+    }
+}
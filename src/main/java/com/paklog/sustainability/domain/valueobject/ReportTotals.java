@@ -0,0 +1,101 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+
+import java.util.List;
+
+/**
+ * Emission totals per scope, metric totals per category and the orders processed for one
+ * warehouse and period, which is everything an ESG report needs from the raw data.
+ * <p>
+ * Totals live in primitive slots indexed by {@link EmissionType#ordinal()} and
+ * {@link MetricCategory#ordinal()}, so accumulating does not box or allocate. Partial totals,
+ * for example from parallel chunks or from the months of a quarter, are combined with
+ * {@link #merge(ReportTotals)}. Instances are not thread-safe.
+ */
+public final class ReportTotals {
+
+    private static final EmissionType[] EMISSION_TYPES = EmissionType.values();
+
+    private final double[] emissions = new double[EMISSION_TYPES.length];
+    private final double[] metrics = new double[MetricCategory.values().length];
+    private long orders;
+
+    /**
+     * Sums footprints and metrics in a single pass over each list.
+     */
+    public static ReportTotals of(List<CarbonFootprint> footprints, List<SustainabilityMetric> metrics) {
+        ReportTotals totals = new ReportTotals();
+        for (int i = 0, n = footprints.size(); i < n; i++) {
+            totals.addFootprint(footprints.get(i));
+        }
+        for (int i = 0, n = metrics.size(); i < n; i++) {
+            totals.addMetric(metrics.get(i));
+        }
+        return totals;
+    }
+
+    public ReportTotals addFootprint(CarbonFootprint footprint) {
+        EmissionType type = footprint.getEmissionType();
+        if (type != null) {
+            emissions[type.ordinal()] += footprint.getTotalCO2eKg();
+        }
+        return this;
+    }
+
+    public ReportTotals addMetric(SustainabilityMetric metric) {
+        return addMetric(MetricCategory.resolve(metric.getCategory()), metric.getValue());
+    }
+
+    public ReportTotals addEmissions(EmissionType type, double co2eKg) {
+        emissions[type.ordinal()] += co2eKg;
+        return this;
+    }
+
+    /**
+     * Adds to a metric category; categories that do not feed reports ({@code null}) are ignored.
+     */
+    public ReportTotals addMetric(MetricCategory category, double value) {
+        if (category != null) {
+            metrics[category.ordinal()] += value;
+        }
+        return this;
+    }
+
+    public ReportTotals addOrders(long orders) {
+        this.orders += orders;
+        return this;
+    }
+
+    public ReportTotals merge(ReportTotals other) {
+        for (int i = 0; i < emissions.length; i++) {
+            emissions[i] += other.emissions[i];
+        }
+        for (int i = 0; i < metrics.length; i++) {
+            metrics[i] += other.metrics[i];
+        }
+        orders += other.orders;
+        return this;
+    }
+
+    public double emissions(EmissionType type) {
+        return emissions[type.ordinal()];
+    }
+
+    public double metric(MetricCategory category) {
+        return metrics[category.ordinal()];
+    }
+
+    public long orders() {
+        return orders;
+    }
+
+    public double totalEmissions() {
+        double total = 0.0;
+        for (double value : emissions) {
+            total += value;
+        }
+        return total;
+    }
+}
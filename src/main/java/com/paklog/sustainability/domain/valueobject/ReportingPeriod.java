@@ -1,7 +1,26 @@
 package com.paklog.sustainability.domain.valueobject;
 
+import java.time.YearMonth;
+
 public enum ReportingPeriod {
-    MONTHLY,
-    QUARTERLY,
-    ANNUAL
+    MONTHLY(1),
+    QUARTERLY(3),
+    ANNUAL(12);
+
+    private final int months;
+
+    ReportingPeriod(int months) {
+        this.months = months;
+    }
+
+    public int months() {
+        return months;
+    }
+
+    /**
+     * @return the first month of the period of this type that contains {@code month}
+     */
+    public YearMonth firstMonth(YearMonth month) {
+        return YearMonth.of(month.getYear(), (month.getMonthValue() - 1) / months * months + 1);
+    }
 }
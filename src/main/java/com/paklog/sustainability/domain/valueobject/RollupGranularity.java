@@ -0,0 +1,6 @@
+package com.paklog.sustainability.domain.valueobject;
+
+public enum RollupGranularity {
+    DAY,
+    MONTH
+}
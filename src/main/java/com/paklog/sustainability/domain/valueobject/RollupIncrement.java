@@ -0,0 +1,14 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import java.time.LocalDate;
+
+/**
+ * Change to apply to the daily and monthly emission rollups of one warehouse, day and scope.
+ */
+public record RollupIncrement(
+    String warehouseId,
+    LocalDate day,
+    EmissionType emissionType,
+    double co2eKg,
+    long footprintCount
+) {}
@@ -0,0 +1,72 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary of emission source names. Each distinct name is stored once and referred to
+ * by a dense int code. Source names are a small vocabulary (fleet, meter and supplier labels), so the
+ * dictionary never evicts; since the names come from clients it stops registering at {@link #MAX_NAMES},
+ * and {@link EmissionBreakdown} keeps any further names in the breakdown itself.
+ */
+final class SourceDictionary {
+
+    static final int MAX_NAMES = 8192;
+    static final int ABSENT = -1;
+
+    private static final ConcurrentHashMap<String, Integer> CODES = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[256];
+    private static int size;
+
+    private SourceDictionary() {
+    }
+
+    /**
+     * The code of a name, registering it if there is room.
+     *
+     * @return the code, or {@link #ABSENT} once the dictionary is full
+     */
+    static int code(String name) {
+        Integer code = CODES.get(name);
+        return code != null ? code : register(name);
+    }
+
+    /**
+     * The code of a name without registering it.
+     *
+     * @return the code, or {@link #ABSENT} if the name is not registered
+     */
+    static int find(String name) {
+        Integer code = CODES.get(name);
+        return code != null ? code : ABSENT;
+    }
+
+    static String name(int code) {
+        return names[code];
+    }
+
+    static int size() {
+        return CODES.size();
+    }
+
+    private static synchronized int register(String name) {
+        Integer existing = CODES.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == MAX_NAMES) {
+            return ABSENT;
+        }
+        int code = size;
+        String[] current = names;
+        if (code == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[code] = name;
+        // Publish the name before the code, so a reader holding the code always finds it
+        names = current;
+        CODES.put(name, code);
+        size++;
+        return code;
+    }
+}
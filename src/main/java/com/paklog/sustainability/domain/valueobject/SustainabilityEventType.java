@@ -0,0 +1,26 @@
+package com.paklog.sustainability.domain.valueobject;
+
+/**
+ * Events this service publishes, with their Kafka topic and CloudEvents type as documented in asyncapi.yaml.
+ */
+public enum SustainabilityEventType {
+    EMISSIONS_CALCULATED("sustainability.emissions.calculated", "com.paklog.sustainability.emissions.calculated.v1"),
+    REPORT_GENERATED("sustainability.report.generated", "com.paklog.sustainability.report.generated.v1"),
+    INITIATIVE_COMPLETED("sustainability.initiative.completed", "com.paklog.sustainability.initiative.completed.v1");
+
+    private final String topic;
+    private final String cloudEventType;
+
+    SustainabilityEventType(String topic, String cloudEventType) {
+        this.topic = topic;
+        this.cloudEventType = cloudEventType;
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public String cloudEventType() {
+        return cloudEventType;
+    }
+}
@@ -0,0 +1,23 @@
+package com.paklog.sustainability.domain.valueobject;
+
+/**
+ * Vehicle classes for columnar transport calculations; {@link #code()} is the value used in code arrays.
+ */
+public enum VehicleClass {
+    TRUCK_SMALL,
+    TRUCK_MEDIUM,
+    TRUCK_LARGE,
+    RAIL,
+    AIR,
+    SEA;
+
+    private static final VehicleClass[] VALUES = values();
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static VehicleClass fromCode(int code) {
+        return VALUES[code];
+    }
+}
@@ -0,0 +1,55 @@
+package com.paklog.sustainability.infrastructure.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.paklog.sustainability.domain.valueobject.EmissionBreakdown;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link EmissionBreakdown} as a plain {@code {source: co2eKg}} object, streaming
+ * straight from and to its arrays without an intermediate map.
+ */
+public class EmissionBreakdownModule extends SimpleModule {
+
+    public EmissionBreakdownModule() {
+        super("EmissionBreakdownModule");
+        addSerializer(EmissionBreakdown.class, new Serializer());
+        addDeserializer(EmissionBreakdown.class, new Deserializer());
+    }
+
+
+    static final class Serializer extends JsonSerializer<EmissionBreakdown> {
+        @Override
+        public void serialize(EmissionBreakdown breakdown, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(breakdown, breakdown.size());
+            for (int i = 0; i < breakdown.size(); i++) {
+                gen.writeNumberField(breakdown.source(i), breakdown.value(i));
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static final class Deserializer extends JsonDeserializer<EmissionBreakdown> {
+        @Override
+        public EmissionBreakdown deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartObjectToken()) {
+                return (EmissionBreakdown) context.handleUnexpectedToken(EmissionBreakdown.class, parser);
+            }
+            EmissionBreakdown breakdown = new EmissionBreakdown();
+            for (String source = parser.nextFieldName(); source != null; source = parser.nextFieldName()) {
+                JsonToken token = parser.nextToken();
+                if (token != JsonToken.VALUE_NULL) {
+                    breakdown.put(source, parser.getValueAsDouble());
+                }
+            }
+            return breakdown;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.paklog.sustainability.infrastructure.config;
+
+import com.paklog.sustainability.infrastructure.messaging.OperationalTopics;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterRecoverer(KafkaTemplate<Object, Object> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(OperationalTopics.DEAD_LETTER, -1));
+    }
+
+    /**
+     * Batch listener factory: when a listener reports the record a batch failed at, the offsets before it
+     * are committed and the rest is retried with exponential backoff (3 attempts), after which that record
+     * is sent to the dead letter topic. Otherwise offsets are committed only on explicit acknowledgment.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            DeadLetterPublishingRecoverer deadLetterRecoverer,
+            @Value("${sustainability.events.consumer.concurrency:3}") int concurrency,
+            @Value("${sustainability.events.consumer.auto-startup:true}") boolean autoStartup) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.setAutoStartup(autoStartup);
+        factory.getContainerProperties().setAckMode(AckMode.MANUAL);
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(3);
+        backOff.setInitialInterval(1_000L);
+        backOff.setMultiplier(2.0);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterRecoverer, backOff));
+        return factory;
+    }
+}
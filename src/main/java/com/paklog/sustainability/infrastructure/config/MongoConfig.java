@@ -0,0 +1,14 @@
+package com.paklog.sustainability.infrastructure.config;
+
+import com.paklog.sustainability.infrastructure.persistence.EmissionBreakdownConverters;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+@Configuration
+public class MongoConfig {
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(EmissionBreakdownConverters.all());
+    }
+}
@@ -0,0 +1,40 @@
+package com.paklog.sustainability.infrastructure.config;
+
+import com.paklog.sustainability.infrastructure.persistence.StorageLayout;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Makes {@code @Transactional} service methods real MongoDB transactions, so an aggregate and its outbox
+ * event are committed together. On by default: without transactions a crash between the two writes loses
+ * the event. Startup fails unless MongoDB is a replica set or sharded cluster, and when the
+ * {@code TIME_SERIES} storage layout is selected, since time-series collections cannot be written in a
+ * transaction. Set {@code sustainability.outbox.transactions=false} to run without them.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sustainability.outbox.transactions", havingValue = "true", matchIfMissing = true)
+public class MongoTransactionConfig {
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory,
+                                                      @Value("${sustainability.storage.layout:STANDARD}") StorageLayout storageLayout) {
+        if (storageLayout == StorageLayout.TIME_SERIES) {
+            throw new IllegalStateException("sustainability.outbox.transactions cannot be combined with the TIME_SERIES "
+                    + "storage layout; set sustainability.outbox.transactions=false to use time-series collections");
+        }
+        requireTransactionSupport(databaseFactory);
+        return new MongoTransactionManager(databaseFactory);
+    }
+
+    static void requireTransactionSupport(MongoDatabaseFactory databaseFactory) {
+        Document hello = databaseFactory.getMongoDatabase().runCommand(new Document("hello", 1));
+        if (hello.get("setName") == null && !"isdbgrid".equals(hello.get("msg"))) {
+            throw new IllegalStateException("sustainability.outbox.transactions needs MongoDB to run as a replica set "
+                    + "or sharded cluster; start mongod with --replSet or set sustainability.outbox.transactions=false");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.paklog.sustainability.infrastructure.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Reactive serving mode. Tomcat is on the classpath for the default servlet mode; declaring the
+ * factory makes the reactive mode run on Netty instead.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,155 @@
+package com.paklog.sustainability.infrastructure.messaging;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.application.service.DailyFootprintBatch;
+import com.paklog.sustainability.application.service.IdempotencyService;
+import com.paklog.sustainability.application.service.OperationalEmissionService;
+import io.cloudevents.CloudEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batch consumer for the operational event channels. Each poll is merged into per-warehouse, per-day
+ * footprint upserts and offsets are acknowledged only once that write has succeeded. Redelivered
+ * events are dropped by CloudEvent source and id before they reach the batch.
+ * <p>
+ * When a write fails, the listener reports the first record not written as a
+ * {@link BatchListenerFailedException}: the error handler commits the offsets before it and retries, or
+ * finally dead-letters, only that record and the rest. Just the claims of the unwritten events are
+ * released, so events after it that were written are skipped on redelivery. Poison records are sent to
+ * the dead letter topic only once their offsets are committed, never again on a retry.
+ */
+@Component
+public class OperationalEventListener {
+    private static final Logger log = LoggerFactory.getLogger(OperationalEventListener.class);
+
+
+    private final OperationalEventTranslator translator;
+    private final OperationalEmissionService emissionService;
+    private final IdempotencyService idempotencyService;
+    private final ConsumerRecordRecoverer deadLetterRecoverer;
+    public OperationalEventListener(OperationalEventTranslator translator,
+                                    OperationalEmissionService emissionService,
+                                    IdempotencyService idempotencyService,
+                                    ConsumerRecordRecoverer deadLetterRecoverer) {
+        this.translator = translator;
+        this.emissionService = emissionService;
+        this.idempotencyService = idempotencyService;
+        this.deadLetterRecoverer = deadLetterRecoverer;
+    }
+
+
+    @KafkaListener(
+            id = "operational-events",
+            topics = {
+                    OperationalTopics.SHIPMENT_DISPATCHED,
+                    OperationalTopics.ENERGY_CONSUMED,
+                    OperationalTopics.PACKAGING_USED,
+                    OperationalTopics.WASTE_GENERATED,
+                    OperationalTopics.ROUTE_COMPLETED
+            },
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void onOperationalEvents(List<ConsumerRecord<String, CloudEvent>> records, Acknowledgment ack) {
+        DailyFootprintBatch batch = new DailyFootprintBatch();
+        int skipped = 0;
+
+        List<String> eventKeys = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, CloudEvent> record : records) {
+            if (record.value() != null) {
+                eventKeys.add(eventKey(record.value()));
+            }
+        }
+        Set<String> fresh = idempotencyService.claimEvents(eventKeys);
+        List<String> claimed = List.copyOf(fresh);
+        // Record index of each event in the batch, in record order
+        Map<String, Integer> batched = new LinkedHashMap<>();
+        List<Poison> poison = new ArrayList<>();
+
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, CloudEvent> record = records.get(i);
+            CloudEvent event = record.value();
+            if (event == null) {
+                // Value failed deserialization; the error handling deserializer left the cause in the headers
+                poison.add(new Poison(i, record, new IllegalArgumentException("Undeserializable CloudEvent")));
+                skipped++;
+                continue;
+            }
+            // Removing the key also drops a second copy of the event within this poll
+            if (!fresh.remove(eventKey(event))) {
+                skipped++;
+                continue;
+            }
+            batch.beginEvent(eventKey(event));
+            batched.put(eventKey(event), i);
+            try {
+                if (!translator.translate(record.topic(), event, batch)) {
+                    skipped++;
+                }
+            } catch (IOException e) {
+                poison.add(new Poison(i, record, e));
+                skipped++;
+            }
+        }
+
+        Set<String> unapplied;
+        try {
+            unapplied = emissionService.apply(batch);
+        } catch (RuntimeException e) {
+            // Nothing was written: let the redelivered batch through the idempotency check again
+            idempotencyService.releaseEvents(claimed);
+            if (batched.isEmpty()) {
+                throw e;
+            }
+            int failed = batched.values().iterator().next();
+            deadLetter(poison, failed);
+            throw new BatchListenerFailedException("Operational events were not written", e, failed);
+        }
+        if (!unapplied.isEmpty()) {
+            // Written events keep their claims, so the redelivered batch only applies the rest
+            idempotencyService.releaseEvents(unapplied);
+            int failed = records.size();
+            for (String eventKey : unapplied) {
+                failed = Math.min(failed, batched.getOrDefault(eventKey, 0));
+            }
+            deadLetter(poison, failed);
+            throw new BatchListenerFailedException(
+                    unapplied.size() + " of " + claimed.size() + " operational events were not written", failed);
+        }
+        deadLetter(poison, records.size());
+        ack.acknowledge();
+        log.debug("Processed {} operational events ({} skipped)", records.size(), skipped);
+    }
+
+    /**
+     * Sends the poison records before {@code committedBefore}, whose offsets are committed after this poll.
+     * Later ones are redelivered and dead-lettered then.
+     */
+    private void deadLetter(List<Poison> poison, int committedBefore) {
+        for (Poison record : poison) {
+            if (record.index() < committedBefore) {
+                log.warn("Sending record {}-{}@{} to dead letter topic: {}", record.record().topic(),
+                        record.record().partition(), record.record().offset(), record.cause().getMessage());
+                deadLetterRecoverer.accept(record.record(), record.cause());
+            }
+        }
+    }
+
+    // CloudEvent ids are only unique per source
+    private static String eventKey(CloudEvent event) {
+        return event.getSource() + "#" + event.getId();
+    }
+
+    private record Poison(int index, ConsumerRecord<String, CloudEvent> record, Exception cause) {}
+}
@@ -0,0 +1,170 @@
+package com.paklog.sustainability.infrastructure.messaging;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paklog.sustainability.application.service.DailyFootprintBatch;
+import com.paklog.sustainability.domain.service.EmissionCalculationService;
+import com.paklog.sustainability.domain.valueobject.ActivityType;
+import com.paklog.sustainability.domain.valueobject.EmissionActivity;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.infrastructure.messaging.event.EnergyConsumedPayload;
+import com.paklog.sustainability.infrastructure.messaging.event.PackagingUsedPayload;
+import com.paklog.sustainability.infrastructure.messaging.event.RouteCompletedPayload;
+import com.paklog.sustainability.infrastructure.messaging.event.ShipmentDispatchedPayload;
+import com.paklog.sustainability.infrastructure.messaging.event.WasteGeneratedPayload;
+import io.cloudevents.CloudEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Turns consumed operational CloudEvents into emission contributions using {@link EmissionCalculationService},
+ * with factors resolved for the date of the activity. The activity quantities go into the batch as well, so
+ * the contributions can be recalculated when a factor is revised. Dispatched shipments also add the orders
+ * they ship, the denominator of carbon intensity per order.
+ */
+@Component
+public class OperationalEventTranslator {
+    private static final Logger log = LoggerFactory.getLogger(OperationalEventTranslator.class);
+
+
+    private final ObjectMapper objectMapper;
+    private final EmissionCalculationService calculationService;
+    public OperationalEventTranslator(ObjectMapper objectMapper, EmissionCalculationService calculationService) {
+        this.objectMapper = objectMapper;
+        this.calculationService = calculationService;
+    }
+
+
+    /**
+     * Adds the emissions carried by {@code event} to {@code batch}.
+     *
+     * @return {@code false} if the event carries nothing that can be turned into emissions
+     * @throws IOException if the event data cannot be read as the channel's payload
+     */
+    public boolean translate(String topic, CloudEvent event, DailyFootprintBatch batch) throws IOException {
+        if (event.getData() == null) {
+            log.warn("Skipping event {} on {}: no data", event.getId(), topic);
+            return false;
+        }
+        byte[] data = event.getData().toBytes();
+        LocalDate eventDate = toDate(event.getTime());
+
+        return switch (topic) {
+            case OperationalTopics.SHIPMENT_DISPATCHED ->
+                    shipmentDispatched(objectMapper.readValue(data, ShipmentDispatchedPayload.class), eventDate, batch);
+            case OperationalTopics.ENERGY_CONSUMED ->
+                    energyConsumed(objectMapper.readValue(data, EnergyConsumedPayload.class), eventDate, batch);
+            case OperationalTopics.PACKAGING_USED ->
+                    packagingUsed(objectMapper.readValue(data, PackagingUsedPayload.class), eventDate, batch);
+            case OperationalTopics.WASTE_GENERATED ->
+                    wasteGenerated(objectMapper.readValue(data, WasteGeneratedPayload.class), eventDate, batch);
+            case OperationalTopics.ROUTE_COMPLETED ->
+                    routeCompleted(objectMapper.readValue(data, RouteCompletedPayload.class), eventDate, batch);
+            default -> {
+                log.warn("Skipping event {}: unexpected topic {}", event.getId(), topic);
+                yield false;
+            }
+        };
+    }
+
+    private boolean shipmentDispatched(ShipmentDispatchedPayload payload, LocalDate eventDate, DailyFootprintBatch batch) {
+        LocalDate date = dateOr(payload.dispatchTime(), eventDate);
+        if (payload.warehouseId() != null) {
+            // The orders shipped count even when the shipment's emissions cannot be calculated
+            batch.addOrders(payload.warehouseId(), date, payload.orders());
+        }
+        if (payload.warehouseId() == null || payload.distanceKm() == null || payload.vehicleType() == null) {
+            log.warn("Skipping shipment {}: warehouse, distance or vehicle type missing", payload.shipmentId());
+            return false;
+        }
+        double loadTons = payload.loadWeightTons() != null ? payload.loadWeightTons() : 0.0;
+        EmissionActivity activity = new EmissionActivity(ActivityType.TRANSPORT, payload.vehicleType(),
+                payload.distanceKm() * loadTons);
+        batch.add(payload.warehouseId(), date, calculationService.determineScope("TRANSPORTATION"),
+                "Shipments - " + payload.vehicleType(), calculationService.calculate(activity, date), activity);
+        return true;
+    }
+
+    private boolean energyConsumed(EnergyConsumedPayload payload, LocalDate eventDate, DailyFootprintBatch batch) {
+        if (payload.warehouseId() == null || payload.energyType() == null || payload.quantityConsumed() == null) {
+            log.warn("Skipping energy reading for equipment {}: warehouse, energy type or quantity missing",
+                    payload.equipmentId());
+            return false;
+        }
+        boolean electric = "ELECTRICITY".equalsIgnoreCase(payload.energyType());
+        EmissionActivity activity = new EmissionActivity(electric ? ActivityType.ELECTRICITY : ActivityType.FUEL,
+                payload.energyType(), payload.quantityConsumed());
+        EmissionType scope = calculationService.determineScope(electric ? "ELECTRICITY" : "FORKLIFT_FUEL");
+        String source = payload.equipmentType() != null ? payload.equipmentType() : payload.energyType();
+        LocalDate date = payload.consumptionDate() != null ? payload.consumptionDate() : eventDate;
+        batch.add(payload.warehouseId(), date, scope, source, calculationService.calculate(activity, date), activity);
+        return true;
+    }
+
+    private boolean packagingUsed(PackagingUsedPayload payload, LocalDate eventDate, DailyFootprintBatch batch) {
+        if (payload.warehouseId() == null || payload.materials() == null || payload.materials().isEmpty()) {
+            log.warn("Skipping packaging usage: warehouse or materials missing");
+            return false;
+        }
+        LocalDate date = payload.usageDate() != null ? payload.usageDate() : eventDate;
+        EmissionType scope = calculationService.determineScope("PACKAGING");
+        boolean added = false;
+        for (PackagingUsedPayload.Material material : payload.materials()) {
+            if (material.materialType() == null || material.quantityKg() == null) {
+                continue;
+            }
+            EmissionActivity activity = new EmissionActivity(ActivityType.PACKAGING, material.materialType(),
+                    material.quantityKg());
+            batch.add(payload.warehouseId(), date, scope, "Packaging - " + material.materialType(),
+                    calculationService.calculate(activity, date), activity);
+            added = true;
+        }
+        return added;
+    }
+
+    private boolean wasteGenerated(WasteGeneratedPayload payload, LocalDate eventDate, DailyFootprintBatch batch) {
+        if (payload.warehouseId() == null || payload.wasteStreams() == null || payload.wasteStreams().isEmpty()) {
+            log.warn("Skipping waste record: warehouse or waste streams missing");
+            return false;
+        }
+        LocalDate date = payload.generationDate() != null ? payload.generationDate() : eventDate;
+        EmissionType scope = calculationService.determineScope("WASTE");
+        boolean added = false;
+        for (WasteGeneratedPayload.WasteStream stream : payload.wasteStreams()) {
+            if (stream.category() == null || stream.weightKg() == null) {
+                continue;
+            }
+            EmissionActivity activity = new EmissionActivity(ActivityType.WASTE, stream.category(), stream.weightKg());
+            batch.add(payload.warehouseId(), date, scope, "Waste - " + stream.category(),
+                    calculationService.calculate(activity, date), activity);
+            added = true;
+        }
+        return added;
+    }
+
+    private boolean routeCompleted(RouteCompletedPayload payload, LocalDate eventDate, DailyFootprintBatch batch) {
+        if (payload.warehouseId() == null || payload.energyConsumedKwh() == null) {
+            log.warn("Skipping route {}: warehouse or energy consumption missing", payload.routeId());
+            return false;
+        }
+        LocalDate date = dateOr(payload.completionTime(), eventDate);
+        EmissionActivity activity = new EmissionActivity(ActivityType.ELECTRICITY, "ELECTRICITY", payload.energyConsumedKwh());
+        String source = "Last-Mile - " + (payload.vehicleType() != null ? payload.vehicleType() : "Vehicle");
+        batch.add(payload.warehouseId(), date, calculationService.determineScope("ELECTRICITY"), source,
+                calculationService.calculate(activity, date), activity);
+        return true;
+    }
+
+    private static LocalDate dateOr(OffsetDateTime time, LocalDate fallback) {
+        return time != null ? toDate(time) : fallback;
+    }
+
+    private static LocalDate toDate(OffsetDateTime time) {
+        return time != null ? time.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate() : LocalDate.now(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,18 @@
+package com.paklog.sustainability.infrastructure.messaging;
+
+/**
+ * Operational event channels consumed by this service, as declared in asyncapi.yaml.
+ */
+public final class OperationalTopics {
+
+    public static final String SHIPMENT_DISPATCHED = "transportation.shipment.dispatched";
+    public static final String ENERGY_CONSUMED = "equipment.energy.consumed";
+    public static final String PACKAGING_USED = "cartonization.packaging.used";
+    public static final String WASTE_GENERATED = "warehouse.waste.generated";
+    public static final String ROUTE_COMPLETED = "lastmile.route.completed";
+
+    public static final String DEAD_LETTER = "sustainability-dlq";
+
+    private OperationalTopics() {
+    }
+}
@@ -0,0 +1,178 @@
+package com.paklog.sustainability.infrastructure.messaging;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paklog.sustainability.domain.aggregate.OutboxEvent;
+import com.paklog.sustainability.domain.repository.OutboxEventRepository;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains {@code event_outbox} to Kafka. Each poll claims a batch under a lease, sends the whole batch
+ * without waiting in between so the producer can batch and compress, then marks the acknowledged
+ * events as published. A relay that dies mid-batch loses its lease; events are delivered at least once.
+ * <p>
+ * A failed send ends the poll. The failed events are released with an exponential backoff on their
+ * attempts, from {@code retry-backoff-ms} up to {@code max-retry-backoff-ms}, so a Kafka outage is not
+ * met with the same batch over and over; after {@code max-attempts} an event is parked instead.
+ */
+@Component
+@ConditionalOnProperty(name = "sustainability.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final URI SOURCE = URI.create("paklog/sustainability-management");
+
+    private final OutboxEventRepository outboxRepository;
+    private final KafkaTemplate<String, CloudEvent> kafkaTemplate;
+    private final int batchSize;
+    private final long leaseMillis;
+    private final long sendTimeoutMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+    private final String relayId = UUID.randomUUID().toString();
+    private final Counter published;
+    private final Counter failed;
+    private final Counter parked;
+    public OutboxRelay(OutboxEventRepository outboxRepository, KafkaTemplate<String, CloudEvent> kafkaTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${sustainability.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${sustainability.outbox.relay.lease-ms:30000}") long leaseMillis,
+                       @Value("${sustainability.outbox.relay.send-timeout-ms:10000}") long sendTimeoutMillis,
+                       @Value("${sustainability.outbox.relay.max-attempts:20}") int maxAttempts,
+                       @Value("${sustainability.outbox.relay.retry-backoff-ms:1000}") long retryBackoffMillis,
+                       @Value("${sustainability.outbox.relay.max-retry-backoff-ms:300000}") long maxRetryBackoffMillis) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.batchSize = batchSize;
+        this.leaseMillis = leaseMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = Math.max(1, retryBackoffMillis);
+        this.maxRetryBackoffMillis = Math.max(this.retryBackoffMillis, maxRetryBackoffMillis);
+        this.published = Counter.builder("sustainability.outbox.events").tag("outcome", "published").register(meterRegistry);
+        this.failed = Counter.builder("sustainability.outbox.events").tag("outcome", "failed").register(meterRegistry);
+        this.parked = Counter.builder("sustainability.outbox.events").tag("outcome", "parked").register(meterRegistry);
+        Gauge.builder("sustainability.outbox.pending", outboxRepository, r -> r.countByStatus(OutboxEvent.PENDING))
+                .register(meterRegistry);
+        Gauge.builder("sustainability.outbox.parked", outboxRepository, r -> r.countByStatus(OutboxEvent.PARKED))
+                .register(meterRegistry);
+    }
+
+
+    @Scheduled(fixedDelayString = "${sustainability.outbox.relay.poll-interval-ms:500}")
+    public void drain() {
+        List<OutboxEvent> batch;
+        do {
+            String claimToken = relayId + ":" + UUID.randomUUID();
+            batch = outboxRepository.claimBatch(claimToken, Instant.now().plusMillis(leaseMillis), batchSize);
+            if (!batch.isEmpty() && !publish(batch)) {
+                return;
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * @return {@code false} if a send failed or the relay was interrupted, which ends the poll
+     */
+    private boolean publish(List<OutboxEvent> batch) {
+        List<CompletableFuture<SendResult<String, CloudEvent>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            sends.add(kafkaTemplate.send(event.getType().topic(), event.getPartitionKey(), toCloudEvent(event)));
+        }
+
+        List<String> acknowledged = new ArrayList<>(batch.size());
+        Set<String> unacknowledged = new HashSet<>();
+        String error = null;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        for (int i = 0; i < batch.size(); i++) {
+            String eventId = batch.get(i).getEventId();
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acknowledged.add(eventId);
+            } catch (ExecutionException | TimeoutException e) {
+                unacknowledged.add(eventId);
+                error = e instanceof ExecutionException ? String.valueOf(e.getCause()) : "send timed out";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Unacknowledged events are picked up again once the lease expires
+                outboxRepository.markPublished(acknowledged, Instant.now());
+                return false;
+            }
+        }
+
+        outboxRepository.markPublished(acknowledged, Instant.now());
+        published.increment(acknowledged.size());
+        if (unacknowledged.isEmpty()) {
+            return true;
+        }
+        failed.increment(unacknowledged.size());
+        List<String> exhausted = new ArrayList<>();
+        // Events of a batch mostly share their attempt count, so this is one release per count
+        Map<Integer, List<String>> retriesByAttempts = new TreeMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            if (!unacknowledged.contains(event.getEventId())) {
+                continue;
+            }
+            if (event.getAttempts() >= maxAttempts) {
+                exhausted.add(event.getEventId());
+            } else {
+                retriesByAttempts.computeIfAbsent(event.getAttempts(), a -> new ArrayList<>()).add(event.getEventId());
+            }
+        }
+        Instant now = Instant.now();
+        for (Map.Entry<Integer, List<String>> retries : retriesByAttempts.entrySet()) {
+            outboxRepository.release(retries.getValue(), error, now.plusMillis(backoffMillis(retries.getKey())));
+        }
+        outboxRepository.park(exhausted, error);
+        parked.increment(exhausted.size());
+        log.warn("Published {} outbox events, {} failed and will be retried, {} parked after {} attempts: {}",
+                acknowledged.size(), unacknowledged.size() - exhausted.size(), exhausted.size(), maxAttempts, error);
+        return false;
+    }
+
+    private long backoffMillis(int attempts) {
+        // Doubles per attempt; the shift is capped before it could overflow
+        long backoff = retryBackoffMillis << Math.min(Math.max(0, attempts - 1), 30);
+        return backoff < 0 ? maxRetryBackoffMillis : Math.min(backoff, maxRetryBackoffMillis);
+    }
+
+    private static CloudEvent toCloudEvent(OutboxEvent event) {
+        return CloudEventBuilder.v1()
+                .withId(event.getEventId())
+                .withSource(SOURCE)
+                .withType(event.getType().cloudEventType())
+                .withSubject(event.getSubject())
+                .withTime(event.getCreatedAt().atOffset(ZoneOffset.UTC))
+                .withDataContentType("application/json")
+                .withData(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.paklog.sustainability.infrastructure.messaging.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDate;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record EnergyConsumedPayload(
+    String equipmentId,
+    String warehouseId,
+    String equipmentType,
+    String energyType,
+    LocalDate consumptionDate,
+    Double quantityConsumed,
+    String unit,
+    Double operatingHours
+) {}
@@ -0,0 +1,21 @@
+package com.paklog.sustainability.infrastructure.messaging.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PackagingUsedPayload(
+    String warehouseId,
+    LocalDate usageDate,
+    List<Material> materials
+) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Material(
+        String materialType,
+        Double quantityKg,
+        Double recycledContentPercentage
+    ) {}
+}
@@ -0,0 +1,18 @@
+package com.paklog.sustainability.infrastructure.messaging.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.OffsetDateTime;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record RouteCompletedPayload(
+    String routeId,
+    String warehouseId,
+    String vehicleId,
+    String vehicleType,
+    OffsetDateTime completionTime,
+    Double plannedDistanceKm,
+    Double actualDistanceKm,
+    Double energyConsumedKwh,
+    Integer stopsCompleted
+) {}
@@ -0,0 +1,26 @@
+package com.paklog.sustainability.infrastructure.messaging.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.OffsetDateTime;
+
+/**
+ * @param orderCount orders in the shipment; a shipment without one counts as a single order
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ShipmentDispatchedPayload(
+    String shipmentId,
+    String warehouseId,
+    OffsetDateTime dispatchTime,
+    String transportMode,
+    String vehicleType,
+    Double loadWeightTons,
+    Double distanceKm,
+    Double estimatedFuelConsumptionLiters,
+    Integer orderCount
+) {
+
+    public int orders() {
+        return orderCount != null ? orderCount : 1;
+    }
+}
@@ -0,0 +1,21 @@
+package com.paklog.sustainability.infrastructure.messaging.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record WasteGeneratedPayload(
+    String warehouseId,
+    LocalDate generationDate,
+    List<WasteStream> wasteStreams
+) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record WasteStream(
+        String wasteType,
+        String category,
+        Double weightKg
+    ) {}
+}
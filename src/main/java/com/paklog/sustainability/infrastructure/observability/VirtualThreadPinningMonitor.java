@@ -0,0 +1,103 @@
+package com.paklog.sustainability.infrastructure.observability;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams {@code jdk.VirtualThreadPinned} JFR events in-process while virtual threads are enabled. A
+ * virtual thread that blocks inside {@code synchronized} or a native frame holds its carrier thread,
+ * and enough of them stall every other virtual thread. Each pinning longer than the threshold is
+ * counted and timed; the blocking frame is logged at most once per log interval.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final long logIntervalNanos;
+    private final Counter pinnings;
+    private final Timer pinnedTime;
+    private final AtomicLong lastLogged = new AtomicLong(System.nanoTime() - Long.MAX_VALUE / 2);
+    private volatile RecordingStream stream;
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${sustainability.virtual-threads.pinning.threshold:PT0.02S}") Duration threshold,
+                                       @Value("${sustainability.virtual-threads.pinning.log-interval:PT1M}") Duration logInterval) {
+        this.threshold = threshold;
+        this.logIntervalNanos = logInterval.toNanos();
+        this.pinnings = Counter.builder("sustainability.virtual_threads.pinned").register(meterRegistry);
+        this.pinnedTime = Timer.builder("sustainability.virtual_threads.pinned.duration").register(meterRegistry);
+    }
+
+
+    @Override
+    public void start() {
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+        stream = recording;
+        log.info("Reporting virtual threads pinned for longer than {}", threshold);
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnings.increment();
+        pinnedTime.record(event.getDuration());
+
+        long now = System.nanoTime();
+        long last = lastLogged.get();
+        if (now - last < logIntervalNanos || !lastLogged.compareAndSet(last, now)) {
+            return;
+        }
+        log.warn("Virtual thread {} pinned its carrier for {} ms at:{}",
+                event.getThread() != null ? event.getThread().getJavaName() : "?",
+                event.getDuration().toMillis(), frames(event.getStackTrace()));
+    }
+
+    private static String frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return " <no stack trace>";
+        }
+        StringBuilder frames = new StringBuilder();
+        List<RecordedFrame> recorded = stackTrace.getFrames();
+        for (int i = 0; i < Math.min(LOGGED_FRAMES, recorded.size()); i++) {
+            RecordedFrame frame = recorded.get(i);
+            frames.append("\n\tat ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber());
+        }
+        return frames.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.paklog.sustainability.infrastructure.persistence;
+
+import com.paklog.sustainability.domain.valueobject.EmissionBreakdown;
+import org.bson.Document;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores {@link EmissionBreakdown} as the {@code {source: co2eKg}} sub-document footprints have always
+ * had, which the {@code $inc} upserts of event-derived footprints also write to.
+ */
+public final class EmissionBreakdownConverters {
+
+    private EmissionBreakdownConverters() {
+    }
+
+    public static List<Converter<?, ?>> all() {
+        return List.of(BreakdownToDocument.INSTANCE, DocumentToBreakdown.INSTANCE);
+    }
+
+    @WritingConverter
+    enum BreakdownToDocument implements Converter<EmissionBreakdown, Document> {
+        INSTANCE;
+
+        @Override
+        public Document convert(EmissionBreakdown breakdown) {
+            Document document = new Document();
+            breakdown.forEach(document::append);
+            return document;
+        }
+    }
+
+    @ReadingConverter
+    enum DocumentToBreakdown implements Converter<Document, EmissionBreakdown> {
+        INSTANCE;
+
+        @Override
+        public EmissionBreakdown convert(Document document) {
+            EmissionBreakdown breakdown = new EmissionBreakdown(document.size());
+            for (Map.Entry<String, Object> entry : document.entrySet()) {
+                if (entry.getValue() instanceof Number value) {
+                    breakdown.put(entry.getKey(), value.doubleValue());
+                }
+            }
+            return breakdown;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.paklog.sustainability.infrastructure.persistence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of threads inside blocking MongoDB repository calls. With virtual threads, request
+ * concurrency is no longer bounded by a thread pool, and thousands of callers queuing in the driver's
+ * connection pool would each wait out {@code maxWaitTime}; here they wait for a permit instead and
+ * fail fast with a transient error once {@code acquire-timeout} has passed.
+ * <p>
+ * A call made while the thread already holds a permit, such as a repository used from inside another,
+ * does not take a second one. Streams and cursors returned from a call release the permit when the
+ * method returns, not when the cursor is closed. Reactive repositories are not limited.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "sustainability.mongo.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class MongoConcurrencyLimiter {
+
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final Semaphore permits;
+    private final int maxConcurrentOperations;
+    private final long acquireTimeoutNanos;
+    private final Timer waits;
+    private final Counter rejections;
+    public MongoConcurrencyLimiter(MeterRegistry meterRegistry,
+                                   @Value("${sustainability.mongo.concurrency.max-concurrent-operations:80}") int maxConcurrentOperations,
+                                   @Value("${sustainability.mongo.concurrency.acquire-timeout:PT2S}") Duration acquireTimeout) {
+        if (maxConcurrentOperations <= 0) {
+            throw new IllegalArgumentException("sustainability.mongo.concurrency.max-concurrent-operations must be positive");
+        }
+        this.permits = new Semaphore(maxConcurrentOperations, true);
+        this.maxConcurrentOperations = maxConcurrentOperations;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+
+        this.waits = Timer.builder("sustainability.mongo.limiter.wait").register(meterRegistry);
+        this.rejections = Counter.builder("sustainability.mongo.limiter.rejections").register(meterRegistry);
+        Gauge.builder("sustainability.mongo.limiter.active", this, l -> l.maxConcurrentOperations - l.permits.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("sustainability.mongo.limiter.queued", permits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+    }
+
+
+    @Around("execution(public * *(..))"
+            + " && (target(org.springframework.data.repository.Repository) || @within(org.springframework.stereotype.Repository))")
+    public Object limit(ProceedingJoinPoint call) throws Throwable {
+        if (call.getTarget() instanceof ReactiveCrudRepository<?, ?>) {
+            return call.proceed();
+        }
+        int[] depth = DEPTH.get();
+        if (depth[0] > 0) {
+            return proceedNested(call, depth);
+        }
+        long start = System.nanoTime();
+        boolean acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejections.increment();
+            throw new TransientDataAccessResourceException("No MongoDB operation slot free within "
+                    + Duration.ofNanos(acquireTimeoutNanos) + " (" + maxConcurrentOperations + " in use)");
+        }
+        try {
+            return proceedNested(call, depth);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static Object proceedNested(ProceedingJoinPoint call, int[] depth) throws Throwable {
+        depth[0]++;
+        try {
+            return call.proceed();
+        } finally {
+            depth[0]--;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.paklog.sustainability.infrastructure.persistence;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+import com.paklog.sustainability.domain.repository.ReportAggregationRepository;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.MetricCategory;
+import com.paklog.sustainability.domain.valueobject.ReportTotals;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * {@code $match} on warehouse and date range followed by a {@code $group} on the grouping key;
+ * the result is one small document per emission type or metric category.
+ */
+@Repository
+public class MongoReportAggregationRepository implements ReportAggregationRepository {
+
+    private final MongoTemplate mongoTemplate;
+    public MongoReportAggregationRepository(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+
+    @Override
+    public ReportTotals aggregateEmissions(String warehouseId, LocalDate startDate, LocalDate endDate) {
+        ReportTotals totals = new ReportTotals();
+        for (Document group : sumBy(CarbonFootprint.class, "emissionType", "totalCO2eKg", warehouseId, startDate, endDate)) {
+            String type = group.getString("_id");
+            if (type != null) {
+                totals.addEmissions(EmissionType.valueOf(type), total(group));
+            }
+        }
+        return totals;
+    }
+
+    @Override
+    public ReportTotals aggregateMetrics(String warehouseId, LocalDate startDate, LocalDate endDate) {
+        ReportTotals totals = new ReportTotals();
+        for (Document group : sumBy(SustainabilityMetric.class, "category", "value", warehouseId, startDate, endDate)) {
+            totals.addMetric(MetricCategory.resolve(group.getString("_id")), total(group));
+        }
+        return totals;
+    }
+
+    private Iterable<Document> sumBy(Class<?> entity, String groupField, String valueField,
+                                     String warehouseId, LocalDate startDate, LocalDate endDate) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("warehouseId").is(warehouseId)
+                        .and("recordDate").gte(startDate).lte(endDate)),
+                Aggregation.group(groupField).sum(valueField).as("total"));
+        return mongoTemplate.aggregate(aggregation, entity, Document.class);
+    }
+
+    private static double total(Document group) {
+        Number total = group.get("total", Number.class);
+        return total != null ? total.doubleValue() : 0.0;
+    }
+}
@@ -0,0 +1,14 @@
+package com.paklog.sustainability.infrastructure.persistence;
+
+/**
+ * How {@code carbon_footprints} and {@code sustainability_metrics} are stored.
+ */
+public enum StorageLayout {
+    /** Regular collections. */
+    STANDARD,
+    /**
+     * Time-series collections with {@code recordDate} as time field and {@code warehouseId} as meta field.
+     * Documents are never updated in place; event-derived increments are inserted as separate footprints.
+     */
+    TIME_SERIES
+}
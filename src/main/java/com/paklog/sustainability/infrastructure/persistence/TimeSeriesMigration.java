@@ -0,0 +1,150 @@
+package com.paklog.sustainability.infrastructure.persistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.CollectionOptions.TimeSeriesOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static com.mongodb.client.model.Filters.eq;
+
+/**
+ * Moves {@code carbon_footprints} and {@code sustainability_metrics} to time-series collections when
+ * {@code sustainability.storage.layout=TIME_SERIES}. Runs once all beans exist but before the web server
+ * and Kafka listeners start, so nothing writes to a collection while it is being migrated.
+ * <p>
+ * Time-series collections cannot be renamed, so the existing collection is renamed to
+ * {@code <name>_legacy} and a time-series collection is created under the original name and filled from
+ * it. An empty existing collection, such as one created by index creation on a fresh deployment, is
+ * dropped instead so no empty legacy collection is left behind. Progress is recorded in {@code storage_migrations}; a copy interrupted by a restart is discarded and
+ * redone. The legacy collection is kept for rollback and can be dropped once the migration is verified.
+ */
+@Component
+@ConditionalOnProperty(name = "sustainability.storage.layout", havingValue = "TIME_SERIES")
+public class TimeSeriesMigration implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(TimeSeriesMigration.class);
+
+    static final String TIME_FIELD = "recordDate";
+    // A single meta field: emissionType varies within a warehouse's series and stays a measurement field
+    static final String META_FIELD = "warehouseId";
+    private static final String MIGRATIONS = "storage_migrations";
+    private static final int COPY_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    public TimeSeriesMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrate(CarbonFootprint.class);
+        migrate(SustainabilityMetric.class);
+    }
+
+    private void migrate(Class<?> entityType) {
+        String name = mongoTemplate.getCollectionName(entityType);
+        String legacy = name + "_legacy";
+        Document info = collectionInfo(name);
+        boolean timeSeries = info != null && "timeseries".equals(info.getString("type"));
+        Document marker = mongoTemplate.getCollection(MIGRATIONS).find(eq("_id", name)).first();
+
+        if (timeSeries && (marker == null || "DONE".equals(marker.getString("status")))) {
+            return;
+        }
+        if (timeSeries) {
+            log.warn("Previous migration of {} to a time-series collection was interrupted, copying again", name);
+            mongoTemplate.getCollection(name).deleteMany(new Document());
+        } else {
+            if (info != null) {
+                MongoCollection<Document> existing = mongoTemplate.getCollection(name);
+                if (existing.find().first() == null) {
+                    // Nothing to keep: index creation at startup or a fresh deployment made it empty
+                    existing.drop();
+                } else {
+                    if (collectionInfo(legacy) != null) {
+                        throw new IllegalStateException("Cannot migrate " + name + " to time series: " + legacy + " already exists");
+                    }
+                    existing.renameCollection(new MongoNamespace(mongoTemplate.getDb().getName(), legacy));
+                }
+            }
+            mongoTemplate.createCollection(name, CollectionOptions.empty().timeSeries(
+                    TimeSeriesOptions.timeSeries(TIME_FIELD).metaField(META_FIELD).granularity(Granularity.HOURS)));
+            ensureIndexes(entityType);
+        }
+
+        if (collectionInfo(legacy) == null) {
+            markStatus(name, "DONE");
+            log.info("Created time-series collection {}", name);
+            return;
+        }
+        markStatus(name, "COPYING");
+        copy(legacy, name);
+        markStatus(name, "DONE");
+    }
+
+    private void copy(String from, String to) {
+        MongoCollection<Document> source = mongoTemplate.getCollection(from);
+        MongoCollection<Document> target = mongoTemplate.getCollection(to);
+        List<Document> batch = new ArrayList<>(COPY_BATCH_SIZE);
+        long copied = 0;
+        long skipped = 0;
+        try (MongoCursor<Document> cursor = source.find().batchSize(COPY_BATCH_SIZE).iterator()) {
+            while (cursor.hasNext()) {
+                Document document = cursor.next();
+                // Time-series documents need a date in the time field
+                if (!(document.get(TIME_FIELD) instanceof Date)) {
+                    skipped++;
+                    continue;
+                }
+                batch.add(document);
+                if (batch.size() == COPY_BATCH_SIZE) {
+                    target.insertMany(batch, new InsertManyOptions().ordered(false));
+                    copied += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            target.insertMany(batch, new InsertManyOptions().ordered(false));
+            copied += batch.size();
+        }
+        log.info("Migrated {} documents from {} to time-series collection {}; {} without {} skipped. Drop {} once verified.",
+                copied, from, to, skipped, TIME_FIELD, from);
+    }
+
+    private void ensureIndexes(Class<?> entityType) {
+        IndexOperations indexOps = mongoTemplate.indexOps(entityType);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(entityType)
+                .forEach(indexOps::ensureIndex);
+    }
+
+    private Document collectionInfo(String name) {
+        return mongoTemplate.getDb().listCollections().filter(eq("name", name)).first();
+    }
+
+    private void markStatus(String collection, String status) {
+        mongoTemplate.getCollection(MIGRATIONS).updateOne(eq("_id", collection), Updates.set("status", status),
+                new UpdateOptions().upsert(true));
+    }
+}
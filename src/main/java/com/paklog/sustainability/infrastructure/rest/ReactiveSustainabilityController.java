@@ -0,0 +1,370 @@
+package com.paklog.sustainability.infrastructure.rest;
+
+import com.paklog.sustainability.application.command.CompleteInitiativeCommand;
+import com.paklog.sustainability.application.command.CreateGreenInitiativeCommand;
+import com.paklog.sustainability.application.command.GenerateFleetReportsCommand;
+import com.paklog.sustainability.application.command.RebuildRollupsCommand;
+import com.paklog.sustainability.application.command.RecalculateFootprintsCommand;
+import com.paklog.sustainability.application.command.RecordEmissionCommand;
+import com.paklog.sustainability.application.command.RecordMetricCommand;
+import com.paklog.sustainability.application.command.RecordMetricsCommand;
+import com.paklog.sustainability.application.service.BulkIngestionResult;
+import com.paklog.sustainability.application.service.EmissionIngestionService;
+import com.paklog.sustainability.application.service.EmissionRollupService;
+import com.paklog.sustainability.application.service.EmissionTelemetry;
+import com.paklog.sustainability.application.service.EmissionTelemetryUpdate;
+import com.paklog.sustainability.application.service.FleetLeaderboardService;
+import com.paklog.sustainability.application.service.FleetRanking;
+import com.paklog.sustainability.application.service.FleetRankingMetric;
+import com.paklog.sustainability.application.service.FleetReportJobService;
+import com.paklog.sustainability.application.service.FleetReportRun;
+import com.paklog.sustainability.application.service.FootprintPage;
+import com.paklog.sustainability.application.service.FootprintRecalculationRun;
+import com.paklog.sustainability.application.service.FootprintRecalculationService;
+import com.paklog.sustainability.application.service.MetricBatchAcceptance;
+import com.paklog.sustainability.application.service.MetricWriteBehindBuffer;
+import com.paklog.sustainability.application.service.ReactiveSustainabilityService;
+import com.paklog.sustainability.application.service.SustainabilityApplicationService;
+import com.paklog.sustainability.application.service.WarehouseLanes;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.aggregate.GreenInitiative;
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepositoryCustom.RebuildResult;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.paklog.sustainability.application.service.ReactiveSustainabilityService.blocking;
+
+/**
+ * WebFlux handlers for the routes of {@link SustainabilityController}, active with the {@code reactive}
+ * profile. Collection reads are returned as {@link Flux} and written to the client as MongoDB produces
+ * them, with demand propagated back to the cursor.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/sustainability")
+@Tag(name = "Sustainability Management", description = "ESG and carbon footprint tracking APIs")
+public class ReactiveSustainabilityController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int PIPE_BUFFER_BYTES = 64 * 1024;
+    // Body buffers queued ahead of the blocking pipe writer
+    private static final int BODY_PREFETCH = 4;
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final String METRIC_RETRY_AFTER_SECONDS = "1";
+    private static final String LANE_RETRY_AFTER_SECONDS = "1";
+
+    private final ReactiveSustainabilityService reactiveService;
+    private final SustainabilityApplicationService applicationService;
+    private final EmissionIngestionService ingestionService;
+    private final EmissionRollupService rollupService;
+    private final FleetReportJobService fleetReportJobService;
+    private final FleetLeaderboardService leaderboardService;
+    private final FootprintRecalculationService recalculationService;
+    private final MetricWriteBehindBuffer metricBuffer;
+    private final WarehouseLanes warehouseLanes;
+    private final EmissionTelemetry telemetry;
+    public ReactiveSustainabilityController(ReactiveSustainabilityService reactiveService, SustainabilityApplicationService applicationService,
+                                            EmissionIngestionService ingestionService, EmissionRollupService rollupService,
+                                            FleetReportJobService fleetReportJobService, FootprintRecalculationService recalculationService,
+                                            MetricWriteBehindBuffer metricBuffer, WarehouseLanes warehouseLanes, EmissionTelemetry telemetry, FleetLeaderboardService leaderboardService) {
+        this.reactiveService = reactiveService;
+        this.applicationService = applicationService;
+        this.ingestionService = ingestionService;
+        this.rollupService = rollupService;
+        this.fleetReportJobService = fleetReportJobService;
+        this.leaderboardService = leaderboardService;
+        this.recalculationService = recalculationService;
+        this.metricBuffer = metricBuffer;
+        this.warehouseLanes = warehouseLanes;
+        this.telemetry = telemetry;
+    }
+
+
+    @PostMapping("/emissions")
+    @Operation(summary = "Record carbon emissions")
+    public Mono<ResponseEntity<CarbonFootprint>> recordEmission(
+            @Valid @RequestBody RecordEmissionCommand command,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        // Single-record writes of one warehouse run one at a time on its lane; queueing may wait for room, so not on an event loop
+        return Mono.defer(() -> Mono.fromFuture(warehouseLanes.submit(command.warehouseId(), () -> record(command, idempotencyKey))))
+                .subscribeOn(Schedulers.boundedElastic())
+                // Encode the response off the lane thread, it has the next write to run
+                .publishOn(Schedulers.parallel())
+                .onErrorResume(RejectedExecutionException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, LANE_RETRY_AFTER_SECONDS).build()));
+    }
+
+    private ResponseEntity<CarbonFootprint> record(RecordEmissionCommand command, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            CarbonFootprint footprint = applicationService.recordEmission(command);
+            return ResponseEntity.status(HttpStatus.CREATED).body(footprint);
+        }
+        return applicationService.recordEmission(command, idempotencyKey)
+                .map(recorded -> ResponseEntity.status(recorded.replayed() ? HttpStatus.OK : HttpStatus.CREATED)
+                        .body(recorded.footprint()))
+                // The first request with this key is still in flight
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    /**
+     * The upload is piped into the blocking NDJSON reader, so at most the pipe buffer and one chunk of
+     * footprints are held in memory; the request body is only read as fast as chunks are written. Body
+     * buffers are handed to a bounded elastic thread before they are written, since a write into a full
+     * pipe blocks and must not stall the Netty event loop that delivered them.
+     */
+    @PostMapping(value = "/emissions:bulk", consumes = NDJSON)
+    @Operation(summary = "Bulk record carbon emissions from NDJSON")
+    public Mono<ResponseEntity<BulkIngestionResult>> recordEmissionsBulk(@RequestBody Flux<DataBuffer> body) {
+        return Mono.defer(() -> {
+            PipedOutputStream sink = new PipedOutputStream();
+            PipedInputStream source;
+            try {
+                source = new PipedInputStream(sink, PIPE_BUFFER_BYTES);
+            } catch (IOException e) {
+                return Mono.error(new UncheckedIOException(e));
+            }
+            Flux<DataBuffer> offloaded = body.publishOn(Schedulers.boundedElastic(), BODY_PREFETCH)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+            DataBufferUtils.write(offloaded, sink)
+                    .doFinally(signal -> closeQuietly(sink))
+                    .subscribe(DataBufferUtils.releaseConsumer(), error -> closeQuietly(sink));
+            return blocking(() -> {
+                try (PipedInputStream in = source) {
+                    return ResponseEntity.ok(ingestionService.ingestNdjson(in));
+                }
+            });
+        });
+    }
+
+    @GetMapping("/emissions")
+    @Operation(summary = "Get emissions for date range")
+    public Flux<CarbonFootprint> getEmissions(
+            @RequestParam String warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return reactiveService.getFootprints(warehouseId, startDate, endDate);
+    }
+
+    @GetMapping(value = "/emissions:stream", produces = NDJSON)
+    @Operation(summary = "Stream emissions for date range as NDJSON")
+    public Flux<CarbonFootprint> streamEmissions(
+            @RequestParam String warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return reactiveService.getFootprints(warehouseId, startDate, endDate);
+    }
+
+    @GetMapping(value = "/emissions:live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream live emission totals for the last hour and day as server-sent events")
+    public Flux<ServerSentEvent<EmissionTelemetryUpdate>> streamLiveEmissions(@RequestParam String warehouseId) {
+        return telemetry.stream(warehouseId)
+                .map(update -> ServerSentEvent.builder(update)
+                        .event(update.kind().name().toLowerCase(Locale.ROOT))
+                        .build());
+    }
+
+    @GetMapping("/emissions/page")
+    @Operation(summary = "Get one page of emissions for date range")
+    public Mono<ResponseEntity<FootprintPage>> getEmissionsPage(
+            @RequestParam String warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return reactiveService.getFootprintPage(warehouseId, startDate, endDate, cursor, limit)
+                .map(ResponseEntity::ok)
+                .onErrorReturn(IllegalArgumentException.class, ResponseEntity.badRequest().build());
+    }
+
+    @PostMapping("/initiatives")
+    @Operation(summary = "Create green initiative")
+    public Mono<ResponseEntity<GreenInitiative>> createInitiative(@RequestBody CreateGreenInitiativeCommand command) {
+        return reactiveService.createInitiative(command)
+                .map(initiative -> ResponseEntity.status(HttpStatus.CREATED).body(initiative));
+    }
+
+    @PostMapping("/initiatives/{initiativeId}/complete")
+    @Operation(summary = "Complete green initiative")
+    public Mono<ResponseEntity<GreenInitiative>> completeInitiative(@PathVariable String initiativeId,
+                                                                    @Valid @RequestBody CompleteInitiativeCommand command) {
+        return blocking(() -> applicationService.completeInitiative(initiativeId, command)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build()))
+                .onErrorReturn(IllegalStateException.class, ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @GetMapping("/initiatives/active")
+    @Operation(summary = "Get active initiatives")
+    public Flux<GreenInitiative> getActiveInitiatives() {
+        return reactiveService.getActiveInitiatives();
+    }
+
+    @GetMapping("/reports")
+    @Operation(summary = "Get ESG report")
+    public Mono<ESGReport> getReport(
+            @RequestParam String warehouseId,
+            @RequestParam String yearMonth,
+            @RequestParam(defaultValue = "MONTHLY") ReportingPeriod period) {
+        YearMonth month = YearMonth.parse(yearMonth);
+        return reactiveService.getReport(warehouseId, month, period);
+    }
+
+    @PostMapping("/reports/generate")
+    @Operation(summary = "Generate ESG report")
+    public Mono<ResponseEntity<ESGReport>> generateReport(
+            @RequestParam String warehouseId,
+            @RequestParam String yearMonth,
+            @RequestParam(defaultValue = "MONTHLY") ReportingPeriod period) {
+        YearMonth month = YearMonth.parse(yearMonth);
+        return blocking(() -> applicationService.generateReport(warehouseId, month, period))
+                .map(report -> ResponseEntity.status(HttpStatus.CREATED).body(report));
+    }
+
+    @PostMapping("/reports/fleet-runs")
+    @Operation(summary = "Generate monthly ESG reports for all warehouses")
+    public ResponseEntity<FleetReportRun> startFleetReportRun(@Valid @RequestBody GenerateFleetReportsCommand command) {
+        // Only registers the run; the work happens on the job's own executor
+        FleetReportRun run = fleetReportJobService.start(command.reportMonth(), command.mode());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(run);
+    }
+
+    @GetMapping("/reports/fleet-runs")
+    @Operation(summary = "List recent fleet report runs")
+    public ResponseEntity<List<FleetReportRun>> getFleetReportRuns() {
+        return ResponseEntity.ok(fleetReportJobService.list());
+    }
+
+    @GetMapping("/reports/fleet-runs/{runId}")
+    @Operation(summary = "Get fleet report run progress")
+    public ResponseEntity<FleetReportRun> getFleetReportRun(@PathVariable String runId) {
+        return fleetReportJobService.find(runId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/reports/rankings")
+    @Operation(summary = "Rank warehouses of the fleet by emissions for a period")
+    public Mono<ResponseEntity<FleetRanking>> getFleetRanking(
+            @RequestParam String yearMonth,
+            @RequestParam(defaultValue = "MONTHLY") ReportingPeriod period,
+            @RequestParam(defaultValue = "TOTAL_CO2E") FleetRankingMetric metric,
+            @RequestParam(defaultValue = "TOP") FleetRanking.Order order,
+            @RequestParam(defaultValue = "10") int k) {
+        YearMonth month = YearMonth.parse(yearMonth);
+        // A snapshot that is not built yet is read from MongoDB
+        return blocking(() -> {
+            try {
+                return ResponseEntity.ok(leaderboardService.rank(month, period, metric, order, k));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().<FleetRanking>build();
+            }
+        });
+    }
+
+    @PostMapping("/emissions/recalculation-runs")
+    @Operation(summary = "Recalculate emissions with the emission factors now in force")
+    public ResponseEntity<FootprintRecalculationRun> startRecalculationRun(@Valid @RequestBody RecalculateFootprintsCommand command) {
+        // Only registers the run; the work happens on the service's own executor
+        try {
+            FootprintRecalculationRun run = recalculationService.start(command);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(run);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/emissions/recalculation-runs")
+    @Operation(summary = "List recent emission recalculation runs")
+    public ResponseEntity<List<FootprintRecalculationRun>> getRecalculationRuns() {
+        return ResponseEntity.ok(recalculationService.list());
+    }
+
+    @GetMapping("/emissions/recalculation-runs/{runId}")
+    @Operation(summary = "Get emission recalculation run progress and diff summary")
+    public ResponseEntity<FootprintRecalculationRun> getRecalculationRun(@PathVariable String runId) {
+        return recalculationService.find(runId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/rollups/rebuild")
+    @Operation(summary = "Rebuild emission rollups from raw footprints")
+    public Mono<ResponseEntity<RebuildResult>> rebuildRollups(@Valid @RequestBody RebuildRollupsCommand command) {
+        return blocking(() -> ResponseEntity.ok(rollupService.rebuild(command)));
+    }
+
+    /**
+     * Offers can wait for the buffer to make room, so they run on the bounded elastic scheduler.
+     */
+    @PostMapping("/metrics")
+    @Operation(summary = "Record a sustainability metric reading")
+    public Mono<ResponseEntity<Void>> recordMetric(@Valid @RequestBody RecordMetricCommand command) {
+        return blocking(() -> metricBuffer.offer(command)
+                ? ResponseEntity.status(HttpStatus.ACCEPTED).<Void>build()
+                : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, METRIC_RETRY_AFTER_SECONDS).<Void>build());
+    }
+
+    @PostMapping("/metrics:batch")
+    @Operation(summary = "Record a batch of sustainability metric readings")
+    public Mono<ResponseEntity<MetricBatchAcceptance>> recordMetrics(@Valid @RequestBody RecordMetricsCommand command) {
+        return blocking(() -> {
+            MetricBatchAcceptance acceptance = metricBuffer.offerAll(command.readings());
+            return acceptance.complete()
+                    ? ResponseEntity.status(HttpStatus.ACCEPTED).body(acceptance)
+                    : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, METRIC_RETRY_AFTER_SECONDS).body(acceptance);
+        });
+    }
+
+    @GetMapping("/metrics")
+    @Operation(summary = "Get daily sustainability metrics for date range")
+    public Mono<List<SustainabilityMetric>> getMetrics(
+            @RequestParam String warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String category) {
+        return blocking(() -> applicationService.getMetrics(warehouseId, startDate, endDate, category));
+    }
+
+    private static void closeQuietly(PipedOutputStream sink) {
+        try {
+            sink.close();
+        } catch (IOException ignored) {
+            // The reader has already gone away
+        }
+    }
+}
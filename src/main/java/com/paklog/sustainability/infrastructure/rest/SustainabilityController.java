@@ -1,38 +1,136 @@
 package com.paklog.sustainability.infrastructure.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.paklog.sustainability.application.command.CompleteInitiativeCommand;
 import com.paklog.sustainability.application.command.CreateGreenInitiativeCommand;
+import com.paklog.sustainability.application.command.GenerateFleetReportsCommand;
+import com.paklog.sustainability.application.command.RebuildRollupsCommand;
+import com.paklog.sustainability.application.command.RecalculateFootprintsCommand;
 import com.paklog.sustainability.application.command.RecordEmissionCommand;
+import com.paklog.sustainability.application.command.RecordMetricCommand;
+import com.paklog.sustainability.application.command.RecordMetricsCommand;
+import com.paklog.sustainability.application.service.BulkIngestionResult;
+import com.paklog.sustainability.application.service.EmissionIngestionService;
+import com.paklog.sustainability.application.service.EmissionRollupService;
+import com.paklog.sustainability.application.service.EmissionTelemetry;
+import com.paklog.sustainability.application.service.EmissionTelemetryUpdate;
+import com.paklog.sustainability.application.service.FleetLeaderboardService;
+import com.paklog.sustainability.application.service.FleetRanking;
+import com.paklog.sustainability.application.service.FleetRankingMetric;
+import com.paklog.sustainability.application.service.FleetReportJobService;
+import com.paklog.sustainability.application.service.FleetReportRun;
+import com.paklog.sustainability.application.service.FootprintPage;
+import com.paklog.sustainability.application.service.FootprintRecalculationRun;
+import com.paklog.sustainability.application.service.FootprintRecalculationService;
+import com.paklog.sustainability.application.service.MetricBatchAcceptance;
+import com.paklog.sustainability.application.service.MetricWriteBehindBuffer;
 import com.paklog.sustainability.application.service.SustainabilityApplicationService;
+import com.paklog.sustainability.application.service.WarehouseLanes;
 import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
 import com.paklog.sustainability.domain.aggregate.ESGReport;
 import com.paklog.sustainability.domain.aggregate.GreenInitiative;
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepositoryCustom.RebuildResult;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/sustainability")
 @Tag(name = "Sustainability Management", description = "ESG and carbon footprint tracking APIs")
 public class SustainabilityController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final String METRIC_RETRY_AFTER_SECONDS = "1";
+    private static final String LANE_RETRY_AFTER_SECONDS = "1";
+
     private final SustainabilityApplicationService applicationService;
-    public SustainabilityController(SustainabilityApplicationService applicationService) {
+    private final EmissionIngestionService ingestionService;
+    private final EmissionRollupService rollupService;
+    private final FleetReportJobService fleetReportJobService;
+    private final FleetLeaderboardService leaderboardService;
+    private final FootprintRecalculationService recalculationService;
+    private final MetricWriteBehindBuffer metricBuffer;
+    private final WarehouseLanes warehouseLanes;
+    private final EmissionTelemetry telemetry;
+    private final ObjectMapper objectMapper;
+    public SustainabilityController(SustainabilityApplicationService applicationService, EmissionIngestionService ingestionService, EmissionRollupService rollupService,
+                                    FleetReportJobService fleetReportJobService, FootprintRecalculationService recalculationService,
+                                    MetricWriteBehindBuffer metricBuffer, WarehouseLanes warehouseLanes, EmissionTelemetry telemetry, FleetLeaderboardService leaderboardService, ObjectMapper objectMapper) {
         this.applicationService = applicationService;
+        this.ingestionService = ingestionService;
+        this.rollupService = rollupService;
+        this.fleetReportJobService = fleetReportJobService;
+        this.leaderboardService = leaderboardService;
+        this.recalculationService = recalculationService;
+        this.metricBuffer = metricBuffer;
+        this.warehouseLanes = warehouseLanes;
+        this.telemetry = telemetry;
+        this.objectMapper = objectMapper;
     }
 
 
     @PostMapping("/emissions")
     @Operation(summary = "Record carbon emissions")
-    public ResponseEntity<CarbonFootprint> recordEmission(@RequestBody RecordEmissionCommand command) {
-        CarbonFootprint footprint = applicationService.recordEmission(command);
-        return ResponseEntity.status(HttpStatus.CREATED).body(footprint);
+    public ResponseEntity<CarbonFootprint> recordEmission(
+            @Valid @RequestBody RecordEmissionCommand command,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            // Single-record writes of one warehouse run one at a time on its lane
+            return warehouseLanes.call(command.warehouseId(), () -> record(command, idempotencyKey));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, LANE_RETRY_AFTER_SECONDS).build();
+        }
+    }
+
+    private ResponseEntity<CarbonFootprint> record(RecordEmissionCommand command, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            CarbonFootprint footprint = applicationService.recordEmission(command);
+            return ResponseEntity.status(HttpStatus.CREATED).body(footprint);
+        }
+        return applicationService.recordEmission(command, idempotencyKey)
+                .map(recorded -> ResponseEntity.status(recorded.replayed() ? HttpStatus.OK : HttpStatus.CREATED)
+                        .body(recorded.footprint()))
+                // The first request with this key is still in flight
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @PostMapping(value = "/emissions:bulk", consumes = NDJSON)
+    @Operation(summary = "Bulk record carbon emissions from NDJSON")
+    public ResponseEntity<BulkIngestionResult> recordEmissionsBulk(InputStream body) {
+        BulkIngestionResult result = ingestionService.ingestNdjson(body);
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping("/emissions")
@@ -45,6 +143,56 @@ public class SustainabilityController {
         return ResponseEntity.ok(footprints);
     }
 
+    @GetMapping(value = "/emissions:stream", produces = NDJSON)
+    @Operation(summary = "Stream emissions for date range as NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamEmissions(
+            @RequestParam String warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        ObjectWriter writer = objectMapper.writerFor(CarbonFootprint.class);
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out, STREAM_BUFFER_BYTES);
+            try (Stream<CarbonFootprint> footprints = applicationService.streamFootprints(warehouseId, startDate, endDate)) {
+                boolean first = true;
+                for (Iterator<CarbonFootprint> it = footprints.iterator(); it.hasNext(); ) {
+                    buffered.write(writer.writeValueAsBytes(it.next()));
+                    buffered.write('\n');
+                    if (first) {
+                        // Get the first line to the client without waiting for a full buffer
+                        buffered.flush();
+                        first = false;
+                    }
+                }
+            }
+            buffered.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @GetMapping(value = "/emissions:live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream live emission totals for the last hour and day as server-sent events")
+    public Flux<ServerSentEvent<EmissionTelemetryUpdate>> streamLiveEmissions(@RequestParam String warehouseId) {
+        return telemetry.stream(warehouseId)
+                .map(update -> ServerSentEvent.builder(update)
+                        .event(update.kind().name().toLowerCase(Locale.ROOT))
+                        .build());
+    }
+
+    @GetMapping("/emissions/page")
+    @Operation(summary = "Get one page of emissions for date range")
+    public ResponseEntity<FootprintPage> getEmissionsPage(
+            @RequestParam String warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(applicationService.getFootprintPage(warehouseId, startDate, endDate, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping("/initiatives")
     @Operation(summary = "Create green initiative")
     public ResponseEntity<GreenInitiative> createInitiative(@RequestBody CreateGreenInitiativeCommand command) {
@@ -52,6 +200,19 @@ public class SustainabilityController {
         return ResponseEntity.status(HttpStatus.CREATED).body(initiative);
     }
 
+    @PostMapping("/initiatives/{initiativeId}/complete")
+    @Operation(summary = "Complete green initiative")
+    public ResponseEntity<GreenInitiative> completeInitiative(@PathVariable String initiativeId,
+                                                              @Valid @RequestBody CompleteInitiativeCommand command) {
+        try {
+            return applicationService.completeInitiative(initiativeId, command)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
     @GetMapping("/initiatives/active")
     @Operation(summary = "Get active initiatives")
     public ResponseEntity<List<GreenInitiative>> getActiveInitiatives() {
@@ -59,13 +220,128 @@ public class SustainabilityController {
         return ResponseEntity.ok(initiatives);
     }
 
+    @GetMapping("/reports")
+    @Operation(summary = "Get ESG report")
+    public ResponseEntity<ESGReport> getReport(
+            @RequestParam String warehouseId,
+            @RequestParam String yearMonth,
+            @RequestParam(defaultValue = "MONTHLY") ReportingPeriod period) {
+        YearMonth month = YearMonth.parse(yearMonth);
+        ESGReport report = applicationService.getReport(warehouseId, month, period);
+        return ResponseEntity.ok(report);
+    }
+
     @PostMapping("/reports/generate")
     @Operation(summary = "Generate ESG report")
     public ResponseEntity<ESGReport> generateReport(
             @RequestParam String warehouseId,
-            @RequestParam String yearMonth) {
+            @RequestParam String yearMonth,
+            @RequestParam(defaultValue = "MONTHLY") ReportingPeriod period) {
         YearMonth month = YearMonth.parse(yearMonth);
-        ESGReport report = applicationService.generateMonthlyReport(warehouseId, month);
+        ESGReport report = applicationService.generateReport(warehouseId, month, period);
         return ResponseEntity.status(HttpStatus.CREATED).body(report);
     }
+
+    @PostMapping("/reports/fleet-runs")
+    @Operation(summary = "Generate monthly ESG reports for all warehouses")
+    public ResponseEntity<FleetReportRun> startFleetReportRun(@Valid @RequestBody GenerateFleetReportsCommand command) {
+        FleetReportRun run = fleetReportJobService.start(command.reportMonth(), command.mode());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(run);
+    }
+
+    @GetMapping("/reports/fleet-runs")
+    @Operation(summary = "List recent fleet report runs")
+    public ResponseEntity<List<FleetReportRun>> getFleetReportRuns() {
+        return ResponseEntity.ok(fleetReportJobService.list());
+    }
+
+    @GetMapping("/reports/fleet-runs/{runId}")
+    @Operation(summary = "Get fleet report run progress")
+    public ResponseEntity<FleetReportRun> getFleetReportRun(@PathVariable String runId) {
+        return fleetReportJobService.find(runId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/reports/rankings")
+    @Operation(summary = "Rank warehouses of the fleet by emissions for a period")
+    public ResponseEntity<FleetRanking> getFleetRanking(
+            @RequestParam String yearMonth,
+            @RequestParam(defaultValue = "MONTHLY") ReportingPeriod period,
+            @RequestParam(defaultValue = "TOTAL_CO2E") FleetRankingMetric metric,
+            @RequestParam(defaultValue = "TOP") FleetRanking.Order order,
+            @RequestParam(defaultValue = "10") int k) {
+        YearMonth month = YearMonth.parse(yearMonth);
+        try {
+            return ResponseEntity.ok(leaderboardService.rank(month, period, metric, order, k));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/emissions/recalculation-runs")
+    @Operation(summary = "Recalculate emissions with the emission factors now in force")
+    public ResponseEntity<FootprintRecalculationRun> startRecalculationRun(@Valid @RequestBody RecalculateFootprintsCommand command) {
+        try {
+            FootprintRecalculationRun run = recalculationService.start(command);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(run);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/emissions/recalculation-runs")
+    @Operation(summary = "List recent emission recalculation runs")
+    public ResponseEntity<List<FootprintRecalculationRun>> getRecalculationRuns() {
+        return ResponseEntity.ok(recalculationService.list());
+    }
+
+    @GetMapping("/emissions/recalculation-runs/{runId}")
+    @Operation(summary = "Get emission recalculation run progress and diff summary")
+    public ResponseEntity<FootprintRecalculationRun> getRecalculationRun(@PathVariable String runId) {
+        return recalculationService.find(runId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/rollups/rebuild")
+    @Operation(summary = "Rebuild emission rollups from raw footprints")
+    public ResponseEntity<RebuildResult> rebuildRollups(@Valid @RequestBody RebuildRollupsCommand command) {
+        RebuildResult result = rollupService.rebuild(command);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/metrics")
+    @Operation(summary = "Record a sustainability metric reading")
+    public ResponseEntity<Void> recordMetric(@Valid @RequestBody RecordMetricCommand command) {
+        if (!metricBuffer.offer(command)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, METRIC_RETRY_AFTER_SECONDS).build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+
+    @PostMapping("/metrics:batch")
+    @Operation(summary = "Record a batch of sustainability metric readings")
+    public ResponseEntity<MetricBatchAcceptance> recordMetrics(@Valid @RequestBody RecordMetricsCommand command) {
+        MetricBatchAcceptance acceptance = metricBuffer.offerAll(command.readings());
+        if (!acceptance.complete()) {
+            // Readings before the first refused one are buffered; the client resends from there
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, METRIC_RETRY_AFTER_SECONDS).body(acceptance);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(acceptance);
+    }
+
+    @GetMapping("/metrics")
+    @Operation(summary = "Get daily sustainability metrics for date range")
+    public ResponseEntity<List<SustainabilityMetric>> getMetrics(
+            @RequestParam String warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String category) {
+        return ResponseEntity.ok(applicationService.getMetrics(warehouseId, startDate, endDate, category));
+    }
 }
@@ -0,0 +1,159 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepository;
+import com.paklog.sustainability.domain.repository.OrderVolumeRepository;
+import com.paklog.sustainability.domain.valueobject.DailyEmissionIncrement;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ESGReportCacheTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2025, 3);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ESGReportCache cache = new ESGReportCache(meterRegistry, 100, Duration.ofMinutes(15));
+    // Delivers events the way the after-commit listener does once the writing transaction committed
+    private final ApplicationEventPublisher eventPublisher = event -> cache.onFootprintsChanged((FootprintsChangedEvent) event);
+
+    @Test
+    void footprintWriteEvictsTheMonthQuarterAndYearItFallsIn() {
+        EmissionRollupService rollups = new EmissionRollupService(mock(EmissionRollupRepository.class), eventPublisher,
+                new WarehouseTagPolicy(meterRegistry, Set.of(), 10), mock(EmissionTelemetry.class), meterRegistry);
+        cacheReports();
+
+        rollups.recordDailyIncrements(List.of(new DailyEmissionIncrement("WH-1", LocalDate.of(2025, 3, 10),
+                EmissionType.SCOPE2_ENERGY, Map.of("grid", 40.0), Map.of())), Set.of(0));
+
+        assertEvictedForMarchOfWarehouseOne();
+    }
+
+    @Test
+    void orderVolumeFlushEvictsTheMonthQuarterAndYearItFallsIn() {
+        OrderVolumeRepository volumeRepository = mock(OrderVolumeRepository.class);
+        when(volumeRepository.upsertDailyIncrements(anyList())).thenReturn(Set.of());
+        OrderVolumeCounter counter = new OrderVolumeCounter(volumeRepository, eventPublisher, meterRegistry,
+                Duration.ofSeconds(10), Duration.ofSeconds(1));
+        cacheReports();
+
+        counter.count("WH-1", LocalDate.of(2025, 3, 31), 12);
+        counter.flush();
+
+        assertEvictedForMarchOfWarehouseOne();
+    }
+
+    @Test
+    void changeAcrossAllWarehousesEvictsEveryOverlappingPeriod() {
+        cacheReports();
+
+        cache.onFootprintsChanged(new FootprintsChangedEvent(null, YearMonth.of(2025, 2), MARCH));
+
+        assertThat(cached("WH-1", MARCH, ReportingPeriod.MONTHLY)).isNull();
+        assertThat(cached("WH-1", MARCH, ReportingPeriod.QUARTERLY)).isNull();
+        assertThat(cached("WH-1", MARCH, ReportingPeriod.ANNUAL)).isNull();
+        assertThat(cached("WH-2", MARCH, ReportingPeriod.MONTHLY)).isNull();
+        assertThat(cached("WH-1", MARCH.plusMonths(1), ReportingPeriod.MONTHLY)).isNotNull();
+        assertThat(cached("WH-1", MARCH.plusMonths(1), ReportingPeriod.QUARTERLY)).isNotNull();
+    }
+
+    @Test
+    void reportLoadedBeforeAnInvalidationIsNotCached() {
+        ESGReportCache.Key key = ESGReportCache.Key.of("WH-1", MARCH, ReportingPeriod.QUARTERLY);
+        long loadedAt = cache.version();
+
+        cache.onFootprintsChanged(FootprintsChangedEvent.of("WH-1", MARCH));
+        cache.putIfCurrent(key, mock(ESGReport.class), loadedAt);
+
+        assertThat(cache.getIfPresent(key)).isNull();
+    }
+
+    @Test
+    void reportLoadedWithoutAnInvalidationIsCached() {
+        ESGReportCache.Key key = ESGReportCache.Key.of("WH-1", MARCH, ReportingPeriod.QUARTERLY);
+        long loadedAt = cache.version();
+        ESGReport report = mock(ESGReport.class);
+
+        cache.putIfCurrent(key, report, loadedAt);
+
+        assertThat(cache.getIfPresent(key)).isSameAs(report);
+    }
+
+    @Test
+    void loadRunningDuringAMonthInvalidationIsNotCached() throws Exception {
+        assertLoadRunningDuringInvalidationIsNotCached(FootprintsChangedEvent.of("WH-1", MARCH));
+    }
+
+    @Test
+    void loadRunningDuringARangeInvalidationIsNotCached() throws Exception {
+        assertLoadRunningDuringInvalidationIsNotCached(new FootprintsChangedEvent(null, YearMonth.of(2025, 1), MARCH));
+    }
+
+    private void assertLoadRunningDuringInvalidationIsNotCached(FootprintsChangedEvent event) throws Exception {
+        ESGReportCache.Key key = ESGReportCache.Key.of("WH-1", MARCH, ReportingPeriod.QUARTERLY);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<ESGReport> load = CompletableFuture.supplyAsync(() -> cache.get(key, k -> {
+            loading.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return mock(ESGReport.class);
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The invalidation may wait for the load to finish; release the load once it has started
+        CompletableFuture<Void> invalidation = CompletableFuture.runAsync(() -> cache.onFootprintsChanged(event));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.version() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        finish.countDown();
+        invalidation.get(5, TimeUnit.SECONDS);
+
+        assertThat(load.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(cache.getIfPresent(key)).isNull();
+    }
+
+    private void cacheReports() {
+        for (ReportingPeriod period : ReportingPeriod.values()) {
+            cache.put(ESGReportCache.Key.of("WH-1", MARCH, period), mock(ESGReport.class));
+            cache.put(ESGReportCache.Key.of("WH-2", MARCH, period), mock(ESGReport.class));
+        }
+        cache.put(ESGReportCache.Key.of("WH-1", MARCH.plusMonths(1), ReportingPeriod.MONTHLY), mock(ESGReport.class));
+        cache.put(ESGReportCache.Key.of("WH-1", MARCH.plusMonths(1), ReportingPeriod.QUARTERLY), mock(ESGReport.class));
+    }
+
+    private void assertEvictedForMarchOfWarehouseOne() {
+        assertThat(cached("WH-1", MARCH, ReportingPeriod.MONTHLY)).isNull();
+        assertThat(cached("WH-1", MARCH, ReportingPeriod.QUARTERLY)).isNull();
+        assertThat(cached("WH-1", MARCH, ReportingPeriod.ANNUAL)).isNull();
+        assertThat(cached("WH-1", MARCH.plusMonths(1), ReportingPeriod.MONTHLY)).isNotNull();
+        assertThat(cached("WH-1", MARCH.plusMonths(1), ReportingPeriod.QUARTERLY)).isNotNull();
+        assertThat(cached("WH-2", MARCH, ReportingPeriod.MONTHLY)).isNotNull();
+        assertThat(cached("WH-2", MARCH, ReportingPeriod.QUARTERLY)).isNotNull();
+    }
+
+    private ESGReport cached(String warehouseId, YearMonth month, ReportingPeriod period) {
+        return cache.getIfPresent(ESGReportCache.Key.of(warehouseId, month, period));
+    }
+}
@@ -0,0 +1,92 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.repository.EmissionRollupRepository;
+import com.paklog.sustainability.domain.valueobject.DailyEmissionIncrement;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class EmissionRollupServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EmissionRollupRepository rollupRepository = mock(EmissionRollupRepository.class);
+    private final EmissionTelemetry telemetry = mock(EmissionTelemetry.class);
+    private final EmissionRollupService service = new EmissionRollupService(rollupRepository,
+            mock(ApplicationEventPublisher.class), new WarehouseTagPolicy(meterRegistry, Set.of(), 10), telemetry, meterRegistry);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void emissionsOutsideATransactionAreCountedRightAway() {
+        service.recordDailyIncrements(List.of(increment(12.5)), Set.of(0));
+
+        assertThat(recorded()).isEqualTo(1);
+        assertThat(recordedCO2eKg()).isEqualTo(12.5);
+        verify(telemetry).record(anyList());
+    }
+
+    @Test
+    void emissionsInsideATransactionAreCountedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.recordDailyIncrements(List.of(increment(12.5)), Set.of(0));
+
+        verify(rollupRepository).applyIncrements(anyList());
+        assertThat(recorded()).isZero();
+        verify(telemetry, never()).record(anyList());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(recorded()).isEqualTo(1);
+        assertThat(recordedCO2eKg()).isEqualTo(12.5);
+        verify(telemetry).record(anyList());
+    }
+
+    @Test
+    void emissionsOfARolledBackTransactionAreNotCounted() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.recordDailyIncrements(List.of(increment(12.5)), Set.of(0));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(recorded()).isZero();
+        verify(telemetry, never()).record(anyList());
+    }
+
+    private static DailyEmissionIncrement increment(double co2eKg) {
+        return new DailyEmissionIncrement("WH-1", LocalDate.of(2024, 3, 5), EmissionType.SCOPE1_DIRECT,
+                Map.of("forklift", co2eKg), Map.of());
+    }
+
+    private double recorded() {
+        return meterRegistry.find("sustainability.emissions.recorded").counters().stream()
+                .mapToDouble(Counter::count).sum();
+    }
+
+    private double recordedCO2eKg() {
+        return meterRegistry.find("sustainability.emissions.co2e").counters().stream()
+                .mapToDouble(Counter::count).sum();
+    }
+}
@@ -0,0 +1,115 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.RollupIncrement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmissionTelemetryTest {
+
+    private static final Instant START = Instant.parse("2025-03-31T10:00:00Z");
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 31);
+
+    private final MutableClock clock = new MutableClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EmissionTelemetry telemetry = new EmissionTelemetry(meterRegistry, 1, Duration.ofSeconds(1), clock);
+
+    @Test
+    void windowsCountOnlyTheMinutesTheyCover() {
+        record("WH-1", EmissionType.SCOPE1_DIRECT, 1.0);
+        clock.advance(Duration.ofMinutes(30));
+        record("WH-1", EmissionType.SCOPE2_ENERGY, 2.0);
+        clock.advance(Duration.ofMinutes(60));
+        record("WH-1", EmissionType.SCOPE1_DIRECT, 4.0);
+
+        EmissionTelemetryUpdate update = snapshot("WH-1");
+
+        assertThat(update.kind()).isEqualTo(EmissionTelemetryUpdate.Kind.SNAPSHOT);
+        assertThat(update.lastHour().totalCO2eKg()).isEqualTo(4.0);
+        assertThat(update.lastDay().totalCO2eKg()).isEqualTo(7.0);
+        assertThat(update.lastDay().co2eKgByType()).containsEntry(EmissionType.SCOPE1_DIRECT, 5.0)
+                .containsEntry(EmissionType.SCOPE2_ENERGY, 2.0);
+        assertThat(update.lastDay().coveredMinutes()).isEqualTo(91);
+        assertThat(update.minutes()).hasSize(EmissionTelemetry.HOUR_MINUTES);
+        assertThat(update.minutes().get(EmissionTelemetry.HOUR_MINUTES - 1).totalCO2eKg()).isEqualTo(4.0);
+    }
+
+    @Test
+    void aSlotReusedADayLaterDropsTheOldMinute() {
+        record("WH-1", EmissionType.SCOPE1_DIRECT, 5.0);
+        clock.advance(Duration.ofMinutes(30));
+        record("WH-1", EmissionType.SCOPE1_DIRECT, 1.0);
+
+        // The same slot as the first minute, which is no longer in the day
+        clock.advance(Duration.ofMinutes(EmissionTelemetry.DAY_MINUTES - 30));
+        assertThat(snapshot("WH-1").lastDay().totalCO2eKg()).isEqualTo(1.0);
+        record("WH-1", EmissionType.SCOPE2_ENERGY, 2.0);
+
+        EmissionTelemetryUpdate update = snapshot("WH-1");
+        assertThat(update.lastDay().totalCO2eKg()).isEqualTo(3.0);
+        assertThat(update.lastDay().co2eKgByType()).containsEntry(EmissionType.SCOPE1_DIRECT, 1.0)
+                .containsEntry(EmissionType.SCOPE2_ENERGY, 2.0);
+        assertThat(update.lastHour().totalCO2eKg()).isEqualTo(2.0);
+
+        // The whole ring has turned over once more
+        clock.advance(Duration.ofMinutes(EmissionTelemetry.DAY_MINUTES));
+        assertThat(snapshot("WH-1").lastDay().totalCO2eKg()).isZero();
+    }
+
+    @Test
+    void idleRingsAreEvictedToMakeRoomForOtherWarehouses() {
+        record("WH-1", EmissionType.SCOPE1_DIRECT, 1.0);
+        record("WH-2", EmissionType.SCOPE1_DIRECT, 1.0);
+
+        assertThat(meterRegistry.get("sustainability.telemetry.untracked").counter().count()).isEqualTo(1);
+        assertThat(snapshot("WH-2").lastDay().totalCO2eKg()).isZero();
+
+        clock.advance(Duration.ofMinutes(EmissionTelemetry.DAY_MINUTES + 1));
+        telemetry.evictIdle();
+        record("WH-2", EmissionType.SCOPE1_DIRECT, 3.0);
+
+        assertThat(snapshot("WH-2").lastDay().totalCO2eKg()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("sustainability.telemetry.warehouses").gauge().value()).isEqualTo(1);
+    }
+
+    private void record(String warehouseId, EmissionType type, double co2eKg) {
+        telemetry.record(List.of(new RollupIncrement(warehouseId, DAY, type, co2eKg, 1)));
+    }
+
+    private EmissionTelemetryUpdate snapshot(String warehouseId) {
+        return telemetry.stream(warehouseId).blockFirst(Duration.ofSeconds(5));
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = START;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
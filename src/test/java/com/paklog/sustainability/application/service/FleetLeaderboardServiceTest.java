@@ -0,0 +1,108 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.application.service.FleetRanking.Entry;
+import com.paklog.sustainability.application.service.FleetRanking.Order;
+import com.paklog.sustainability.domain.aggregate.EmissionRollup;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepository;
+import com.paklog.sustainability.domain.repository.OrderVolumeRepository;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FleetLeaderboardServiceTest {
+
+    private static final int MAX_K = 5;
+    private static final YearMonth OLD_MONTH = YearMonth.now().minusYears(2);
+
+    private final EmissionRollupRepository rollupRepository = mock(EmissionRollupRepository.class);
+    private final OrderVolumeRepository orderVolumeRepository = mock(OrderVolumeRepository.class);
+    private final FleetLeaderboardService service = new FleetLeaderboardService(rollupRepository, orderVolumeRepository,
+            new SimpleMeterRegistry(), MAX_K, 256, Duration.ofHours(1));
+    private final List<EmissionRollup> rollups = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(rollupRepository.streamByGranularityAndPeriodStart(eq(RollupGranularity.MONTH), any()))
+                .thenAnswer(call -> rollups.stream());
+        when(orderVolumeRepository.sumOrdersByWarehouse(any(), any())).thenReturn(Map.of());
+    }
+
+    @Test
+    void topAndBottomKMatchAFullSort() {
+        Random random = new Random(3);
+        for (int i = 0; i < 40; i++) {
+            // Every fourth warehouse ties with the one before, to exercise the warehouse ID tie-break
+            double co2eKg = i % 4 == 3 ? rollups.get(rollups.size() - 1).getTotalCO2eKg() : random.nextInt(1000);
+            rollups.add(rollup(String.format("WH-%02d", i), co2eKg));
+        }
+        List<EmissionRollup> sorted = new ArrayList<>(rollups);
+        sorted.sort((a, b) -> a.getTotalCO2eKg() != b.getTotalCO2eKg()
+                ? Double.compare(b.getTotalCO2eKg(), a.getTotalCO2eKg())
+                : a.getWarehouseId().compareTo(b.getWarehouseId()));
+
+        FleetRanking top = service.rank(OLD_MONTH, ReportingPeriod.MONTHLY, FleetRankingMetric.TOTAL_CO2E, Order.TOP, MAX_K);
+        FleetRanking bottom = service.rank(OLD_MONTH, ReportingPeriod.MONTHLY, FleetRankingMetric.TOTAL_CO2E, Order.BOTTOM, 3);
+
+        assertThat(top.warehouses()).isEqualTo(40);
+        assertThat(top.entries()).extracting(Entry::warehouseId)
+                .containsExactlyElementsOf(sorted.subList(0, MAX_K).stream().map(EmissionRollup::getWarehouseId).toList());
+        assertThat(top.entries()).extracting(Entry::rank).containsExactly(1, 2, 3, 4, 5);
+        assertThat(bottom.entries()).extracting(Entry::warehouseId).containsExactly(
+                sorted.get(39).getWarehouseId(), sorted.get(38).getWarehouseId(), sorted.get(37).getWarehouseId());
+        assertThat(bottom.entries()).extracting(Entry::rank).containsExactly(40, 39, 38);
+    }
+
+    @Test
+    void kIsBoundedByMaxK() {
+        assertThatThrownBy(() -> service.rank(OLD_MONTH, ReportingPeriod.MONTHLY, FleetRankingMetric.TOTAL_CO2E, Order.TOP, MAX_K + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void refreshRebuildsOnlyCurrentPeriodsAndSnapshotsReadSinceTheirLastBuild() throws InterruptedException {
+        rollups.add(rollup("WH-01", 10));
+        service.rank(OLD_MONTH, ReportingPeriod.MONTHLY, FleetRankingMetric.TOTAL_CO2E, Order.TOP, 1);
+        clearInvocations(rollupRepository);
+
+        // Not read since it was built
+        service.refresh();
+        verify(rollupRepository, never()).streamByGranularityAndPeriodStart(RollupGranularity.MONTH, OLD_MONTH.atDay(1));
+        verify(rollupRepository, atLeastOnce()).streamByGranularityAndPeriodStart(RollupGranularity.MONTH, YearMonth.now().minusMonths(1).atDay(1));
+
+        Thread.sleep(5);
+        service.rank(OLD_MONTH, ReportingPeriod.MONTHLY, FleetRankingMetric.TOTAL_CO2E, Order.TOP, 1);
+        clearInvocations(rollupRepository);
+        service.refresh();
+        verify(rollupRepository).streamByGranularityAndPeriodStart(RollupGranularity.MONTH, OLD_MONTH.atDay(1));
+    }
+
+    private static EmissionRollup rollup(String warehouseId, double co2eKg) {
+        return EmissionRollup.builder()
+                .warehouseId(warehouseId)
+                .granularity(RollupGranularity.MONTH)
+                .emissionType(EmissionType.SCOPE2_ENERGY)
+                .totalCO2eKg(co2eKg)
+                .build();
+    }
+}
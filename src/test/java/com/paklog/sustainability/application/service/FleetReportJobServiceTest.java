@@ -0,0 +1,95 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.application.service.FleetReportRun.Status;
+import com.paklog.sustainability.domain.repository.ESGReportRepository;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepository;
+import com.paklog.sustainability.domain.repository.JobLeaseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FleetReportJobServiceTest {
+
+    private static final YearMonth PREVIOUS_MONTH = YearMonth.now().minusMonths(1);
+    private static final String LEASE = "fleet-report:" + PREVIOUS_MONTH;
+
+    private final SustainabilityApplicationService applicationService = mock(SustainabilityApplicationService.class);
+    private final EmissionRollupRepository rollupRepository = mock(EmissionRollupRepository.class);
+    private final JobLeaseRepository leaseRepository = mock(JobLeaseRepository.class);
+    private final FleetReportJobService service = new FleetReportJobService(applicationService,
+            mock(ESGReportRepository.class), rollupRepository, 4, leaseRepository, Duration.ofMinutes(10));
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void scheduledRunIsSkippedWhileAnotherInstanceHoldsTheLease() {
+        when(leaseRepository.tryAcquire(eq(LEASE), anyString(), any())).thenReturn(false);
+
+        service.generatePreviousMonth();
+
+        assertThat(service.list()).isEmpty();
+        verify(rollupRepository, never()).findWarehouseIds(any(), any());
+    }
+
+    @Test
+    void completedScheduledRunKeepsTheLease() throws InterruptedException {
+        when(leaseRepository.tryAcquire(eq(LEASE), anyString(), any())).thenReturn(true);
+        when(rollupRepository.findWarehouseIds(any(), any())).thenReturn(List.of("WH-1", "WH-2"));
+
+        service.generatePreviousMonth();
+
+        FleetReportRun run = awaitFinished();
+        assertThat(run.status()).isEqualTo(Status.COMPLETED);
+        assertThat(run.generated()).isEqualTo(2);
+        verify(leaseRepository, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void failedScheduledRunReleasesTheLease() throws InterruptedException {
+        when(leaseRepository.tryAcquire(eq(LEASE), anyString(), any())).thenReturn(true);
+        when(rollupRepository.findWarehouseIds(any(), any())).thenThrow(new IllegalStateException("down"));
+
+        service.generatePreviousMonth();
+
+        assertThat(awaitFinished().status()).isEqualTo(Status.FAILED);
+        // Released after the run is marked finished
+        verify(leaseRepository, timeout(5000)).release(eq(LEASE), anyString());
+    }
+
+    @Test
+    void apiRunsDoNotTakeTheLease() throws InterruptedException {
+        when(rollupRepository.findWarehouseIds(any(), any())).thenReturn(List.of("WH-1"));
+
+        service.start(PREVIOUS_MONTH, FleetReportMode.REPLACE);
+
+        assertThat(awaitFinished().status()).isEqualTo(Status.COMPLETED);
+        verify(leaseRepository, never()).tryAcquire(anyString(), anyString(), any());
+    }
+
+    private FleetReportRun awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            List<FleetReportRun> runs = service.list();
+            if (!runs.isEmpty() && runs.get(0).finishedAt() != null) {
+                return runs.get(0);
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Fleet report run did not finish");
+    }
+}
@@ -0,0 +1,187 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.application.command.RebuildRollupsCommand;
+import com.paklog.sustainability.application.command.RecalculateFootprintsCommand;
+import com.paklog.sustainability.application.service.FootprintRecalculationRun.Status;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.repository.CarbonFootprintRepository;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepository;
+import com.paklog.sustainability.domain.repository.JobLeaseRepository;
+import com.paklog.sustainability.domain.service.EmissionCalculationService;
+import com.paklog.sustainability.domain.service.EmissionFactorCatalog;
+import com.paklog.sustainability.domain.valueobject.ActivityAmount;
+import com.paklog.sustainability.domain.valueobject.EmissionActivity;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.FootprintCorrection;
+import com.paklog.sustainability.domain.valueobject.RollupIncrement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FootprintRecalculationServiceTest {
+
+    private static final String WAREHOUSE = "WH-1";
+    private static final String TRUCK = "TRANSPORT:TRUCK_LARGE";
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 3, 3);
+    private static final LocalDate SECOND_DAY = FIRST_DAY.plusDays(1);
+    private static final double RESTATED_FACTOR = 0.5;
+    private static final String LEASE = "footprint-recalculation";
+
+    private final CarbonFootprintRepository footprintRepository = mock(CarbonFootprintRepository.class);
+    private final EmissionRollupService rollupService = mock(EmissionRollupService.class);
+    private final EmissionCalculationService calculationService = mock(EmissionCalculationService.class);
+    private final JobLeaseRepository leaseRepository = mock(JobLeaseRepository.class);
+    private final List<FootprintCorrection> corrections = new ArrayList<>();
+    private final FootprintRecalculationService service = service(500);
+
+    FootprintRecalculationServiceTest() {
+        when(leaseRepository.tryAcquire(eq(LEASE), anyString(), any())).thenReturn(true);
+        when(calculationService.calculate(any(EmissionActivity.class), any(LocalDate.class)))
+                .thenAnswer(call -> call.<EmissionActivity>getArgument(0).quantity() * RESTATED_FACTOR);
+        when(footprintRepository.applyCorrections(anyList())).thenAnswer(call -> {
+            corrections.addAll(call.getArgument(0));
+            return Set.of();
+        });
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void correctsOnlyTheDaysWhoseRestatedCO2eChanged() {
+        stream(footprint("fp-1", FIRST_DAY, 10, 4), footprint("fp-2", FIRST_DAY, 20, 8), footprint("fp-3", SECOND_DAY, 10, 5));
+
+        FootprintRecalculationRun run = awaitFinished(service.start(command(false)));
+
+        assertThat(corrections).containsExactly(new FootprintCorrection("fp-1", WAREHOUSE, FIRST_DAY,
+                EmissionType.SCOPE3_TRANSPORTATION, Map.of("truck", Map.of(TRUCK, 3.0))));
+        verify(rollupService).recordCorrections(List.of(
+                new RollupIncrement(WAREHOUSE, FIRST_DAY, EmissionType.SCOPE3_TRANSPORTATION, 3.0, 0)));
+        assertThat(run.status()).isEqualTo(Status.COMPLETED);
+        assertThat(run.footprintsScanned()).isEqualTo(3);
+        assertThat(run.footprintsCorrected()).isEqualTo(1);
+        assertThat(run.co2eBeforeKg()).isEqualTo(17.0);
+        assertThat(run.co2eAfterKg()).isEqualTo(20.0);
+        assertThat(run.deltaCO2eKgByFactorKey()).containsExactly(Map.entry("TRUCK_LARGE", 3.0));
+        assertThat(run.deltaCO2eKgByScope()).containsExactly(Map.entry(EmissionType.SCOPE3_TRANSPORTATION, 3.0));
+        verify(leaseRepository).release(eq(LEASE), anyString());
+    }
+
+    @Test
+    void runActiveOnAnotherInstanceIsRefused() {
+        when(leaseRepository.tryAcquire(eq(LEASE), anyString(), any())).thenReturn(false);
+
+        assertThatThrownBy(() -> service.start(command(false))).isInstanceOf(IllegalStateException.class);
+
+        assertThat(service.list()).isEmpty();
+        verify(footprintRepository, never()).streamRecalculable(any(), any(), any(), any());
+    }
+
+    @Test
+    void aFirstWriteThatFailsPartwayGetsTheRollupsRebuilt() {
+        stream(footprint("fp-1", FIRST_DAY, 10, 4));
+        when(footprintRepository.applyCorrections(anyList())).thenThrow(new IllegalStateException("bulk write partly applied"));
+
+        FootprintRecalculationRun run = awaitFinished(service.start(command(false)));
+
+        verify(rollupService).rebuild(new RebuildRollupsCommand(WAREHOUSE, FIRST_DAY.withDayOfMonth(1), FIRST_DAY.withDayOfMonth(31)));
+        verify(rollupService, never()).recordCorrections(anyList());
+        assertThat(run.failedPartitions()).isEqualTo(1);
+    }
+
+    @Test
+    void dryRunReportsTheDeltasWithoutWriting() {
+        stream(footprint("fp-1", FIRST_DAY, 10, 4));
+
+        FootprintRecalculationRun run = awaitFinished(service.start(command(true)));
+
+        verify(footprintRepository, never()).applyCorrections(anyList());
+        verify(rollupService, never()).recordCorrections(anyList());
+        assertThat(run.footprintsCorrected()).isEqualTo(1);
+        assertThat(run.deltaCO2eKg()).isEqualTo(1.0);
+    }
+
+    @Test
+    void aPartitionFailingAfterItsFirstWriteGetsItsRollupsRebuilt() {
+        FootprintRecalculationService smallBatches = service(1);
+        when(footprintRepository.streamRecalculable(eq(WAREHOUSE), any(), any(), any())).thenAnswer(call -> Stream.concat(
+                Stream.of(footprint("fp-1", FIRST_DAY, 10, 4), footprint("fp-3", SECOND_DAY, 10, 4)),
+                Stream.<CarbonFootprint>generate(() -> {
+                    throw new IllegalStateException("cursor killed");
+                }).limit(1)));
+
+        FootprintRecalculationRun run;
+        try {
+            run = awaitFinished(smallBatches, smallBatches.start(command(false)));
+        } finally {
+            smallBatches.shutdown();
+        }
+
+        assertThat(corrections).extracting(FootprintCorrection::footprintId).containsExactly("fp-1");
+        verify(rollupService, never()).recordCorrections(anyList());
+        verify(rollupService).rebuild(new RebuildRollupsCommand(WAREHOUSE, FIRST_DAY.withDayOfMonth(1), FIRST_DAY.withDayOfMonth(31)));
+        assertThat(run.status()).isEqualTo(Status.COMPLETED);
+        assertThat(run.failedPartitionIds()).containsExactly(WAREHOUSE + "/2025-03");
+    }
+
+    private FootprintRecalculationService service(int writeBatchSize) {
+        return new FootprintRecalculationService(footprintRepository, mock(EmissionRollupRepository.class), rollupService,
+                calculationService, mock(EmissionFactorCatalog.class), 4, writeBatchSize, leaseRepository, Duration.ofMinutes(10));
+    }
+
+    private void stream(CarbonFootprint... footprints) {
+        when(footprintRepository.streamRecalculable(eq(WAREHOUSE), any(), any(), any()))
+                .thenAnswer(call -> Stream.of(footprints));
+    }
+
+    private FootprintRecalculationRun awaitFinished(FootprintRecalculationRun started) {
+        return awaitFinished(service, started);
+    }
+
+    private static FootprintRecalculationRun awaitFinished(FootprintRecalculationService service, FootprintRecalculationRun started) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        FootprintRecalculationRun run = started;
+        while (run.status() != Status.COMPLETED && run.status() != Status.FAILED) {
+            assertThat(System.nanoTime()).as("run not finished within 5s").isLessThan(deadline);
+            Thread.onSpinWait();
+            run = service.find(started.runId()).orElseThrow();
+        }
+        return run;
+    }
+
+    private static RecalculateFootprintsCommand command(boolean dryRun) {
+        return new RecalculateFootprintsCommand(WAREHOUSE, FIRST_DAY.withDayOfMonth(1), FIRST_DAY.withDayOfMonth(31),
+                null, dryRun);
+    }
+
+    private static CarbonFootprint footprint(String footprintId, LocalDate day, double tonKm, double co2eKg) {
+        return CarbonFootprint.builder()
+                .footprintId(footprintId)
+                .warehouseId(WAREHOUSE)
+                .recordDate(day)
+                .emissionType(EmissionType.SCOPE3_TRANSPORTATION)
+                .activities(Map.of("truck", Map.of(TRUCK, new ActivityAmount(tonKm, co2eKg))))
+                .build();
+    }
+}
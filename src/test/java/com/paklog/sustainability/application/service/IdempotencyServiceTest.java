@@ -0,0 +1,68 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.aggregate.IdempotencyRecord;
+import com.paklog.sustainability.domain.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private final IdempotencyRecordRepository repository = mock(IdempotencyRecordRepository.class);
+    private final IdempotencyService service = new IdempotencyService(repository, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void newRequestKeyIsClaimedWithASingleInsert() {
+        assertThat(service.claimRequest("key-1", "fp-1")).isEmpty();
+
+        verify(repository).insert(any(IdempotencyRecord.class));
+        verify(repository, never()).findById(anyString());
+    }
+
+    @Test
+    void repeatedRequestKeyReturnsTheEarlierRecord() {
+        IdempotencyRecord earlier = new IdempotencyRecord("http:key-1", "fp-1", Instant.now());
+        when(repository.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("key-1"));
+        when(repository.findById("http:key-1")).thenReturn(Optional.of(earlier));
+
+        assertThat(service.claimRequest("key-1", "fp-2")).contains(earlier);
+    }
+
+    @Test
+    void insideATransactionTheEarlierClaimIsReadFirst() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        IdempotencyRecord earlier = new IdempotencyRecord("http:key-1", "fp-1", Instant.now());
+        when(repository.findById("http:key-1")).thenReturn(Optional.of(earlier));
+
+        assertThat(service.claimRequest("key-1", "fp-2")).contains(earlier);
+        verify(repository, never()).insert(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void eventsAlreadyClaimedAreDropped() {
+        when(repository.insertIfAbsent(anyList())).thenReturn(Set.of("event:b"));
+
+        assertThat(service.claimEvents(List.of("a", "b", "a", "c"))).containsExactly("a", "c");
+    }
+}
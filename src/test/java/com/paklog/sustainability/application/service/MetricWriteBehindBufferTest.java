@@ -0,0 +1,151 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.application.command.RecordMetricCommand;
+import com.paklog.sustainability.domain.repository.SustainabilityMetricRepository;
+import com.paklog.sustainability.domain.repository.SustainabilityMetricRepositoryCustom.DailyMetricUpsertResult;
+import com.paklog.sustainability.domain.valueobject.DailyMetricIncrement;
+import com.paklog.sustainability.domain.valueobject.MetricUnit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toSet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class MetricWriteBehindBufferTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 31);
+
+    private final SustainabilityMetricRepository repository = mock(SustainabilityMetricRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<DailyMetricIncrement>> upserts = new CopyOnWriteArrayList<>();
+    private MetricWriteBehindBuffer buffer;
+
+    @AfterEach
+    void stop() {
+        if (buffer != null) {
+            buffer.stop();
+        }
+    }
+
+    @Test
+    void newKeysAreRefusedWhileTheBufferIsFullOfUnwrittenSums() {
+        AtomicBoolean mongoDown = new AtomicBoolean(true);
+        when(repository.upsertDailyIncrements(anyList())).thenAnswer(call -> {
+            List<DailyMetricIncrement> increments = call.getArgument(0);
+            upserts.add(List.copyOf(increments));
+            if (mongoDown.get()) {
+                throw new IllegalStateException("mongod unavailable");
+            }
+            return new DailyMetricUpsertResult(increments.size(), Set.of());
+        });
+        buffer = start(2, 2);
+
+        assertThat(buffer.offer(reading("WH-A", 1.0))).isTrue();
+        assertThat(buffer.offer(reading("WH-B", 2.0))).isTrue();
+        // Reaching flush-size started a flush; wait for it to fail and put both sums back
+        await(() -> upserts.size() == 1 && pending() == 2);
+        assertThat(buffer.offer(reading("WH-A", 3.0))).isTrue();
+        assertThat(buffer.offerAll(List.of(reading("WH-B", 1.0), reading("WH-C", 1.0), reading("WH-D", 1.0))))
+                .isEqualTo(new MetricBatchAcceptance(1, 3));
+        assertThat(meterRegistry.get("sustainability.metric.readings").tag("outcome", "refused").counter().count())
+                .isEqualTo(1);
+
+        mongoDown.set(false);
+        // Each refusal asks for a flush, which frees room once MongoDB is back
+        await(() -> buffer.offer(reading("WH-C", 5.0)));
+        buffer.stop();
+
+        assertThat(upserts.stream().flatMap(List::stream).filter(i -> i.warehouseId().equals("WH-A")).toList())
+                .last().extracting(DailyMetricIncrement::value, DailyMetricIncrement::readings).containsExactly(4.0, 2L);
+        assertThat(upserts.get(upserts.size() - 1)).containsExactly(increment("WH-C", 5.0, 1));
+        assertThat(buffer.offer(reading("WH-D", 1.0))).isFalse();
+    }
+
+    @Test
+    void failedKeysAreRequeuedAndMergedWithLaterReadings() {
+        AtomicBoolean failB = new AtomicBoolean(true);
+        when(repository.upsertDailyIncrements(anyList())).thenAnswer(call -> {
+            List<DailyMetricIncrement> increments = call.getArgument(0);
+            upserts.add(List.copyOf(increments));
+            Set<Integer> failed = failB.getAndSet(false)
+                    ? IntStream.range(0, increments.size())
+                    .filter(i -> increments.get(i).warehouseId().equals("WH-B")).boxed().collect(toSet())
+                    : Set.of();
+            return new DailyMetricUpsertResult(increments.size() - failed.size(), failed);
+        });
+        buffer = start(100, 100);
+
+        buffer.offer(reading("WH-A", 1.0));
+        buffer.offer(reading("WH-B", 2.0));
+        buffer.flush();
+
+        verify(eventPublisher).publishEvent(FootprintsChangedEvent.of("WH-A", YearMonth.from(DAY)));
+        verifyNoMoreInteractions(eventPublisher);
+        assertThat(pending()).isEqualTo(1);
+
+        buffer.offer(reading("WH-B", 3.0));
+        buffer.flush();
+
+        assertThat(upserts).hasSize(2);
+        assertThat(upserts.get(1)).containsExactly(increment("WH-B", 5.0, 2));
+        verify(eventPublisher).publishEvent(FootprintsChangedEvent.of("WH-B", YearMonth.from(DAY)));
+        assertThat(meterRegistry.get("sustainability.metric.buffer.flush.failures").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sustainability.metric.buffer.flushed").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void readingsAreRefusedBeforeStart() {
+        buffer = new MetricWriteBehindBuffer(repository, eventPublisher, meterRegistry, 10, 10,
+                Duration.ofHours(1), Duration.ofMillis(20), Duration.ofSeconds(1));
+
+        assertThat(buffer.offer(reading("WH-A", 1.0))).isFalse();
+        verifyNoInteractions(repository);
+    }
+
+    private double pending() {
+        return meterRegistry.get("sustainability.metric.buffer.pending").gauge().value();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    private MetricWriteBehindBuffer start(int maxPendingKeys, int flushSize) {
+        MetricWriteBehindBuffer started = new MetricWriteBehindBuffer(repository, eventPublisher, meterRegistry,
+                maxPendingKeys, flushSize, Duration.ofHours(1), Duration.ofMillis(20), Duration.ofSeconds(5));
+        started.start();
+        return started;
+    }
+
+    private static RecordMetricCommand reading(String warehouseId, double value) {
+        return new RecordMetricCommand(warehouseId, "meter", MetricUnit.KWH, value, DAY, "lighting ", "meter-1", null);
+    }
+
+    private static DailyMetricIncrement increment(String warehouseId, double value, long readings) {
+        return new DailyMetricIncrement(warehouseId, DAY, "lighting", MetricUnit.KWH, value, readings);
+    }
+}
@@ -0,0 +1,120 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.repository.OrderVolumeRepository;
+import com.paklog.sustainability.domain.valueobject.DailyOrderIncrement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderVolumeCounterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 31);
+
+    private final OrderVolumeRepository repository = mock(OrderVolumeRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final OrderVolumeCounter counter = new OrderVolumeCounter(repository, eventPublisher, new SimpleMeterRegistry(),
+            Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+    @Test
+    void flushWritesTheSumsAndAnnouncesTheMonthsWritten() {
+        List<List<DailyOrderIncrement>> flushed = new ArrayList<>();
+        when(repository.upsertDailyIncrements(anyList())).thenAnswer(call -> {
+            flushed.add(List.copyOf(call.getArgument(0)));
+            return Set.of();
+        });
+        counter.count("WH-1", DAY, 3);
+        counter.count("WH-1", DAY, 4);
+        counter.count("WH-1", DAY.plusDays(1), 1);
+        counter.count("WH-2", DAY, 0);
+
+        counter.flush();
+
+        assertThat(flushed).hasSize(1);
+        assertThat(flushed.get(0)).containsExactlyInAnyOrder(
+                new DailyOrderIncrement("WH-1", DAY, 7), new DailyOrderIncrement("WH-1", DAY.plusDays(1), 1));
+        verify(eventPublisher).publishEvent(FootprintsChangedEvent.of("WH-1", YearMonth.of(2025, 3)));
+        verify(eventPublisher).publishEvent(FootprintsChangedEvent.of("WH-1", YearMonth.of(2025, 4)));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void failedIncrementsAreKeptForTheNextFlushAndNotAnnounced() {
+        List<List<DailyOrderIncrement>> flushed = new ArrayList<>();
+        when(repository.upsertDailyIncrements(anyList())).thenAnswer(call -> {
+            List<DailyOrderIncrement> increments = call.getArgument(0);
+            flushed.add(List.copyOf(increments));
+            return flushed.size() == 1 ? Set.of(0) : Set.of();
+        });
+        counter.count("WH-1", DAY, 5);
+
+        counter.flush();
+        verifyNoMoreInteractions(eventPublisher);
+        counter.count("WH-1", DAY, 2);
+        counter.flush();
+
+        assertThat(flushed.get(1)).containsExactly(new DailyOrderIncrement("WH-1", DAY, 7));
+        verify(eventPublisher).publishEvent(FootprintsChangedEvent.of("WH-1", YearMonth.of(2025, 3)));
+    }
+
+    @Test
+    void concurrentCountsAreWrittenExactlyOnceWhileIdleCountersAreEvicted() throws InterruptedException {
+        Map<String, AtomicLong> written = new ConcurrentHashMap<>();
+        when(repository.upsertDailyIncrements(anyList())).thenAnswer(call -> {
+            List<DailyOrderIncrement> increments = call.getArgument(0);
+            for (DailyOrderIncrement increment : increments) {
+                written.computeIfAbsent(increment.volumeId(), id -> new AtomicLong()).addAndGet(increment.orders());
+            }
+            return Set.of();
+        });
+
+        int threads = 4;
+        int countsPerThread = 20_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        Map<String, AtomicLong> counted = new ConcurrentHashMap<>();
+        for (int t = 0; t < threads; t++) {
+            Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < countsPerThread; i++) {
+                    // Many sparsely hit days, so counters go idle and are evicted while others still count
+                    LocalDate day = DAY.plusDays(random.nextInt(64));
+                    long orders = 1 + random.nextInt(3);
+                    counter.count("WH-1", day, orders);
+                    counted.computeIfAbsent("WH-1:" + day, id -> new AtomicLong()).addAndGet(orders);
+                    if (i % 500 == 0) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        while (done.getCount() > 0) {
+            counter.flush();
+        }
+        // Enough flushes to drain late additions and evict every idle counter
+        for (int i = 0; i < 3; i++) {
+            counter.flush();
+        }
+
+        assertThat(written.keySet()).isEqualTo(counted.keySet());
+        counted.forEach((id, orders) -> assertThat(written.get(id).get()).as(id).isEqualTo(orders.get()));
+    }
+}
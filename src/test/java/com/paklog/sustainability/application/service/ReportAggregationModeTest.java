@@ -0,0 +1,280 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.EmissionRollup;
+import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+import com.paklog.sustainability.domain.repository.CarbonFootprintRepository;
+import com.paklog.sustainability.domain.repository.ESGReportRepository;
+import com.paklog.sustainability.domain.repository.EmissionRollupRepository;
+import com.paklog.sustainability.domain.repository.GreenInitiativeRepository;
+import com.paklog.sustainability.domain.repository.OrderVolumeRepository;
+import com.paklog.sustainability.domain.repository.SustainabilityMetricRepository;
+import com.paklog.sustainability.domain.service.ESGReportingService;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.MetricCategory;
+import com.paklog.sustainability.domain.valueobject.ReportTotals;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import com.paklog.sustainability.domain.valueobject.RollupGranularity;
+import com.paklog.sustainability.domain.valueobject.RollupIncrement;
+import com.paklog.sustainability.infrastructure.persistence.MongoReportAggregationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Feeds the same footprints and metrics through the ROLLUP, PIPELINE and RAW report paths and checks that
+ * they sum to the same totals. MongoDB is replaced by in-memory stand-ins that honour the same filters:
+ * rollup increments are folded like the {@code $inc} upserts, and aggregation pipelines are evaluated over
+ * the stored documents, so the field names and range bounds of every path are exercised.
+ */
+class ReportAggregationModeTest {
+
+    private static final String WAREHOUSE = "WH-1";
+    private static final YearMonth MONTH = YearMonth.of(2024, 3);
+    private static final long ORDERS = 1234;
+
+    private final List<CarbonFootprint> footprints = new ArrayList<>();
+    private final List<SustainabilityMetric> metrics = new ArrayList<>();
+    private final Map<String, EmissionRollup> rollups = new LinkedHashMap<>();
+
+    @BeforeEach
+    void storeFixtures() {
+        Random random = new Random(42);
+        EmissionType[] types = EmissionType.values();
+        String[] categories = {"ENERGY", "RENEWABLE_ENERGY", "WATER", "WASTE_TOTAL", "WASTE_RECYCLED", "SOCIAL"};
+        // Other warehouses and the days around the month must not be counted by any path
+        for (String warehouse : List.of(WAREHOUSE, "WH-2")) {
+            for (LocalDate day = MONTH.atDay(1).minusDays(2); !day.isAfter(MONTH.atEndOfMonth().plusDays(2)); day = day.plusDays(1)) {
+                for (int i = 0; i < 3; i++) {
+                    CarbonFootprint footprint = CarbonFootprint.builder()
+                            .footprintId(warehouse + ":" + day + ":" + i)
+                            .warehouseId(warehouse)
+                            .recordDate(day)
+                            .emissionType(types[random.nextInt(types.length)])
+                            .build();
+                    footprint.addEmission("Diesel", random.nextDouble() * 500);
+                    footprint.addEmission("Grid electricity", random.nextDouble() * 100);
+                    footprints.add(footprint);
+
+                    SustainabilityMetric metric = new SustainabilityMetric();
+                    metric.setWarehouseId(warehouse);
+                    metric.setRecordDate(day);
+                    metric.setCategory(categories[random.nextInt(categories.length)]);
+                    metric.setValue(random.nextDouble() * 1000);
+                    metrics.add(metric);
+                }
+            }
+        }
+    }
+
+    @Test
+    void allModesSumToTheSameTotals() {
+        ReportTotals rollup = totals(ReportAggregationMode.ROLLUP);
+        ReportTotals pipeline = totals(ReportAggregationMode.PIPELINE);
+        ReportTotals raw = totals(ReportAggregationMode.RAW);
+
+        assertThat(raw.totalEmissions()).isPositive();
+        for (ReportTotals totals : List.of(rollup, pipeline)) {
+            for (EmissionType type : EmissionType.values()) {
+                assertThat(totals.emissions(type)).as("%s", type).isCloseTo(raw.emissions(type), within(1e-6));
+            }
+            for (MetricCategory category : MetricCategory.values()) {
+                assertThat(totals.metric(category)).as("%s", category).isCloseTo(raw.metric(category), within(1e-6));
+            }
+            assertThat(totals.orders()).isEqualTo(ORDERS);
+        }
+    }
+
+    @Test
+    void rawModeSumsExactlyTheFootprintsOfTheMonth() {
+        ReportTotals raw = totals(ReportAggregationMode.RAW);
+
+        Map<EmissionType, Double> expected = new EnumMap<>(EmissionType.class);
+        for (CarbonFootprint footprint : inMonth(footprints, CarbonFootprint::getWarehouseId, CarbonFootprint::getRecordDate)) {
+            expected.merge(footprint.getEmissionType(), footprint.getTotalCO2eKg(), Double::sum);
+        }
+        expected.forEach((type, co2eKg) -> assertThat(raw.emissions(type)).isCloseTo(co2eKg, within(1e-6)));
+    }
+
+    /**
+     * Generates the monthly report of {@link #MONTH} in {@code mode} and returns the totals it was built from.
+     */
+    private ReportTotals totals(ReportAggregationMode mode) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ESGReportingService reportingService = spy(new ESGReportingService(registry));
+
+        CarbonFootprintRepository footprintRepository = mock(CarbonFootprintRepository.class);
+        when(footprintRepository.findByWarehouseIdAndRecordDateBetween(anyString(), any(), any())).thenAnswer(call ->
+                between(footprints, CarbonFootprint::getWarehouseId, CarbonFootprint::getRecordDate,
+                        call.getArgument(0), call.getArgument(1), call.getArgument(2)));
+        SustainabilityMetricRepository metricRepository = mock(SustainabilityMetricRepository.class);
+        when(metricRepository.findByWarehouseIdAndRecordDateBetween(anyString(), any(), any())).thenAnswer(call ->
+                between(metrics, SustainabilityMetric::getWarehouseId, SustainabilityMetric::getRecordDate,
+                        call.getArgument(0), call.getArgument(1), call.getArgument(2)));
+
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(CarbonFootprint.class), eq(Document.class)))
+                .thenAnswer(call -> evaluate(call.getArgument(0), footprints.stream().map(ReportAggregationModeTest::document).toList()));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(SustainabilityMetric.class), eq(Document.class)))
+                .thenAnswer(call -> evaluate(call.getArgument(0), metrics.stream().map(ReportAggregationModeTest::document).toList()));
+
+        EmissionRollupService rollupService = new EmissionRollupService(rollupRepository(), mock(ApplicationEventPublisher.class),
+                new WarehouseTagPolicy(registry, Set.of(), 10), mock(EmissionTelemetry.class), registry);
+        rollups.clear();
+        rollupService.recordFootprints(footprints);
+
+        OrderVolumeRepository orderVolumeRepository = mock(OrderVolumeRepository.class);
+        when(orderVolumeRepository.sumOrders(WAREHOUSE, MONTH.atDay(1), MONTH.atEndOfMonth())).thenReturn(ORDERS);
+        ESGReportRepository reportRepository = mock(ESGReportRepository.class);
+        when(reportRepository.save(any(ESGReport.class))).thenAnswer(call -> call.getArgument(0));
+
+        SustainabilityApplicationService service = new SustainabilityApplicationService(footprintRepository, reportRepository,
+                mock(GreenInitiativeRepository.class), reportingService, rollupService, metricRepository,
+                new MongoReportAggregationRepository(mongoTemplate), mode, orderVolumeRepository, mock(EventOutbox.class),
+                mock(IdempotencyService.class), mock(ESGReportCache.class), registry);
+        service.generateMonthlyReport(WAREHOUSE, MONTH);
+
+        ArgumentCaptor<ReportTotals> totals = ArgumentCaptor.forClass(ReportTotals.class);
+        verify(reportingService).generateReport(eq(WAREHOUSE), eq(MONTH), eq(ReportingPeriod.MONTHLY), totals.capture());
+        return totals.getValue();
+    }
+
+    /**
+     * Rollup repository that applies increments like the {@code $inc} upserts and serves monthly rollups.
+     */
+    private EmissionRollupRepository rollupRepository() {
+        EmissionRollupRepository repository = mock(EmissionRollupRepository.class);
+        doAnswer(call -> {
+            Collection<RollupIncrement> increments = call.getArgument(0);
+            for (RollupIncrement increment : increments) {
+                LocalDate periodStart = increment.day().withDayOfMonth(1);
+                EmissionRollup rollup = rollups.computeIfAbsent(
+                        increment.warehouseId() + ":" + periodStart + ":" + increment.emissionType(),
+                        id -> EmissionRollup.builder()
+                                .rollupId(id)
+                                .warehouseId(increment.warehouseId())
+                                .granularity(RollupGranularity.MONTH)
+                                .periodStart(periodStart)
+                                .emissionType(increment.emissionType())
+                                .build());
+                rollup.setTotalCO2eKg(rollup.getTotalCO2eKg() + increment.co2eKg());
+                rollup.setFootprintCount(rollup.getFootprintCount() + increment.footprintCount());
+            }
+            return null;
+        }).when(repository).applyIncrements(any());
+        when(repository.findByWarehouseIdAndGranularityAndPeriodStartBetween(anyString(), eq(RollupGranularity.MONTH), any(), any()))
+                .thenAnswer(call -> between(List.copyOf(rollups.values()), EmissionRollup::getWarehouseId, EmissionRollup::getPeriodStart,
+                        call.getArgument(0), call.getArgument(2), call.getArgument(3)));
+        return repository;
+    }
+
+    private <T> List<T> inMonth(List<T> items, Function<T, String> warehouse, Function<T, LocalDate> date) {
+        return between(items, warehouse, date, WAREHOUSE, MONTH.atDay(1), MONTH.atEndOfMonth());
+    }
+
+    // Both bounds inclusive, like the range queries of the repositories
+    private static <T> List<T> between(List<T> items, Function<T, String> warehouse, Function<T, LocalDate> date,
+                                       String warehouseId, LocalDate start, LocalDate end) {
+        return items.stream()
+                .filter(item -> warehouseId.equals(warehouse.apply(item)))
+                .filter(item -> !date.apply(item).isBefore(start) && !date.apply(item).isAfter(end))
+                .toList();
+    }
+
+    private static Document document(CarbonFootprint footprint) {
+        return new Document("warehouseId", footprint.getWarehouseId())
+                .append("recordDate", footprint.getRecordDate())
+                .append("emissionType", footprint.getEmissionType().name())
+                .append("totalCO2eKg", footprint.getTotalCO2eKg());
+    }
+
+    private static Document document(SustainabilityMetric metric) {
+        return new Document("warehouseId", metric.getWarehouseId())
+                .append("recordDate", metric.getRecordDate())
+                .append("category", metric.getCategory())
+                .append("value", metric.getValue());
+    }
+
+    /**
+     * Runs a {@code $match} of equalities and {@code $gte}/{@code $lte} ranges followed by a {@code $group}
+     * with {@code $sum} accumulators, the only stages the report pipelines use.
+     */
+    private static AggregationResults<Document> evaluate(Aggregation aggregation, List<Document> documents) {
+        List<Document> stages = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT);
+        List<Document> current = documents;
+        for (Document stage : stages) {
+            if (stage.containsKey("$match")) {
+                Document match = stage.get("$match", Document.class);
+                current = current.stream().filter(document -> matches(document, match)).toList();
+            } else if (stage.containsKey("$group")) {
+                Document group = stage.get("$group", Document.class);
+                Map<Object, Document> groups = new LinkedHashMap<>();
+                for (Document document : current) {
+                    Object id = resolve(document, group.get("_id"));
+                    Document result = groups.computeIfAbsent(id, key -> new Document("_id", key));
+                    group.forEach((field, accumulator) -> {
+                        if (!"_id".equals(field)) {
+                            Object value = resolve(document, ((Document) accumulator).get("$sum"));
+                            result.merge(field, ((Number) value).doubleValue(), (a, b) -> (Double) a + (Double) b);
+                        }
+                    });
+                }
+                current = List.copyOf(groups.values());
+            } else {
+                throw new UnsupportedOperationException("Unexpected stage " + stage.toJson());
+            }
+        }
+        return new AggregationResults<>(current, new Document());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean matches(Document document, Document match) {
+        for (Map.Entry<String, Object> condition : match.entrySet()) {
+            Object value = document.get(condition.getKey());
+            if (condition.getValue() instanceof Document range) {
+                Comparable<Object> actual = (Comparable<Object>) value;
+                if (range.containsKey("$gte") && actual.compareTo(range.get("$gte")) < 0
+                        || range.containsKey("$lte") && actual.compareTo(range.get("$lte")) > 0) {
+                    return false;
+                }
+            } else if (!condition.getValue().equals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object resolve(Document document, Object expression) {
+        return expression instanceof String field && field.startsWith("$") ? document.get(field.substring(1)) : expression;
+    }
+}
@@ -0,0 +1,154 @@
+package com.paklog.sustainability.application.service;
+
+import com.paklog.sustainability.application.command.RecordEmissionCommand;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.ESGReport;
+import com.paklog.sustainability.domain.repository.CarbonFootprintRepository;
+import com.paklog.sustainability.domain.repository.ESGReportRepository;
+import com.paklog.sustainability.domain.repository.GreenInitiativeRepository;
+import com.paklog.sustainability.domain.repository.OrderVolumeRepository;
+import com.paklog.sustainability.domain.repository.ReportAggregationRepository;
+import com.paklog.sustainability.domain.repository.SustainabilityMetricRepository;
+import com.paklog.sustainability.domain.service.ESGReportingService;
+import com.paklog.sustainability.domain.valueobject.EmissionType;
+import com.paklog.sustainability.domain.valueobject.ReportTotals;
+import com.paklog.sustainability.domain.valueobject.ReportingPeriod;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SustainabilityApplicationServiceTest {
+
+    private static final String WAREHOUSE = "WH-1";
+
+    private final ESGReportRepository reportRepository = mock(ESGReportRepository.class);
+    private final EventOutbox eventOutbox = mock(EventOutbox.class);
+    private final CarbonFootprintRepository footprintRepository = mock(CarbonFootprintRepository.class);
+    private final EmissionRollupService rollupService = mock(EmissionRollupService.class);
+    private final IdempotencyService idempotencyService = mock(IdempotencyService.class);
+    private final OrderVolumeRepository orderVolumeRepository = mock(OrderVolumeRepository.class);
+    private SustainabilityApplicationService service;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReportAggregationRepository aggregationRepository = mock(ReportAggregationRepository.class);
+        when(aggregationRepository.aggregateTotals(anyString(), any(), any())).thenAnswer(call -> new ReportTotals());
+        when(reportRepository.save(any(ESGReport.class))).thenAnswer(call -> call.getArgument(0));
+
+        when(idempotencyService.claimRequest(anyString(), anyString())).thenReturn(Optional.empty());
+
+        service = new SustainabilityApplicationService(footprintRepository, reportRepository,
+                mock(GreenInitiativeRepository.class), new ESGReportingService(registry), rollupService,
+                mock(SustainabilityMetricRepository.class), aggregationRepository, ReportAggregationMode.PIPELINE,
+                orderVolumeRepository, eventOutbox, idempotencyService, mock(ESGReportCache.class),
+                registry);
+    }
+
+    @Test
+    void openMonthIsComposedWithoutBeingStored() {
+        ESGReport report = service.generateMonthlyReport(WAREHOUSE, YearMonth.now());
+        service.generateMonthlyReport(WAREHOUSE, YearMonth.now().plusMonths(1));
+
+        assertThat(report.getReportMonth()).isEqualTo(YearMonth.now());
+        verify(reportRepository, never()).save(any());
+        verify(eventOutbox, never()).reportGenerated(any());
+    }
+
+    @Test
+    void openAnnualReportStoresOnlyClosedMonths() {
+        YearMonth current = YearMonth.now();
+        service.generateReport(WAREHOUSE, current, ReportingPeriod.ANNUAL);
+
+        List<ESGReport> saved = savedReports();
+        assertThat(saved).allSatisfy(report -> {
+            assertThat(report.getPeriod()).isEqualTo(ReportingPeriod.MONTHLY);
+            assertThat(report.getReportMonth()).isLessThan(current);
+        });
+        assertThat(saved).hasSize(current.getMonthValue() - 1);
+    }
+
+    @Test
+    void closedQuarterIsStoredWithItsMonths() {
+        YearMonth first = ReportingPeriod.QUARTERLY.firstMonth(YearMonth.now()).minusMonths(3);
+        service.generateReport(WAREHOUSE, first, ReportingPeriod.QUARTERLY);
+
+        List<ESGReport> saved = savedReports();
+        assertThat(saved).extracting(ESGReport::getPeriod).containsExactly(
+                ReportingPeriod.MONTHLY, ReportingPeriod.MONTHLY, ReportingPeriod.MONTHLY, ReportingPeriod.QUARTERLY);
+        verify(eventOutbox, atLeastOnce()).reportGenerated(any());
+    }
+
+    @Test
+    void monthsWithLateOrderCountsAreRegenerated() {
+        YearMonth first = ReportingPeriod.QUARTERLY.firstMonth(YearMonth.now()).minusMonths(3);
+        List<ESGReport> stored = List.of(monthly(first), monthly(first.plusMonths(1)), monthly(first.plusMonths(2)));
+        when(reportRepository.findByWarehouseIdAndYearAndPeriod(WAREHOUSE, first.getYear(), ReportingPeriod.MONTHLY))
+                .thenReturn(stored);
+        when(orderVolumeRepository.sumOrdersByMonth(WAREHOUSE, first, first.plusMonths(2)))
+                .thenReturn(Map.of(first.plusMonths(1), 5L));
+
+        service.generateReport(WAREHOUSE, first, ReportingPeriod.QUARTERLY);
+
+        assertThat(savedReports()).extracting(ESGReport::getPeriod, ESGReport::getReportMonth).containsExactly(
+                tuple(ReportingPeriod.MONTHLY, first.plusMonths(1)),
+                tuple(ReportingPeriod.QUARTERLY, first));
+    }
+
+    @Test
+    void failedInsertReleasesTheIdempotencyKey() {
+        when(footprintRepository.insert(any(CarbonFootprint.class))).thenThrow(new IllegalStateException("down"));
+
+        assertThatThrownBy(() -> service.recordEmission(command(), "key-1")).isInstanceOf(IllegalStateException.class);
+        verify(idempotencyService).releaseRequest("key-1");
+    }
+
+    @Test
+    void idempotencyKeyIsKeptOnceTheFootprintIsWritten() {
+        when(footprintRepository.insert(any(CarbonFootprint.class))).thenAnswer(call -> call.getArgument(0));
+        doThrow(new IllegalStateException("down")).when(rollupService).recordFootprint(any());
+
+        assertThatThrownBy(() -> service.recordEmission(command(), "key-1")).isInstanceOf(IllegalStateException.class);
+        verify(idempotencyService, never()).releaseRequest(anyString());
+    }
+
+    private static ESGReport monthly(YearMonth month) {
+        return ESGReport.builder()
+                .reportId("report-" + month)
+                .warehouseId(WAREHOUSE)
+                .period(ReportingPeriod.MONTHLY)
+                .reportMonth(month)
+                .year(month.getYear())
+                .build();
+    }
+
+    private static RecordEmissionCommand command() {
+        return new RecordEmissionCommand(WAREHOUSE, LocalDate.now(), EmissionType.SCOPE1_DIRECT, Map.of("truck", 1.0), null);
+    }
+
+    private List<ESGReport> savedReports() {
+        ArgumentCaptor<ESGReport> saved = ArgumentCaptor.forClass(ESGReport.class);
+        verify(reportRepository, atLeast(0)).save(saved.capture());
+        return saved.getAllValues();
+    }
+}
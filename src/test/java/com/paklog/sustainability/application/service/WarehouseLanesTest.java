@@ -0,0 +1,119 @@
+package com.paklog.sustainability.application.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WarehouseLanesTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WarehouseLanes lanes;
+
+    @AfterEach
+    void stop() {
+        if (lanes != null) {
+            lanes.stop();
+        }
+    }
+
+    @Test
+    void writesOfOneWarehouseRunOneAtATimeInSubmissionOrder() throws Exception {
+        lanes = start(4, 2048);
+        List<Integer> applied = new ArrayList<>();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        CompletableFuture<Integer> last = null;
+        for (int i = 0; i < 1000; i++) {
+            int sequence = i;
+            last = lanes.submit("WH-1", () -> {
+                threads.add(Thread.currentThread());
+                // Unsynchronized on purpose: a second writer would show up as a lost or reordered element
+                applied.add(sequence);
+                return sequence;
+            });
+        }
+
+        assertThat(last.get(5, TimeUnit.SECONDS)).isEqualTo(999);
+        assertThat(applied).hasSize(1000).isSorted();
+        assertThat(threads).hasSize(1);
+        assertThat(threads.iterator().next().getName()).startsWith("warehouse-lane-");
+    }
+
+    @Test
+    void aFullLaneRefusesWorkAfterTheOfferTimeout() throws Exception {
+        lanes = start(1, 1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> blocking = lanes.submit("WH-1", () -> {
+            running.countDown();
+            await(release);
+            return "first";
+        });
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = lanes.submit("WH-2", () -> "second");
+
+        assertThatThrownBy(() -> lanes.submit("WH-3", () -> "third"))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessageContaining("saturated");
+        assertThat(meterRegistry.get("sustainability.lanes.rejections").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sustainability.lanes.depth").tag("lane", "0").gauge().value()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(blocking.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void workSubmittedFromItsOwnLaneRunsInline() {
+        lanes = start(1, 1);
+
+        String result = lanes.call("WH-1", () -> lanes.call("WH-2", () -> "nested"));
+
+        assertThat(result).isEqualTo("nested");
+    }
+
+    @Test
+    void failuresReachTheCallerAndTheLaneKeepsRunning() {
+        lanes = start(1, 4);
+
+        assertThatThrownBy(() -> lanes.call("WH-1", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+        assertThat(lanes.call("WH-1", () -> "after")).isEqualTo("after");
+    }
+
+    @Test
+    void workIsRefusedOnceTheLanesAreStopped() {
+        lanes = start(2, 4);
+        lanes.stop();
+
+        assertThatThrownBy(() -> lanes.submit("WH-1", () -> "late")).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private WarehouseLanes start(int laneCount, int capacity) {
+        WarehouseLanes started = new WarehouseLanes(meterRegistry, laneCount, capacity, Duration.ofMillis(20),
+                Duration.ofSeconds(5));
+        started.start();
+        return started;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
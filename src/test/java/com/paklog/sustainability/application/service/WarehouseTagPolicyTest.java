@@ -0,0 +1,68 @@
+package com.paklog.sustainability.application.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WarehouseTagPolicyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void warehousesBeyondTheLimitAreTaggedOther() {
+        WarehouseTagPolicy policy = new WarehouseTagPolicy(meterRegistry, Set.of("WH-HQ"), 2);
+
+        assertThat(policy.tag("WH-1")).isEqualTo("WH-1");
+        assertThat(policy.tag("WH-2")).isEqualTo("WH-2");
+        assertThat(policy.tag("WH-3")).isEqualTo(WarehouseTagPolicy.OTHER);
+        assertThat(policy.tag("WH-1")).isEqualTo("WH-1");
+        assertThat(policy.tag("WH-HQ")).isEqualTo("WH-HQ");
+        assertThat(policy.tag(" ")).isEqualTo(WarehouseTagPolicy.UNKNOWN);
+        assertThat(policy.tag(null)).isEqualTo(WarehouseTagPolicy.UNKNOWN);
+        assertThat(admitted()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentCallersNeverAdmitMoreThanTheLimit() throws InterruptedException {
+        int limit = 50;
+        WarehouseTagPolicy policy = new WarehouseTagPolicy(meterRegistry, Set.of(), limit);
+        Set<String> tags = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            threads.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int w = 0; w < 500; w++) {
+                    tags.add(policy.tag("WH-" + w));
+                }
+            });
+        }
+        start.countDown();
+        threads.shutdown();
+        assertThat(threads.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        tags.remove(WarehouseTagPolicy.OTHER);
+        assertThat(tags).hasSize(limit);
+        assertThat(admitted()).isEqualTo(limit);
+        for (String warehouseId : tags) {
+            assertThat(policy.tag(warehouseId)).isEqualTo(warehouseId);
+        }
+    }
+
+    private double admitted() {
+        return meterRegistry.get("sustainability.metrics.warehouse_tags").gauge().value();
+    }
+}
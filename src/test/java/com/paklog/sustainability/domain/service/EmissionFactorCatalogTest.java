@@ -0,0 +1,95 @@
+package com.paklog.sustainability.domain.service;
+
+import com.paklog.sustainability.domain.aggregate.EmissionSource;
+import com.paklog.sustainability.domain.repository.EmissionSourceRepository;
+import com.paklog.sustainability.domain.valueobject.ActivityType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmissionFactorCatalogTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 1);
+
+    private final EmissionSourceRepository repository = mock(EmissionSourceRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EmissionFactorCatalog catalog = new EmissionFactorCatalog(repository, registry, 2.68, 2.31, 0.92);
+
+    @Test
+    void keysAreScopedToTheirCategory() {
+        assertThat(catalog.factor(ActivityType.FUEL, "diesel", DAY, -1)).isEqualTo(2.68);
+        assertThat(catalog.factor(ActivityType.TRANSPORT, "DIESEL", DAY, -1)).isEqualTo(-1);
+        assertThat(catalog.factor(ActivityType.TRANSPORT, "truck_large", DAY, -1)).isEqualTo(0.049);
+    }
+
+    @Test
+    void sourcesOverrideOnlyTheirCategory() {
+        when(repository.findAll()).thenReturn(List.of(source("1", ActivityType.TRANSPORT, "DIESEL", 0.08)));
+        catalog.reload();
+
+        assertThat(catalog.factor(ActivityType.TRANSPORT, "DIESEL", DAY, -1)).isEqualTo(0.08);
+        assertThat(catalog.factor(ActivityType.FUEL, "DIESEL", DAY, -1)).isEqualTo(2.68);
+    }
+
+    @Test
+    void sourcesWithoutCategoryArePlacedByTheirDefaultKey() {
+        when(repository.findAll()).thenReturn(List.of(
+                source("1", null, "TRUCK_LARGE", 0.05),
+                source("2", null, "HYDROGEN", 9.9)));
+        catalog.reload();
+
+        assertThat(catalog.factor(ActivityType.TRANSPORT, "TRUCK_LARGE", DAY, -1)).isEqualTo(0.05);
+        for (ActivityType category : ActivityType.values()) {
+            assertThat(catalog.factor(category, "HYDROGEN", DAY, -1)).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void refreshDetectsEditsThatKeepTheCountAndTimestamps() {
+        List<EmissionSource> sources = new ArrayList<>(List.of(source("1", ActivityType.ELECTRICITY, "ELECTRICITY", 0.5)));
+        when(repository.findAll()).thenAnswer(call -> sources);
+        catalog.refreshIfChanged();
+        assertThat(catalog.factor(ActivityType.ELECTRICITY, "ELECTRICITY", DAY, -1)).isEqualTo(0.5);
+
+        catalog.refreshIfChanged();
+        assertThat(reloads()).isEqualTo(1);
+
+        // Edited in place, e.g. from the shell: same id, same count, no updatedAt
+        sources.set(0, source("1", ActivityType.ELECTRICITY, "ELECTRICITY", 0.4));
+        catalog.refreshIfChanged();
+        assertThat(catalog.factor(ActivityType.ELECTRICITY, "ELECTRICITY", DAY, -1)).isEqualTo(0.4);
+        assertThat(reloads()).isEqualTo(2);
+    }
+
+    @Test
+    void datedSourcesApplyFromTheirStart() {
+        EmissionSource revised = source("1", ActivityType.FUEL, "DIESEL", 2.5);
+        revised.setValidFrom(DAY);
+        when(repository.findAll()).thenReturn(List.of(revised));
+        catalog.reload();
+
+        assertThat(catalog.factor(ActivityType.FUEL, "DIESEL", DAY.minusDays(1), -1)).isEqualTo(2.68);
+        assertThat(catalog.factor(ActivityType.FUEL, "DIESEL", DAY, -1)).isEqualTo(2.5);
+    }
+
+    private double reloads() {
+        return registry.get("sustainability.emission.factor.reloads").tag("outcome", "success").counter().count();
+    }
+
+    private static EmissionSource source(String id, ActivityType category, String key, double factor) {
+        EmissionSource source = new EmissionSource();
+        source.setSourceId(id);
+        source.setCategory(category);
+        source.setFactorKey(key);
+        source.setEmissionFactorCO2ePerUnit(factor);
+        source.setActive(true);
+        return source;
+    }
+}
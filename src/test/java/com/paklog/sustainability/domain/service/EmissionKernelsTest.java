@@ -0,0 +1,153 @@
+package com.paklog.sustainability.domain.service;
+
+import com.paklog.sustainability.domain.valueobject.FuelClass;
+import com.paklog.sustainability.domain.valueobject.MaterialClass;
+import com.paklog.sustainability.domain.valueobject.VehicleClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Runs the same random columns through the scalar calculations, {@link EmissionKernels} and
+ * {@link VectorEmissionKernels}, at lengths around multiples of the vector lane count so both the vector
+ * loop and its scalar tail are covered. Surefire starts the JVM with the incubator module, so the vector
+ * kernels are exercised directly as well as behind {@link EmissionKernels}.
+ */
+class EmissionKernelsTest {
+
+    private static final double RELATIVE_TOLERANCE = 1e-12;
+
+    private final Random random = new Random(7);
+    private final EmissionCalculationService calculationService =
+            new EmissionCalculationService(new EmissionFactorCatalog(null, new SimpleMeterRegistry(), 2.68, 2.31, 0.92));
+
+    @Test
+    void vectorKernelsAreEnabled() {
+        assertThat(EmissionKernels.VECTORIZED).isTrue();
+        assertThat(VectorEmissionKernels.lanes()).isPositive();
+    }
+
+    @Test
+    void twoColumnProductsAgree() {
+        for (int length : lengths()) {
+            double[] a = column(length);
+            double[] b = column(length);
+            double[] values = column(length);
+
+            double[] scalar = new double[length];
+            for (int i = 0; i < length; i++) {
+                scalar[i] = a[i] * b[i] * values[i];
+            }
+            double[] kernel = values.clone();
+            EmissionKernels.multiply(a, b, kernel, length);
+            double[] vector = values.clone();
+            VectorEmissionKernels.multiply(a, b, vector, length);
+
+            assertClose(kernel, scalar, length);
+            assertClose(vector, scalar, length);
+        }
+    }
+
+    @Test
+    void oneColumnProductsAgree() {
+        for (int length : lengths()) {
+            double[] a = column(length);
+            double[] values = column(length);
+
+            double[] scalar = new double[length];
+            for (int i = 0; i < length; i++) {
+                scalar[i] = a[i] * values[i];
+            }
+            double[] kernel = values.clone();
+            EmissionKernels.multiply(a, kernel, length);
+            double[] vector = values.clone();
+            VectorEmissionKernels.multiply(a, vector, length);
+
+            assertClose(kernel, scalar, length);
+            assertClose(vector, scalar, length);
+        }
+    }
+
+    @Test
+    void kernelsOnlyTouchTheFirstLengthElements() {
+        int lanes = VectorEmissionKernels.lanes();
+        int length = 2 * lanes + 1;
+        double[] a = column(length + lanes);
+        double[] values = column(length + lanes);
+        double[] vector = values.clone();
+        VectorEmissionKernels.multiply(a, vector, length);
+
+        for (int i = length; i < values.length; i++) {
+            assertThat(vector[i]).isEqualTo(values[i]);
+        }
+    }
+
+    @Test
+    void columnarCalculationsMatchTheScalarOnes() {
+        VehicleClass[] vehicles = VehicleClass.values();
+        FuelClass[] fuels = FuelClass.values();
+        MaterialClass[] materials = MaterialClass.values();
+        for (int length : lengths()) {
+            double[] distanceKm = column(length);
+            double[] loadTons = column(length);
+            double[] quantity = column(length);
+            byte[] vehicleCodes = new byte[length];
+            byte[] fuelCodes = new byte[length];
+            byte[] materialCodes = new byte[length];
+            double[] transport = new double[length];
+            double[] fuel = new double[length];
+            double[] packaging = new double[length];
+            for (int i = 0; i < length; i++) {
+                VehicleClass vehicle = vehicles[random.nextInt(vehicles.length)];
+                FuelClass fuelClass = fuels[random.nextInt(fuels.length)];
+                MaterialClass material = materials[random.nextInt(materials.length)];
+                vehicleCodes[i] = vehicle.code();
+                fuelCodes[i] = fuelClass.code();
+                materialCodes[i] = material.code();
+                transport[i] = calculationService.calculateTransportationEmissions(distanceKm[i], vehicle.name(), loadTons[i]);
+                fuel[i] = calculationService.calculateFuelEmissions(fuelClass.name(), quantity[i]);
+                packaging[i] = calculationService.calculatePackagingEmissions(material.name(), quantity[i]);
+            }
+
+            double[] out = new double[length];
+            calculationService.calculateTransportationEmissions(distanceKm, loadTons, vehicleCodes, out);
+            assertClose(out, transport, length);
+            calculationService.calculateFuelEmissions(quantity, fuelCodes, out);
+            assertClose(out, fuel, length);
+            calculationService.calculatePackagingEmissions(quantity, materialCodes, out);
+            assertClose(out, packaging, length);
+        }
+    }
+
+    /**
+     * Empty, shorter than one vector, and one either side of several multiples of the lane count.
+     */
+    private static int[] lengths() {
+        int lanes = VectorEmissionKernels.lanes();
+        return IntStream.concat(IntStream.of(0, 1, 1000, 1003),
+                        IntStream.rangeClosed(1, 4).flatMap(k -> IntStream.of(k * lanes - 1, k * lanes, k * lanes + 1)))
+                .filter(length -> length >= 0)
+                .distinct()
+                .toArray();
+    }
+
+    private double[] column(int length) {
+        double[] column = new double[length];
+        for (int i = 0; i < length; i++) {
+            column[i] = random.nextDouble() * 1000;
+        }
+        return column;
+    }
+
+    private static void assertClose(double[] actual, double[] expected, int length) {
+        for (int i = 0; i < length; i++) {
+            assertThat(actual[i]).as("length %d, row %d", length, i)
+                    .isCloseTo(expected[i], within(RELATIVE_TOLERANCE * Math.max(1.0, Math.abs(expected[i]))));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.paklog.sustainability.domain.valueobject;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class EmissionBreakdownTest {
+
+    @Test
+    void totalIsSummedFromTheCurrentValues() {
+        EmissionBreakdown breakdown = new EmissionBreakdown();
+        breakdown.put("truck", 0.1);
+        breakdown.put("truck", 1e17);
+        breakdown.put("truck", 0.2);
+        breakdown.add("meter", 0.3);
+
+        assertThat(breakdown.total()).isEqualTo(0.2 + 0.3);
+    }
+
+    @Test
+    void runningTotalOfAWideBreakdownMatchesAFreshSum() {
+        Random random = new Random(7);
+        EmissionBreakdown breakdown = new EmissionBreakdown();
+        for (int round = 0; round < 20_000; round++) {
+            String source = "wide-" + random.nextInt(2000);
+            double co2eKg = random.nextDouble() * Math.pow(10, random.nextInt(12) - 4);
+            if (random.nextBoolean()) {
+                breakdown.put(source, co2eKg);
+            } else {
+                breakdown.add(source, co2eKg);
+            }
+        }
+
+        double fresh = 0.0;
+        for (int i = 0; i < breakdown.size(); i++) {
+            fresh += breakdown.value(i);
+        }
+        assertThat(breakdown.size()).isGreaterThan(1000);
+        assertThat(breakdown.total()).isCloseTo(fresh, within(Math.ulp(fresh) * breakdown.size()));
+    }
+
+    @Test
+    void sourcesBeyondTheDictionaryBoundAreKeptInTheBreakdown() {
+        for (int i = 0; SourceDictionary.code("filler-" + i) != SourceDictionary.ABSENT; i++) {
+            assertThat(i).isLessThan(SourceDictionary.MAX_NAMES);
+        }
+        assertThat(SourceDictionary.size()).isEqualTo(SourceDictionary.MAX_NAMES);
+
+        Map<String, Double> expected = new LinkedHashMap<>();
+        EmissionBreakdown breakdown = new EmissionBreakdown();
+        for (int i = 0; i < 20; i++) {
+            String source = "overflow-" + i;
+            breakdown.add(source, i);
+            breakdown.add(source, 1);
+            expected.put(source, i + 1.0);
+        }
+        breakdown.put("filler-0", 5);
+        expected.put("filler-0", 5.0);
+
+        assertThat(breakdown.toMap()).containsExactlyEntriesOf(expected);
+        assertThat(breakdown.get("overflow-7")).isEqualTo(8.0);
+        assertThat(breakdown.contains("overflow-20")).isFalse();
+        assertThat(breakdown.get("overflow-20")).isZero();
+        assertThat(SourceDictionary.find("overflow-20")).isEqualTo(SourceDictionary.ABSENT);
+        assertThat(SourceDictionary.size()).isEqualTo(SourceDictionary.MAX_NAMES);
+        assertThat(breakdown.total()).isEqualTo(expected.values().stream().mapToDouble(Double::doubleValue).sum());
+    }
+}
@@ -0,0 +1,47 @@
+package com.paklog.sustainability.infrastructure.config;
+
+import com.mongodb.client.MongoDatabase;
+import com.paklog.sustainability.infrastructure.persistence.StorageLayout;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MongoTransactionConfigTest {
+
+    private final MongoTransactionConfig config = new MongoTransactionConfig();
+
+    @Test
+    void replicaSetsAndShardedClustersGetATransactionManager() {
+        assertThat(config.transactionManager(factory(new Document("setName", "rs0")), StorageLayout.STANDARD)).isNotNull();
+        assertThat(config.transactionManager(factory(new Document("msg", "isdbgrid")), StorageLayout.STANDARD)).isNotNull();
+    }
+
+    @Test
+    void standaloneServerFailsStartup() {
+        assertThatThrownBy(() -> config.transactionManager(factory(new Document("isWritablePrimary", true)), StorageLayout.STANDARD))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("replica set");
+    }
+
+    @Test
+    void timeSeriesLayoutFailsStartup() {
+        assertThatThrownBy(() -> config.transactionManager(factory(new Document("setName", "rs0")), StorageLayout.TIME_SERIES))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("TIME_SERIES");
+    }
+
+    private static MongoDatabaseFactory factory(Document hello) {
+        MongoDatabase database = mock(MongoDatabase.class);
+        when(database.runCommand(any(Bson.class))).thenReturn(hello);
+        MongoDatabaseFactory factory = mock(MongoDatabaseFactory.class);
+        when(factory.getMongoDatabase()).thenReturn(database);
+        return factory;
+    }
+}
@@ -0,0 +1,110 @@
+package com.paklog.sustainability.infrastructure.messaging;
+
+import com.paklog.sustainability.application.service.IdempotencyService;
+import com.paklog.sustainability.application.service.OperationalEmissionService;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OperationalEventListenerTest {
+
+    private static final String SOURCE = "/wms";
+
+    private final OperationalEventTranslator translator = mock(OperationalEventTranslator.class);
+    private final OperationalEmissionService emissionService = mock(OperationalEmissionService.class);
+    private final IdempotencyService idempotencyService = mock(IdempotencyService.class);
+    private final ConsumerRecordRecoverer deadLetterRecoverer = mock(ConsumerRecordRecoverer.class);
+    private final Acknowledgment ack = mock(Acknowledgment.class);
+    private final OperationalEventListener listener = new OperationalEventListener(translator, emissionService,
+            idempotencyService, deadLetterRecoverer);
+
+    OperationalEventListenerTest() throws IOException {
+        when(idempotencyService.claimEvents(anyCollection()))
+                .thenAnswer(call -> new HashSet<>(call.<Collection<String>>getArgument(0)));
+        when(translator.translate(anyString(), any(), any())).thenReturn(true);
+    }
+
+    @Test
+    void writtenPollIsAcknowledgedAndItsPoisonRecordsDeadLettered() {
+        List<ConsumerRecord<String, CloudEvent>> records = List.of(record(0, "a"), record(1, null), record(2, "b"));
+        when(emissionService.apply(any())).thenReturn(Set.of());
+
+        listener.onOperationalEvents(records, ack);
+
+        verify(ack).acknowledge();
+        verify(deadLetterRecoverer).accept(eq(records.get(1)), any());
+        verifyNoMoreInteractions(deadLetterRecoverer);
+        verify(idempotencyService, never()).releaseEvents(anyCollection());
+    }
+
+    @Test
+    void partlyWrittenPollFailsAtTheFirstUnwrittenRecord() {
+        List<ConsumerRecord<String, CloudEvent>> records = List.of(
+                record(0, "a"), record(1, null), record(2, "b"), record(3, null), record(4, "c"));
+        when(emissionService.apply(any())).thenReturn(Set.of(key("b")));
+
+        assertThatThrownBy(() -> listener.onOperationalEvents(records, ack))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> assertThat(e.getIndex()).isEqualTo(2));
+
+        // Only the claim of b is released: c was written and is skipped when redelivered
+        verify(idempotencyService).releaseEvents(Set.of(key("b")));
+        // The poison record before the failure is committed with a and dead-lettered now; the one after is redelivered
+        verify(deadLetterRecoverer).accept(eq(records.get(1)), any());
+        verifyNoMoreInteractions(deadLetterRecoverer);
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void failedWriteReleasesEveryClaimAndFailsAtTheFirstEvent() {
+        List<ConsumerRecord<String, CloudEvent>> records = List.of(record(0, null), record(1, "a"), record(2, "b"));
+        when(idempotencyService.claimEvents(anyCollection())).thenReturn(new HashSet<>(Set.of(key("a"), key("b"))));
+        when(emissionService.apply(any())).thenThrow(new IllegalStateException("mongod unavailable"));
+
+        assertThatThrownBy(() -> listener.onOperationalEvents(records, ack))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> {
+                    assertThat(e.getIndex()).isEqualTo(1);
+                    assertThat(e).hasRootCauseMessage("mongod unavailable");
+                });
+
+        verify(idempotencyService).releaseEvents(argThat(keys -> Set.copyOf(keys).equals(Set.of(key("a"), key("b")))));
+        verify(deadLetterRecoverer).accept(eq(records.get(0)), any());
+        verify(ack, never()).acknowledge();
+    }
+
+    private static ConsumerRecord<String, CloudEvent> record(int offset, String eventId) {
+        CloudEvent event = eventId == null ? null : CloudEventBuilder.v1()
+                .withId(eventId)
+                .withSource(URI.create(SOURCE))
+                .withType("com.paklog.wms.energy.consumed")
+                .build();
+        return new ConsumerRecord<>(OperationalTopics.ENERGY_CONSUMED, 0, offset, "WH-1", event);
+    }
+
+    private static String key(String eventId) {
+        return SOURCE + "#" + eventId;
+    }
+}
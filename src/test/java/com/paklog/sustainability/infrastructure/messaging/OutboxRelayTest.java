@@ -0,0 +1,94 @@
+package com.paklog.sustainability.infrastructure.messaging;
+
+import com.paklog.sustainability.domain.aggregate.OutboxEvent;
+import com.paklog.sustainability.domain.repository.OutboxEventRepository;
+import com.paklog.sustainability.domain.valueobject.SustainabilityEventType;
+import io.cloudevents.CloudEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private final OutboxEventRepository outboxRepository = mock(OutboxEventRepository.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, CloudEvent> kafkaTemplate = mock(KafkaTemplate.class);
+    private final OutboxRelay relay = new OutboxRelay(outboxRepository, kafkaTemplate, new SimpleMeterRegistry(),
+            2, 30_000, 1_000, 5, 1_000, 60_000);
+
+    @Test
+    void fullBatchesAreDrainedUntilAShortOne() {
+        when(outboxRepository.claimBatch(anyString(), any(), anyInt()))
+                .thenReturn(List.of(event("e1", 1), event("e2", 1)), List.of(event("e3", 1)));
+        when(kafkaTemplate.send(anyString(), anyString(), any(CloudEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.drain();
+
+        verify(outboxRepository, times(2)).claimBatch(anyString(), any(), anyInt());
+        verify(outboxRepository).markPublished(eq(List.of("e1", "e2")), any());
+        verify(outboxRepository).markPublished(eq(List.of("e3")), any());
+    }
+
+    @Test
+    void failedSendEndsThePollAndBacksTheEventOff() {
+        when(outboxRepository.claimBatch(anyString(), any(), anyInt()))
+                .thenReturn(List.of(event("e1", 1), event("e2", 3)));
+        when(kafkaTemplate.send(anyString(), anyString(), any(CloudEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        Instant before = Instant.now();
+        relay.drain();
+
+        verify(outboxRepository, times(1)).claimBatch(anyString(), any(), anyInt());
+        verify(outboxRepository).markPublished(eq(List.of("e1")), any());
+        ArgumentCaptor<Instant> retryAt = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxRepository).release(eq(List.of("e2")), anyString(), retryAt.capture());
+        // Third attempt: 1 s doubled twice
+        assertThat(Duration.between(before, retryAt.getValue())).isBetween(Duration.ofSeconds(4), Duration.ofSeconds(5));
+        verify(outboxRepository).park(List.of(), "java.lang.IllegalStateException: broker down");
+    }
+
+    @Test
+    void eventsOutOfAttemptsAreParked() {
+        when(outboxRepository.claimBatch(anyString(), any(), anyInt()))
+                .thenReturn(List.of(event("e1", 5), event("e2", 4)));
+        when(kafkaTemplate.send(anyString(), anyString(), any(CloudEvent.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("record too large")));
+
+        relay.drain();
+
+        verify(outboxRepository).park(eq(List.of("e1")), anyString());
+        verify(outboxRepository).release(eq(List.of("e2")), anyString(), any());
+    }
+
+    private static OutboxEvent event(String eventId, int attempts) {
+        return OutboxEvent.builder()
+                .eventId(eventId)
+                .type(SustainabilityEventType.EMISSIONS_CALCULATED)
+                .partitionKey("WH-1")
+                .subject("WH-1")
+                .payload("{}")
+                .status(OutboxEvent.PENDING)
+                .attempts(attempts)
+                .createdAt(Instant.now())
+                .build();
+    }
+}
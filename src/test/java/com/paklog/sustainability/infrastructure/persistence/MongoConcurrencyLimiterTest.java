@@ -0,0 +1,87 @@
+package com.paklog.sustainability.infrastructure.persistence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MongoConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MongoConcurrencyLimiter limiter = new MongoConcurrencyLimiter(meterRegistry, 1, Duration.ofMillis(50));
+
+    @Test
+    void callsBeyondThePermitsAreRejectedAfterTheTimeout() throws Throwable {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch leave = new CountDownLatch(1);
+        CompletableFuture<Object> holder = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.limit(call(() -> {
+                    inside.countDown();
+                    leave.await();
+                    return "first";
+                }));
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(active()).isEqualTo(1);
+
+        assertThatThrownBy(() -> limiter.limit(call(() -> "second")))
+                .isInstanceOf(TransientDataAccessResourceException.class);
+        assertThat(meterRegistry.counter("sustainability.mongo.limiter.rejections").count()).isEqualTo(1);
+
+        leave.countDown();
+        assertThat(holder.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(active()).isZero();
+        assertThat(limiter.limit(call(() -> "third"))).isEqualTo("third");
+    }
+
+    @Test
+    void nestedCallsReuseTheOuterPermit() throws Throwable {
+        Object result = limiter.limit(call(() -> limiter.limit(call(() -> {
+            assertThat(active()).isEqualTo(1);
+            return "nested";
+        }))));
+
+        assertThat(result).isEqualTo("nested");
+        assertThat(active()).isZero();
+    }
+
+    @Test
+    void aFailingCallReleasesItsPermit() throws Throwable {
+        assertThatThrownBy(() -> limiter.limit(call(() -> {
+            throw new IllegalStateException("boom");
+        }))).isInstanceOf(IllegalStateException.class);
+
+        assertThat(active()).isZero();
+        assertThat(limiter.limit(call(() -> limiter.limit(call(() -> "again"))))).isEqualTo("again");
+    }
+
+    private double active() {
+        return meterRegistry.get("sustainability.mongo.limiter.active").gauge().value();
+    }
+
+    private static ProceedingJoinPoint call(Body body) throws Throwable {
+        ProceedingJoinPoint call = mock(ProceedingJoinPoint.class);
+        when(call.getTarget()).thenReturn(new Object());
+        when(call.proceed()).thenAnswer(invocation -> body.run());
+        return call;
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        Object run() throws Throwable;
+    }
+}
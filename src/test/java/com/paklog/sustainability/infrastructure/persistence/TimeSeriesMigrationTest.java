@@ -0,0 +1,135 @@
+package com.paklog.sustainability.infrastructure.persistence;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.ListCollectionsIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.UpdateOptions;
+import com.paklog.sustainability.domain.aggregate.CarbonFootprint;
+import com.paklog.sustainability.domain.aggregate.SustainabilityMetric;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+class TimeSeriesMigrationTest {
+
+    private static final String FOOTPRINTS = "carbon_footprints";
+    private static final String LEGACY = "carbon_footprints_legacy";
+
+    // Collections in the database by name, as listCollections reports them
+    private final Map<String, Document> collections = new HashMap<>();
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MongoCollection<Document> footprints = mock(MongoCollection.class);
+    private final FindIterable<Document> footprintsFind = mock(FindIterable.class);
+    private final MongoCollection<Document> legacy = mock(MongoCollection.class);
+    private final MongoCollection<Document> migrations = mock(MongoCollection.class);
+    private final TimeSeriesMigration migration = new TimeSeriesMigration(mongoTemplate);
+
+    @BeforeEach
+    void setUp() {
+        MongoDatabase db = mock(MongoDatabase.class);
+        ListCollectionsIterable<Document> listing = mock(ListCollectionsIterable.class);
+        when(mongoTemplate.getDb()).thenReturn(db);
+        when(db.getName()).thenReturn("sustainability");
+        when(db.listCollections()).thenReturn(listing);
+        when(listing.filter(any(Bson.class))).thenAnswer(invocation -> {
+            String name = invocation.<Bson>getArgument(0).toBsonDocument().getString("name").getValue();
+            ListCollectionsIterable<Document> byName = mock(ListCollectionsIterable.class);
+            when(byName.first()).thenAnswer(first -> collections.get(name));
+            return byName;
+        });
+
+        when(mongoTemplate.getCollectionName(CarbonFootprint.class)).thenReturn(FOOTPRINTS);
+        when(mongoTemplate.getCollectionName(SustainabilityMetric.class)).thenReturn("sustainability_metrics");
+        // Metrics are already migrated, so only the footprints are looked at
+        collections.put("sustainability_metrics", new Document("name", "sustainability_metrics").append("type", "timeseries"));
+
+        when(mongoTemplate.getCollection(FOOTPRINTS)).thenReturn(footprints);
+        when(footprints.find()).thenReturn(footprintsFind);
+        doAnswer(invocation -> collections.remove(FOOTPRINTS)).when(footprints).drop();
+        doAnswer(invocation -> collections.put(LEGACY, collections.remove(FOOTPRINTS)))
+                .when(footprints).renameCollection(any(MongoNamespace.class));
+        when(mongoTemplate.createCollection(eq(FOOTPRINTS), any(CollectionOptions.class))).thenAnswer(invocation -> {
+            collections.put(FOOTPRINTS, new Document("name", FOOTPRINTS).append("type", "timeseries"));
+            return footprints;
+        });
+
+        FindIterable<Document> legacyFind = mock(FindIterable.class);
+        when(mongoTemplate.getCollection(LEGACY)).thenReturn(legacy);
+        when(legacy.find()).thenReturn(legacyFind);
+        when(legacyFind.batchSize(any(Integer.class))).thenReturn(legacyFind);
+        when(legacyFind.iterator()).thenReturn(mock(MongoCursor.class));
+
+        when(mongoTemplate.getCollection("storage_migrations")).thenReturn(migrations);
+        when(migrations.find(any(Bson.class))).thenReturn(mock(FindIterable.class));
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        when(mongoTemplate.indexOps(CarbonFootprint.class)).thenReturn(mock(IndexOperations.class));
+    }
+
+    @Test
+    void emptyCollectionFromIndexCreationIsReplacedWithoutALegacyCopy() {
+        collections.put(FOOTPRINTS, new Document("name", FOOTPRINTS).append("type", "collection"));
+
+        migration.afterSingletonsInstantiated();
+
+        verify(footprints).drop();
+        verify(footprints, never()).renameCollection(any(MongoNamespace.class));
+        verify(legacy, never()).find();
+        assertThat(collections).doesNotContainKey(LEGACY);
+        assertThat(collections.get(FOOTPRINTS).getString("type")).isEqualTo("timeseries");
+        // Straight to DONE, with no COPYING step
+        verify(migrations).updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class));
+    }
+
+    @Test
+    void collectionWithDocumentsIsRenamedAndCopied() {
+        collections.put(FOOTPRINTS, new Document("name", FOOTPRINTS).append("type", "collection"));
+        when(footprintsFind.first()).thenReturn(new Document("_id", "fp-1"));
+
+        migration.afterSingletonsInstantiated();
+
+        verify(footprints, never()).drop();
+        verify(footprints).renameCollection(new MongoNamespace("sustainability", LEGACY));
+        verify(legacy).find();
+        assertThat(collections.get(FOOTPRINTS).getString("type")).isEqualTo("timeseries");
+    }
+
+    @Test
+    void emptyCollectionRecreatedAfterAnInterruptedRenameStillCopiesTheLegacyCollection() {
+        collections.put(FOOTPRINTS, new Document("name", FOOTPRINTS).append("type", "collection"));
+        collections.put(LEGACY, new Document("name", LEGACY).append("type", "collection"));
+
+        migration.afterSingletonsInstantiated();
+
+        verify(footprints).drop();
+        verify(legacy).find();
+        assertThat(collections.get(FOOTPRINTS).getString("type")).isEqualTo("timeseries");
+    }
+}